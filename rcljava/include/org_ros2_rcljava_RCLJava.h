@@ -23,9 +23,9 @@ extern "C" {
 /*
  * Class:     org_ros2_rcljava_RCLJava
  * Method:    nativeRCLJavaInit
- * Signature: ()V
+ * Signature: (I)V
  */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_RCLJava_nativeRCLJavaInit(JNIEnv *, jclass);
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_RCLJava_nativeRCLJavaInit(JNIEnv *, jclass, jint);
 
 /*
  * Class:     org_ros2_rcljava_RCLJava
@@ -72,6 +72,43 @@ JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_RCLJava_nativeConvertQoSProfileToH
 JNIEXPORT void JNICALL
   Java_org_ros2_rcljava_RCLJava_nativeDisposeQoSProfile(JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     org_ros2_rcljava_RCLJava
+ * Method:    nativeSetParallelConversionThreshold
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL
+  Java_org_ros2_rcljava_RCLJava_nativeSetParallelConversionThreshold(JNIEnv *, jclass, jint);
+
+/*
+ * Class:     org_ros2_rcljava_RCLJava
+ * Method:    nativeGetParallelConversionThreshold
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+  Java_org_ros2_rcljava_RCLJava_nativeGetParallelConversionThreshold(JNIEnv *, jclass);
+
+/*
+ * Class:     org_ros2_rcljava_RCLJava
+ * Method:    nativeGetAllocationCount
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_RCLJava_nativeGetAllocationCount(JNIEnv *, jclass);
+
+/*
+ * Class:     org_ros2_rcljava_RCLJava
+ * Method:    nativeGetDeallocationCount
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_RCLJava_nativeGetDeallocationCount(JNIEnv *, jclass);
+
+/*
+ * Class:     org_ros2_rcljava_RCLJava
+ * Method:    nativeGetAllocatedBytes
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_RCLJava_nativeGetAllocatedBytes(JNIEnv *, jclass);
+
 #ifdef __cplusplus
 }
 #endif
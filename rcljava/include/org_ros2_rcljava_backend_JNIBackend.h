@@ -0,0 +1,51 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+/* Header for class org_ros2_rcljava_backend_JNIBackend */
+
+#ifndef ORG_ROS2_RCLJAVA_BACKEND_JNIBACKEND_H_
+#define ORG_ROS2_RCLJAVA_BACKEND_JNIBACKEND_H_
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/*
+ * Class:     org_ros2_rcljava_backend_JNIBackend
+ * Method:    nativeTake
+ * Signature: (JJ[B)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_backend_JNIBackend_nativeTake(
+  JNIEnv *, jclass, jlong, jlong, jbyteArray);
+
+/*
+ * Class:     org_ros2_rcljava_backend_JNIBackend
+ * Method:    nativePublish
+ * Signature: (JLjava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_backend_JNIBackend_nativePublish(
+  JNIEnv *, jclass, jlong, jobject);
+
+/*
+ * Class:     org_ros2_rcljava_backend_JNIBackend
+ * Method:    nativeWait
+ * Signature: ([J[J[J[J[JJ)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_backend_JNIBackend_nativeWait(
+  JNIEnv *, jclass, jlongArray, jlongArray, jlongArray, jlongArray, jlongArray, jlong);
+
+#ifdef __cplusplus
+}
+#endif
+#endif  // ORG_ROS2_RCLJAVA_BACKEND_JNIBACKEND_H_
@@ -21,102 +21,6 @@
 extern "C" {
 #endif
 
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeGetZeroInitializedWaitSet
- * Signature: ()J
- */
-JNIEXPORT jlong JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeGetZeroInitializedWaitSet(JNIEnv *, jclass);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetInit
- * Signature: (JIIIII)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetInit(
-  JNIEnv *, jclass, jlong, jint, jint, jint, jint, jint);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeDisposeWaitSet
- * Signature: (J)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeDisposeWaitSet(
-  JNIEnv *, jclass, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetClearSubscriptions
- * Signature: (J)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearSubscriptions(
-  JNIEnv *, jclass, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetClearTimers
- * Signature: (J)V
- */
-JNIEXPORT void JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearTimers(JNIEnv *, jclass, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetClearServices
- * Signature: (J)V
- */
-JNIEXPORT void JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearServices(JNIEnv *, jclass, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetAddSubscription
- * Signature: (JJ)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddSubscription(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWait
- * Signature: (JJ)V
- */
-JNIEXPORT void JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeWait(JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeTake
- * Signature: (JLjava/lang/Class;)Lorg/ros2/rcljava/interfaces/MessageDefinition;
- */
-JNIEXPORT jobject JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeTake(JNIEnv *, jclass, jlong, jclass);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetAddService
- * Signature: (JJ)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddService(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetClearClients
- * Signature: (J)V
- */
-JNIEXPORT void JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearClients(JNIEnv *, jclass, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetAddClient
- * Signature: (JJ)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddClient(
-  JNIEnv *, jclass, jlong, jlong);
-
 /*
  * Class:     org_ros2_rcljava_executors_BaseExecutor
  * Method:    nativeTakeRequest
@@ -141,47 +45,6 @@ JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeSendSe
 JNIEXPORT jobject JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeTakeResponse(
   JNIEnv *, jclass, jlong, jlong, jlong, jlong, jobject);
 
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetAddTimer
- * Signature: (JJ)V
- */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddTimer(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetSubscriptionIsReady
- * Signature: (JJ)Z
- */
-JNIEXPORT jboolean JNICALL
-  Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetSubscriptionIsReady(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetTimerIsReady
- * Signature: (JJ)Z
- */
-JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetTimerIsReady(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetServiceIsReady
- * Signature: (JJ)Z
- */
-JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetServiceIsReady(
-  JNIEnv *, jclass, jlong, jlong);
-
-/*
- * Class:     org_ros2_rcljava_executors_BaseExecutor
- * Method:    nativeWaitSetClientIsReady
- * Signature: (JJ)Z
- */
-JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClientIsReady(
-  JNIEnv *, jclass, jlong, jlong);
-
 #ifdef __cplusplus
 }
 #endif
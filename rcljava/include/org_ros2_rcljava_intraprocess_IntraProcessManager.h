@@ -0,0 +1,80 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+/* Header for class org_ros2_rcljava_intraprocess_IntraProcessManager */
+
+#ifndef ORG_ROS2_RCLJAVA_INTRAPROCESS_INTRAPROCESSMANAGER_H_
+#define ORG_ROS2_RCLJAVA_INTRAPROCESS_INTRAPROCESSMANAGER_H_
+#ifdef __cplusplus
+extern "C" {
+#endif
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeGetPublisherTopicName
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetPublisherTopicName(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeGetSubscriptionTopicName
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetSubscriptionTopicName(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeGetPublisherGid
+ * Signature: (J)[B
+ */
+JNIEXPORT jbyteArray JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetPublisherGid(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeGetNodeName
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetNodeName(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeGetNodeNamespace
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetNodeNamespace(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_intraprocess_IntraProcessManager
+ * Method:    nativeCountExternalSubscribers
+ * Signature: (JLjava/lang/String;[Ljava/lang/String;[Ljava/lang/String;)I
+ */
+JNIEXPORT jint JNICALL
+  Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeCountExternalSubscribers(
+  JNIEnv *, jclass, jlong, jstring, jobjectArray, jobjectArray);
+
+#ifdef __cplusplus
+}
+#endif
+#endif  // ORG_ROS2_RCLJAVA_INTRAPROCESS_INTRAPROCESSMANAGER_H_
@@ -36,6 +36,23 @@ JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublishe
 JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
   JNIEnv *, jclass, jlong, jclass, jstring, jlong);
 
+/*
+ * Class:     org_ros2_rcljava_node_NodeImpl
+ * Method:    nativeCreateSerializedPublisherHandle
+ * Signature: (JLjava/lang/String;Ljava/lang/String;J)J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSerializedPublisherHandle(
+  JNIEnv *, jclass, jlong, jstring, jstring, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_node_NodeImpl
+ * Method:    nativeCreateSerializedSubscriptionHandle
+ * Signature: (JLjava/lang/String;Ljava/lang/String;J)J
+ */
+JNIEXPORT jlong JNICALL
+  Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSerializedSubscriptionHandle(
+  JNIEnv *, jclass, jlong, jstring, jstring, jlong);
+
 /*
  * Class:     org_ros2_rcljava_node_NodeImpl
  * Method:    nativeCreateServiceHandle
@@ -59,6 +76,30 @@ JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeCreateClientHa
  */
 JNIEXPORT void JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeDispose(JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     org_ros2_rcljava_node_NodeImpl
+ * Method:    nativeCreateGraphWaitSet
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeCreateGraphWaitSet(
+  JNIEnv *, jclass);
+
+/*
+ * Class:     org_ros2_rcljava_node_NodeImpl
+ * Method:    nativeWaitForGraphChange
+ * Signature: (JJJ)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeWaitForGraphChange(
+  JNIEnv *, jclass, jlong, jlong, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_node_NodeImpl
+ * Method:    nativeDisposeGraphWaitSet
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_node_NodeImpl_nativeDisposeGraphWaitSet(
+  JNIEnv *, jclass, jlong);
+
 /*
  * Class:     org_ros2_rcljava_node_NodeImpl
  * Method:    nativeCreateTimerHandle
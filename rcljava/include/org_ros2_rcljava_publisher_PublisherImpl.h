@@ -23,10 +23,50 @@ extern "C" {
 /*
  * Class:     org_ros2_rcljava_publisher_PublisherImpl
  * Method:    nativePublish
- * Signature: (JJLorg/ros2/rcljava/interfaces/MessageDefinition;)V
+ * Signature: (JJJJLorg/ros2/rcljava/interfaces/MessageDefinition;)J
  */
-JNIEXPORT void JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublish(
-  JNIEnv *, jclass, jlong, jlong, jobject);
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublish(
+  JNIEnv *, jclass, jlong, jlong, jlong, jlong, jobject);
+
+/*
+ * Class:     org_ros2_rcljava_publisher_PublisherImpl
+ * Method:    nativePublishBatch
+ * Signature: ([J[J[J[Lorg/ros2/rcljava/interfaces/MessageDefinition;I)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublishBatch(
+  JNIEnv *, jclass, jlongArray, jlongArray, jlongArray, jobjectArray, jint);
+
+/*
+ * Class:     org_ros2_rcljava_publisher_PublisherImpl
+ * Method:    nativePublishSerialized
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublishSerialized(
+  JNIEnv *, jclass, jlong, jobject, jint, jint);
+
+/*
+ * Class:     org_ros2_rcljava_publisher_PublisherImpl
+ * Method:    nativeDisposeMessage
+ * Signature: (JJ)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativeDisposeMessage(
+  JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_publisher_PublisherImpl
+ * Method:    nativeInitLoanedMessage
+ * Signature: (JLorg/ros2/rcljava/interfaces/MessageDefinition;Ljava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativeInitLoanedMessage(
+  JNIEnv *, jclass, jlong, jobject, jobject);
+
+/*
+ * Class:     org_ros2_rcljava_publisher_PublisherImpl
+ * Method:    nativeGetSubscriptionCount
+ * Signature: (JJ)I
+ */
+JNIEXPORT jint JNICALL Java_org_ros2_rcljava_publisher_PublisherImpl_nativeGetSubscriptionCount(
+  JNIEnv *, jclass, jlong, jlong);
 
 /*
  * Class:     org_ros2_rcljava_publisher_PublisherImpl
@@ -0,0 +1,51 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+/* Header for class org_ros2_rcljava_subscription_LoanedSubscriptionImpl */
+
+#ifndef ORG_ROS2_RCLJAVA_SUBSCRIPTION_LOANEDSUBSCRIPTIONIMPL_H_
+#define ORG_ROS2_RCLJAVA_SUBSCRIPTION_LOANEDSUBSCRIPTIONIMPL_H_
+#ifdef __cplusplus
+extern "C" {
+#endif
+/*
+ * Class:     org_ros2_rcljava_subscription_LoanedSubscriptionImpl
+ * Method:    nativeCreateLoanedMessage
+ * Signature: (JJI)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL
+  Java_org_ros2_rcljava_subscription_LoanedSubscriptionImpl_nativeCreateLoanedMessage(
+  JNIEnv *, jclass, jlong, jlong, jint);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_LoanedSubscriptionImpl
+ * Method:    nativeTake
+ * Signature: (JLjava/nio/ByteBuffer;)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_subscription_LoanedSubscriptionImpl_nativeTake(
+  JNIEnv *, jclass, jlong, jobject);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_LoanedSubscriptionImpl
+ * Method:    nativeDispose
+ * Signature: (JJJLjava/nio/ByteBuffer;)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_subscription_LoanedSubscriptionImpl_nativeDispose(
+  JNIEnv *, jclass, jlong, jlong, jlong, jobject);
+
+#ifdef __cplusplus
+}
+#endif
+#endif  // ORG_ROS2_RCLJAVA_SUBSCRIPTION_LOANEDSUBSCRIPTIONIMPL_H_
@@ -0,0 +1,60 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+/* Header for class org_ros2_rcljava_subscription_PollingSubscriptionImpl */
+
+#ifndef ORG_ROS2_RCLJAVA_SUBSCRIPTION_POLLINGSUBSCRIPTIONIMPL_H_
+#define ORG_ROS2_RCLJAVA_SUBSCRIPTION_POLLINGSUBSCRIPTIONIMPL_H_
+#ifdef __cplusplus
+extern "C" {
+#endif
+/*
+ * Class:     org_ros2_rcljava_subscription_PollingSubscriptionImpl
+ * Method:    nativeCreateMessage
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL
+  Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeCreateMessage(
+  JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_PollingSubscriptionImpl
+ * Method:    nativeTake
+ * Signature: (JJJJLorg/ros2/rcljava/interfaces/MessageDefinition;)Lorg/ros2/rcljava/interfaces/MessageDefinition;
+ */
+JNIEXPORT jobject JNICALL Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeTake(
+  JNIEnv *, jclass, jlong, jlong, jlong, jlong, jobject);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_PollingSubscriptionImpl
+ * Method:    nativeWaitForMessage
+ * Signature: (JJJ)Z
+ */
+JNIEXPORT jboolean JNICALL
+  Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeWaitForMessage(
+  JNIEnv *, jclass, jlong, jlong, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_PollingSubscriptionImpl
+ * Method:    nativeDispose
+ * Signature: (JJJJJ)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeDispose(
+  JNIEnv *, jclass, jlong, jlong, jlong, jlong, jlong);
+
+#ifdef __cplusplus
+}
+#endif
+#endif  // ORG_ROS2_RCLJAVA_SUBSCRIPTION_POLLINGSUBSCRIPTIONIMPL_H_
@@ -20,6 +20,71 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeCreateMessage
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL
+  Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeCreateMessage(JNIEnv *, jclass, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeDestroyMessage
+ * Signature: (JJ)V
+ */
+JNIEXPORT void JNICALL Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeDestroyMessage(
+  JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeTakeWithInfo
+ * Signature: (JJ[B[J[J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeWithInfo(
+  JNIEnv *, jclass, jlong, jlong, jbyteArray, jlongArray, jlongArray);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeTakeLatest
+ * Signature: (JJJ[B[J)J
+ */
+JNIEXPORT jlong JNICALL Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeLatest(
+  JNIEnv *, jclass, jlong, jlong, jlong, jbyteArray, jlongArray);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeAccept
+ * Signature: (J[J)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeAccept(
+  JNIEnv *, jclass, jlong, jlongArray);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeConvert
+ * Signature: (JJ)Lorg/ros2/rcljava/interfaces/MessageDefinition;
+ */
+JNIEXPORT jobject JNICALL
+  Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeConvert(JNIEnv *, jclass, jlong, jlong);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeConvertProjected
+ * Signature: (JJ[J)Lorg/ros2/rcljava/interfaces/MessageDefinition;
+ */
+JNIEXPORT jobject JNICALL
+  Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeConvertProjected(
+  JNIEnv *, jclass, jlong, jlong, jlongArray);
+
+/*
+ * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
+ * Method:    nativeTakeBatch
+ * Signature: (JJJ[Lorg/ros2/rcljava/interfaces/MessageDefinition;I)I
+ */
+JNIEXPORT jint JNICALL Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeBatch(
+  JNIEnv *, jclass, jlong, jlong, jlong, jobjectArray, jint);
+
 /*
  * Class:     org_ros2_rcljava_subscription_SubscriptionImpl
  * Method:    nativeDispose
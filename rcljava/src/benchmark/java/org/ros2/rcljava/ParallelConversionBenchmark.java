@@ -0,0 +1,225 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava;
+
+import java.lang.reflect.Method;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ros2.rcljava.backend.NativeBackend;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.SubscriptionImpl;
+
+/**
+ * Sweep over sequence sizes of the conversion of sequences of nested
+ * messages, on the calling thread and split across the conversion threads,
+ * to find the crossover to pass to
+ * @{link RCLJava#setParallelConversionThreshold(int)}. Run by hand with the
+ * rcljava and rcljava_benchmark jars on the classpath:
+ * java org.ros2.rcljava.ParallelConversionBenchmark [elements] [maxSize]
+ * Each size is converted about elements / size times. Conversions to Java
+ * are measured on a C message that has already been taken, conversions from
+ * Java include publishing the message, which costs the same in both modes.
+ */
+public final class ParallelConversionBenchmark<T extends MessageDefinition> {
+  private static final long READY_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+  private static final int MIN_SIZE = 16;
+
+  private final String name;
+
+  private final Publisher<T> publisher;
+
+  private final Subscription<T> subscription;
+
+  private final long messageHandle;
+
+  private final Method convert;
+
+  /**
+   * The last message converted, so that converting cannot be optimized away.
+   */
+  private MessageDefinition converted;
+
+  private ParallelConversionBenchmark(final Node node, final String name,
+      final Class<T> messageType, final Method convert) throws Exception {
+    this.name = name;
+    String topic = "parallel_conversion_benchmark_" + name.toLowerCase();
+    this.publisher = node.<T>createPublisher(messageType, topic);
+    this.subscription = node.<T>createSubscription(messageType, topic, new Consumer<T>() {
+      public void accept(final T msg) {
+      }
+    });
+    this.messageHandle = getMessageHandle(this.subscription);
+    this.convert = convert;
+  }
+
+  /**
+   * @return The average duration of a publish, in nanoseconds.
+   */
+  private double benchmarkFromJava(final T message, final int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.publisher.publish(message);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * @return The average duration of a conversion of the taken C message to
+   *     Java, in nanoseconds.
+   */
+  private double benchmarkToJava(final T message, final int iterations) throws Exception {
+    long toJavaConverterHandle = message.getToJavaConverterInstance();
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.converted = (MessageDefinition) this.convert.invoke(
+          null, this.messageHandle, toJavaConverterHandle);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * Publish a message and take it into the C message owned by the
+   * subscription, which is then converted to Java by each iteration.
+   */
+  private void takeMessage(final T message) {
+    NativeBackend backend = RCLJava.getNativeBackend();
+    long[] subscriptionHandles = new long[1];
+    long[] noHandles = new long[0];
+    do {
+      this.publisher.publish(message);
+      subscriptionHandles[0] = this.subscription.getHandle();
+      backend.waitFor(
+          subscriptionHandles, noHandles, noHandles, noHandles, noHandles, READY_TIMEOUT);
+    } while (subscriptionHandles[0] == 0
+        || !backend.take(this.subscription.getHandle(), this.messageHandle, null));
+  }
+
+  private void run(final T message, final int size, final int elements) throws Exception {
+    this.takeMessage(message);
+    int iterations = Math.max(elements / size, 1);
+    // The first round warms up the JIT and the conversion threads, and is not reported
+    for (int round = 0; round < 2; round++) {
+      int roundIterations = round == 0 ? Math.max(iterations / 10, 1) : iterations;
+      RCLJava.setParallelConversionThreshold(0);
+      double sequentialFromJava = this.benchmarkFromJava(message, roundIterations);
+      double sequentialToJava = this.benchmarkToJava(message, roundIterations);
+      RCLJava.setParallelConversionThreshold(1);
+      double parallelFromJava = this.benchmarkFromJava(message, roundIterations);
+      double parallelToJava = this.benchmarkToJava(message, roundIterations);
+      if (round > 0) {
+        this.report(size, "from java", sequentialFromJava, parallelFromJava);
+        this.report(size, "to java", sequentialToJava, parallelToJava);
+      }
+    }
+    if (!message.equals(this.converted)) {
+      throw new IllegalStateException("Message was not converted correctly: " + this.name);
+    }
+  }
+
+  private void dispose() {
+    this.subscription.dispose();
+    this.publisher.dispose();
+  }
+
+  private void report(final int size, final String call, final double sequential,
+      final double parallel) {
+    System.out.println(String.format("%-18s %8d %-9s %12.1f %12.1f ns/op %6.2fx", this.name,
+        size, call, sequential, parallel, sequential / parallel));
+  }
+
+  /**
+   * The C message owned by a subscription is not part of its API.
+   */
+  private static long getMessageHandle(final Subscription<?> subscription) throws Exception {
+    Method method = SubscriptionImpl.class.getDeclaredMethod("getMessageHandle");
+    method.setAccessible(true);
+    return (Long) method.invoke(subscription);
+  }
+
+  private static rcljava.msg.DynamicArrayPoint createDynamicArrayPoint(final int size) {
+    List<rcljava.msg.Point> values = new ArrayList<rcljava.msg.Point>(size);
+    for (int i = 0; i < size; i++) {
+      rcljava.msg.Point point = new rcljava.msg.Point();
+      point.setX(i);
+      point.setY(i * 0.5);
+      point.setZ(-i);
+      values.add(point);
+    }
+    rcljava.msg.DynamicArrayPoint msg = new rcljava.msg.DynamicArrayPoint();
+    msg.setPointValues(values);
+    return msg;
+  }
+
+  private static rcljava.msg.DynamicArrayNested createDynamicArrayNested(final int size) {
+    List<rcljava.msg.Primitives> values = new ArrayList<rcljava.msg.Primitives>(size);
+    for (int i = 0; i < size; i++) {
+      rcljava.msg.Primitives primitives = new rcljava.msg.Primitives();
+      primitives.setInt32Value(i);
+      primitives.setFloat64Value(i * 0.5);
+      primitives.setStringValue("element " + i);
+      values.add(primitives);
+    }
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(values);
+    return msg;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    int elements = args.length > 0 ? Integer.parseInt(args[0]) : 4000000;
+    int maxSize = args.length > 1 ? Integer.parseInt(args[1]) : 65536;
+
+    RCLJava.rclJavaInit();
+    int threshold = RCLJava.getParallelConversionThreshold();
+    // The JNI converters are only reachable through the native methods of the subscriptions
+    Method convert =
+        SubscriptionImpl.class.getDeclaredMethod("nativeConvert", long.class, long.class);
+    convert.setAccessible(true);
+
+    Node node = RCLJava.createNode("parallel_conversion_benchmark");
+    ParallelConversionBenchmark<rcljava.msg.DynamicArrayPoint> points =
+        new ParallelConversionBenchmark<rcljava.msg.DynamicArrayPoint>(
+            node, "DynamicArrayPoint", rcljava.msg.DynamicArrayPoint.class, convert);
+    ParallelConversionBenchmark<rcljava.msg.DynamicArrayNested> nested =
+        new ParallelConversionBenchmark<rcljava.msg.DynamicArrayNested>(
+            node, "DynamicArrayNested", rcljava.msg.DynamicArrayNested.class, convert);
+
+    System.out.println(String.format("%-18s %8s %-9s %12s %12s", "message", "size", "call",
+        "sequential", "parallel"));
+    try {
+      for (int size = MIN_SIZE; size <= maxSize; size *= 4) {
+        points.run(createDynamicArrayPoint(size), size, elements);
+        nested.run(createDynamicArrayNested(size), size, elements);
+      }
+    } catch (Exception e) {
+      // Large messages can exceed what the middleware is configured to publish
+      System.out.println("Sweep stopped: " + e);
+    }
+
+    RCLJava.setParallelConversionThreshold(threshold);
+    points.dispose();
+    nested.dispose();
+    node.dispose();
+    RCLJava.shutdown();
+  }
+}
@@ -0,0 +1,218 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.backend;
+
+import java.lang.reflect.Method;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.concurrent.Callback;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.SubscriptionImpl;
+import org.ros2.rcljava.timer.WallTimer;
+
+/**
+ * Micro-benchmarks of the calls of each @{link NativeBackend}, run by hand
+ * with the rcljava, rcljava_ffm and rcljava_benchmark jars on the classpath:
+ * java --enable-native-access=ALL-UNNAMED
+ *     org.ros2.rcljava.backend.NativeBackendBenchmark [iterations]
+ * Only the crossing into rcl is measured, messages are not converted.
+ */
+public final class NativeBackendBenchmark {
+  private static final String FFM_BACKEND_CLASS = "org.ros2.rcljava.backend.ffm.FFMBackend";
+
+  private static final String TOPIC = "native_backend_benchmark";
+
+  private static final long READY_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+  private final NativeBackend backend;
+
+  private final long publisherHandle;
+
+  private final ByteBuffer message;
+
+  private final long subscriptionHandle;
+
+  private final long messageHandle;
+
+  private final long timerHandle;
+
+  private NativeBackendBenchmark(final NativeBackend backend, final long publisherHandle,
+      final ByteBuffer message, final long subscriptionHandle, final long messageHandle,
+      final long timerHandle) {
+    this.backend = backend;
+    this.publisherHandle = publisherHandle;
+    this.message = message;
+    this.subscriptionHandle = subscriptionHandle;
+    this.messageHandle = messageHandle;
+    this.timerHandle = timerHandle;
+  }
+
+  /**
+   * @return The average duration of a publish, in nanoseconds.
+   */
+  private double benchmarkPublish(final int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.backend.publish(this.publisherHandle, this.message);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * @return The average duration of a take of a queued message, in
+   *     nanoseconds.
+   */
+  private double benchmarkTake(final int iterations) {
+    long total = 0;
+    for (int i = 0; i < iterations; i++) {
+      this.backend.publish(this.publisherHandle, this.message);
+      this.waitForMessage();
+      long start = System.nanoTime();
+      boolean taken = this.backend.take(this.subscriptionHandle, this.messageHandle, null);
+      total += System.nanoTime() - start;
+      if (!taken) {
+        throw new IllegalStateException("No message was taken");
+      }
+    }
+    return (double) total / iterations;
+  }
+
+  /**
+   * @return The average duration of a wait on a subscription that is ready
+   *     and a timer that is not, in nanoseconds.
+   */
+  private double benchmarkWait(final int iterations) {
+    // The message is never taken, so the subscription stays ready and the wait returns
+    // immediately
+    this.backend.publish(this.publisherHandle, this.message);
+    this.waitForMessage();
+
+    long[] subscriptionHandles = new long[1];
+    long[] timerHandles = new long[1];
+    long[] noHandles = new long[0];
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      subscriptionHandles[0] = this.subscriptionHandle;
+      timerHandles[0] = this.timerHandle;
+      this.backend.waitFor(
+          subscriptionHandles, noHandles, timerHandles, noHandles, noHandles, READY_TIMEOUT);
+    }
+    double average = (double) (System.nanoTime() - start) / iterations;
+    this.drain();
+    return average;
+  }
+
+  private void waitForMessage() {
+    long[] subscriptionHandles = new long[1];
+    long[] noHandles = new long[0];
+    while (subscriptionHandles[0] == 0) {
+      subscriptionHandles[0] = this.subscriptionHandle;
+      this.backend.waitFor(
+          subscriptionHandles, noHandles, noHandles, noHandles, noHandles, READY_TIMEOUT);
+    }
+  }
+
+  private void drain() {
+    while (this.backend.take(this.subscriptionHandle, this.messageHandle, null)) {
+      continue;
+    }
+  }
+
+  private void run(final int iterations) {
+    // The first round warms up the JIT and the middleware, and is not reported
+    for (int round = 0; round < 2; round++) {
+      int roundIterations = round == 0 ? Math.max(iterations / 10, 1) : iterations;
+      double publish = this.benchmarkPublish(roundIterations);
+      this.drain();
+      double take = this.benchmarkTake(roundIterations);
+      double wait = this.benchmarkWait(roundIterations);
+      if (round > 0) {
+        report(this.backend, "publish", publish);
+        report(this.backend, "take", take);
+        report(this.backend, "wait", wait);
+      }
+    }
+  }
+
+  private static void report(final NativeBackend backend, final String call,
+      final double nanoseconds) {
+    System.out.println(String.format("%-4s %-8s %10.1f ns/op", backend.getName(), call,
+        nanoseconds));
+  }
+
+  /**
+   * The C message owned by a subscription is not part of its API.
+   */
+  private static long getMessageHandle(final Subscription<?> subscription) throws Exception {
+    Method method = SubscriptionImpl.class.getDeclaredMethod("getMessageHandle");
+    method.setAccessible(true);
+    return (Long) method.invoke(subscription);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+    // The backends are created directly, so that both can be measured in the same process
+    RCLJava.rclJavaInit();
+    List<NativeBackend> backends = new ArrayList<NativeBackend>();
+    backends.add(new JNIBackend());
+    try {
+      backends.add((NativeBackend) Class.forName(FFM_BACKEND_CLASS).newInstance());
+    } catch (ClassNotFoundException cnfe) {
+      System.out.println("FFM backend is not on the classpath, only JNI is measured");
+    } catch (LinkageError le) {
+      System.out.println("FFM backend is not supported by this JVM, only JNI is measured");
+    } catch (Exception e) {
+      System.out.println("FFM backend failed to load, only JNI is measured: " + e);
+    }
+
+    Node node = RCLJava.createNode("native_backend_benchmark");
+    Publisher<rcljava.msg.UInt32> publisher =
+        node.<rcljava.msg.UInt32>createPublisher(rcljava.msg.UInt32.class, TOPIC);
+    Subscription<rcljava.msg.UInt32> subscription =
+        node.<rcljava.msg.UInt32>createSubscription(rcljava.msg.UInt32.class, TOPIC,
+            new Consumer<rcljava.msg.UInt32>() {
+              public void accept(final rcljava.msg.UInt32 msg) {
+              }
+            });
+    WallTimer timer = node.createWallTimer(1, TimeUnit.HOURS, new Callback() {
+      public void call() {
+      }
+    });
+
+    ByteBuffer message = publisher.borrowLoanedMessage();
+    for (NativeBackend backend : backends) {
+      new NativeBackendBenchmark(backend, publisher.getHandle(), message,
+          subscription.getHandle(), getMessageHandle(subscription), timer.getHandle())
+          .run(iterations);
+    }
+
+    timer.dispose();
+    subscription.dispose();
+    publisher.dispose();
+    node.dispose();
+    RCLJava.shutdown();
+  }
+}
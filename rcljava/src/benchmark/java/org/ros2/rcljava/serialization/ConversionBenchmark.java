@@ -0,0 +1,306 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.serialization;
+
+import java.lang.reflect.Method;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.backend.NativeBackend;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.SubscriptionImpl;
+
+/**
+ * Micro-benchmarks of the pure Java CDR serialization of the test messages
+ * against their conversion by the JNI converters generated from msg.cpp.em,
+ * run by hand with the rcljava and rcljava_benchmark jars on the classpath:
+ * java org.ros2.rcljava.serialization.ConversionBenchmark [iterations]
+ * The JNI converters are only called when publishing, so both publish paths
+ * are measured including the middleware: publish() converts the message and
+ * lets the typesupport serialize it, publishSerialized() sends the bytes
+ * written by @{link CDRWriter}. Decoding only measures the conversion of a
+ * message that has already been taken.
+ */
+public final class ConversionBenchmark<T extends MessageDefinition> {
+  private static final long READY_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+  private final String name;
+
+  private final T message;
+
+  private final Class<T> messageType;
+
+  private final Publisher<T> publisher;
+
+  private final Publisher<MessageDefinition> serializedPublisher;
+
+  private final Subscription<T> subscription;
+
+  private final CDRWriter writer = new CDRWriter();
+
+  /**
+   * The last message decoded, so that decoding cannot be optimized away.
+   */
+  private MessageDefinition decoded;
+
+  private ConversionBenchmark(final Node node, final String name, final T message,
+      final Class<T> messageType, final String typeName) {
+    this.name = name;
+    this.message = message;
+    this.messageType = messageType;
+    String topic = "conversion_benchmark_" + name.toLowerCase();
+    this.publisher = node.<T>createPublisher(messageType, topic);
+    this.serializedPublisher = node.createSerializedPublisher(typeName, topic);
+    this.subscription = node.<T>createSubscription(messageType, topic, new Consumer<T>() {
+      public void accept(final T msg) {
+      }
+    });
+  }
+
+  /**
+   * @return The average duration of a publish through the JNI converter, in
+   *     nanoseconds.
+   */
+  private double benchmarkJNIPublish(final int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.publisher.publish(this.message);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * @return The average duration of a serialization and publish of the
+   *     serialized message, in nanoseconds.
+   */
+  private double benchmarkCDRPublish(final int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.writer.reset();
+      this.message.serialize(this.writer);
+      this.serializedPublisher.publishSerialized(this.writer.getBuffer());
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * @return The average duration of a conversion of a C message to Java, in
+   *     nanoseconds.
+   */
+  private double benchmarkJNIDecode(final int iterations, final Method convert,
+      final long messageHandle) throws Exception {
+    long toJavaConverterHandle = this.message.getToJavaConverterInstance();
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      this.decoded = (MessageDefinition) convert.invoke(null, messageHandle, toJavaConverterHandle);
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * @return The average duration of a deserialization of the message, in
+   *     nanoseconds.
+   */
+  private double benchmarkCDRDecode(final int iterations, final ByteBuffer serialized)
+      throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      T msg = this.messageType.newInstance();
+      msg.deserialize(new CDRReader(serialized));
+      this.decoded = msg;
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  /**
+   * Publish the message and take it into the C message owned by the
+   * subscription, which is then converted to Java by each decode.
+   */
+  private long takeMessage() throws Exception {
+    NativeBackend backend = RCLJava.getNativeBackend();
+    long messageHandle = getMessageHandle(this.subscription);
+    long[] subscriptionHandles = new long[1];
+    long[] noHandles = new long[0];
+    do {
+      this.publisher.publish(this.message);
+      subscriptionHandles[0] = this.subscription.getHandle();
+      backend.waitFor(
+          subscriptionHandles, noHandles, noHandles, noHandles, noHandles, READY_TIMEOUT);
+    } while (subscriptionHandles[0] == 0
+        || !backend.take(this.subscription.getHandle(), messageHandle, null));
+    return messageHandle;
+  }
+
+  private void run(final int iterations, final Method convert) throws Exception {
+    long messageHandle = this.takeMessage();
+    this.writer.reset();
+    this.message.serialize(this.writer);
+    ByteBuffer serialized = this.writer.getBuffer();
+    // The bytes written by CDRWriter are kept by this copy, as the writer is reused
+    ByteBuffer copy = ByteBuffer.allocate(serialized.remaining());
+    copy.put(serialized);
+    copy.flip();
+
+    // The first round warms up the JIT and the middleware, and is not reported
+    for (int round = 0; round < 2; round++) {
+      int roundIterations = round == 0 ? Math.max(iterations / 10, 1) : iterations;
+      double jniPublish = this.benchmarkJNIPublish(roundIterations);
+      double cdrPublish = this.benchmarkCDRPublish(roundIterations);
+      double jniDecode = this.benchmarkJNIDecode(roundIterations, convert, messageHandle);
+      double cdrDecode = this.benchmarkCDRDecode(roundIterations, copy);
+      if (round > 0) {
+        this.report("jni", "publish", jniPublish);
+        this.report("cdr", "publish", cdrPublish);
+        this.report("jni", "decode", jniDecode);
+        this.report("cdr", "decode", cdrDecode);
+      }
+    }
+    if (!this.message.equals(this.decoded)) {
+      throw new IllegalStateException("Message was not decoded correctly: " + this.name);
+    }
+  }
+
+  private void dispose() {
+    this.subscription.dispose();
+    this.serializedPublisher.dispose();
+    this.publisher.dispose();
+  }
+
+  private void report(final String path, final String call, final double nanoseconds) {
+    System.out.println(String.format("%-22s %-4s %-8s %10.1f ns/op", this.name, path, call,
+        nanoseconds));
+  }
+
+  /**
+   * The C message owned by a subscription is not part of its API.
+   */
+  private static long getMessageHandle(final Subscription<?> subscription) throws Exception {
+    Method method = SubscriptionImpl.class.getDeclaredMethod("getMessageHandle");
+    method.setAccessible(true);
+    return (Long) method.invoke(subscription);
+  }
+
+  private static <T extends MessageDefinition> void benchmark(final Node node,
+      final T message, final Class<T> messageType, final String typeName,
+      final int iterations, final Method convert) throws Exception {
+    ConversionBenchmark<T> benchmark = new ConversionBenchmark<T>(
+        node, messageType.getSimpleName(), message, messageType, typeName);
+    benchmark.run(iterations, convert);
+    benchmark.dispose();
+  }
+
+  private static rcljava.msg.Primitives createPrimitives(final int index) {
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setBoolValue(index % 2 == 0);
+    msg.setByteValue((byte) index);
+    msg.setCharValue('\u0012');
+    msg.setFloat32Value(12.34f + index);
+    msg.setFloat64Value(43.21 + index);
+    msg.setInt8Value((byte) -index);
+    msg.setUint8Value((byte) index);
+    msg.setInt16Value((short) -index);
+    msg.setUint16Value((short) index);
+    msg.setInt32Value(-75536 - index);
+    msg.setUint32Value(85536 + index);
+    msg.setInt64Value(-5294967296l - index);
+    msg.setUint64Value(6294967296l + index);
+    msg.setStringValue("hello world " + index);
+    return msg;
+  }
+
+  private static rcljava.msg.DynamicArrayPrimitives createDynamicArrayPrimitives(
+      final int size) {
+    rcljava.msg.DynamicArrayPrimitives msg = new rcljava.msg.DynamicArrayPrimitives();
+    boolean[] boolValues = new boolean[size];
+    byte[] byteValues = new byte[size];
+    char[] charValues = new char[size];
+    float[] float32Values = new float[size];
+    double[] float64Values = new double[size];
+    short[] int16Values = new short[size];
+    int[] int32Values = new int[size];
+    long[] int64Values = new long[size];
+    List<String> stringValues = new ArrayList<String>(size);
+    for (int i = 0; i < size; i++) {
+      boolValues[i] = i % 2 == 0;
+      byteValues[i] = (byte) i;
+      charValues[i] = (char) ('a' + i % 26);
+      float32Values[i] = 12.34f + i;
+      float64Values[i] = 43.21 + i;
+      int16Values[i] = (short) -i;
+      int32Values[i] = -75536 - i;
+      int64Values[i] = -5294967296l - i;
+      stringValues.add("hello world " + i);
+    }
+    msg.setBoolValues(boolValues);
+    msg.setByteValues(byteValues);
+    msg.setCharValues(charValues);
+    msg.setFloat32Values(float32Values);
+    msg.setFloat64Values(float64Values);
+    msg.setInt8Values(byteValues);
+    msg.setUint8Values(byteValues);
+    msg.setInt16Values(int16Values);
+    msg.setUint16Values(int16Values);
+    msg.setInt32Values(int32Values);
+    msg.setUint32Values(int32Values);
+    msg.setInt64Values(int64Values);
+    msg.setUint64Values(int64Values);
+    msg.setStringValues(stringValues);
+    msg.setCheck(size);
+    return msg;
+  }
+
+  private static rcljava.msg.DynamicArrayNested createDynamicArrayNested(final int size) {
+    List<rcljava.msg.Primitives> values = new ArrayList<rcljava.msg.Primitives>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(createPrimitives(i));
+    }
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(values);
+    return msg;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+    RCLJava.rclJavaInit();
+    // The JNI converters are only reachable through the native methods of the subscriptions
+    Method convert =
+        SubscriptionImpl.class.getDeclaredMethod("nativeConvert", long.class, long.class);
+    convert.setAccessible(true);
+
+    Node node = RCLJava.createNode("conversion_benchmark");
+    benchmark(node, new rcljava.msg.UInt32().setData(42), rcljava.msg.UInt32.class,
+        "rcljava/UInt32", iterations, convert);
+    benchmark(node, createPrimitives(0), rcljava.msg.Primitives.class, "rcljava/Primitives",
+        iterations, convert);
+    benchmark(node, createDynamicArrayPrimitives(100), rcljava.msg.DynamicArrayPrimitives.class,
+        "rcljava/DynamicArrayPrimitives", iterations, convert);
+    benchmark(node, createDynamicArrayNested(100), rcljava.msg.DynamicArrayNested.class,
+        "rcljava/DynamicArrayNested", iterations, convert);
+
+    node.dispose();
+    RCLJava.shutdown();
+  }
+}
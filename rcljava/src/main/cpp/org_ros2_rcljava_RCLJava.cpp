@@ -25,21 +25,29 @@
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
+#include "rcljava_common/parallel.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_RCLJava.h"
 
+using rcljava_common::allocator::allocate;
+using rcljava_common::allocator::deallocate;
+using rcljava_common::allocator::get_allocator;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
 using rcljava_common::signatures::convert_from_java_signature;
 using rcljava_common::signatures::convert_to_java_signature;
 using rcljava_common::signatures::destroy_ros_message_signature;
 
 JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_RCLJava_nativeRCLJavaInit(JNIEnv * env, jclass)
+Java_org_ros2_rcljava_RCLJava_nativeRCLJavaInit(JNIEnv * env, jclass, jint allocator_strategy)
 {
+  rcljava_common::allocator::set_strategy(
+    static_cast<rcljava_common::allocator::Strategy>(allocator_strategy));
+
   // TODO(esteve): parse args
-  rcl_ret_t ret = rcl_init(0, nullptr, rcl_get_default_allocator());
+  rcl_ret_t ret = rcl_init(0, nullptr, get_allocator<rcl_allocator_t>());
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to init: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
@@ -59,12 +67,14 @@ Java_org_ros2_rcljava_RCLJava_nativeCreateNodeHandle(
   std::string namespace_(namespace_tmp);
   env->ReleaseStringUTFChars(jnamespace, namespace_tmp);
 
-  rcl_node_t * node = static_cast<rcl_node_t *>(malloc(sizeof(rcl_node_t)));
+  rcl_node_t * node = static_cast<rcl_node_t *>(allocate(sizeof(rcl_node_t), nullptr));
   *node = rcl_get_zero_initialized_node();
 
   rcl_node_options_t default_options = rcl_node_get_default_options();
+  default_options.allocator = get_allocator<rcl_allocator_t>();
   rcl_ret_t ret = rcl_node_init(node, node_name.c_str(), namespace_.c_str(), &default_options);
   if (ret != RCL_RET_OK) {
+    deallocate(node, nullptr);
     std::string msg = "Failed to create node: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -105,7 +115,7 @@ Java_org_ros2_rcljava_RCLJava_nativeConvertQoSProfileToHandle(
   jboolean avoidROSNamespaceConventions)
 {
   rmw_qos_profile_t * qos_profile =
-    static_cast<rmw_qos_profile_t *>(malloc(sizeof(rmw_qos_profile_t)));
+    static_cast<rmw_qos_profile_t *>(allocate(sizeof(rmw_qos_profile_t), nullptr));
   qos_profile->history = static_cast<rmw_qos_history_policy_t>(history);
   qos_profile->depth = depth;
   qos_profile->reliability = static_cast<rmw_qos_reliability_policy_t>(reliability);
@@ -118,5 +128,36 @@ JNIEXPORT void JNICALL
 Java_org_ros2_rcljava_RCLJava_nativeDisposeQoSProfile(JNIEnv *, jclass, jlong qos_profile_handle)
 {
   rmw_qos_profile_t * qos_profile = reinterpret_cast<rmw_qos_profile_t *>(qos_profile_handle);
-  free(qos_profile);
+  deallocate(qos_profile, nullptr);
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_RCLJava_nativeSetParallelConversionThreshold(
+  JNIEnv *, jclass, jint threshold)
+{
+  rcljava_common::parallel::set_conversion_threshold(static_cast<size_t>(threshold));
+}
+
+JNIEXPORT jint JNICALL
+Java_org_ros2_rcljava_RCLJava_nativeGetParallelConversionThreshold(JNIEnv *, jclass)
+{
+  return static_cast<jint>(rcljava_common::parallel::get_conversion_threshold());
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_RCLJava_nativeGetAllocationCount(JNIEnv *, jclass)
+{
+  return static_cast<jlong>(rcljava_common::allocator::get_allocation_count());
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_RCLJava_nativeGetDeallocationCount(JNIEnv *, jclass)
+{
+  return static_cast<jlong>(rcljava_common::allocator::get_deallocation_count());
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_RCLJava_nativeGetAllocatedBytes(JNIEnv *, jclass)
+{
+  return static_cast<jlong>(rcljava_common::allocator::get_bytes_in_use());
 }
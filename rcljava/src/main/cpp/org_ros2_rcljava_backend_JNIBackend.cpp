@@ -0,0 +1,232 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+
+#include <cassert>
+#include <cstdint>
+#include <cstring>
+#include <string>
+#include <vector>
+
+#include "rcl/error_handling.h"
+#include "rcl/rcl.h"
+#include "rmw/rmw.h"
+
+#include "rcljava_common/allocator.h"
+#include "rcljava_common/exceptions.h"
+
+#include "org_ros2_rcljava_backend_JNIBackend.h"
+
+using rcljava_common::allocator::get_allocator;
+using rcljava_common::exceptions::rcljava_throw_rclexception;
+
+bool
+take_message(
+  JNIEnv * env, rcl_subscription_t * subscription, void * ros_message,
+  rmw_message_info_t * message_info)
+{
+  // The type support replaces the strings and sequences of the previous message, so the same
+  // C message can be taken into every time
+  rcl_ret_t ret = rcl_take(subscription, ros_message, message_info);
+  if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+    return false;
+  }
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to take from a subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return false;
+  }
+  return true;
+}
+
+bool
+is_ignored_publisher(
+  JNIEnv * env, jbyteArray jignored_publisher_gids, const rmw_message_info_t & message_info)
+{
+  jsize gids_len = env->GetArrayLength(jignored_publisher_gids);
+  if (gids_len == 0) {
+    return false;
+  }
+
+  // Only compared, never copied, the array is released without writing it back
+  const uint8_t * gids =
+    static_cast<const uint8_t *>(env->GetPrimitiveArrayCritical(jignored_publisher_gids, nullptr));
+  if (gids == nullptr) {
+    return false;
+  }
+  bool ignored = false;
+  for (jsize offset = 0; offset + RMW_GID_STORAGE_SIZE <= gids_len;
+    offset += RMW_GID_STORAGE_SIZE)
+  {
+    if (std::memcmp(gids + offset, message_info.publisher_gid.data, RMW_GID_STORAGE_SIZE) == 0) {
+      ignored = true;
+      break;
+    }
+  }
+  env->ReleasePrimitiveArrayCritical(
+    jignored_publisher_gids, const_cast<uint8_t *>(gids), JNI_ABORT);
+  return ignored;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_backend_JNIBackend_nativeTake(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle,
+  jbyteArray jignored_publisher_gids)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  assert(raw_ros_message != nullptr);
+
+  rmw_message_info_t message_info;
+  if (!take_message(
+      env, subscription, raw_ros_message,
+      jignored_publisher_gids != nullptr ? &message_info : nullptr))
+  {
+    return false;
+  }
+
+  return jignored_publisher_gids == nullptr ||
+         !is_ignored_publisher(env, jignored_publisher_gids, message_info);
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_backend_JNIBackend_nativePublish(
+  JNIEnv * env, jclass, jlong publisher_handle, jobject jbuffer)
+{
+  rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
+
+  void * raw_ros_message = env->GetDirectBufferAddress(jbuffer);
+  assert(raw_ros_message != nullptr);
+
+  rcl_ret_t ret = rcl_publish(publisher, raw_ros_message);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to publish message: " +
+      std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
+
+std::vector<jlong>
+get_wait_set_handles(JNIEnv * env, jlongArray jhandles)
+{
+  std::vector<jlong> handles(env->GetArrayLength(jhandles));
+  if (!handles.empty()) {
+    env->GetLongArrayRegion(jhandles, 0, handles.size(), handles.data());
+  }
+  return handles;
+}
+
+template<typename T>
+bool
+add_to_wait_set(
+  JNIEnv * env, rcl_wait_set_t * wait_set, const std::vector<jlong> & handles,
+  rcl_ret_t (* add)(rcl_wait_set_t *, const T *), const std::string & entity_name)
+{
+  for (jlong handle : handles) {
+    rcl_ret_t ret = add(wait_set, reinterpret_cast<T *>(handle));
+    if (ret != RCL_RET_OK) {
+      std::string msg =
+        "Failed to add " + entity_name + " to wait set: " +
+        std::string(rcl_get_error_string_safe());
+      rcl_reset_error();
+      rcljava_throw_rclexception(env, ret, msg);
+      return false;
+    }
+  }
+  return true;
+}
+
+template<typename T>
+void
+set_ready_wait_set_handles(
+  JNIEnv * env, jlongArray jhandles, std::vector<jlong> * handles, const T * const * entities)
+{
+  // Entities that are not ready are nulled by rcl_wait, their handles are zeroed so that
+  // the Java side can tell them apart
+  for (size_t i = 0; i < handles->size(); ++i) {
+    if (entities[i] == nullptr) {
+      (*handles)[i] = 0;
+    }
+  }
+  if (!handles->empty()) {
+    env->SetLongArrayRegion(jhandles, 0, handles->size(), handles->data());
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_backend_JNIBackend_nativeWait(
+  JNIEnv * env, jclass, jlongArray jsubscription_handles, jlongArray jguard_condition_handles,
+  jlongArray jtimer_handles, jlongArray jservice_handles, jlongArray jclient_handles,
+  jlong timeout)
+{
+  std::vector<jlong> subscription_handles = get_wait_set_handles(env, jsubscription_handles);
+  std::vector<jlong> guard_condition_handles =
+    get_wait_set_handles(env, jguard_condition_handles);
+  std::vector<jlong> timer_handles = get_wait_set_handles(env, jtimer_handles);
+  std::vector<jlong> service_handles = get_wait_set_handles(env, jservice_handles);
+  std::vector<jlong> client_handles = get_wait_set_handles(env, jclient_handles);
+
+  rcl_wait_set_t wait_set = rcl_get_zero_initialized_wait_set();
+  rcl_ret_t ret = rcl_wait_set_init(
+    &wait_set, subscription_handles.size(), guard_condition_handles.size(),
+    timer_handles.size(), client_handles.size(), service_handles.size(),
+    get_allocator<rcl_allocator_t>());
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to initialize wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return;
+  }
+
+  bool added =
+    add_to_wait_set(env, &wait_set, subscription_handles, rcl_wait_set_add_subscription,
+    "subscription");
+  added = added &&
+    add_to_wait_set(env, &wait_set, guard_condition_handles, rcl_wait_set_add_guard_condition,
+    "guard condition");
+  added = added && add_to_wait_set(env, &wait_set, timer_handles, rcl_wait_set_add_timer, "timer");
+  added = added &&
+    add_to_wait_set(env, &wait_set, service_handles, rcl_wait_set_add_service, "service");
+  added = added &&
+    add_to_wait_set(env, &wait_set, client_handles, rcl_wait_set_add_client, "client");
+
+  if (added) {
+    ret = rcl_wait(&wait_set, timeout);
+    if (ret != RCL_RET_OK && ret != RCL_RET_TIMEOUT) {
+      std::string msg = "Failed to wait on wait set: " + std::string(rcl_get_error_string_safe());
+      rcl_reset_error();
+      rcljava_throw_rclexception(env, ret, msg);
+    } else {
+      set_ready_wait_set_handles(
+        env, jsubscription_handles, &subscription_handles, wait_set.subscriptions);
+      set_ready_wait_set_handles(
+        env, jguard_condition_handles, &guard_condition_handles, wait_set.guard_conditions);
+      set_ready_wait_set_handles(env, jtimer_handles, &timer_handles, wait_set.timers);
+      set_ready_wait_set_handles(env, jservice_handles, &service_handles, wait_set.services);
+      set_ready_wait_set_handles(env, jclient_handles, &client_handles, wait_set.clients);
+    }
+  }
+
+  ret = rcl_wait_set_fini(&wait_set);
+  if (ret != RCL_RET_OK && !env->ExceptionCheck()) {
+    std::string msg = "Failed to destroy wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
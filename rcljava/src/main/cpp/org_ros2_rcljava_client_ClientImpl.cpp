@@ -24,11 +24,13 @@
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_client_ClientImpl.h"
 
+using rcljava_common::allocator::deallocate;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
 using rcljava_common::signatures::convert_from_java_signature;
 using rcljava_common::signatures::destroy_ros_message_signature;
@@ -89,6 +91,7 @@ Java_org_ros2_rcljava_client_ClientImpl_nativeDispose(
   assert(client != NULL);
 
   rcl_ret_t ret = rcl_client_fini(client, node);
+  deallocate(client, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy client: " + std::string(rcl_get_error_string_safe());
@@ -25,6 +25,7 @@
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
@@ -66,8 +67,8 @@ convert_rmw_request_id_to_java(JNIEnv * env, rmw_request_id_t * request_id)
   return jrequest_id;
 }
 
-rmw_request_id_t *
-convert_rmw_request_id_from_java(JNIEnv * env, jobject jrequest_id)
+void
+convert_rmw_request_id_from_java(JNIEnv * env, jobject jrequest_id, rmw_request_id_t * request_id)
 {
   assert(jrequest_id != nullptr);
 
@@ -80,8 +81,6 @@ convert_rmw_request_id_from_java(JNIEnv * env, jobject jrequest_id)
   assert(jsequence_number_field_id != nullptr);
   assert(jwriter_guid_field_id != nullptr);
 
-  rmw_request_id_t * request_id = static_cast<rmw_request_id_t *>(malloc(sizeof(rmw_request_id_t)));
-
   int8_t * writer_guid = request_id->writer_guid;
   request_id->sequence_number = env->GetLongField(jrequest_id, jsequence_number_field_id);
 
@@ -89,232 +88,6 @@ convert_rmw_request_id_from_java(JNIEnv * env, jobject jrequest_id)
 
   jbyteArray jwriter_guid = (jbyteArray)env->GetObjectField(jrequest_id, jwriter_guid_field_id);
   env->GetByteArrayRegion(jwriter_guid, 0, writer_guid_len, reinterpret_cast<jbyte *>(writer_guid));
-
-  return request_id;
-}
-
-JNIEXPORT jlong JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeGetZeroInitializedWaitSet(JNIEnv *, jclass)
-{
-  rcl_wait_set_t * wait_set = static_cast<rcl_wait_set_t *>(malloc(sizeof(rcl_wait_set_t)));
-  *wait_set = rcl_get_zero_initialized_wait_set();
-  jlong wait_set_handle = reinterpret_cast<jlong>(wait_set);
-  return wait_set_handle;
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetInit(
-  JNIEnv * env, jclass, jlong wait_set_handle, jint number_of_subscriptions,
-  jint number_of_guard_conditions, jint number_of_timers, jint number_of_clients,
-  jint number_of_services)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-
-  rcl_ret_t ret = rcl_wait_set_init(
-    wait_set, number_of_subscriptions, number_of_guard_conditions, number_of_timers,
-    number_of_clients, number_of_services, rcl_get_default_allocator());
-  if (ret != RCL_RET_OK) {
-    std::string msg = "Failed to initialize wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeDisposeWaitSet(
-  JNIEnv * env, jclass, jlong wait_set_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-
-  rcl_ret_t ret = rcl_wait_set_fini(wait_set);
-  if (ret != RCL_RET_OK) {
-    std::string msg = "Failed to destroy timer: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearSubscriptions(
-  JNIEnv * env, jclass, jlong wait_set_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_ret_t ret = rcl_wait_set_clear_subscriptions(wait_set);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to clear subscriptions from wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddSubscription(
-  JNIEnv * env, jclass, jlong wait_set_handle, jlong subscription_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
-  rcl_ret_t ret = rcl_wait_set_add_subscription(wait_set, subscription);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to add subscription to wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWait(
-  JNIEnv * env, jclass, jlong wait_set_handle, jlong timeout)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_ret_t ret = rcl_wait(wait_set, timeout);
-  if (ret != RCL_RET_OK && ret != RCL_RET_TIMEOUT) {
-    std::string msg = "Failed to wait on wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT jobject JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeTake(
-  JNIEnv * env, jclass, jlong subscription_handle, jclass jmessage_class)
-{
-  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
-
-  jmethodID jfrom_mid = env->GetStaticMethodID(jmessage_class, "getFromJavaConverter", "()J");
-  jlong jfrom_java_converter = env->CallStaticLongMethod(jmessage_class, jfrom_mid);
-
-  jmethodID jdestructor_mid = env->GetStaticMethodID(jmessage_class, "getDestructor", "()J");
-  jlong jdestructor_handle = env->CallStaticLongMethod(jmessage_class, jdestructor_mid);
-
-  convert_from_java_signature convert_from_java =
-    reinterpret_cast<convert_from_java_signature>(jfrom_java_converter);
-
-  destroy_ros_message_signature destroy_ros_message =
-    reinterpret_cast<destroy_ros_message_signature>(jdestructor_handle);
-
-  jmethodID jconstructor = env->GetMethodID(jmessage_class, "<init>", "()V");
-  jobject jmsg = env->NewObject(jmessage_class, jconstructor);
-
-  void * taken_msg = convert_from_java(jmsg, nullptr);
-
-  rcl_ret_t ret = rcl_take(subscription, taken_msg, nullptr);
-
-  if (ret != RCL_RET_OK && ret != RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
-    destroy_ros_message(taken_msg);
-
-    std::string msg =
-      "Failed to take from a subscription: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-    return nullptr;
-  }
-
-  if (ret != RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
-    jmethodID jto_mid = env->GetStaticMethodID(jmessage_class, "getToJavaConverter", "()J");
-    jlong jto_java_converter = env->CallStaticLongMethod(jmessage_class, jto_mid);
-
-    convert_to_java_signature convert_to_java =
-      reinterpret_cast<convert_to_java_signature>(jto_java_converter);
-
-    jobject jtaken_msg = convert_to_java(taken_msg, nullptr);
-
-    destroy_ros_message(taken_msg);
-
-    return jtaken_msg;
-  }
-
-  destroy_ros_message(taken_msg);
-
-  return nullptr;
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearTimers(
-  JNIEnv * env, jclass, jlong wait_set_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_ret_t ret = rcl_wait_set_clear_timers(wait_set);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to clear timers from wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearServices(
-  JNIEnv * env, jclass, jlong wait_set_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_ret_t ret = rcl_wait_set_clear_services(wait_set);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to clear services from wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddService(
-  JNIEnv * env, jclass, jlong wait_set_handle, jlong service_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_service_t * service = reinterpret_cast<rcl_service_t *>(service_handle);
-  rcl_ret_t ret = rcl_wait_set_add_service(wait_set, service);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to add service to wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClearClients(
-  JNIEnv * env, jclass, jlong wait_set_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_ret_t ret = rcl_wait_set_clear_clients(wait_set);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to clear clients from wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddClient(
-  JNIEnv * env, jclass, jlong wait_set_handle, jlong client_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_client_t * client = reinterpret_cast<rcl_client_t *>(client_handle);
-  rcl_ret_t ret = rcl_wait_set_add_client(wait_set, client);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to add client to wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
-}
-
-JNIEXPORT void JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetAddTimer(
-  JNIEnv * env, jclass, jlong wait_set_handle, jlong timer_handle)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  rcl_timer_t * timer = reinterpret_cast<rcl_timer_t *>(timer_handle);
-  rcl_ret_t ret = rcl_wait_set_add_timer(wait_set, timer);
-  if (ret != RCL_RET_OK) {
-    std::string msg =
-      "Failed to add timer to wait set: " + std::string(rcl_get_error_string_safe());
-    rcl_reset_error();
-    rcljava_throw_rclexception(env, ret, msg);
-  }
 }
 
 JNIEXPORT jobject JNICALL
@@ -389,9 +162,10 @@ Java_org_ros2_rcljava_executors_BaseExecutor_nativeSendServiceResponse(
 
   void * response_msg = convert_from_java(jresponse_msg, nullptr);
 
-  rmw_request_id_t * request_id = convert_rmw_request_id_from_java(env, jrequest_id);
+  rmw_request_id_t request_id;
+  convert_rmw_request_id_from_java(env, jrequest_id, &request_id);
 
-  rcl_ret_t ret = rcl_send_response(service, request_id, response_msg);
+  rcl_ret_t ret = rcl_send_response(service, &request_id, response_msg);
 
   destroy_ros_message_signature destroy_ros_message =
     reinterpret_cast<destroy_ros_message_signature>(jresponse_destructor_handle);
@@ -460,34 +234,3 @@ Java_org_ros2_rcljava_executors_BaseExecutor_nativeTakeResponse(
   return nullptr;
 }
 
-JNIEXPORT jboolean JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetSubscriptionIsReady(
-  JNIEnv *, jclass, jlong wait_set_handle, jlong index)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  return wait_set->subscriptions[index] != nullptr;
-}
-
-JNIEXPORT jboolean JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetTimerIsReady(
-  JNIEnv *, jclass, jlong wait_set_handle, jlong index)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  return wait_set->timers[index] != nullptr;
-}
-
-JNIEXPORT jboolean JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetServiceIsReady(
-  JNIEnv *, jclass, jlong wait_set_handle, jlong index)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  return wait_set->services[index] != nullptr;
-}
-
-JNIEXPORT jboolean JNICALL
-Java_org_ros2_rcljava_executors_BaseExecutor_nativeWaitSetClientIsReady(
-  JNIEnv *, jclass, jlong wait_set_handle, jlong index)
-{
-  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
-  return wait_set->clients[index] != nullptr;
-}
@@ -0,0 +1,218 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+
+#include <cassert>
+#include <cstdlib>
+#include <cstring>
+#include <string>
+
+#include "rcl/error_handling.h"
+#include "rcl/graph.h"
+#include "rcl/node.h"
+#include "rcl/publisher.h"
+#include "rcl/rcl.h"
+#include "rcl/subscription.h"
+#include "rmw/rmw.h"
+
+#include "rcljava_common/allocator.h"
+#include "rcljava_common/exceptions.h"
+
+#include "org_ros2_rcljava_intraprocess_IntraProcessManager.h"
+
+using rcljava_common::allocator::get_allocator;
+using rcljava_common::exceptions::rcljava_throw_rclexception;
+
+JNIEXPORT jstring JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetPublisherTopicName(
+  JNIEnv * env, jclass, jlong publisher_handle)
+{
+  assert(publisher_handle != 0);
+
+  rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
+
+  const char * topic_name = rcl_publisher_get_topic_name(publisher);
+  if (topic_name == nullptr) {
+    std::string msg =
+      "Failed to get publisher topic name: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_PUBLISHER_INVALID, msg);
+    return nullptr;
+  }
+  return env->NewStringUTF(topic_name);
+}
+
+JNIEXPORT jstring JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetSubscriptionTopicName(
+  JNIEnv * env, jclass, jlong subscription_handle)
+{
+  assert(subscription_handle != 0);
+
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  const char * topic_name = rcl_subscription_get_topic_name(subscription);
+  if (topic_name == nullptr) {
+    std::string msg =
+      "Failed to get subscription topic name: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_SUBSCRIPTION_INVALID, msg);
+    return nullptr;
+  }
+  return env->NewStringUTF(topic_name);
+}
+
+JNIEXPORT jbyteArray JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetPublisherGid(
+  JNIEnv * env, jclass, jlong publisher_handle)
+{
+  assert(publisher_handle != 0);
+
+  rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
+
+  rmw_publisher_t * rmw_publisher = rcl_publisher_get_rmw_handle(publisher);
+  if (rmw_publisher == nullptr) {
+    std::string msg =
+      "Failed to get publisher gid: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_PUBLISHER_INVALID, msg);
+    return nullptr;
+  }
+
+  rmw_gid_t gid;
+  rmw_ret_t ret = rmw_get_gid_for_publisher(rmw_publisher, &gid);
+  if (ret != RMW_RET_OK) {
+    std::string msg =
+      "Failed to get publisher gid: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return nullptr;
+  }
+
+  jbyteArray jgid = env->NewByteArray(RMW_GID_STORAGE_SIZE);
+  env->SetByteArrayRegion(
+    jgid, 0, RMW_GID_STORAGE_SIZE, reinterpret_cast<const jbyte *>(gid.data));
+  return jgid;
+}
+
+JNIEXPORT jstring JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetNodeName(
+  JNIEnv * env, jclass, jlong node_handle)
+{
+  assert(node_handle != 0);
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  const char * node_name = rcl_node_get_name(node);
+  if (node_name == nullptr) {
+    std::string msg = "Failed to get node name: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_NODE_INVALID, msg);
+    return nullptr;
+  }
+  return env->NewStringUTF(node_name);
+}
+
+JNIEXPORT jstring JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeGetNodeNamespace(
+  JNIEnv * env, jclass, jlong node_handle)
+{
+  assert(node_handle != 0);
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  const char * node_namespace = rcl_node_get_namespace(node);
+  if (node_namespace == nullptr) {
+    std::string msg = "Failed to get node namespace: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_NODE_INVALID, msg);
+    return nullptr;
+  }
+  return env->NewStringUTF(node_namespace);
+}
+
+bool
+is_node_subscribed(
+  rcl_node_t * node, rcl_allocator_t * allocator, const char * node_name,
+  const char * node_namespace, const char * topic_name)
+{
+  rcl_names_and_types_t topic_names_and_types = rcl_get_zero_initialized_names_and_types();
+  rcl_ret_t ret = rcl_get_subscriber_names_and_types_by_node(
+    node, allocator, false, node_name, node_namespace, &topic_names_and_types);
+  if (ret != RCL_RET_OK) {
+    // The node is not known to the graph yet, so neither are its subscriptions
+    rcl_reset_error();
+    return false;
+  }
+
+  bool subscribed = false;
+  for (size_t i = 0; i < topic_names_and_types.names.size; ++i) {
+    if (std::strcmp(topic_names_and_types.names.data[i], topic_name) == 0) {
+      subscribed = true;
+      break;
+    }
+  }
+
+  if (rcl_names_and_types_fini(&topic_names_and_types) != RCL_RET_OK) {
+    rcl_reset_error();
+  }
+  return subscribed;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_ros2_rcljava_intraprocess_IntraProcessManager_nativeCountExternalSubscribers(
+  JNIEnv * env, jclass, jlong node_handle, jstring jtopic_name, jobjectArray jnode_names,
+  jobjectArray jnode_namespaces)
+{
+  assert(node_handle != 0);
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  const char * topic_name = env->GetStringUTFChars(jtopic_name, 0);
+
+  size_t count = 0;
+  rcl_ret_t ret = rcl_count_subscribers(node, topic_name, &count);
+  if (ret != RCL_RET_OK) {
+    env->ReleaseStringUTFChars(jtopic_name, topic_name);
+    std::string msg = "Failed to count subscribers: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return 0;
+  }
+
+  // Only the nodes whose subscription is already in the graph are discounted, a subscription
+  // that the graph does not know of yet is not part of the count either
+  rcl_allocator_t allocator = get_allocator<rcl_allocator_t>();
+  jsize node_count = env->GetArrayLength(jnode_names);
+  for (jsize i = 0; i < node_count && count > 0; ++i) {
+    jstring jnode_name = static_cast<jstring>(env->GetObjectArrayElement(jnode_names, i));
+    jstring jnode_namespace =
+      static_cast<jstring>(env->GetObjectArrayElement(jnode_namespaces, i));
+    const char * node_name = env->GetStringUTFChars(jnode_name, 0);
+    const char * node_namespace = env->GetStringUTFChars(jnode_namespace, 0);
+
+    if (is_node_subscribed(node, &allocator, node_name, node_namespace, topic_name)) {
+      --count;
+    }
+
+    env->ReleaseStringUTFChars(jnode_name, node_name);
+    env->ReleaseStringUTFChars(jnode_namespace, node_namespace);
+    env->DeleteLocalRef(jnode_name);
+    env->DeleteLocalRef(jnode_namespace);
+  }
+
+  env->ReleaseStringUTFChars(jtopic_name, topic_name);
+
+  return static_cast<jint>(count);
+}
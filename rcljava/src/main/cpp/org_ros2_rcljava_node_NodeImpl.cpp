@@ -13,32 +13,109 @@
 // limitations under the License.
 
 #include <jni.h>
+
+#ifdef _WIN32
+#include <windows.h>
+#else
+#include <dlfcn.h>
+#endif
+
 #include <cassert>
 #include <cstdio>
 #include <cstdlib>
 #include <string>
 
 #include "rcl/error_handling.h"
+#include "rcl/graph.h"
 #include "rcl/node.h"
 #include "rcl/rcl.h"
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_node_NodeImpl.h"
 
+using rcljava_common::allocator::allocate;
+using rcljava_common::allocator::deallocate;
+using rcljava_common::allocator::get_allocator;
+using rcljava_common::exceptions::rcljava_throw_exception;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
 
-JNIEXPORT jlong JNICALL
-Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublisherHandle(
-  JNIEnv * env, jclass, jlong node_handle, jclass jmessage_class, jstring jtopic,
-  jlong qos_profile_handle)
+namespace
 {
-  jmethodID mid = env->GetStaticMethodID(jmessage_class, "getTypeSupport", "()J");
-  jlong jts = env->CallStaticLongMethod(jmessage_class, mid);
+// Load the C type support of a message from its type name, either "package/Type" or
+// "package/msg/Type", without requiring the generated Java class for that message.
+// The type support library is intentionally never unloaded, entities created with the
+// returned type support keep pointers into it.
+const rosidl_message_type_support_t *
+get_message_type_support_by_name(JNIEnv * env, jstring jmessage_type)
+{
+  const char * message_type_tmp = env->GetStringUTFChars(jmessage_type, 0);
+
+  std::string message_type(message_type_tmp);
+
+  env->ReleaseStringUTFChars(jmessage_type, message_type_tmp);
+
+  std::string::size_type first_separator = message_type.find('/');
+  std::string::size_type last_separator = message_type.rfind('/');
+  if (first_separator == std::string::npos || first_separator == 0 ||
+    last_separator == message_type.size() - 1)
+  {
+    rcljava_throw_exception(
+      env, "java/lang/IllegalArgumentException", "Invalid message type: " + message_type);
+    return nullptr;
+  }
+
+  std::string package_name = message_type.substr(0, first_separator);
+  std::string subfolder = "msg";
+  if (first_separator != last_separator) {
+    subfolder = message_type.substr(first_separator + 1, last_separator - first_separator - 1);
+  }
+  std::string message_name = message_type.substr(last_separator + 1);
+
+#if defined(_WIN32)
+  std::string library_name = package_name + "__rosidl_typesupport_c.dll";
+#elif defined(__APPLE__)
+  std::string library_name = "lib" + package_name + "__rosidl_typesupport_c.dylib";
+#else
+  std::string library_name = "lib" + package_name + "__rosidl_typesupport_c.so";
+#endif
+
+  std::string symbol_name = "rosidl_typesupport_c__get_message_type_support_handle__" +
+    package_name + "__" + subfolder + "__" + message_name;
+
+  void * symbol = nullptr;
+#ifdef _WIN32
+  HMODULE library = LoadLibraryA(library_name.c_str());
+  if (library != nullptr) {
+    symbol = reinterpret_cast<void *>(GetProcAddress(library, symbol_name.c_str()));
+  }
+#else
+  void * library = dlopen(library_name.c_str(), RTLD_LAZY);
+  if (library != nullptr) {
+    symbol = dlsym(library, symbol_name.c_str());
+  }
+#endif
+
+  if (symbol == nullptr) {
+    rcljava_throw_exception(
+      env, "java/lang/IllegalArgumentException",
+      "Failed to load type support for " + message_type + " from " + library_name);
+    return nullptr;
+  }
+
+  using get_message_type_support_signature = const rosidl_message_type_support_t * (*)();
+  return reinterpret_cast<get_message_type_support_signature>(symbol)();
+}
 
+jlong
+create_publisher_handle(
+  JNIEnv * env, jlong node_handle, const rosidl_message_type_support_t * ts, jstring jtopic,
+  jlong qos_profile_handle)
+{
   const char * topic_tmp = env->GetStringUTFChars(jtopic, 0);
 
   std::string topic(topic_tmp);
@@ -47,11 +124,11 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublisherHandle(
 
   rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
 
-  rosidl_message_type_support_t * ts = reinterpret_cast<rosidl_message_type_support_t *>(jts);
-
-  rcl_publisher_t * publisher = static_cast<rcl_publisher_t *>(malloc(sizeof(rcl_publisher_t)));
+  rcl_publisher_t * publisher =
+    static_cast<rcl_publisher_t *>(allocate(sizeof(rcl_publisher_t), nullptr));
   *publisher = rcl_get_zero_initialized_publisher();
   rcl_publisher_options_t publisher_ops = rcl_publisher_get_default_options();
+  publisher_ops.allocator = get_allocator<rcl_allocator_t>();
 
   rmw_qos_profile_t * qos_profile = reinterpret_cast<rmw_qos_profile_t *>(qos_profile_handle);
   publisher_ops.qos = *qos_profile;
@@ -59,6 +136,7 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublisherHandle(
   rcl_ret_t ret = rcl_publisher_init(publisher, node, ts, topic.c_str(), &publisher_ops);
 
   if (ret != RCL_RET_OK) {
+    deallocate(publisher, nullptr);
     std::string msg = "Failed to create publisher: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -69,14 +147,11 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublisherHandle(
   return jpublisher;
 }
 
-JNIEXPORT jlong JNICALL
-Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
-  JNIEnv * env, jclass, jlong node_handle, jclass jmessage_class, jstring jtopic,
+jlong
+create_subscription_handle(
+  JNIEnv * env, jlong node_handle, const rosidl_message_type_support_t * ts, jstring jtopic,
   jlong qos_profile_handle)
 {
-  jmethodID mid = env->GetStaticMethodID(jmessage_class, "getTypeSupport", "()J");
-  jlong jts = env->CallStaticLongMethod(jmessage_class, mid);
-
   const char * topic_tmp = env->GetStringUTFChars(jtopic, 0);
 
   std::string topic(topic_tmp);
@@ -85,12 +160,11 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
 
   rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
 
-  rosidl_message_type_support_t * ts = reinterpret_cast<rosidl_message_type_support_t *>(jts);
-
   rcl_subscription_t * subscription =
-    static_cast<rcl_subscription_t *>(malloc(sizeof(rcl_subscription_t)));
+    static_cast<rcl_subscription_t *>(allocate(sizeof(rcl_subscription_t), nullptr));
   *subscription = rcl_get_zero_initialized_subscription();
   rcl_subscription_options_t subscription_ops = rcl_subscription_get_default_options();
+  subscription_ops.allocator = get_allocator<rcl_allocator_t>();
 
   rmw_qos_profile_t * qos_profile = reinterpret_cast<rmw_qos_profile_t *>(qos_profile_handle);
   subscription_ops.qos = *qos_profile;
@@ -98,6 +172,7 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
   rcl_ret_t ret = rcl_subscription_init(subscription, node, ts, topic.c_str(), &subscription_ops);
 
   if (ret != RCL_RET_OK) {
+    deallocate(subscription, nullptr);
     std::string msg = "Failed to create subscription: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -107,6 +182,59 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
   jlong jsubscription = reinterpret_cast<jlong>(subscription);
   return jsubscription;
 }
+}  // namespace
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeCreatePublisherHandle(
+  JNIEnv * env, jclass, jlong node_handle, jclass jmessage_class, jstring jtopic,
+  jlong qos_profile_handle)
+{
+  jmethodID mid = env->GetStaticMethodID(jmessage_class, "getTypeSupport", "()J");
+  jlong jts = env->CallStaticLongMethod(jmessage_class, mid);
+
+  rosidl_message_type_support_t * ts = reinterpret_cast<rosidl_message_type_support_t *>(jts);
+
+  return create_publisher_handle(env, node_handle, ts, jtopic, qos_profile_handle);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSerializedPublisherHandle(
+  JNIEnv * env, jclass, jlong node_handle, jstring jmessage_type, jstring jtopic,
+  jlong qos_profile_handle)
+{
+  const rosidl_message_type_support_t * ts = get_message_type_support_by_name(env, jmessage_type);
+  if (ts == nullptr) {
+    return 0;
+  }
+
+  return create_publisher_handle(env, node_handle, ts, jtopic, qos_profile_handle);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSubscriptionHandle(
+  JNIEnv * env, jclass, jlong node_handle, jclass jmessage_class, jstring jtopic,
+  jlong qos_profile_handle)
+{
+  jmethodID mid = env->GetStaticMethodID(jmessage_class, "getTypeSupport", "()J");
+  jlong jts = env->CallStaticLongMethod(jmessage_class, mid);
+
+  rosidl_message_type_support_t * ts = reinterpret_cast<rosidl_message_type_support_t *>(jts);
+
+  return create_subscription_handle(env, node_handle, ts, jtopic, qos_profile_handle);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeCreateSerializedSubscriptionHandle(
+  JNIEnv * env, jclass, jlong node_handle, jstring jmessage_type, jstring jtopic,
+  jlong qos_profile_handle)
+{
+  const rosidl_message_type_support_t * ts = get_message_type_support_by_name(env, jmessage_type);
+  if (ts == nullptr) {
+    return 0;
+  }
+
+  return create_subscription_handle(env, node_handle, ts, jtopic, qos_profile_handle);
+}
 
 JNIEXPORT jlong JNICALL
 Java_org_ros2_rcljava_node_NodeImpl_nativeCreateServiceHandle(
@@ -131,9 +259,10 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateServiceHandle(
 
   rosidl_service_type_support_t * ts = reinterpret_cast<rosidl_service_type_support_t *>(jts);
 
-  rcl_service_t * service = static_cast<rcl_service_t *>(malloc(sizeof(rcl_service_t)));
+  rcl_service_t * service = static_cast<rcl_service_t *>(allocate(sizeof(rcl_service_t), nullptr));
   *service = rcl_get_zero_initialized_service();
   rcl_service_options_t service_ops = rcl_service_get_default_options();
+  service_ops.allocator = get_allocator<rcl_allocator_t>();
 
   rmw_qos_profile_t * qos_profile = reinterpret_cast<rmw_qos_profile_t *>(qos_profile_handle);
   service_ops.qos = *qos_profile;
@@ -141,6 +270,7 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateServiceHandle(
   rcl_ret_t ret = rcl_service_init(service, node, ts, service_name.c_str(), &service_ops);
 
   if (ret != RCL_RET_OK) {
+    deallocate(service, nullptr);
     std::string msg = "Failed to create service: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -174,9 +304,10 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateClientHandle(
 
   rosidl_service_type_support_t * ts = reinterpret_cast<rosidl_service_type_support_t *>(jts);
 
-  rcl_client_t * client = static_cast<rcl_client_t *>(malloc(sizeof(rcl_client_t)));
+  rcl_client_t * client = static_cast<rcl_client_t *>(allocate(sizeof(rcl_client_t), nullptr));
   *client = rcl_get_zero_initialized_client();
   rcl_client_options_t client_ops = rcl_client_get_default_options();
+  client_ops.allocator = get_allocator<rcl_allocator_t>();
 
   rmw_qos_profile_t * qos_profile = reinterpret_cast<rmw_qos_profile_t *>(qos_profile_handle);
   client_ops.qos = *qos_profile;
@@ -184,6 +315,7 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeCreateClientHandle(
   rcl_ret_t ret = rcl_client_init(client, node, ts, service_name.c_str(), &client_ops);
 
   if (ret != RCL_RET_OK) {
+    deallocate(client, nullptr);
     std::string msg = "Failed to create client: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -205,6 +337,7 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeDispose(JNIEnv * env, jclass, jlong no
   rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
 
   rcl_ret_t ret = rcl_node_fini(node);
+  deallocate(node, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy node: " + std::string(rcl_get_error_string_safe());
@@ -213,16 +346,89 @@ Java_org_ros2_rcljava_node_NodeImpl_nativeDispose(JNIEnv * env, jclass, jlong no
   }
 }
 
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeCreateGraphWaitSet(JNIEnv * env, jclass)
+{
+  rcl_wait_set_t * wait_set =
+    static_cast<rcl_wait_set_t *>(allocate(sizeof(rcl_wait_set_t), nullptr));
+  *wait_set = rcl_get_zero_initialized_wait_set();
+
+  rcl_ret_t ret = rcl_wait_set_init(wait_set, 0, 1, 0, 0, 0, get_allocator<rcl_allocator_t>());
+  if (ret != RCL_RET_OK) {
+    deallocate(wait_set, nullptr);
+    std::string msg = "Failed to initialize wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return 0;
+  }
+
+  jlong wait_set_handle = reinterpret_cast<jlong>(wait_set);
+  return wait_set_handle;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeWaitForGraphChange(
+  JNIEnv * env, jclass, jlong node_handle, jlong wait_set_handle, jlong timeout)
+{
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
+
+  const rcl_guard_condition_t * graph_guard_condition = rcl_node_get_graph_guard_condition(node);
+  if (graph_guard_condition == nullptr) {
+    std::string msg =
+      "Failed to get graph guard condition: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_NODE_INVALID, msg);
+    return false;
+  }
+
+  // rcl_wait nulls the guard condition on timeout, so it is added again on every wait
+  rcl_ret_t ret = rcl_wait_set_clear_guard_conditions(wait_set);
+  if (ret == RCL_RET_OK) {
+    ret = rcl_wait_set_add_guard_condition(wait_set, graph_guard_condition);
+  }
+  if (ret == RCL_RET_OK) {
+    ret = rcl_wait(wait_set, timeout);
+  }
+
+  if (ret != RCL_RET_OK && ret != RCL_RET_TIMEOUT) {
+    std::string msg =
+      "Failed to wait for graph changes: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return false;
+  }
+
+  return ret == RCL_RET_OK && wait_set->guard_conditions[0] != nullptr;
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_node_NodeImpl_nativeDisposeGraphWaitSet(
+  JNIEnv * env, jclass, jlong wait_set_handle)
+{
+  rcl_wait_set_t * wait_set = reinterpret_cast<rcl_wait_set_t *>(wait_set_handle);
+
+  rcl_ret_t ret = rcl_wait_set_fini(wait_set);
+  deallocate(wait_set, nullptr);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to destroy wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
+
 JNIEXPORT jlong JNICALL
 Java_org_ros2_rcljava_node_NodeImpl_nativeCreateTimerHandle(
   JNIEnv * env, jclass, jlong timer_period)
 {
-  rcl_timer_t * timer = static_cast<rcl_timer_t *>(malloc(sizeof(rcl_timer_t)));
+  rcl_timer_t * timer = static_cast<rcl_timer_t *>(allocate(sizeof(rcl_timer_t), nullptr));
   *timer = rcl_get_zero_initialized_timer();
 
-  rcl_ret_t ret = rcl_timer_init(timer, timer_period, NULL, rcl_get_default_allocator());
+  rcl_ret_t ret = rcl_timer_init(timer, timer_period, NULL, get_allocator<rcl_allocator_t>());
 
   if (ret != RCL_RET_OK) {
+    deallocate(timer, nullptr);
     std::string msg = "Failed to create timer: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
@@ -18,48 +18,217 @@
 #include <cstdio>
 #include <cstdlib>
 #include <string>
+#include <unordered_map>
+#include <utility>
+#include <vector>
 
 #include "rcl/error_handling.h"
+#include "rcl/graph.h"
 #include "rcl/node.h"
 #include "rcl/rcl.h"
+#include "rcutils/allocator.h"
 #include "rmw/rmw.h"
+#include "rmw/serialized_message.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_publisher_PublisherImpl.h"
 
+using rcljava_common::allocator::deallocate;
+using rcljava_common::exceptions::rcljava_throw_exception;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
 using rcljava_common::signatures::convert_from_java_signature;
 using rcljava_common::signatures::destroy_ros_message_signature;
 
-JNIEXPORT void JNICALL
+JNIEXPORT jlong JNICALL
 Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublish(
-  JNIEnv * env, jclass, jlong publisher_handle, jlong jmsg_destructor_handle, jobject jmsg)
+  JNIEnv * env, jclass, jlong publisher_handle, jlong jmsg_from_java_converter_handle,
+  jlong jmsg_destructor_handle, jlong message_handle, jobject jmsg)
 {
   rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
 
-  jclass jmessage_class = env->GetObjectClass(jmsg);
-
-  jmethodID mid = env->GetStaticMethodID(jmessage_class, "getFromJavaConverter", "()J");
-  jlong jfrom_java_converter = env->CallStaticLongMethod(jmessage_class, mid);
-
   convert_from_java_signature convert_from_java =
-    reinterpret_cast<convert_from_java_signature>(jfrom_java_converter);
+    reinterpret_cast<convert_from_java_signature>(jmsg_from_java_converter_handle);
 
-  void * raw_ros_message = convert_from_java(jmsg, nullptr);
+  destroy_ros_message_signature destroy_ros_message =
+    reinterpret_cast<destroy_ros_message_signature>(jmsg_destructor_handle);
+
+  // The converter allocates a new message if message_handle is null, otherwise the existing
+  // message is overwritten and its buffers are reused where possible.
+  void * raw_ros_message = convert_from_java(jmsg, reinterpret_cast<void *>(message_handle));
+  if (env->ExceptionCheck()) {
+    if (message_handle == 0) {
+      destroy_ros_message(raw_ros_message);
+    }
+    return message_handle;
+  }
 
   rcl_ret_t ret = rcl_publish(publisher, raw_ros_message);
 
+  if (ret != RCL_RET_OK) {
+    // Java does not see the returned pointer when an exception is thrown, so a message
+    // allocated by this call must not outlive it
+    if (message_handle == 0) {
+      destroy_ros_message(raw_ros_message);
+    }
+    std::string msg = "Failed to publish: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return message_handle;
+  }
+
+  return reinterpret_cast<jlong>(raw_ros_message);
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublishBatch(
+  JNIEnv * env, jclass, jlongArray jpublisher_handles, jlongArray jmsg_from_java_converter_handles,
+  jlongArray jmsg_destructor_handles, jobjectArray jmsgs, jint count)
+{
+  if (count <= 0) {
+    return;
+  }
+
+  std::vector<jlong> publisher_handles(count);
+  std::vector<jlong> msg_from_java_converter_handles(count);
+  std::vector<jlong> msg_destructor_handles(count);
+  env->GetLongArrayRegion(jpublisher_handles, 0, count, publisher_handles.data());
+  env->GetLongArrayRegion(
+    jmsg_from_java_converter_handles, 0, count, msg_from_java_converter_handles.data());
+  env->GetLongArrayRegion(jmsg_destructor_handles, 0, count, msg_destructor_handles.data());
+
+  // One C message is kept for each message type in the batch, and overwritten by every
+  // following message of that type, so that its buffers are reused where possible.
+  std::unordered_map<jlong, std::pair<void *, jlong>> ros_messages;
+
+  for (jint i = 0; i < count; ++i) {
+    jlong converter_handle = msg_from_java_converter_handles[i];
+    void * message_handle = nullptr;
+    auto it = ros_messages.find(converter_handle);
+    if (it != ros_messages.end()) {
+      message_handle = it->second.first;
+    }
+
+    convert_from_java_signature convert_from_java =
+      reinterpret_cast<convert_from_java_signature>(converter_handle);
+
+    jobject jmsg = env->GetObjectArrayElement(jmsgs, i);
+    void * raw_ros_message = convert_from_java(jmsg, message_handle);
+    env->DeleteLocalRef(jmsg);
+
+    if (message_handle == nullptr) {
+      ros_messages[converter_handle] = std::make_pair(raw_ros_message, msg_destructor_handles[i]);
+    }
+
+    if (env->ExceptionCheck()) {
+      break;
+    }
+
+    rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handles[i]);
+    rcl_ret_t ret = rcl_publish(publisher, raw_ros_message);
+
+    if (ret != RCL_RET_OK) {
+      std::string msg = "Failed to publish: " + std::string(rcl_get_error_string_safe());
+      rcl_reset_error();
+      rcljava_throw_rclexception(env, ret, msg);
+      break;
+    }
+  }
+
+  for (auto & entry : ros_messages) {
+    destroy_ros_message_signature destroy_ros_message =
+      reinterpret_cast<destroy_ros_message_signature>(entry.second.second);
+    destroy_ros_message(entry.second.first);
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_publisher_PublisherImpl_nativePublishSerialized(
+  JNIEnv * env, jclass, jlong publisher_handle, jobject jbuffer, jint offset, jint length)
+{
+  rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
+
+  char * buffer = static_cast<char *>(env->GetDirectBufferAddress(jbuffer));
+  if (buffer == nullptr) {
+    rcljava_throw_exception(
+      env, "java/lang/IllegalArgumentException", "Serialized messages must be direct buffers");
+    return;
+  }
+
+  // The serialized message only borrows the Java buffer, rcl does not take ownership of it
+  rmw_serialized_message_t serialized_message = rmw_get_zero_initialized_serialized_message();
+  serialized_message.buffer = buffer + offset;
+  serialized_message.buffer_length = static_cast<size_t>(length);
+  serialized_message.buffer_capacity = static_cast<size_t>(length);
+  serialized_message.allocator = rcutils_get_default_allocator();
+
+  rcl_ret_t ret = rcl_publish_serialized_message(publisher, &serialized_message);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to publish serialized message: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_publisher_PublisherImpl_nativeDisposeMessage(
+  JNIEnv *, jclass, jlong jmsg_destructor_handle, jlong message_handle)
+{
+  if (message_handle == 0) {
+    return;
+  }
+
   destroy_ros_message_signature destroy_ros_message =
     reinterpret_cast<destroy_ros_message_signature>(jmsg_destructor_handle);
-  destroy_ros_message(raw_ros_message);
+  destroy_ros_message(reinterpret_cast<void *>(message_handle));
+}
 
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_publisher_PublisherImpl_nativeInitLoanedMessage(
+  JNIEnv * env, jclass, jlong jmsg_from_java_converter_handle, jobject jmsg, jobject jbuffer)
+{
+  convert_from_java_signature convert_from_java =
+    reinterpret_cast<convert_from_java_signature>(jmsg_from_java_converter_handle);
+
+  // rcl in this release cannot borrow messages from the middleware, so the loaned message is
+  // a C message in a buffer owned by the publisher that Java writes into directly. Only fixed
+  // size messages are loaned, so converting into the buffer does not allocate any memory
+  void * raw_ros_message = env->GetDirectBufferAddress(jbuffer);
+  assert(raw_ros_message != nullptr);
+
+  convert_from_java(jmsg, raw_ros_message);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_ros2_rcljava_publisher_PublisherImpl_nativeGetSubscriptionCount(
+  JNIEnv * env, jclass, jlong node_handle, jlong publisher_handle)
+{
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+  rcl_publisher_t * publisher = reinterpret_cast<rcl_publisher_t *>(publisher_handle);
+
+  const char * topic_name = rcl_publisher_get_topic_name(publisher);
+  if (topic_name == nullptr) {
+    std::string msg =
+      "Failed to get publisher topic name: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, RCL_RET_PUBLISHER_INVALID, msg);
+    return 0;
+  }
+
+  size_t count = 0;
+  rcl_ret_t ret = rcl_count_subscribers(node, topic_name, &count);
   if (ret != RCL_RET_OK) {
-    std::string msg = "Failed to publish: " + std::string(rcl_get_error_string_safe());
+    std::string msg = "Failed to count subscribers: " + std::string(rcl_get_error_string_safe());
     rcl_reset_error();
     rcljava_throw_rclexception(env, ret, msg);
+    return 0;
   }
+
+  return static_cast<jint>(count);
 }
 
 JNIEXPORT void JNICALL
@@ -83,6 +252,7 @@ Java_org_ros2_rcljava_publisher_PublisherImpl_nativeDispose(
   assert(publisher != NULL);
 
   rcl_ret_t ret = rcl_publisher_fini(publisher, node);
+  deallocate(publisher, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy publisher: " + std::string(rcl_get_error_string_safe());
@@ -24,11 +24,13 @@
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_service_ServiceImpl.h"
 
+using rcljava_common::allocator::deallocate;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
 
 JNIEXPORT void JNICALL
@@ -54,6 +56,7 @@ Java_org_ros2_rcljava_service_ServiceImpl_nativeDispose(
   assert(service != NULL);
 
   rcl_ret_t ret = rcl_service_fini(service, node);
+  deallocate(service, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy service: " + std::string(rcl_get_error_string_safe());
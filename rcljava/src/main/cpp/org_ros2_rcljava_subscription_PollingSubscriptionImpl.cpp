@@ -0,0 +1,184 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+
+#include <cassert>
+#include <cstdlib>
+#include <string>
+#include <utility>
+
+#include "rcl/error_handling.h"
+#include "rcl/node.h"
+#include "rcl/rcl.h"
+#include "rmw/rmw.h"
+
+#include "rcljava_common/allocator.h"
+#include "rcljava_common/exceptions.h"
+#include "rcljava_common/signatures.h"
+
+#include "org_ros2_rcljava_subscription_PollingSubscriptionImpl.h"
+
+using rcljava_common::allocator::deallocate;
+using rcljava_common::allocator::get_allocator;
+using rcljava_common::exceptions::rcljava_throw_exception;
+using rcljava_common::exceptions::rcljava_throw_rclexception;
+using rcljava_common::signatures::convert_to_java_signature;
+using rcljava_common::signatures::create_ros_message_signature;
+using rcljava_common::signatures::destroy_ros_message_signature;
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeCreateMessage(
+  JNIEnv * env, jclass, jlong jmsg_creator_handle)
+{
+  create_ros_message_signature create_ros_message =
+    reinterpret_cast<create_ros_message_signature>(jmsg_creator_handle);
+
+  void * raw_ros_message = create_ros_message();
+  if (raw_ros_message == nullptr) {
+    rcljava_throw_exception(env, "java/lang/OutOfMemoryError", "Failed to allocate a message");
+    return 0;
+  }
+
+  return reinterpret_cast<jlong>(raw_ros_message);
+}
+
+JNIEXPORT jobject JNICALL
+Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeTake(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle,
+  jlong spare_message_handle, jlong jmsg_to_java_converter_handle, jobject jmsg)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  assert(raw_ros_message != nullptr);
+
+  // The type support replaces the strings and sequences of the previous message, so the same
+  // C message can be taken into every time
+  rcl_ret_t ret = rcl_take(subscription, raw_ros_message, nullptr);
+
+  if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+    return nullptr;
+  }
+
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to take from a subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return nullptr;
+  }
+
+  if (spare_message_handle != 0) {
+    // Keep taking into the spare message until the queue is empty, swapping both so that
+    // raw_ros_message always holds the newest one
+    void * spare_ros_message = reinterpret_cast<void *>(spare_message_handle);
+    while (rcl_take(subscription, spare_ros_message, nullptr) == RCL_RET_OK) {
+      std::swap(raw_ros_message, spare_ros_message);
+    }
+    // Errors while draining the queue are reported by the next take
+    rcl_reset_error();
+  }
+
+  convert_to_java_signature convert_to_java =
+    reinterpret_cast<convert_to_java_signature>(jmsg_to_java_converter_handle);
+
+  return convert_to_java(raw_ros_message, jmsg);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeWaitForMessage(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong guard_condition_handle, jlong timeout)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  rcl_guard_condition_t * guard_condition =
+    reinterpret_cast<rcl_guard_condition_t *>(guard_condition_handle);
+
+  rcl_wait_set_t wait_set = rcl_get_zero_initialized_wait_set();
+  rcl_ret_t ret = rcl_wait_set_init(&wait_set, 1, 1, 0, 0, 0, get_allocator<rcl_allocator_t>());
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to initialize wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return false;
+  }
+
+  ret = rcl_wait_set_add_subscription(&wait_set, subscription);
+  if (ret == RCL_RET_OK) {
+    // Triggered when the subscription is about to be disposed
+    ret = rcl_wait_set_add_guard_condition(&wait_set, guard_condition);
+  }
+  if (ret == RCL_RET_OK) {
+    ret = rcl_wait(&wait_set, timeout);
+  }
+
+  bool ready = ret == RCL_RET_OK && wait_set.subscriptions[0] != nullptr;
+  if (ret != RCL_RET_OK && ret != RCL_RET_TIMEOUT) {
+    std::string msg =
+      "Failed to wait for a message: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+
+  ret = rcl_wait_set_fini(&wait_set);
+  if (ret != RCL_RET_OK && !env->ExceptionCheck()) {
+    std::string msg = "Failed to destroy wait set: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+
+  return ready;
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_subscription_PollingSubscriptionImpl_nativeDispose(
+  JNIEnv * env, jclass, jlong node_handle, jlong subscription_handle,
+  jlong jmsg_destructor_handle, jlong message_handle, jlong spare_message_handle)
+{
+  destroy_ros_message_signature destroy_ros_message =
+    reinterpret_cast<destroy_ros_message_signature>(jmsg_destructor_handle);
+  if (message_handle != 0) {
+    destroy_ros_message(reinterpret_cast<void *>(message_handle));
+  }
+  if (spare_message_handle != 0) {
+    destroy_ros_message(reinterpret_cast<void *>(spare_message_handle));
+  }
+
+  if (subscription_handle == 0) {
+    // everything is ok, already destroyed
+    return;
+  }
+
+  if (node_handle == 0) {
+    // TODO(esteve): handle this, node is null, but subscription isn't
+    return;
+  }
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  assert(node != NULL);
+
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  assert(subscription != NULL);
+
+  rcl_ret_t ret = rcl_subscription_fini(subscription, node);
+  deallocate(subscription, nullptr);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to destroy subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
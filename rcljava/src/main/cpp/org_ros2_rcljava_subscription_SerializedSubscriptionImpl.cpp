@@ -0,0 +1,157 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+
+#include <cassert>
+#include <cstdlib>
+#include <string>
+
+#include "rcl/error_handling.h"
+#include "rcl/node.h"
+#include "rcl/rcl.h"
+#include "rcutils/allocator.h"
+#include "rmw/rmw.h"
+#include "rmw/serialized_message.h"
+
+#include "rcljava_common/allocator.h"
+#include "rcljava_common/exceptions.h"
+
+#include "org_ros2_rcljava_subscription_SerializedSubscriptionImpl.h"
+
+using rcljava_common::allocator::allocate;
+using rcljava_common::allocator::deallocate;
+using rcljava_common::allocator::get_allocator;
+using rcljava_common::exceptions::rcljava_throw_rclexception;
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_subscription_SerializedSubscriptionImpl_nativeCreateSerializedMessage(
+  JNIEnv * env, jclass, jint capacity)
+{
+  rmw_serialized_message_t * serialized_message =
+    static_cast<rmw_serialized_message_t *>(allocate(sizeof(rmw_serialized_message_t), nullptr));
+  *serialized_message = rmw_get_zero_initialized_serialized_message();
+
+  rcutils_allocator_t allocator = get_allocator<rcutils_allocator_t>();
+  rmw_ret_t ret = rmw_serialized_message_init(
+    serialized_message, static_cast<size_t>(capacity), &allocator);
+
+  if (ret != RMW_RET_OK) {
+    deallocate(serialized_message, nullptr);
+    std::string msg =
+      "Failed to create serialized message: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return 0;
+  }
+
+  jlong jserialized_message = reinterpret_cast<jlong>(serialized_message);
+  return jserialized_message;
+}
+
+JNIEXPORT jobject JNICALL
+Java_org_ros2_rcljava_subscription_SerializedSubscriptionImpl_nativeTake(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong serialized_message_handle,
+  jobject jbuffer)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  rmw_serialized_message_t * serialized_message =
+    reinterpret_cast<rmw_serialized_message_t *>(serialized_message_handle);
+
+  rcl_ret_t ret = rcl_take_serialized_message(subscription, serialized_message, nullptr);
+
+  if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+    return nullptr;
+  }
+
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to take serialized message from a subscription: " +
+      std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return nullptr;
+  }
+
+  // Only wrap the serialized message in a new Java buffer if the middleware had to
+  // reallocate it to fit the message that was just taken
+  jlong capacity = static_cast<jlong>(serialized_message->buffer_capacity);
+  if (jbuffer == nullptr ||
+    env->GetDirectBufferAddress(jbuffer) != serialized_message->buffer ||
+    env->GetDirectBufferCapacity(jbuffer) != capacity)
+  {
+    jbuffer = env->NewDirectByteBuffer(serialized_message->buffer, capacity);
+  }
+
+  jclass jbuffer_class = env->FindClass("java/nio/Buffer");
+  jmethodID jclear_mid = env->GetMethodID(jbuffer_class, "clear", "()Ljava/nio/Buffer;");
+  jmethodID jlimit_mid = env->GetMethodID(jbuffer_class, "limit", "(I)Ljava/nio/Buffer;");
+
+  jint length = static_cast<jint>(serialized_message->buffer_length);
+
+  env->DeleteLocalRef(env->CallObjectMethod(jbuffer, jclear_mid));
+  env->DeleteLocalRef(env->CallObjectMethod(jbuffer, jlimit_mid, length));
+  env->DeleteLocalRef(jbuffer_class);
+
+  return jbuffer;
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_subscription_SerializedSubscriptionImpl_nativeDispose(
+  JNIEnv * env, jclass, jlong node_handle, jlong subscription_handle,
+  jlong serialized_message_handle)
+{
+  if (serialized_message_handle != 0) {
+    rmw_serialized_message_t * serialized_message =
+      reinterpret_cast<rmw_serialized_message_t *>(serialized_message_handle);
+
+    rmw_ret_t ret = rmw_serialized_message_fini(serialized_message);
+    deallocate(serialized_message, nullptr);
+
+    if (ret != RMW_RET_OK) {
+      std::string msg =
+        "Failed to destroy serialized message: " + std::string(rcl_get_error_string_safe());
+      rcl_reset_error();
+      rcljava_throw_rclexception(env, ret, msg);
+      return;
+    }
+  }
+
+  if (subscription_handle == 0) {
+    // everything is ok, already destroyed
+    return;
+  }
+
+  if (node_handle == 0) {
+    // TODO(esteve): handle this, node is null, but subscription isn't
+    return;
+  }
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  assert(node != NULL);
+
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  assert(subscription != NULL);
+
+  rcl_ret_t ret = rcl_subscription_fini(subscription, node);
+  deallocate(subscription, nullptr);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to destroy subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
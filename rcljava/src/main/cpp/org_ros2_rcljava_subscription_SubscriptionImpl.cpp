@@ -15,8 +15,12 @@
 #include <jni.h>
 
 #include <cassert>
+#include <chrono>
+#include <cstdint>
 #include <cstdlib>
+#include <cstring>
 #include <string>
+#include <utility>
 
 #include "rcl/error_handling.h"
 #include "rcl/node.h"
@@ -24,12 +28,449 @@
 #include "rmw/rmw.h"
 #include "rosidl_generator_c/message_type_support_struct.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_subscription_SubscriptionImpl.h"
 
+using rcljava_common::allocator::deallocate;
+using rcljava_common::exceptions::rcljava_throw_exception;
 using rcljava_common::exceptions::rcljava_throw_rclexception;
+using rcljava_common::signatures::convert_to_java_signature;
+using rcljava_common::signatures::convert_to_java_projected_signature;
+using rcljava_common::signatures::create_ros_message_signature;
+using rcljava_common::signatures::destroy_ros_message_signature;
+
+// Operations of the rules of org.ros2.rcljava.subscription.MessageFilter. A filter program
+// holds the accepted and rejected counts, followed by the rules, each encoded as
+// [length, operation, rejected count, arguments...]
+enum message_filter_operation : jlong
+{
+  MESSAGE_FILTER_EVERY_NTH = 1,
+  MESSAGE_FILTER_MAX_RATE = 2,
+  MESSAGE_FILTER_MAX_AGE = 3,
+  MESSAGE_FILTER_COMPARE = 4,
+};
+
+// Types of the fields compared by a filter, as listed in FieldOffsets.FIELD_TYPES
+enum message_filter_field_type : jlong
+{
+  MESSAGE_FILTER_BOOL = 1,
+  MESSAGE_FILTER_BYTE = 2,
+  MESSAGE_FILTER_CHAR = 3,
+  MESSAGE_FILTER_INT8 = 4,
+  MESSAGE_FILTER_UINT8 = 5,
+  MESSAGE_FILTER_INT16 = 6,
+  MESSAGE_FILTER_UINT16 = 7,
+  MESSAGE_FILTER_INT32 = 8,
+  MESSAGE_FILTER_UINT32 = 9,
+  MESSAGE_FILTER_INT64 = 10,
+  MESSAGE_FILTER_UINT64 = 11,
+  MESSAGE_FILTER_FLOAT32 = 12,
+  MESSAGE_FILTER_FLOAT64 = 13,
+};
+
+template<typename T>
+T
+read_message_field(const void * msg, jlong offset)
+{
+  T field;
+  std::memcpy(&field, static_cast<const char *>(msg) + offset, sizeof(T));
+  return field;
+}
+
+// Comparisons are the ordinals of MessageFilter.Comparison
+template<typename T>
+bool
+compare_message_field(T field, jlong comparison, T value)
+{
+  switch (comparison) {
+    case 0:
+      return field == value;
+    case 1:
+      return field != value;
+    case 2:
+      return field < value;
+    case 3:
+      return field <= value;
+    case 4:
+      return field > value;
+    case 5:
+      return field >= value;
+    default:
+      return false;
+  }
+}
+
+bool
+accept_message_field(const void * msg, const jlong * rule)
+{
+  jlong offset = rule[3];
+  jlong comparison = rule[5];
+  bool is_double_value = rule[6] != 0;
+  jlong value = rule[7];
+  double double_value = static_cast<double>(value);
+  if (is_double_value) {
+    std::memcpy(&double_value, &value, sizeof(double_value));
+  }
+
+  int64_t field = 0;
+  switch (rule[4]) {
+    case MESSAGE_FILTER_BOOL:
+      field = read_message_field<bool>(msg, offset) ? 1 : 0;
+      break;
+    case MESSAGE_FILTER_BYTE:
+    case MESSAGE_FILTER_UINT8:
+      field = read_message_field<uint8_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_CHAR:
+    case MESSAGE_FILTER_INT8:
+      field = read_message_field<int8_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_INT16:
+      field = read_message_field<int16_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_UINT16:
+      field = read_message_field<uint16_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_INT32:
+      field = read_message_field<int32_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_UINT32:
+      field = read_message_field<uint32_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_INT64:
+      field = read_message_field<int64_t>(msg, offset);
+      break;
+    case MESSAGE_FILTER_UINT64:
+      {
+        uint64_t unsigned_field = read_message_field<uint64_t>(msg, offset);
+        if (is_double_value) {
+          return compare_message_field<double>(
+            static_cast<double>(unsigned_field), comparison, double_value);
+        }
+        if (value < 0) {
+          // Any unsigned field is greater than a negative value
+          return compare_message_field<int>(1, comparison, 0);
+        }
+        return compare_message_field<uint64_t>(
+          unsigned_field, comparison, static_cast<uint64_t>(value));
+      }
+    case MESSAGE_FILTER_FLOAT32:
+      return compare_message_field<double>(
+        read_message_field<float>(msg, offset), comparison, double_value);
+    case MESSAGE_FILTER_FLOAT64:
+      return compare_message_field<double>(
+        read_message_field<double>(msg, offset), comparison, double_value);
+    default:
+      return false;
+  }
+
+  if (is_double_value) {
+    return compare_message_field<double>(static_cast<double>(field), comparison, double_value);
+  }
+  return compare_message_field<int64_t>(field, comparison, value);
+}
+
+bool
+accept_message(const void * msg, jlong * program, jsize length)
+{
+  jlong now = std::chrono::duration_cast<std::chrono::nanoseconds>(
+    std::chrono::steady_clock::now().time_since_epoch()).count();
+
+  bool accepted = true;
+  for (jsize i = 2; accepted && i < length; i += static_cast<jsize>(program[i])) {
+    jlong * rule = program + i;
+    switch (rule[1]) {
+      case MESSAGE_FILTER_EVERY_NTH:
+        // [n, number of messages seen]
+        accepted = rule[4]++ % rule[3] == 0;
+        break;
+      case MESSAGE_FILTER_MAX_RATE:
+        // [minimum interval, time of the last accepted message or -1]
+        accepted = rule[4] < 0 || now - rule[4] >= rule[3];
+        break;
+      case MESSAGE_FILTER_MAX_AGE:
+        {
+          // [offset of the seconds, offset of the nanoseconds, maximum age]
+          jlong stamp = static_cast<jlong>(read_message_field<int32_t>(msg, rule[3])) *
+            1000000000LL + read_message_field<uint32_t>(msg, rule[4]);
+          jlong wall_time = std::chrono::duration_cast<std::chrono::nanoseconds>(
+            std::chrono::system_clock::now().time_since_epoch()).count();
+          accepted = wall_time - stamp <= rule[5];
+        }
+        break;
+      case MESSAGE_FILTER_COMPARE:
+        // [offset, field type, comparison, whether the value is a double, value]
+        accepted = accept_message_field(msg, rule);
+        break;
+      default:
+        accepted = false;
+        break;
+    }
+    if (!accepted) {
+      ++rule[2];
+    }
+  }
+
+  if (!accepted) {
+    ++program[1];
+    return false;
+  }
+
+  // Rate limits only account for the messages accepted by the whole filter
+  ++program[0];
+  for (jsize i = 2; i < length; i += static_cast<jsize>(program[i])) {
+    if (program[i + 1] == MESSAGE_FILTER_MAX_RATE) {
+      program[i + 4] = now;
+    }
+  }
+  return true;
+}
+
+bool
+take_message(
+  JNIEnv * env, rcl_subscription_t * subscription, void * ros_message,
+  rmw_message_info_t * message_info)
+{
+  // The type support replaces the strings and sequences of the previous message, so the same
+  // C message can be taken into every time
+  rcl_ret_t ret = rcl_take(subscription, ros_message, message_info);
+  if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+    return false;
+  }
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to take from a subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return false;
+  }
+  return true;
+}
+
+void
+set_publisher_gid(JNIEnv * env, jbyteArray jpublisher_gid, const rmw_message_info_t & message_info)
+{
+  jsize gid_len = env->GetArrayLength(jpublisher_gid);
+  if (gid_len > RMW_GID_STORAGE_SIZE) {
+    gid_len = RMW_GID_STORAGE_SIZE;
+  }
+  env->SetByteArrayRegion(
+    jpublisher_gid, 0, gid_len, reinterpret_cast<const jbyte *>(message_info.publisher_gid.data));
+}
+
+bool
+is_ignored_publisher(
+  JNIEnv * env, jbyteArray jignored_publisher_gids, const rmw_message_info_t & message_info)
+{
+  jsize gids_len = env->GetArrayLength(jignored_publisher_gids);
+  if (gids_len == 0) {
+    return false;
+  }
+
+  // Only compared, never copied, the array is released without writing it back
+  const uint8_t * gids =
+    static_cast<const uint8_t *>(env->GetPrimitiveArrayCritical(jignored_publisher_gids, nullptr));
+  if (gids == nullptr) {
+    return false;
+  }
+  bool ignored = false;
+  for (jsize offset = 0; offset + RMW_GID_STORAGE_SIZE <= gids_len;
+    offset += RMW_GID_STORAGE_SIZE)
+  {
+    if (std::memcmp(gids + offset, message_info.publisher_gid.data, RMW_GID_STORAGE_SIZE) == 0) {
+      ignored = true;
+      break;
+    }
+  }
+  env->ReleasePrimitiveArrayCritical(
+    jignored_publisher_gids, const_cast<uint8_t *>(gids), JNI_ABORT);
+  return ignored;
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeCreateMessage(
+  JNIEnv * env, jclass, jlong jmsg_creator_handle)
+{
+  create_ros_message_signature create_ros_message =
+    reinterpret_cast<create_ros_message_signature>(jmsg_creator_handle);
+
+  void * raw_ros_message = create_ros_message();
+  if (raw_ros_message == nullptr) {
+    rcljava_throw_exception(env, "java/lang/OutOfMemoryError", "Failed to allocate a message");
+    return 0;
+  }
+
+  return reinterpret_cast<jlong>(raw_ros_message);
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeDestroyMessage(
+  JNIEnv *, jclass, jlong jmsg_destructor_handle, jlong message_handle)
+{
+  destroy_ros_message_signature destroy_ros_message =
+    reinterpret_cast<destroy_ros_message_signature>(jmsg_destructor_handle);
+  destroy_ros_message(reinterpret_cast<void *>(message_handle));
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeWithInfo(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle,
+  jbyteArray jpublisher_gid, jlongArray jstamp_offsets, jlongArray jmessage_info)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  assert(raw_ros_message != nullptr);
+
+  rmw_message_info_t message_info;
+  if (!take_message(env, subscription, raw_ros_message, &message_info)) {
+    return false;
+  }
+
+  // [received timestamp, source timestamp or 0, whether the message is from this process],
+  // see MessageInfoSubscriptionImpl
+  jlong info[3] = {
+    std::chrono::duration_cast<std::chrono::nanoseconds>(
+      std::chrono::system_clock::now().time_since_epoch()).count(),
+    0,
+    message_info.from_intra_process ? 1 : 0
+  };
+  if (jstamp_offsets != nullptr) {
+    jlong stamp_offsets[2];
+    env->GetLongArrayRegion(jstamp_offsets, 0, 2, stamp_offsets);
+    info[1] = static_cast<jlong>(read_message_field<int32_t>(raw_ros_message, stamp_offsets[0])) *
+      1000000000LL + read_message_field<uint32_t>(raw_ros_message, stamp_offsets[1]);
+  }
+  env->SetLongArrayRegion(jmessage_info, 0, 3, info);
+
+  set_publisher_gid(env, jpublisher_gid, message_info);
+  return true;
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeLatest(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle,
+  jlong spare_message_handle, jbyteArray jignored_publisher_gids, jlongArray jskipped_count)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  void * spare_ros_message = reinterpret_cast<void *>(spare_message_handle);
+  assert(raw_ros_message != nullptr);
+  assert(spare_ros_message != nullptr);
+
+  rmw_message_info_t message_info;
+  rmw_message_info_t * message_info_ptr =
+    jignored_publisher_gids != nullptr ? &message_info : nullptr;
+  jlong skipped_count = 0;
+  if (!take_message(env, subscription, spare_ros_message, message_info_ptr)) {
+    env->SetLongArrayRegion(jskipped_count, 0, 1, &skipped_count);
+    return 0;
+  }
+
+  // Keep taking into the spare message until the queue is empty, swapping both so that
+  // raw_ros_message always holds the newest message kept. Messages from ignored publishers are
+  // overwritten by the next take, and the older messages are never converted to Java.
+  bool taken = false;
+  rcl_ret_t ret = RCL_RET_OK;
+  while (ret == RCL_RET_OK) {
+    if (message_info_ptr == nullptr ||
+      !is_ignored_publisher(env, jignored_publisher_gids, message_info))
+    {
+      std::swap(raw_ros_message, spare_ros_message);
+      if (taken) {
+        ++skipped_count;
+      }
+      taken = true;
+    }
+    ret = rcl_take(subscription, spare_ros_message, message_info_ptr);
+  }
+  // Errors while draining the queue are reported by the next take, the newest message
+  // taken so far is still delivered
+  rcl_reset_error();
+  env->SetLongArrayRegion(jskipped_count, 0, 1, &skipped_count);
+
+  return taken ? reinterpret_cast<jlong>(raw_ros_message) : 0;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeAccept(
+  JNIEnv * env, jclass, jlong message_handle, jlongArray jfilter_program)
+{
+  // The filter updates its state and statistics in place, so the program is copied back
+  jlong * program = env->GetLongArrayElements(jfilter_program, nullptr);
+  bool accepted = accept_message(
+    reinterpret_cast<void *>(message_handle), program, env->GetArrayLength(jfilter_program));
+  env->ReleaseLongArrayElements(jfilter_program, program, 0);
+  return accepted;
+}
+
+JNIEXPORT jobject JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeConvert(
+  JNIEnv *, jclass, jlong message_handle, jlong jmsg_to_java_converter_handle)
+{
+  convert_to_java_signature convert_to_java =
+    reinterpret_cast<convert_to_java_signature>(jmsg_to_java_converter_handle);
+
+  return convert_to_java(reinterpret_cast<void *>(message_handle), nullptr);
+}
+
+JNIEXPORT jobject JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeConvertProjected(
+  JNIEnv * env, jclass, jlong message_handle, jlong jmsg_projected_converter_handle,
+  jlongArray jprojection)
+{
+  convert_to_java_projected_signature convert_to_java_projected =
+    reinterpret_cast<convert_to_java_projected_signature>(jmsg_projected_converter_handle);
+
+  jlong * projection = env->GetLongArrayElements(jprojection, nullptr);
+  jobject jtaken_msg =
+    convert_to_java_projected(reinterpret_cast<void *>(message_handle), nullptr, projection);
+  env->ReleaseLongArrayElements(jprojection, projection, JNI_ABORT);
+  return jtaken_msg;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeTakeBatch(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle,
+  jlong jmsg_to_java_converter_handle, jobjectArray jmessages, jint max_count)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  assert(raw_ros_message != nullptr);
+
+  convert_to_java_signature convert_to_java =
+    reinterpret_cast<convert_to_java_signature>(jmsg_to_java_converter_handle);
+
+  jint count = 0;
+  while (count < max_count) {
+    rcl_ret_t ret = rcl_take(subscription, raw_ros_message, nullptr);
+    if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+      break;
+    }
+    if (ret != RCL_RET_OK) {
+      std::string msg =
+        "Failed to take from a subscription: " + std::string(rcl_get_error_string_safe());
+      rcl_reset_error();
+      if (count == 0) {
+        rcljava_throw_rclexception(env, ret, msg);
+      }
+      // Otherwise the messages taken so far are delivered, and the next take reports the error
+      break;
+    }
+
+    jobject jtaken_msg = convert_to_java(raw_ros_message, nullptr);
+    if (env->ExceptionCheck()) {
+      break;
+    }
+    env->SetObjectArrayElement(jmessages, count, jtaken_msg);
+    env->DeleteLocalRef(jtaken_msg);
+    ++count;
+  }
+
+  return count;
+}
 
 JNIEXPORT void JNICALL
 Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeDispose(
@@ -54,6 +495,7 @@ Java_org_ros2_rcljava_subscription_SubscriptionImpl_nativeDispose(
   assert(subscription != NULL);
 
   rcl_ret_t ret = rcl_subscription_fini(subscription, node);
+  deallocate(subscription, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy subscription: " + std::string(rcl_get_error_string_safe());
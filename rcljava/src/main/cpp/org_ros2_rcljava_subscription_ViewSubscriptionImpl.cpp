@@ -0,0 +1,120 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+#include <jni.h>
+
+#include <cassert>
+#include <cstdlib>
+#include <string>
+
+#include "rcl/error_handling.h"
+#include "rcl/node.h"
+#include "rcl/rcl.h"
+#include "rmw/rmw.h"
+
+#include "rcljava_common/allocator.h"
+#include "rcljava_common/exceptions.h"
+#include "rcljava_common/signatures.h"
+
+#include "org_ros2_rcljava_subscription_ViewSubscriptionImpl.h"
+
+using rcljava_common::allocator::deallocate;
+using rcljava_common::exceptions::rcljava_throw_exception;
+using rcljava_common::exceptions::rcljava_throw_rclexception;
+using rcljava_common::signatures::create_ros_message_signature;
+using rcljava_common::signatures::destroy_ros_message_signature;
+
+JNIEXPORT jlong JNICALL
+Java_org_ros2_rcljava_subscription_ViewSubscriptionImpl_nativeCreateMessage(
+  JNIEnv * env, jclass, jlong jmsg_creator_handle)
+{
+  create_ros_message_signature create_ros_message =
+    reinterpret_cast<create_ros_message_signature>(jmsg_creator_handle);
+
+  void * raw_ros_message = create_ros_message();
+  if (raw_ros_message == nullptr) {
+    rcljava_throw_exception(env, "java/lang/OutOfMemoryError", "Failed to allocate a message");
+    return 0;
+  }
+
+  return reinterpret_cast<jlong>(raw_ros_message);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_ros2_rcljava_subscription_ViewSubscriptionImpl_nativeTake(
+  JNIEnv * env, jclass, jlong subscription_handle, jlong message_handle)
+{
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  void * raw_ros_message = reinterpret_cast<void *>(message_handle);
+  assert(raw_ros_message != nullptr);
+
+  // The type support replaces the strings and sequences of the previous message, so the same
+  // C message can be taken into every time
+  rcl_ret_t ret = rcl_take(subscription, raw_ros_message, nullptr);
+
+  if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+    return false;
+  }
+
+  if (ret != RCL_RET_OK) {
+    std::string msg =
+      "Failed to take message view from a subscription: " +
+      std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+    return false;
+  }
+
+  return true;
+}
+
+JNIEXPORT void JNICALL
+Java_org_ros2_rcljava_subscription_ViewSubscriptionImpl_nativeDispose(
+  JNIEnv * env, jclass, jlong node_handle, jlong subscription_handle,
+  jlong jmsg_destructor_handle, jlong message_handle)
+{
+  if (message_handle != 0) {
+    destroy_ros_message_signature destroy_ros_message =
+      reinterpret_cast<destroy_ros_message_signature>(jmsg_destructor_handle);
+    destroy_ros_message(reinterpret_cast<void *>(message_handle));
+  }
+
+  if (subscription_handle == 0) {
+    // everything is ok, already destroyed
+    return;
+  }
+
+  if (node_handle == 0) {
+    // TODO(esteve): handle this, node is null, but subscription isn't
+    return;
+  }
+
+  rcl_node_t * node = reinterpret_cast<rcl_node_t *>(node_handle);
+
+  assert(node != NULL);
+
+  rcl_subscription_t * subscription = reinterpret_cast<rcl_subscription_t *>(subscription_handle);
+
+  assert(subscription != NULL);
+
+  rcl_ret_t ret = rcl_subscription_fini(subscription, node);
+  deallocate(subscription, nullptr);
+
+  if (ret != RCL_RET_OK) {
+    std::string msg = "Failed to destroy subscription: " + std::string(rcl_get_error_string_safe());
+    rcl_reset_error();
+    rcljava_throw_rclexception(env, ret, msg);
+  }
+}
@@ -24,11 +24,13 @@
 #include "rcl/rcl.h"
 #include "rmw/rmw.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
 #include "org_ros2_rcljava_timer_WallTimerImpl.h"
 
+using rcljava_common::allocator::deallocate;
 using rcljava_common::exceptions::rcljava_throw_exception;
 using rcljava_common::signatures::convert_from_java_signature;
 using rcljava_common::signatures::destroy_ros_message_signature;
@@ -87,6 +89,7 @@ Java_org_ros2_rcljava_timer_WallTimerImpl_nativeDispose(
   assert(timer != NULL);
 
   rcl_ret_t ret = rcl_timer_fini(timer);
+  deallocate(timer, nullptr);
 
   if (ret != RCL_RET_OK) {
     std::string msg = "Failed to destroy timer: " + std::string(rcl_get_error_string_safe());
@@ -0,0 +1,43 @@
+/* Copyright 2017-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava;
+
+/**
+ * How the native layer allocates memory for rcl entities and the C messages created when
+ *   converting from Java.
+ */
+public enum AllocatorStrategy {
+  /**
+   * Every allocation goes to the system allocator.
+   */
+  SYSTEM(0),
+
+  /**
+   * Small blocks are recycled through free lists of fixed size classes, larger blocks go to
+   *   the system allocator.
+   */
+  POOL(1);
+
+  private final int value;
+
+  AllocatorStrategy(final int value) {
+    this.value = value;
+  }
+
+  public int getValue() {
+    return value;
+  }
+}
@@ -23,11 +23,14 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.ros2.rcljava.backend.JNIBackend;
+import org.ros2.rcljava.backend.NativeBackend;
 import org.ros2.rcljava.client.Client;
 import org.ros2.rcljava.common.JNIUtils;
 import org.ros2.rcljava.executors.SingleThreadedExecutor;
 import org.ros2.rcljava.interfaces.MessageDefinition;
 import org.ros2.rcljava.interfaces.ServiceDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
 import org.ros2.rcljava.node.ComposableNode;
 import org.ros2.rcljava.node.Node;
 import org.ros2.rcljava.node.NodeImpl;
@@ -35,6 +38,7 @@ import org.ros2.rcljava.publisher.Publisher;
 import org.ros2.rcljava.qos.QoSProfile;
 import org.ros2.rcljava.service.RMWRequestId;
 import org.ros2.rcljava.service.Service;
+import org.ros2.rcljava.subscription.PollingSubscription;
 import org.ros2.rcljava.subscription.Subscription;
 import org.ros2.rcljava.timer.Timer;
 
@@ -65,12 +69,35 @@ public final class RCLJava {
    */
   private static Collection<Node> nodes;
 
+  /**
+   * The @{link IntraProcessManager} shared by all the @{link Node}s that use
+   * intra-process communication, created on demand.
+   */
+  private static IntraProcessManager intraProcessManager = null;
+
+  /**
+   * @return The @{link IntraProcessManager} shared by all the @{link Node}s
+   *     that use intra-process communication.
+   */
+  public static IntraProcessManager getIntraProcessManager() {
+    synchronized (RCLJava.class) {
+      if (intraProcessManager == null) {
+        intraProcessManager = new IntraProcessManager();
+      }
+      return intraProcessManager;
+    }
+  }
+
   private static void cleanup() {
     for (Node node : nodes) {
       for (Subscription subscription : node.getSubscriptions()) {
         subscription.dispose();
       }
 
+      for (PollingSubscription subscription : node.getPollingSubscriptions()) {
+        subscription.dispose();
+      }
+
       for (Publisher publisher : node.getPublishers()) {
         publisher.dispose();
       }
@@ -121,6 +148,17 @@ public final class RCLJava {
    *   (@{link Node}s, @{link Publisher}s and @{link Subscription}s.
    */
   public static void rclJavaInit() {
+    rclJavaInit(AllocatorStrategy.SYSTEM);
+  }
+
+  /**
+   * Initialize the RCLJava API with the given allocator strategy, which is used for the
+   *   memory of rcl entities and of the C messages converted from Java. The strategy can only
+   *   be chosen by the first call that initializes RCLJava.
+   *
+   * @param allocatorStrategy How the native layer allocates memory.
+   */
+  public static void rclJavaInit(final AllocatorStrategy allocatorStrategy) {
     synchronized (RCLJava.class) {
       if (!RCLJava.initialized) {
         try {
@@ -129,17 +167,61 @@ public final class RCLJava {
           logger.error("Native code library failed to load.\n" + ule);
           System.exit(1);
         }
-        RCLJava.nativeRCLJavaInit();
+        RCLJava.nativeRCLJavaInit(allocatorStrategy.getValue());
         logger.info("Using RMW implementation: {}", RCLJava.getRMWIdentifier());
+        RCLJava.nativeBackend = loadNativeBackend(allocatorStrategy);
+        logger.info("Using native backend: {}", RCLJava.nativeBackend.getName());
         initialized = true;
       }
     }
   }
 
+  /**
+   * The system property that selects the @{link NativeBackend}, either "ffm" or "jni". The
+   *   FFM backend is used by default when it is on the classpath and the JVM supports it.
+   */
+  public static final String NATIVE_BACKEND_PROPERTY = "rcljava.backend";
+
+  private static final String FFM_BACKEND_CLASS = "org.ros2.rcljava.backend.ffm.FFMBackend";
+
+  private static volatile NativeBackend nativeBackend = null;
+
+  /**
+   * The FFM backend lives in an optional jar built for a newer JVM, so it is loaded by name
+   *   and JNI is used whenever it cannot be loaded.
+   */
+  private static NativeBackend loadNativeBackend(final AllocatorStrategy allocatorStrategy) {
+    // The FFM backend cannot reach the allocators of the native layer, so it is only used
+    // with the system allocator
+    if ("ffm".equals(System.getProperty(NATIVE_BACKEND_PROPERTY, "ffm"))
+        && allocatorStrategy == AllocatorStrategy.SYSTEM) {
+      try {
+        return (NativeBackend) Class.forName(FFM_BACKEND_CLASS).newInstance();
+      } catch (ClassNotFoundException cnfe) {
+        logger.debug("FFM backend is not on the classpath");
+      } catch (LinkageError le) {
+        logger.debug("FFM backend is not supported by this JVM: " + le);
+      } catch (Exception e) {
+        logger.warn("FFM backend failed to load, falling back to JNI: " + e);
+      }
+    }
+    return new JNIBackend();
+  }
+
+  /**
+   * @return The backend of the calls into rcl on the hot paths, which is chosen when RCLJava
+   *   is initialized.
+   */
+  public static NativeBackend getNativeBackend() {
+    return RCLJava.nativeBackend;
+  }
+
   /**
    * Initialize the underlying rcl layer.
+   *
+   * @param allocatorStrategy The value of the {@link AllocatorStrategy} to use.
    */
-  private static native void nativeRCLJavaInit();
+  private static native void nativeRCLJavaInit(int allocatorStrategy);
 
   /**
    * Create a ROS2 node (rcl_node_t) and return a pointer to it as an integer.
@@ -198,8 +280,28 @@ public final class RCLJava {
    *     structure.
    */
   public static Node createNode(final String nodeName, final String namespace) {
+    return createNode(nodeName, namespace, false);
+  }
+
+  /**
+   * Create a @{link Node}.
+   *
+   * @param nodeName The name that will identify this node in a ROS2 graph.
+   * @param namespace The namespace of the node.
+   * @param useIntraProcessComms true to hand messages published by this node
+   *     directly to the subscriptions of the nodes in this process that also
+   *     use intra-process communication, without going through the
+   *     middleware. One of the subscriptions receives the published instance
+   *     and the others a copy, so messages must not be modified once they
+   *     have been published.
+   * @return A @{link Node} that represents the underlying ROS2 node
+   *     structure.
+   */
+  public static Node createNode(
+      final String nodeName, final String namespace, final boolean useIntraProcessComms) {
     long nodeHandle = nativeCreateNodeHandle(nodeName, namespace);
-    Node node = new NodeImpl(nodeHandle, nodeName);
+    Node node = new NodeImpl(
+        nodeHandle, nodeName, useIntraProcessComms ? getIntraProcessManager() : null);
     nodes.add(node);
     return node;
   }
@@ -281,4 +383,61 @@ public final class RCLJava {
   }
 
   private static native void nativeDisposeQoSProfile(long qosProfileHandle);
+
+  private static native void nativeSetParallelConversionThreshold(int threshold);
+
+  private static native int nativeGetParallelConversionThreshold();
+
+  /**
+   * Convert sequences of nested messages with at least this many elements on several threads.
+   * The sequence is split in chunks that are converted by the calling thread and a pool of
+   * worker threads, which are attached to the JVM once when they are first needed.
+   * Splitting only pays off for large sequences, so this is disabled by default. The crossover
+   * depends on the machine and the message type, and can be measured with the
+   * ParallelConversionBenchmark in the rcljava_benchmark jar.
+   *
+   * @param threshold The minimum size of a sequence converted in parallel, or zero to always
+   *     convert sequences on the calling thread.
+   */
+  public static void setParallelConversionThreshold(final int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Invalid parallel conversion threshold: " + threshold);
+    }
+    nativeSetParallelConversionThreshold(threshold);
+  }
+
+  /**
+   * @return The minimum size of a sequence converted in parallel, zero if disabled.
+   */
+  public static int getParallelConversionThreshold() {
+    return nativeGetParallelConversionThreshold();
+  }
+
+  private static native long nativeGetAllocationCount();
+
+  private static native long nativeGetDeallocationCount();
+
+  private static native long nativeGetAllocatedBytes();
+
+  /**
+   * @return The number of blocks allocated by the native layer since it was loaded.
+   */
+  public static long getAllocationCount() {
+    return nativeGetAllocationCount();
+  }
+
+  /**
+   * @return The number of blocks released by the native layer since it was loaded.
+   */
+  public static long getDeallocationCount() {
+    return nativeGetDeallocationCount();
+  }
+
+  /**
+   * @return The number of bytes currently allocated by the native layer, excluding the
+   *     bookkeeping of the allocator and the blocks kept for reuse by the pool.
+   */
+  public static long getAllocatedBytes() {
+    return nativeGetAllocatedBytes();
+  }
 }
@@ -0,0 +1,82 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.backend;
+
+import java.nio.ByteBuffer;
+
+import org.ros2.rcljava.common.JNIUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A @{link NativeBackend} that calls rcl through JNI, available on every
+ * JVM. This is the fallback when no other backend can be loaded.
+ */
+public class JNIBackend implements NativeBackend {
+  private static final Logger logger = LoggerFactory.getLogger(JNIBackend.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(JNIBackend.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final String getName() {
+    return "jni";
+  }
+
+  private static native boolean nativeTake(
+      long subscriptionHandle, long messageHandle, byte[] ignoredPublisherGids);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final boolean take(
+      final long subscriptionHandle, final long messageHandle,
+      final byte[] ignoredPublisherGids) {
+    return nativeTake(subscriptionHandle, messageHandle, ignoredPublisherGids);
+  }
+
+  private static native void nativePublish(long publisherHandle, ByteBuffer message);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publish(final long publisherHandle, final ByteBuffer message) {
+    nativePublish(publisherHandle, message);
+  }
+
+  private static native void nativeWait(long[] subscriptionHandles,
+      long[] guardConditionHandles, long[] timerHandles, long[] serviceHandles,
+      long[] clientHandles, long timeout);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void waitFor(final long[] subscriptionHandles,
+      final long[] guardConditionHandles, final long[] timerHandles,
+      final long[] serviceHandles, final long[] clientHandles, final long timeout) {
+    nativeWait(subscriptionHandles, guardConditionHandles, timerHandles, serviceHandles,
+        clientHandles, timeout);
+  }
+}
@@ -0,0 +1,68 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.backend;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The calls into rcl on the hot paths of publishers, subscriptions and
+ * executors, which only pass handles and C messages. The backend is chosen
+ * when RCLJava is initialized, see
+ * @{link org.ros2.rcljava.RCLJava#getNativeBackend()}.
+ * Errors are reported by throwing an undeclared
+ * @{link org.ros2.rcljava.exceptions.RCLException}, as the JNI code does.
+ */
+public interface NativeBackend {
+  /**
+   * @return The name of the backend, e.g. "jni".
+   */
+  String getName();
+
+  /**
+   * Take a message from a ROS2 subscription into an existing C message.
+   *
+   * @param subscriptionHandle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param ignoredPublisherGids The global identifiers of the publishers
+   *     whose messages are dropped, packed one after another, or null.
+   * @return true if a message was taken and not dropped.
+   */
+  boolean take(long subscriptionHandle, long messageHandle, byte[] ignoredPublisherGids);
+
+  /**
+   * Publish a C message.
+   *
+   * @param publisherHandle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   * @param message A direct buffer that wraps the C message.
+   */
+  void publish(long publisherHandle, ByteBuffer message);
+
+  /**
+   * Wait until any of the entities is ready, or the timeout expires. The
+   * handles of the entities that are not ready are set to zero.
+   *
+   * @param subscriptionHandles Pointers to rcl_subscription_t structures.
+   * @param guardConditionHandles Pointers to rcl_guard_condition_t structures.
+   * @param timerHandles Pointers to rcl_timer_t structures.
+   * @param serviceHandles Pointers to rcl_service_t structures.
+   * @param clientHandles Pointers to rcl_client_t structures.
+   * @param timeout The timeout in nanoseconds, or -1 to wait forever.
+   */
+  void waitFor(long[] subscriptionHandles, long[] guardConditionHandles, long[] timerHandles,
+      long[] serviceHandles, long[] clientHandles, long timeout);
+}
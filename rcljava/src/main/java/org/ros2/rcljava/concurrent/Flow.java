@@ -0,0 +1,95 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.concurrent;
+
+/**
+ * This is a copy of {@link java.util.concurrent.Flow} for platforms that
+ * don't support Java 9's API (e.g. Android). Its interfaces have the same
+ * methods as the ones of Reactive Streams, so adapting them to Reactor or
+ * RxJava only takes delegating each method.
+ */
+public final class Flow {
+  private Flow() {
+  }
+
+  /**
+   * A producer of items that are received by subscribers, at most as many
+   * as they have requested.
+   *
+   * @param <T> - the type of the items published
+   */
+  public interface Publisher<T> {
+    /**
+     * Adds the given subscriber, which will receive onSubscribe first.
+     *
+     * @param subscriber - the subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * A receiver of items. Its methods are called in order, never
+   * concurrently.
+   *
+   * @param <T> - the type of the items received
+   */
+  public interface Subscriber<T> {
+    /**
+     * Called before any other method, with the subscription to request
+     * items from.
+     *
+     * @param subscription - the subscription
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with the next item, at most as many times as requested.
+     *
+     * @param item - the item
+     */
+    void onNext(T item);
+
+    /**
+     * Called when the publisher fails, no other method is called afterwards.
+     *
+     * @param throwable - the error
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called when the publisher will not publish any other item, no other
+     * method is called afterwards.
+     */
+    void onComplete();
+  }
+
+  /**
+   * The link between a publisher and a subscriber, through which the
+   * subscriber controls how many items it receives.
+   */
+  public interface Subscription {
+    /**
+     * Adds n items to the demand of the subscriber.
+     *
+     * @param n - the number of items, must be positive
+     */
+    void request(long n);
+
+    /**
+     * Stops the subscriber from receiving items, eventually.
+     */
+    void cancel();
+  }
+}
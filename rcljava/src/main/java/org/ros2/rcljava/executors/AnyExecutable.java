@@ -16,13 +16,17 @@
 package org.ros2.rcljava.executors;
 
 import org.ros2.rcljava.client.Client;
-import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
+import org.ros2.rcljava.subscription.ExecutableSubscription;
+import org.ros2.rcljava.subscription.SerializedSubscription;
 import org.ros2.rcljava.service.Service;
 import org.ros2.rcljava.timer.Timer;
 
 public class AnyExecutable {
   public Timer timer;
-  public Subscription subscription;
+  public ExecutableSubscription subscription;
+  public SerializedSubscription serializedSubscription;
+  public IntraProcessSubscription intraProcessSubscription;
   public Service service;
   public Client client;
 }
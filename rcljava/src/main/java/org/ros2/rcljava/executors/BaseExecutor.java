@@ -15,6 +15,8 @@
 
 package org.ros2.rcljava.executors;
 
+import java.nio.ByteBuffer;
+
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -35,10 +37,13 @@ import org.ros2.rcljava.executors.AnyExecutable;
 import org.ros2.rcljava.executors.Executor;
 import org.ros2.rcljava.interfaces.MessageDefinition;
 import org.ros2.rcljava.interfaces.ServiceDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
 import org.ros2.rcljava.node.ComposableNode;
 import org.ros2.rcljava.service.RMWRequestId;
 import org.ros2.rcljava.service.Service;
-import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.ExecutableSubscription;
+import org.ros2.rcljava.subscription.FlowSubscriptionImpl;
+import org.ros2.rcljava.subscription.SerializedSubscription;
 import org.ros2.rcljava.timer.Timer;
 
 public class BaseExecutor {
@@ -55,8 +60,16 @@ public class BaseExecutor {
 
   private BlockingQueue<ComposableNode> nodes = new LinkedBlockingQueue<ComposableNode>();
 
-  private List<Map.Entry<Long, Subscription>> subscriptionHandles =
-      new ArrayList<Map.Entry<Long, Subscription>>();
+  private List<Map.Entry<Long, ExecutableSubscription>> subscriptionHandles =
+      new ArrayList<Map.Entry<Long, ExecutableSubscription>>();
+
+  private List<Map.Entry<Long, SerializedSubscription>> serializedSubscriptionHandles =
+      new ArrayList<Map.Entry<Long, SerializedSubscription>>();
+
+  private List<Map.Entry<Long, IntraProcessSubscription>> intraProcessSubscriptionHandles =
+      new ArrayList<Map.Entry<Long, IntraProcessSubscription>>();
+
+  private List<Long> demandGuardConditionHandles = new ArrayList<Long>();
 
   private List<Map.Entry<Long, Timer>> timerHandles = new ArrayList<Map.Entry<Long, Timer>>();
 
@@ -80,14 +93,28 @@ public class BaseExecutor {
     }
 
     if (anyExecutable.subscription != null) {
-      MessageDefinition message = nativeTake(
-          anyExecutable.subscription.getHandle(), anyExecutable.subscription.getMessageType());
-      if (message != null) {
-        anyExecutable.subscription.executeCallback(message);
-      }
+      anyExecutable.subscription.execute();
       subscriptionHandles.remove(anyExecutable.subscription.getHandle());
     }
 
+    if (anyExecutable.intraProcessSubscription != null) {
+      IntraProcessSubscription intraProcessSubscription = anyExecutable.intraProcessSubscription;
+      intraProcessSubscription.execute();
+      intraProcessSubscriptionHandles.remove(intraProcessSubscription.getHandle());
+    }
+
+    if (anyExecutable.serializedSubscription != null) {
+      SerializedSubscription serializedSubscription = anyExecutable.serializedSubscription;
+      // The taken buffer is owned by the subscription and only valid until the next take
+      synchronized (serializedSubscription) {
+        ByteBuffer message = serializedSubscription.take();
+        if (message != null) {
+          serializedSubscription.executeCallback(message);
+        }
+      }
+      serializedSubscriptionHandles.remove(serializedSubscription.getHandle());
+    }
+
     if (anyExecutable.service != null) {
       Class<MessageDefinition> requestType = anyExecutable.service.getRequestType();
       Class<MessageDefinition> responseType = anyExecutable.service.getResponseType();
@@ -162,16 +189,50 @@ public class BaseExecutor {
 
   protected void waitForWork(long timeout) {
     this.subscriptionHandles.clear();
+    this.serializedSubscriptionHandles.clear();
+    this.intraProcessSubscriptionHandles.clear();
+    this.demandGuardConditionHandles.clear();
     this.timerHandles.clear();
     this.serviceHandles.clear();
     this.clientHandles.clear();
 
     for (ComposableNode node : this.nodes) {
-      for (Subscription<MessageDefinition> subscription : node.getNode().getSubscriptions()) {
-        this.subscriptionHandles.add(new AbstractMap.SimpleEntry<Long, Subscription>(
+      for (ExecutableSubscription subscription : node.getNode().getExecutableSubscriptions()) {
+        // Flow subscriptions are only waited on while their subscriber has demand, so that the
+        // messages it has not requested stay in the middleware queue. Their guard condition
+        // wakes up the wait when the subscriber requests more
+        if (subscription instanceof FlowSubscriptionImpl) {
+          FlowSubscriptionImpl flowSubscription = (FlowSubscriptionImpl) subscription;
+          long guardConditionHandle = flowSubscription.getDemandGuardConditionHandle();
+          if (guardConditionHandle != 0) {
+            this.demandGuardConditionHandles.add(guardConditionHandle);
+          }
+          if (!flowSubscription.hasDemand()) {
+            continue;
+          }
+        }
+        this.subscriptionHandles.add(new AbstractMap.SimpleEntry<Long, ExecutableSubscription>(
             subscription.getHandle(), subscription));
       }
 
+      for (SerializedSubscription serializedSubscription :
+          node.getNode().getSerializedSubscriptions()) {
+        this.serializedSubscriptionHandles.add(
+            new AbstractMap.SimpleEntry<Long, SerializedSubscription>(
+                serializedSubscription.getHandle(), serializedSubscription));
+      }
+
+      for (IntraProcessSubscription intraProcessSubscription :
+          node.getNode().getIntraProcessSubscriptions()) {
+        // Skip the queues of subscriptions that have been disposed
+        long guardConditionHandle = intraProcessSubscription.getHandle();
+        if (guardConditionHandle != 0) {
+          this.intraProcessSubscriptionHandles.add(
+              new AbstractMap.SimpleEntry<Long, IntraProcessSubscription>(
+                  guardConditionHandle, intraProcessSubscription));
+        }
+      }
+
       for (Timer timer : node.getNode().getTimers()) {
         this.timerHandles.add(new AbstractMap.SimpleEntry<Long, Timer>(timer.getHandle(), timer));
       }
@@ -188,80 +249,85 @@ public class BaseExecutor {
     }
 
     int subscriptionsSize = 0;
+    int guardConditionsSize =
+        this.intraProcessSubscriptionHandles.size() + this.demandGuardConditionHandles.size();
     int timersSize = 0;
     int clientsSize = 0;
     int servicesSize = 0;
 
     for (ComposableNode node : this.nodes) {
-      subscriptionsSize += node.getNode().getSubscriptions().size();
+      subscriptionsSize += node.getNode().getExecutableSubscriptions().size();
+      subscriptionsSize += node.getNode().getSerializedSubscriptions().size();
       timersSize += node.getNode().getTimers().size();
       clientsSize += node.getNode().getClients().size();
       servicesSize += node.getNode().getServices().size();
     }
 
-    if (subscriptionsSize == 0 && timersSize == 0 && clientsSize == 0 && servicesSize == 0) {
+    if (subscriptionsSize == 0 && guardConditionsSize == 0 && timersSize == 0 && clientsSize == 0
+        && servicesSize == 0) {
       return;
     }
 
-    long waitSetHandle = nativeGetZeroInitializedWaitSet();
-    nativeWaitSetInit(waitSetHandle, subscriptionsSize, 0, timersSize, clientsSize, servicesSize);
-
-    nativeWaitSetClearSubscriptions(waitSetHandle);
-
-    nativeWaitSetClearTimers(waitSetHandle);
-
-    nativeWaitSetClearServices(waitSetHandle);
-
-    nativeWaitSetClearClients(waitSetHandle);
-
-    for (Map.Entry<Long, Subscription> entry : this.subscriptionHandles) {
-      nativeWaitSetAddSubscription(waitSetHandle, entry.getKey());
-    }
-
-    for (Map.Entry<Long, Timer> entry : this.timerHandles) {
-      nativeWaitSetAddTimer(waitSetHandle, entry.getKey());
-    }
-
-    for (Map.Entry<Long, Service> entry : this.serviceHandles) {
-      nativeWaitSetAddService(waitSetHandle, entry.getKey());
-    }
-
-    for (Map.Entry<Long, Client> entry : this.clientHandles) {
-      nativeWaitSetAddClient(waitSetHandle, entry.getKey());
+    // Every handle is passed to the wait set in a single native call, which zeroes the
+    // handles of the entities that are not ready
+    int serializedSubscriptionsOffset = this.subscriptionHandles.size();
+    long[] subscriptionHandlesArray =
+        new long[serializedSubscriptionsOffset + this.serializedSubscriptionHandles.size()];
+    long[] guardConditionHandlesArray = new long[guardConditionsSize];
+    long[] timerHandlesArray = new long[this.timerHandles.size()];
+    long[] serviceHandlesArray = new long[this.serviceHandles.size()];
+    long[] clientHandlesArray = new long[this.clientHandles.size()];
+
+    copyHandles(this.subscriptionHandles, subscriptionHandlesArray, 0);
+    // Serialized subscriptions are added after the regular ones, which offsets their
+    // index in the wait set
+    copyHandles(this.serializedSubscriptionHandles, subscriptionHandlesArray,
+        serializedSubscriptionsOffset);
+    copyHandles(this.intraProcessSubscriptionHandles, guardConditionHandlesArray, 0);
+    // The demand guard conditions only wake up the wait, there is nothing to execute for them
+    for (int i = 0; i < this.demandGuardConditionHandles.size(); ++i) {
+      guardConditionHandlesArray[this.intraProcessSubscriptionHandles.size() + i] =
+          this.demandGuardConditionHandles.get(i);
     }
-
-    nativeWait(waitSetHandle, timeout);
-
-    for (int i = 0; i < this.subscriptionHandles.size(); ++i) {
-      if (!nativeWaitSetSubscriptionIsReady(waitSetHandle, i)) {
-        this.subscriptionHandles.get(i).setValue(null);
-      }
-    }
-
-    for (int i = 0; i < this.timerHandles.size(); ++i) {
-      if (!nativeWaitSetTimerIsReady(waitSetHandle, i)) {
-        this.timerHandles.get(i).setValue(null);
-      }
-    }
-
-    for (int i = 0; i < this.serviceHandles.size(); ++i) {
-      if (!nativeWaitSetServiceIsReady(waitSetHandle, i)) {
-        this.serviceHandles.get(i).setValue(null);
+    copyHandles(this.timerHandles, timerHandlesArray, 0);
+    copyHandles(this.serviceHandles, serviceHandlesArray, 0);
+    copyHandles(this.clientHandles, clientHandlesArray, 0);
+
+    RCLJava.getNativeBackend().waitFor(subscriptionHandlesArray, guardConditionHandlesArray,
+        timerHandlesArray, serviceHandlesArray, clientHandlesArray, timeout);
+
+    clearNotReady(this.subscriptionHandles, subscriptionHandlesArray, 0);
+    clearNotReady(this.serializedSubscriptionHandles, subscriptionHandlesArray,
+        serializedSubscriptionsOffset);
+    clearNotReady(this.intraProcessSubscriptionHandles, guardConditionHandlesArray, 0);
+    clearNotReady(this.timerHandles, timerHandlesArray, 0);
+    clearNotReady(this.serviceHandles, serviceHandlesArray, 0);
+    clearNotReady(this.clientHandles, clientHandlesArray, 0);
+
+    Iterator<Map.Entry<Long, ExecutableSubscription>> subscriptionIterator =
+        this.subscriptionHandles.iterator();
+    while (subscriptionIterator.hasNext()) {
+      Map.Entry<Long, ExecutableSubscription> entry = subscriptionIterator.next();
+      if (entry.getValue() == null) {
+        subscriptionIterator.remove();
       }
     }
 
-    for (int i = 0; i < this.clientHandles.size(); ++i) {
-      if (!nativeWaitSetClientIsReady(waitSetHandle, i)) {
-        this.clientHandles.get(i).setValue(null);
+    Iterator<Map.Entry<Long, SerializedSubscription>> serializedSubscriptionIterator =
+        this.serializedSubscriptionHandles.iterator();
+    while (serializedSubscriptionIterator.hasNext()) {
+      Map.Entry<Long, SerializedSubscription> entry = serializedSubscriptionIterator.next();
+      if (entry.getValue() == null) {
+        serializedSubscriptionIterator.remove();
       }
     }
 
-    Iterator<Map.Entry<Long, Subscription>> subscriptionIterator =
-        this.subscriptionHandles.iterator();
-    while (subscriptionIterator.hasNext()) {
-      Map.Entry<Long, Subscription> entry = subscriptionIterator.next();
+    Iterator<Map.Entry<Long, IntraProcessSubscription>> intraProcessSubscriptionIterator =
+        this.intraProcessSubscriptionHandles.iterator();
+    while (intraProcessSubscriptionIterator.hasNext()) {
+      Map.Entry<Long, IntraProcessSubscription> entry = intraProcessSubscriptionIterator.next();
       if (entry.getValue() == null) {
-        subscriptionIterator.remove();
+        intraProcessSubscriptionIterator.remove();
       }
     }
 
@@ -288,8 +354,22 @@ public class BaseExecutor {
         clientIterator.remove();
       }
     }
+  }
 
-    nativeDisposeWaitSet(waitSetHandle);
+  private static <T> void copyHandles(
+      final List<Map.Entry<Long, T>> entries, final long[] handles, final int offset) {
+    for (int i = 0; i < entries.size(); ++i) {
+      handles[offset + i] = entries.get(i).getKey();
+    }
+  }
+
+  private static <T> void clearNotReady(
+      final List<Map.Entry<Long, T>> entries, final long[] handles, final int offset) {
+    for (int i = 0; i < entries.size(); ++i) {
+      if (handles[offset + i] == 0) {
+        entries.get(i).setValue(null);
+      }
+    }
   }
 
   protected AnyExecutable getNextExecutable() {
@@ -306,7 +386,7 @@ public class BaseExecutor {
       }
     }
 
-    for (Map.Entry<Long, Subscription> entry : this.subscriptionHandles) {
+    for (Map.Entry<Long, ExecutableSubscription> entry : this.subscriptionHandles) {
       if (entry.getValue() != null) {
         anyExecutable.subscription = entry.getValue();
         entry.setValue(null);
@@ -314,6 +394,23 @@ public class BaseExecutor {
       }
     }
 
+    for (Map.Entry<Long, IntraProcessSubscription> entry :
+        this.intraProcessSubscriptionHandles) {
+      if (entry.getValue() != null) {
+        anyExecutable.intraProcessSubscription = entry.getValue();
+        entry.setValue(null);
+        return anyExecutable;
+      }
+    }
+
+    for (Map.Entry<Long, SerializedSubscription> entry : this.serializedSubscriptionHandles) {
+      if (entry.getValue() != null) {
+        anyExecutable.serializedSubscription = entry.getValue();
+        entry.setValue(null);
+        return anyExecutable;
+      }
+    }
+
     for (Map.Entry<Long, Service> entry : this.serviceHandles) {
       if (entry.getValue() != null) {
         anyExecutable.service = entry.getValue();
@@ -358,35 +455,6 @@ public class BaseExecutor {
     }
   }
 
-  private static native void nativeDisposeWaitSet(long waitSetHandle);
-
-  private static native long nativeGetZeroInitializedWaitSet();
-
-  private static native void nativeWaitSetInit(long waitSetHandle, int numberOfSubscriptions,
-      int numberOfGuardConditions, int numberOfTimers, int numberOfClients, int numberOfServices);
-
-  private static native void nativeWaitSetClearSubscriptions(long waitSetHandle);
-
-  private static native void nativeWaitSetAddSubscription(
-      long waitSetHandle, long subscriptionHandle);
-
-  private static native void nativeWait(long waitSetHandle, long timeout);
-
-  private static native MessageDefinition nativeTake(
-      long subscriptionHandle, Class<MessageDefinition> messageType);
-
-  private static native void nativeWaitSetClearTimers(long waitSetHandle);
-
-  private static native void nativeWaitSetClearServices(long waitSetHandle);
-
-  private static native void nativeWaitSetAddService(long waitSetHandle, long serviceHandle);
-
-  private static native void nativeWaitSetClearClients(long waitSetHandle);
-
-  private static native void nativeWaitSetAddClient(long waitSetHandle, long clientHandle);
-
-  private static native void nativeWaitSetAddTimer(long waitSetHandle, long timerHandle);
-
   private static native RMWRequestId nativeTakeRequest(long serviceHandle,
       long requestFromJavaConverterHandle, long requestToJavaConverterHandle,
       long requestDestructorHandle, MessageDefinition requestMessage);
@@ -398,12 +466,4 @@ public class BaseExecutor {
   private static native RMWRequestId nativeTakeResponse(long clientHandle,
       long responseFromJavaConverterHandle, long responseToJavaConverterHandle,
       long responseDestructorHandle, MessageDefinition responseMessage);
-
-  private static native boolean nativeWaitSetSubscriptionIsReady(long waitSetHandle, long index);
-
-  private static native boolean nativeWaitSetTimerIsReady(long waitSetHandle, long index);
-
-  private static native boolean nativeWaitSetServiceIsReady(long waitSetHandle, long index);
-
-  private static native boolean nativeWaitSetClientIsReady(long waitSetHandle, long index);
 }
@@ -0,0 +1,104 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.intraprocess;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.interfaces.Disposable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class serves as a bridge between ROS2's rcl_guard_condition_t and
+ * RCLJava. Triggering a guard condition wakes up any executor that is waiting
+ * on it.
+ */
+public final class GuardCondition implements Disposable {
+  private static final Logger logger = LoggerFactory.getLogger(GuardCondition.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(GuardCondition.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * An integer that represents a pointer to the underlying ROS2 guard
+   * condition structure (rcl_guard_condition_t).
+   */
+  private long handle;
+
+  /**
+   * Create a ROS2 guard condition (rcl_guard_condition_t) and return a
+   *     pointer to it as an integer.
+   *
+   * @return A pointer to the underlying ROS2 guard condition structure.
+   */
+  private static native long nativeCreateHandle();
+
+  /**
+   * Trigger a ROS2 guard condition (rcl_guard_condition_t).
+   *
+   * @param handle A pointer to the underlying ROS2 guard condition
+   *     structure, as an integer. Must not be zero.
+   */
+  private static native void nativeTrigger(long handle);
+
+  /**
+   * Destroy a ROS2 guard condition (rcl_guard_condition_t).
+   *
+   * @param handle A pointer to the underlying ROS2 guard condition
+   *     structure, as an integer. Must not be zero.
+   */
+  private static native void nativeDispose(long handle);
+
+  /**
+   * Constructor.
+   */
+  public GuardCondition() {
+    this.handle = nativeCreateHandle();
+  }
+
+  /**
+   * Wake up the executors that are waiting on this guard condition. Does
+   * nothing if the guard condition has already been disposed.
+   */
+  public synchronized void trigger() {
+    if (this.handle != 0) {
+      nativeTrigger(this.handle);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public synchronized long getHandle() {
+    return this.handle;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public synchronized void dispose() {
+    if (this.handle != 0) {
+      nativeDispose(this.handle);
+      this.handle = 0;
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.intraprocess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.qos.QoSProfile;
+import org.ros2.rcljava.subscription.SubscriptionImpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the publishers and subscriptions created by nodes that use
+ * intra-process communication, so that messages published in this process
+ * are handed directly to the subscriptions in this process instead of going
+ * through the middleware.
+ * Every subscription but the last one receives its own deep copy of a
+ * message, so that their callbacks can modify it. The last one receives the
+ * published instance, which must therefore not be modified by the publisher
+ * once it has been published.
+ */
+public final class IntraProcessManager {
+  private static final Logger logger = LoggerFactory.getLogger(IntraProcessManager.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(IntraProcessManager.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * The size of the global identifier of a publisher, in bytes (see
+   * RMW_GID_STORAGE_SIZE in rmw/types.h).
+   */
+  public static final int GID_SIZE = 24;
+
+  /**
+   * The intra-process subscriptions, indexed by their fully qualified topic.
+   */
+  private final ConcurrentMap<String, List<IntraProcessSubscription>> subscriptions;
+
+  /**
+   * The pointers to the underlying ROS2 subscription structures of the
+   * intra-process subscriptions.
+   */
+  private final Set<Long> subscriptionHandles;
+
+  /**
+   * The global identifiers of the intra-process publishers, packed one after
+   * another. The array is replaced rather than modified, so that it can be
+   * handed to native code without locking.
+   */
+  private volatile byte[] publisherGids;
+
+  /**
+   * Constructor.
+   */
+  public IntraProcessManager() {
+    this.subscriptions = new ConcurrentHashMap<String, List<IntraProcessSubscription>>();
+    this.subscriptionHandles =
+        Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    this.publisherGids = new byte[0];
+  }
+
+  /**
+   * @param handle A pointer to the underlying ROS2 publisher structure, as
+   *     an integer. Must not be zero.
+   * @return The fully qualified topic of the publisher.
+   */
+  private static native String nativeGetPublisherTopicName(long handle);
+
+  /**
+   * @param handle A pointer to the underlying ROS2 subscription structure,
+   *     as an integer. Must not be zero.
+   * @return The fully qualified topic of the subscription.
+   */
+  private static native String nativeGetSubscriptionTopicName(long handle);
+
+  /**
+   * @param handle A pointer to the underlying ROS2 publisher structure, as
+   *     an integer. Must not be zero.
+   * @return The global identifier of the publisher.
+   */
+  private static native byte[] nativeGetPublisherGid(long handle);
+
+  /**
+   * @param handle A pointer to the underlying ROS2 node structure, as an
+   *     integer. Must not be zero.
+   * @return The name of the node.
+   */
+  private static native String nativeGetNodeName(long handle);
+
+  /**
+   * @param handle A pointer to the underlying ROS2 node structure, as an
+   *     integer. Must not be zero.
+   * @return The namespace of the node.
+   */
+  private static native String nativeGetNodeNamespace(long handle);
+
+  /**
+   * Count the subscriptions to a topic known to the middleware, minus one
+   * for each of the given nodes that the middleware knows to be subscribed
+   * to it.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure, as an
+   *     integer. Must not be zero.
+   * @param topicName The fully qualified topic.
+   * @param nodeNames The names of the nodes whose subscription is not
+   *     counted.
+   * @param nodeNamespaces The namespaces of the nodes, in the same order.
+   * @return The number of subscriptions counted.
+   */
+  private static native int nativeCountExternalSubscribers(long nodeHandle, String topicName,
+      String[] nodeNames, String[] nodeNamespaces);
+
+  /**
+   * Register a publisher, so that the copies of its messages that are
+   * delivered by the middleware are ignored by intra-process subscriptions.
+   *
+   * @param publisherHandle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   * @return The fully qualified topic of the publisher.
+   */
+  public String addPublisher(final long publisherHandle) {
+    byte[] gid = nativeGetPublisherGid(publisherHandle);
+    synchronized (this) {
+      byte[] oldGids = this.publisherGids;
+      byte[] newGids = Arrays.copyOf(oldGids, oldGids.length + GID_SIZE);
+      System.arraycopy(gid, 0, newGids, oldGids.length, GID_SIZE);
+      this.publisherGids = newGids;
+    }
+    return nativeGetPublisherTopicName(publisherHandle);
+  }
+
+  /**
+   * Unregister a publisher previously registered with
+   * @{link #addPublisher(long)}.
+   *
+   * @param publisherHandle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   */
+  public void removePublisher(final long publisherHandle) {
+    byte[] gid = nativeGetPublisherGid(publisherHandle);
+    synchronized (this) {
+      byte[] oldGids = this.publisherGids;
+      for (int offset = 0; offset < oldGids.length; offset += GID_SIZE) {
+        if (Arrays.equals(gid, Arrays.copyOfRange(oldGids, offset, offset + GID_SIZE))) {
+          byte[] newGids = new byte[oldGids.length - GID_SIZE];
+          System.arraycopy(oldGids, 0, newGids, 0, offset);
+          System.arraycopy(
+              oldGids, offset + GID_SIZE, newGids, offset, newGids.length - offset);
+          this.publisherGids = newGids;
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The global identifiers of the publishers registered with
+   *     @{link #addPublisher(long)}, each @{link #GID_SIZE} bytes long and
+   *     packed one after another. The array must not be modified.
+   */
+  public byte[] getPublisherGids() {
+    return this.publisherGids;
+  }
+
+  /**
+   * Register a subscription, so that messages published in this process to
+   * its topic are queued for it.
+   *
+   * @param <T> The type of the messages that the subscription will receive.
+   * @param subscription The subscription. Its handle must not be zero.
+   * @param qosProfile The QoS profile of the subscription, whose history and
+   *     depth bound the queue of pending messages.
+   * @return The queue of pending messages, which must be disposed along with
+   *     the subscription.
+   */
+  public <T extends MessageDefinition> IntraProcessSubscription<T> addSubscription(
+      final SubscriptionImpl<T> subscription, final QoSProfile qosProfile) {
+    String topicName = nativeGetSubscriptionTopicName(subscription.getHandle());
+    long nodeHandle = subscription.getNodeReference().get().getHandle();
+    IntraProcessSubscription<T> intraProcessSubscription = new IntraProcessSubscription<T>(this,
+        subscription, topicName, nativeGetNodeName(nodeHandle),
+        nativeGetNodeNamespace(nodeHandle), qosProfile);
+
+    List<IntraProcessSubscription> topicSubscriptions = this.subscriptions.get(topicName);
+    if (topicSubscriptions == null) {
+      List<IntraProcessSubscription> newTopicSubscriptions =
+          new CopyOnWriteArrayList<IntraProcessSubscription>();
+      topicSubscriptions = this.subscriptions.putIfAbsent(topicName, newTopicSubscriptions);
+      if (topicSubscriptions == null) {
+        topicSubscriptions = newTopicSubscriptions;
+      }
+    }
+    topicSubscriptions.add(intraProcessSubscription);
+    this.subscriptionHandles.add(subscription.getHandle());
+
+    return intraProcessSubscription;
+  }
+
+  /**
+   * Unregister a subscription previously registered with
+   * @{link #addSubscription(SubscriptionImpl, QoSProfile)}.
+   *
+   * @param intraProcessSubscription The queue returned when the subscription
+   *     was registered.
+   */
+  public void removeSubscription(final IntraProcessSubscription intraProcessSubscription) {
+    List<IntraProcessSubscription> topicSubscriptions =
+        this.subscriptions.get(intraProcessSubscription.getTopicName());
+    if (topicSubscriptions != null) {
+      topicSubscriptions.remove(intraProcessSubscription);
+    }
+    this.subscriptionHandles.remove(intraProcessSubscription.getSubscriptionHandle());
+  }
+
+  /**
+   * @param subscriptionHandle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer.
+   * @return true if the subscription was registered with
+   *     @{link #addSubscription(SubscriptionImpl, QoSProfile)}, false otherwise.
+   */
+  public boolean isIntraProcessSubscription(final long subscriptionHandle) {
+    return this.subscriptionHandles.contains(subscriptionHandle);
+  }
+
+  /**
+   * @param topicName The fully qualified topic.
+   * @return The number of intra-process subscriptions to the topic.
+   */
+  public int getSubscriptionCount(final String topicName) {
+    List<IntraProcessSubscription> topicSubscriptions = this.subscriptions.get(topicName);
+    return topicSubscriptions == null ? 0 : topicSubscriptions.size();
+  }
+
+  /**
+   * Count the subscriptions to a topic that need messages to be published
+   * through the middleware.
+   * Only the subscriptions that the middleware already knows of are
+   * discounted, so that a subscription that has just been created is never
+   * mistaken for an intra-process one. A node with several intra-process
+   * subscriptions to the topic is only discounted once, which errs on the
+   * side of publishing through the middleware.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure of the
+   *     publisher, as an integer. Must not be zero.
+   * @param topicName The fully qualified topic.
+   * @return The number of subscriptions to the topic known to the
+   *     middleware, other than the intra-process ones.
+   */
+  public int countExternalSubscriptions(final long nodeHandle, final String topicName) {
+    List<String> nodeNames = new ArrayList<String>();
+    List<String> nodeNamespaces = new ArrayList<String>();
+    List<IntraProcessSubscription> topicSubscriptions = this.subscriptions.get(topicName);
+    if (topicSubscriptions != null) {
+      for (IntraProcessSubscription intraProcessSubscription : topicSubscriptions) {
+        String nodeName = intraProcessSubscription.getNodeName();
+        String nodeNamespace = intraProcessSubscription.getNodeNamespace();
+        boolean listed = false;
+        for (int i = 0; i < nodeNames.size() && !listed; i++) {
+          listed = nodeNames.get(i).equals(nodeName) && nodeNamespaces.get(i).equals(nodeNamespace);
+        }
+        if (!listed) {
+          nodeNames.add(nodeName);
+          nodeNamespaces.add(nodeNamespace);
+        }
+      }
+    }
+    return nativeCountExternalSubscribers(nodeHandle, topicName,
+        nodeNames.toArray(new String[nodeNames.size()]),
+        nodeNamespaces.toArray(new String[nodeNamespaces.size()]));
+  }
+
+  /**
+   * Queue a message for all the intra-process subscriptions to a topic that
+   * receive messages of its type.
+   *
+   * @param topicName The fully qualified topic.
+   * @param message The message, which is handed as is to the last
+   *     subscription and copied for the other ones.
+   * @return The number of subscriptions for which the message was queued.
+   */
+  public int publish(final String topicName, final MessageDefinition message) {
+    List<IntraProcessSubscription> topicSubscriptions = this.subscriptions.get(topicName);
+    if (topicSubscriptions == null) {
+      return 0;
+    }
+
+    int delivered = 0;
+    IntraProcessSubscription last = null;
+    for (IntraProcessSubscription intraProcessSubscription : topicSubscriptions) {
+      if (!intraProcessSubscription.accepts(message)) {
+        continue;
+      }
+      if (last != null && last.offer(message.deepCopy())) {
+        delivered++;
+      }
+      last = intraProcessSubscription;
+    }
+    if (last != null && last.offer(message)) {
+      delivered++;
+    }
+    return delivered;
+  }
+}
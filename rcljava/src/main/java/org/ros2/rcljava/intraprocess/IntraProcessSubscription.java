@@ -0,0 +1,245 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.intraprocess;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.ros2.rcljava.interfaces.Disposable;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.qos.QoSProfile;
+import org.ros2.rcljava.qos.policies.History;
+import org.ros2.rcljava.subscription.SubscriptionImpl;
+
+/**
+ * The queue of messages published by publishers in the same process that are
+ * pending delivery to a @{link SubscriptionImpl}. The queue is bounded by the
+ * depth of the subscription's QoS profile, dropping the oldest message when
+ * full, unless the profile keeps all messages.
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public final class IntraProcessSubscription<T extends MessageDefinition> implements Disposable {
+  private final IntraProcessManager intraProcessManager;
+
+  /**
+   * The subscription whose callback will be triggered with the queued
+   * messages.
+   */
+  private final SubscriptionImpl<T> subscription;
+
+  /**
+   * A pointer to the underlying ROS2 subscription structure, as an integer,
+   * kept after the subscription is disposed so that it can be unregistered.
+   */
+  private final long subscriptionHandle;
+
+  /**
+   * The fully qualified topic to which this subscription is subscribed.
+   */
+  private final String topicName;
+
+  /**
+   * The name of the node that created the subscription.
+   */
+  private final String nodeName;
+
+  /**
+   * The namespace of the node that created the subscription.
+   */
+  private final String nodeNamespace;
+
+  /**
+   * The maximum number of queued messages, or zero if unbounded.
+   */
+  private final int depth;
+
+  /**
+   * The pending messages, guarded by this instance.
+   */
+  private final Queue<T> queue;
+
+  /**
+   * Triggered whenever a message is queued so that executors wake up.
+   */
+  private final GuardCondition guardCondition;
+
+  /**
+   * Constructor.
+   *
+   * @param intraProcessManager The @{link IntraProcessManager} with which
+   *     this subscription will be registered.
+   * @param subscription The subscription to which queued messages will be
+   *     delivered.
+   * @param topicName The fully qualified topic to which the subscription is
+   *     subscribed.
+   * @param nodeName The name of the node that created the subscription.
+   * @param nodeNamespace The namespace of the node that created the
+   *     subscription.
+   * @param qosProfile The QoS profile of the subscription.
+   */
+  public IntraProcessSubscription(final IntraProcessManager intraProcessManager,
+      final SubscriptionImpl<T> subscription, final String topicName, final String nodeName,
+      final String nodeNamespace, final QoSProfile qosProfile) {
+    this.intraProcessManager = intraProcessManager;
+    this.subscription = subscription;
+    this.subscriptionHandle = subscription.getHandle();
+    this.topicName = topicName;
+    this.nodeName = nodeName;
+    this.nodeNamespace = nodeNamespace;
+    if (qosProfile.getHistory() == History.KEEP_ALL) {
+      this.depth = 0;
+    } else {
+      // A depth of zero lets the middleware choose, keep only the latest message
+      this.depth = Math.max(qosProfile.getDepth(), 1);
+    }
+    this.queue = new ArrayDeque<T>();
+    this.guardCondition = new GuardCondition();
+  }
+
+  /**
+   * @return The subscription to which queued messages will be delivered.
+   */
+  public SubscriptionImpl<T> getSubscription() {
+    return this.subscription;
+  }
+
+  /**
+   * @return A pointer to the underlying ROS2 subscription structure, as an
+   *     integer, as it was when this instance was created.
+   */
+  public long getSubscriptionHandle() {
+    return this.subscriptionHandle;
+  }
+
+  /**
+   * @return The fully qualified topic to which this subscription is
+   *     subscribed.
+   */
+  public String getTopicName() {
+    return this.topicName;
+  }
+
+  /**
+   * @return The name of the node that created the subscription.
+   */
+  public String getNodeName() {
+    return this.nodeName;
+  }
+
+  /**
+   * @return The namespace of the node that created the subscription.
+   */
+  public String getNodeNamespace() {
+    return this.nodeNamespace;
+  }
+
+  /**
+   * @return The maximum number of queued messages, or zero if unbounded.
+   */
+  public int getDepth() {
+    return this.depth;
+  }
+
+  /**
+   * @param message A message published to the topic of this subscription.
+   * @return true if the message is of the type received by the subscription.
+   */
+  public boolean accepts(final MessageDefinition message) {
+    return this.subscription.getMessageType().isInstance(message);
+  }
+
+  /**
+   * Queue a message for delivery, dropping the oldest queued message if the
+   * queue is full, and wake up the executors waiting on this subscription.
+   *
+   * @param message The message to deliver. It will be handed to the
+   *     subscription as is, without being copied, so it must not be shared
+   *     with any other subscription.
+   * @return false if the message is not of the type received by the
+   *     subscription, true otherwise.
+   */
+  public boolean offer(final MessageDefinition message) {
+    Class<T> messageType = this.subscription.getMessageType();
+    if (!messageType.isInstance(message)) {
+      return false;
+    }
+
+    synchronized (this) {
+      if (this.depth > 0 && this.queue.size() >= this.depth) {
+        this.queue.poll();
+      }
+      this.queue.offer(messageType.cast(message));
+    }
+    this.guardCondition.trigger();
+    return true;
+  }
+
+  /**
+   * Deliver the oldest queued message, if any, to the subscription.
+   */
+  public void execute() {
+    T message = this.poll();
+    if (message != null) {
+      this.subscription.executeCallback(message);
+    }
+  }
+
+  /**
+   * Remove the oldest queued message. The guard condition is triggered again
+   * if more messages remain, so that executors keep processing them.
+   *
+   * @return The oldest queued message, or null if none is queued.
+   */
+  public T poll() {
+    boolean pending;
+    T message;
+    synchronized (this) {
+      message = this.queue.poll();
+      pending = !this.queue.isEmpty();
+    }
+    if (pending) {
+      this.guardCondition.trigger();
+    }
+    return message;
+  }
+
+  /**
+   * @return The number of queued messages.
+   */
+  public synchronized int size() {
+    return this.queue.size();
+  }
+
+  /**
+   * @return A pointer to the guard condition (rcl_guard_condition_t) that is
+   *     triggered when messages are queued, zero if disposed.
+   */
+  public long getHandle() {
+    return this.guardCondition.getHandle();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void dispose() {
+    this.intraProcessManager.removeSubscription(this);
+    synchronized (this) {
+      this.queue.clear();
+    }
+    this.guardCondition.dispose();
+  }
+}
@@ -15,24 +15,44 @@
 
 package org.ros2.rcljava.node;
 
+import java.nio.ByteBuffer;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.ros2.rcljava.client.Client;
 import org.ros2.rcljava.concurrent.Callback;
+import org.ros2.rcljava.consumers.BiConsumer;
 import org.ros2.rcljava.consumers.Consumer;
 import org.ros2.rcljava.consumers.TriConsumer;
 import org.ros2.rcljava.qos.QoSProfile;
 import org.ros2.rcljava.interfaces.Disposable;
 import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.interfaces.MessageView;
 import org.ros2.rcljava.interfaces.ServiceDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
 import org.ros2.rcljava.parameters.ParameterType;
 import org.ros2.rcljava.parameters.ParameterVariant;
+import org.ros2.rcljava.publisher.AsyncPublisher;
+import org.ros2.rcljava.publisher.OverflowPolicy;
+import org.ros2.rcljava.publisher.PublishBatch;
 import org.ros2.rcljava.publisher.Publisher;
 import org.ros2.rcljava.service.RMWRequestId;
 import org.ros2.rcljava.service.Service;
+import org.ros2.rcljava.subscription.BatchSubscription;
+import org.ros2.rcljava.subscription.ExecutableSubscription;
+import org.ros2.rcljava.subscription.FilteredSubscription;
+import org.ros2.rcljava.subscription.FlowSubscription;
+import org.ros2.rcljava.subscription.KeepLatestSubscription;
+import org.ros2.rcljava.subscription.LoanedSubscription;
+import org.ros2.rcljava.subscription.MessageFilter;
+import org.ros2.rcljava.subscription.MessageInfo;
+import org.ros2.rcljava.subscription.MessageInfoSubscription;
+import org.ros2.rcljava.subscription.PollingSubscription;
+import org.ros2.rcljava.subscription.SerializedSubscription;
 import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.ViewSubscription;
 import org.ros2.rcljava.timer.Timer;
 import org.ros2.rcljava.timer.WallTimer;
 
@@ -52,10 +72,43 @@ public interface Node extends Disposable {
   Collection<Service> getServices();
 
   /**
-   * @return All the @{link Subscription}s that were created by this instance.
+   * @return All the @{link Subscription}s that were created by this instance
+   *     and are executed by executors.
    */
   Collection<Subscription> getSubscriptions();
 
+  /**
+   * @return The same subscriptions as @{link #getSubscriptions()}, as they
+   *     are waited on and executed by executors.
+   */
+  Collection<ExecutableSubscription> getExecutableSubscriptions();
+
+  /**
+   * @return All the @{link SerializedSubscription}s that were created by this
+   *     instance.
+   */
+  Collection<SerializedSubscription> getSerializedSubscriptions();
+
+  /**
+   * @return All the @{link PollingSubscription}s that were created by this
+   *     instance.
+   */
+  Collection<PollingSubscription> getPollingSubscriptions();
+
+  /**
+   * @return The queues of messages published in this process of all the
+   *     @{link Subscription}s that were created by this instance, empty if
+   *     intra-process communication is disabled.
+   */
+  Collection<IntraProcessSubscription> getIntraProcessSubscriptions();
+
+  /**
+   * @return true if messages are delivered between the publishers and
+   *     subscriptions created by this instance and others in the same process
+   *     without going through the middleware, false otherwise.
+   */
+  boolean getUseIntraProcessComms();
+
   /**
    * @return All the @{link Publisher}s that were created by this instance.
    */
@@ -86,6 +139,304 @@ public interface Node extends Disposable {
   <T extends MessageDefinition> Subscription<T> createSubscription(
       final Class<T> messageType, final String topic, final Consumer<T> callback);
 
+  /**
+   * Create a Subscription&lt;T&gt; that shares the underlying ROS2
+   *     subscription with the other shared subscriptions of this node for the
+   *     same message type, topic and QoS profile. Every message is taken and
+   *     converted once, and every callback receives a copy of its own.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param topic The topic from which the created @{link Subscription} will
+   *     receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received by the @{link Subscription}.
+   * @return A @{link Subscription} whose disposal unregisters the callback.
+   *     The underlying ROS2 subscription is destroyed along with its last
+   *     callback.
+   */
+  <T extends MessageDefinition> Subscription<T> createSharedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> Subscription<T> createSharedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback);
+
+  /**
+   * Create a MessageInfoSubscription&lt;T&gt;, whose callback receives the
+   *     @{link MessageInfo} of every message along with it: its publisher,
+   *     when it was sent, according to its "header.stamp", and when it was
+   *     received. The subscription can also keep latency and per-publisher
+   *     metrics.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link MessageInfoSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link MessageInfoSubscription}.
+   * @param topic The topic from which the created
+   *     @{link MessageInfoSubscription} will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received by the @{link MessageInfoSubscription}.
+   * @return A @{link MessageInfoSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  <T extends MessageDefinition> MessageInfoSubscription<T> createMessageInfoSubscription(
+      final Class<T> messageType, final String topic,
+      final BiConsumer<T, MessageInfo> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> MessageInfoSubscription<T> createMessageInfoSubscription(
+      final Class<T> messageType, final String topic,
+      final BiConsumer<T, MessageInfo> callback)
+      throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a PollingSubscription&lt;T&gt;, which is not executed by any
+   * executor, its messages are taken by the thread that owns it instead.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link PollingSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link PollingSubscription}.
+   * @param topic The topic from which the created
+   *     @{link PollingSubscription} will receive messages.
+   * @return A @{link PollingSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  <T extends MessageDefinition> PollingSubscription<T> createPollingSubscription(
+      final Class<T> messageType, final String topic, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> PollingSubscription<T> createPollingSubscription(
+      final Class<T> messageType, final String topic)
+      throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a FlowSubscription&lt;T&gt;, which publishes the messages it
+   * receives to a @{link Flow.Subscriber}. Executors only take as many
+   * messages as the subscriber has requested.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link FlowSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link FlowSubscription}.
+   * @param topic The topic from which the created
+   *     @{link FlowSubscription} will receive messages.
+   * @param qosProfile The QoS profile of the subscription, whose depth bounds
+   *     the messages queued while the subscriber has no demand.
+   * @return A @{link FlowSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  <T extends MessageDefinition> FlowSubscription<T> createFlowSubscription(
+      final Class<T> messageType, final String topic, final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> FlowSubscription<T> createFlowSubscription(
+      final Class<T> messageType, final String topic);
+
+  /**
+   * Create a Subscription&lt;T&gt; that only converts some of the fields of
+   *     the received messages into Java, leaving the rest with their default
+   *     values. This avoids the cost of converting large arrays and strings
+   *     that the callback does not read.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param topic The topic from which the created @{link Subscription} will
+   *     receive messages.
+   * @param fieldPaths The dotted paths of the fields to convert, e.g.
+   *     "header.stamp". Selecting a message field converts all its fields.
+   * @param callback The callback function that will be triggered when a
+   *     message is received by the @{link Subscription}.
+   * @return A @{link Subscription} that represents the underlying ROS2
+   *     subscription structure.
+   * @throws IllegalArgumentException if a path does not name a field of
+   *     &lt;T&gt;.
+   */
+  <T extends MessageDefinition> Subscription<T> createProjectedSubscription(
+      final Class<T> messageType, final String topic, final List<String> fieldPaths,
+      final Consumer<T> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> Subscription<T> createProjectedSubscription(
+      final Class<T> messageType, final String topic, final List<String> fieldPaths,
+      final Consumer<T> callback) throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a Subscription&lt;T&gt; that converts some sequences of nested
+   *     messages into one array per field of those messages in a single pass,
+   *     instead of a message object per element. The lists of these fields
+   *     are then views of the arrays that only create an element when it is
+   *     first read, see the Columns accessors of the generated messages.
+   *     Other subscriptions of the same message type are not affected.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link Subscription}.
+   * @param topic The topic from which the created @{link Subscription} will
+   *     receive messages.
+   * @param columnarFieldPaths The names of the sequence fields of &lt;T&gt; to
+   *     convert into columns, whose messages must only have primitive fields.
+   * @param callback The callback function that will be triggered when a
+   *     message is received by the @{link Subscription}.
+   * @return A @{link Subscription} that represents the underlying ROS2
+   *     subscription structure.
+   * @throws IllegalArgumentException if a name does not denote such a field.
+   */
+  <T extends MessageDefinition> Subscription<T> createColumnarSubscription(
+      final Class<T> messageType, final String topic, final List<String> columnarFieldPaths,
+      final Consumer<T> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> Subscription<T> createColumnarSubscription(
+      final Class<T> messageType, final String topic, final List<String> columnarFieldPaths,
+      final Consumer<T> callback) throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a KeepLatestSubscription&lt;T&gt;, which only converts and
+   *     receives the newest of the messages queued since it was last executed.
+   *     This suits topics that carry a state (e.g. a pose or a battery level),
+   *     for which older values are not relevant.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link KeepLatestSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link KeepLatestSubscription}.
+   * @param topic The topic from which the created @{link KeepLatestSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received by the @{link KeepLatestSubscription}.
+   * @return A @{link KeepLatestSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  <T extends MessageDefinition> KeepLatestSubscription<T> createKeepLatestSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> KeepLatestSubscription<T> createKeepLatestSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback);
+
+  /**
+   * Create a FilteredSubscription&lt;T&gt;, which only converts and receives
+   *     the messages accepted by a filter, e.g. every 10th message, at most
+   *     5 messages per second or the messages whose "header.stamp" is recent.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link FilteredSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link FilteredSubscription}.
+   * @param topic The topic from which the created @{link FilteredSubscription}
+   *     will receive messages.
+   * @param messageFilter The filter that decides which messages are received,
+   *     which cannot be shared with other subscriptions.
+   * @param callback The callback function that will be triggered when a
+   *     message is accepted by the filter.
+   * @return A @{link FilteredSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   * @throws IllegalArgumentException if the filter applies to another message
+   *     type.
+   */
+  <T extends MessageDefinition> FilteredSubscription<T> createFilteredSubscription(
+      final Class<T> messageType, final String topic, final MessageFilter messageFilter,
+      final Consumer<T> callback, final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> FilteredSubscription<T> createFilteredSubscription(
+      final Class<T> messageType, final String topic, final MessageFilter messageFilter,
+      final Consumer<T> callback);
+
+  /**
+   * Create a BatchSubscription&lt;T&gt;, which takes the queued messages in a
+   *     single native call and delivers them together. This suits high rate
+   *     topics (e.g. an IMU at 1 kHz), for which taking and dispatching every
+   *     message on its own is too costly.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link BatchSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link BatchSubscription}.
+   * @param topic The topic from which the created @{link BatchSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a batch
+   *     of messages is delivered, in the order they were received. The list
+   *     belongs to the callback.
+   * @param maxBatchSize The maximum number of messages delivered at once.
+   * @param maxDelay The maximum time that a message waits for its batch to be
+   *     full before the batch is delivered anyway, or 0 to deliver the
+   *     messages available every time the subscription is executed.
+   * @param unit The unit of maxDelay.
+   * @return A @{link BatchSubscription} that represents the underlying ROS2
+   *     subscription structure.
+   * @throws IllegalArgumentException if maxBatchSize is not positive or
+   *     maxDelay is negative.
+   */
+  <T extends MessageDefinition> BatchSubscription<T> createBatchSubscription(
+      final Class<T> messageType, final String topic, final Consumer<List<T>> callback,
+      final int maxBatchSize, final long maxDelay, final TimeUnit unit,
+      final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> BatchSubscription<T> createBatchSubscription(
+      final Class<T> messageType, final String topic, final Consumer<List<T>> callback,
+      final int maxBatchSize, final long maxDelay, final TimeUnit unit);
+
+  /**
+   * Create a LoanedSubscription&lt;T&gt;, which takes every message into a C
+   * message it owns and passes it to the callback without converting it into a
+   * Java object. Only message types with a fixed size are supported.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link LoanedSubscription}.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link LoanedSubscription}.
+   * @param topic The topic from which the created @{link LoanedSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received. The buffer wraps the C message, which can be read
+   *     through the accessors generated for &lt;T&gt;, and is only valid until
+   *     the callback returns.
+   * @return A @{link LoanedSubscription} that represents the underlying ROS2
+   *     subscription structure.
+   * @throws UnsupportedOperationException if &lt;T&gt; is not a fixed size
+   *     message type.
+   */
+  <T extends MessageDefinition> LoanedSubscription<T> createLoanedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<ByteBuffer> callback,
+      final QoSProfile qosProfile) throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> LoanedSubscription<T> createLoanedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<ByteBuffer> callback)
+      throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a ViewSubscription&lt;T&gt;, which takes every message into a C
+   * message it owns and passes a view of it to the callback, so that only the
+   * fields read by the callback are converted into Java.
+   *
+   * @param <T> The type of the messages that will be received by the
+   *     created @{link ViewSubscription}.
+   * @param <V> The View class generated for &lt;T&gt;.
+   * @param messageType The class of the messages that will be received by the
+   *     created @{link ViewSubscription}.
+   * @param topic The topic from which the created @{link ViewSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received. The view is only valid until the callback
+   *     returns, use <code>toMessage()</code> to keep a copy of the message.
+   * @return A @{link ViewSubscription} that represents the underlying ROS2
+   *     subscription structure.
+   */
+  <T extends MessageDefinition, V extends MessageView<T>> ViewSubscription<T>
+      createViewSubscription(final Class<T> messageType, final String topic,
+      final Consumer<V> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition, V extends MessageView<T>> ViewSubscription<T>
+      createViewSubscription(final Class<T> messageType, final String topic,
+      final Consumer<V> callback) throws InstantiationException, IllegalAccessException;
+
   /**
    * Create a Publisher&lt;T&gt;.
    *
@@ -104,6 +455,105 @@ public interface Node extends Disposable {
   <T extends MessageDefinition> Publisher<T> createPublisher(
       final Class<T> messageType, final String topic);
 
+  /**
+   * Create an AsyncPublisher&lt;T&gt;, which queues the published messages and
+   * publishes them from a dedicated thread.
+   *
+   * @param <T> The type of the messages that will be published by the
+   *     created @{link AsyncPublisher}.
+   * @param messageType The class of the messages that will be published by the
+   *     created @{link AsyncPublisher}.
+   * @param topic The topic to which the created @{link AsyncPublisher} will
+   *     publish messages.
+   * @param capacity The maximum number of messages waiting to be published.
+   * @param overflowPolicy What to do with a message that is published while
+   *     the queue is full.
+   * @return An @{link AsyncPublisher} that represents the underlying ROS2
+   *     publisher structure.
+   */
+  <T extends MessageDefinition> AsyncPublisher<T> createAsyncPublisher(
+      final Class<T> messageType, final String topic, final int capacity,
+      final OverflowPolicy overflowPolicy, final QoSProfile qosProfile);
+
+  <T extends MessageDefinition> AsyncPublisher<T> createAsyncPublisher(
+      final Class<T> messageType, final String topic, final int capacity,
+      final OverflowPolicy overflowPolicy);
+
+  /**
+   * Publish every message of a batch with its own @{link Publisher}, in
+   * order, converting and publishing all of them with a single call into the
+   * native code.
+   *
+   * @param batch The messages to publish, each paired with a @{link Publisher}
+   *     created by any node.
+   */
+  void publish(final PublishBatch batch);
+
+  /**
+   * Create a SerializedSubscription, which receives messages as serialized
+   * (CDR) buffers instead of converting them into Java objects.
+   *
+   * @param messageType The name of the type of the messages that will be
+   *     received, e.g. "std_msgs/String". The generated Java class for that
+   *     type is not needed.
+   * @param topic The topic from which the created @{link SerializedSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received. The buffer is reused for the next message and must
+   *     not be retained after the callback returns.
+   * @return A @{link SerializedSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  SerializedSubscription createSerializedSubscription(final String messageType,
+      final String topic, final Consumer<ByteBuffer> callback, final QoSProfile qosProfile);
+
+  SerializedSubscription createSerializedSubscription(
+      final String messageType, final String topic, final Consumer<ByteBuffer> callback);
+
+  /**
+   * Create a subscription whose messages are decoded lazily: each received
+   *     message keeps a copy of its serialized (CDR) form, and its fields are
+   *     only decoded when their getters are first called. This avoids the cost
+   *     of converting large messages of which only a few fields are read.
+   *
+   * @param <T> The type of the messages that will be received.
+   * @param messageType The class of the messages that will be received.
+   * @param topic The topic from which the created @{link SerializedSubscription}
+   *     will receive messages.
+   * @param callback The callback function that will be triggered when a
+   *     message is received. The message can be read from several threads,
+   *     as fields are decoded under the lock of the message, but like any
+   *     other message it must not be modified while it is being read.
+   * @return A @{link SerializedSubscription} that represents the underlying
+   *     ROS2 subscription structure.
+   */
+  <T extends MessageDefinition> SerializedSubscription createLazySubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final QoSProfile qosProfile) throws InstantiationException, IllegalAccessException;
+
+  <T extends MessageDefinition> SerializedSubscription createLazySubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback)
+      throws InstantiationException, IllegalAccessException;
+
+  /**
+   * Create a Publisher from the name of a message type. The publisher can
+   *     publish serialized messages via
+   *     @{link Publisher#publishSerialized(ByteBuffer)} without the generated
+   *     Java class for that type.
+   *
+   * @param messageType The name of the type of the messages that will be
+   *     published, e.g. "std_msgs/String".
+   * @param topic The topic to which the created @{link Publisher} will
+   *     publish messages.
+   * @return A @{link Publisher} that represents the underlying ROS2 publisher
+   *     structure.
+   */
+  Publisher<MessageDefinition> createSerializedPublisher(
+      final String messageType, final String topic, final QoSProfile qosProfile);
+
+  Publisher<MessageDefinition> createSerializedPublisher(
+      final String messageType, final String topic);
+
   <T extends ServiceDefinition> Service<T> createService(final Class<T> serviceType,
       final String serviceName,
       final TriConsumer<RMWRequestId, ? extends MessageDefinition, ? extends MessageDefinition>
@@ -126,6 +576,17 @@ public interface Node extends Disposable {
 
   String getName();
 
+  /**
+   * The number of changes in the ROS graph (e.g. subscriptions that were
+   * created or destroyed) observed by this node, which can be compared with a
+   * previous value to know whether information about the graph is outdated.
+   * Changes are only tracked after this method is first called. If they can
+   * no longer be tracked, every call returns a new value.
+   *
+   * @return The number of changes in the ROS graph.
+   */
+  long getGraphChangeCount();
+
   List<ParameterVariant> getParameters(List<String> names);
 
   List<ParameterType> getParameterTypes(List<String> names);
@@ -20,20 +20,51 @@ import org.ros2.rcljava.client.Client;
 import org.ros2.rcljava.client.ClientImpl;
 import org.ros2.rcljava.common.JNIUtils;
 import org.ros2.rcljava.concurrent.Callback;
+import org.ros2.rcljava.consumers.BiConsumer;
 import org.ros2.rcljava.consumers.Consumer;
 import org.ros2.rcljava.consumers.TriConsumer;
 import org.ros2.rcljava.qos.QoSProfile;
+import org.ros2.rcljava.serialization.CDRReader;
 import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.interfaces.MessageView;
 import org.ros2.rcljava.interfaces.ServiceDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
 import org.ros2.rcljava.parameters.ParameterType;
 import org.ros2.rcljava.parameters.ParameterVariant;
+import org.ros2.rcljava.publisher.AsyncPublisher;
+import org.ros2.rcljava.publisher.OverflowPolicy;
+import org.ros2.rcljava.publisher.PublishBatch;
 import org.ros2.rcljava.publisher.Publisher;
 import org.ros2.rcljava.publisher.PublisherImpl;
 import org.ros2.rcljava.service.RMWRequestId;
 import org.ros2.rcljava.service.Service;
 import org.ros2.rcljava.service.ServiceImpl;
+import org.ros2.rcljava.subscription.BatchSubscription;
+import org.ros2.rcljava.subscription.BatchSubscriptionImpl;
+import org.ros2.rcljava.subscription.ExecutableSubscription;
+import org.ros2.rcljava.subscription.FieldProjection;
+import org.ros2.rcljava.subscription.FilteredSubscription;
+import org.ros2.rcljava.subscription.FilteredSubscriptionImpl;
+import org.ros2.rcljava.subscription.FlowSubscription;
+import org.ros2.rcljava.subscription.FlowSubscriptionImpl;
+import org.ros2.rcljava.subscription.KeepLatestSubscription;
+import org.ros2.rcljava.subscription.KeepLatestSubscriptionImpl;
+import org.ros2.rcljava.subscription.LoanedSubscription;
+import org.ros2.rcljava.subscription.LoanedSubscriptionImpl;
+import org.ros2.rcljava.subscription.MessageFilter;
+import org.ros2.rcljava.subscription.MessageInfo;
+import org.ros2.rcljava.subscription.MessageInfoSubscription;
+import org.ros2.rcljava.subscription.MessageInfoSubscriptionImpl;
+import org.ros2.rcljava.subscription.PollingSubscription;
+import org.ros2.rcljava.subscription.PollingSubscriptionImpl;
+import org.ros2.rcljava.subscription.SerializedSubscription;
+import org.ros2.rcljava.subscription.SerializedSubscriptionImpl;
+import org.ros2.rcljava.subscription.SharedSubscriptionImpl;
 import org.ros2.rcljava.subscription.Subscription;
 import org.ros2.rcljava.subscription.SubscriptionImpl;
+import org.ros2.rcljava.subscription.ViewSubscription;
+import org.ros2.rcljava.subscription.ViewSubscriptionImpl;
 import org.ros2.rcljava.timer.Timer;
 import org.ros2.rcljava.timer.WallTimer;
 import org.ros2.rcljava.timer.WallTimerImpl;
@@ -45,14 +76,19 @@ import java.lang.ref.WeakReference;
 
 import java.lang.reflect.Method;
 
+import java.nio.ByteBuffer;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * {@inheritDoc}
@@ -76,9 +112,43 @@ public class NodeImpl implements Node {
   private long handle;
 
   /**
-   * All the @{link Subscription}s that have been created through this instance.
+   * All the @{link Subscription}s that have been created through this
+   * instance and are executed by executors.
+   */
+  private final Collection<ExecutableSubscription> subscriptions;
+
+  /**
+   * All the @{link SerializedSubscription}s that have been created through
+   * this instance.
+   */
+  private final Collection<SerializedSubscription> serializedSubscriptions;
+
+  /**
+   * All the @{link PollingSubscription}s that have been created through this
+   * instance.
+   */
+  private final Collection<PollingSubscription> pollingSubscriptions;
+
+  /**
+   * The queues of messages published in this process of all the
+   * @{link Subscription}s that have been created through this instance.
+   */
+  private final Collection<IntraProcessSubscription> intraProcessSubscriptions;
+
+  /**
+   * The subscriptions shared by the callbacks registered through
+   * @{link #createSharedSubscription(Class, String, Consumer, QoSProfile)},
+   * by message type, topic and QoS profile.
+   */
+  private final Map<String, SharedSubscriptionImpl<?>> sharedSubscriptions =
+      new HashMap<String, SharedSubscriptionImpl<?>>();
+
+  /**
+   * The @{link IntraProcessManager} used by the publishers and subscriptions
+   * created through this instance, or null if intra-process communication is
+   * disabled.
    */
-  private final Collection<Subscription> subscriptions;
+  private final IntraProcessManager intraProcessManager;
 
   /**
    * All the @{link Publisher}s that have been created through this instance.
@@ -106,6 +176,33 @@ public class NodeImpl implements Node {
 
   private Map<String, ParameterVariant> parameters;
 
+  /**
+   * How long the graph listener waits for a change in the ROS graph before
+   * checking whether the node has been disposed, in nanoseconds.
+   */
+  private static final long GRAPH_LISTENER_TIMEOUT_NS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * The number of changes in the ROS graph observed by the graph listener.
+   */
+  private final AtomicLong graphChangeCount = new AtomicLong();
+
+  /**
+   * The thread that waits for changes in the ROS graph, null until
+   * @{link #getGraphChangeCount()} is first called.
+   */
+  private Thread graphListener;
+
+  private volatile boolean graphListenerStopped;
+
+  /**
+   * Set if the graph listener stopped because of an error. Graph changes are
+   * no longer observed, so every call to @{link #getGraphChangeCount()}
+   * reports a new change and information about the graph is always queried
+   * again instead of being cached forever.
+   */
+  private volatile boolean graphListenerFailed;
+
   /**
    * Constructor.
    *
@@ -113,10 +210,29 @@ public class NodeImpl implements Node {
    *     be zero.
    */
   public NodeImpl(final long handle, final String name) {
+    this(handle, name, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param handle A pointer to the underlying ROS2 node structure. Must not
+   *     be zero.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver messages between the publishers and subscriptions created
+   *     through this instance and others in the same process, or null to
+   *     deliver every message through the middleware.
+   */
+  public NodeImpl(
+      final long handle, final String name, final IntraProcessManager intraProcessManager) {
     this.handle = handle;
     this.name = name;
     this.publishers = new LinkedBlockingQueue<Publisher>();
-    this.subscriptions = new LinkedBlockingQueue<Subscription>();
+    this.subscriptions = new LinkedBlockingQueue<ExecutableSubscription>();
+    this.serializedSubscriptions = new LinkedBlockingQueue<SerializedSubscription>();
+    this.pollingSubscriptions = new LinkedBlockingQueue<PollingSubscription>();
+    this.intraProcessSubscriptions = new LinkedBlockingQueue<IntraProcessSubscription>();
+    this.intraProcessManager = intraProcessManager;
     this.services = new LinkedBlockingQueue<Service>();
     this.clients = new LinkedBlockingQueue<Client>();
     this.timers = new LinkedBlockingQueue<Timer>();
@@ -170,8 +286,8 @@ public class NodeImpl implements Node {
         nativeCreatePublisherHandle(this.handle, messageType, topic, qosProfileHandle);
     RCLJava.disposeQoSProfile(qosProfileHandle);
 
-    Publisher<T> publisher =
-        new PublisherImpl<T>(new WeakReference<Node>(this), publisherHandle, topic);
+    Publisher<T> publisher = new PublisherImpl<T>(new WeakReference<Node>(this),
+        publisherHandle, messageType, topic, this.intraProcessManager);
     this.publishers.add(publisher);
 
     return publisher;
@@ -182,6 +298,41 @@ public class NodeImpl implements Node {
     return this.<T>createPublisher(messageType, topic, QoSProfile.DEFAULT);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> AsyncPublisher<T> createAsyncPublisher(
+      final Class<T> messageType, final String topic, final int capacity,
+      final OverflowPolicy overflowPolicy, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long publisherHandle =
+        nativeCreatePublisherHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    // Only the AsyncPublisher is tracked by the node, it disposes the underlying publisher
+    Publisher<T> publisher = new PublisherImpl<T>(new WeakReference<Node>(this),
+        publisherHandle, messageType, topic, this.intraProcessManager);
+    AsyncPublisher<T> asyncPublisher =
+        new AsyncPublisher<T>(publisher, capacity, overflowPolicy);
+    this.publishers.add(asyncPublisher);
+
+    return asyncPublisher;
+  }
+
+  public final <T extends MessageDefinition> AsyncPublisher<T> createAsyncPublisher(
+      final Class<T> messageType, final String topic, final int capacity,
+      final OverflowPolicy overflowPolicy) {
+    return this.<T>createAsyncPublisher(
+        messageType, topic, capacity, overflowPolicy, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publish(final PublishBatch batch) {
+    PublisherImpl.publishBatch(batch.getPublishers(), batch.getMessages());
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -193,10 +344,13 @@ public class NodeImpl implements Node {
         nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
     RCLJava.disposeQoSProfile(qosProfileHandle);
 
-    Subscription<T> subscription = new SubscriptionImpl<T>(
-        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, callback);
+    SubscriptionImpl<T> subscription = new SubscriptionImpl<T>(new WeakReference<Node>(this),
+        subscriptionHandle, messageType, topic, callback, this.intraProcessManager, qosProfile);
 
     this.subscriptions.add(subscription);
+    if (subscription.getIntraProcessSubscription() != null) {
+      this.intraProcessSubscriptions.add(subscription.getIntraProcessSubscription());
+    }
 
     return subscription;
   }
@@ -206,13 +360,544 @@ public class NodeImpl implements Node {
     return this.<T>createSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @SuppressWarnings("unchecked")
+  public final <T extends MessageDefinition> Subscription<T> createSharedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final QoSProfile qosProfile) {
+    final String key = messageType.getName() + " " + topic + " " + qosProfile.getHistory() + " "
+        + qosProfile.getDepth() + " " + qosProfile.getReliability() + " "
+        + qosProfile.getDurability() + " " + qosProfile.getAvoidROSNamespaceConventions();
+
+    synchronized (this.sharedSubscriptions) {
+      SharedSubscriptionImpl<T> subscription =
+          (SharedSubscriptionImpl<T>) this.sharedSubscriptions.get(key);
+      if (subscription == null) {
+        long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+        long subscriptionHandle =
+            nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+        RCLJava.disposeQoSProfile(qosProfileHandle);
+
+        subscription = new SharedSubscriptionImpl<T>(new WeakReference<Node>(this),
+            subscriptionHandle, messageType, topic, this.intraProcessManager, qosProfile,
+            new Callback() {
+              public void call() {
+                releaseSharedSubscription(key);
+              }
+            });
+
+        this.sharedSubscriptions.put(key, subscription);
+        this.subscriptions.add(subscription);
+        if (subscription.getIntraProcessSubscription() != null) {
+          this.intraProcessSubscriptions.add(subscription.getIntraProcessSubscription());
+        }
+      }
+
+      return subscription.addCallback(callback);
+    }
+  }
+
+  public final <T extends MessageDefinition> Subscription<T> createSharedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback) {
+    return this.<T>createSharedSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> MessageInfoSubscription<T>
+      createMessageInfoSubscription(final Class<T> messageType, final String topic,
+      final BiConsumer<T, MessageInfo> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    MessageInfoSubscriptionImpl<T> subscription = new MessageInfoSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, callback);
+
+    this.subscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> MessageInfoSubscription<T>
+      createMessageInfoSubscription(final Class<T> messageType, final String topic,
+      final BiConsumer<T, MessageInfo> callback)
+      throws InstantiationException, IllegalAccessException {
+    return this.<T>createMessageInfoSubscription(
+        messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> PollingSubscription<T> createPollingSubscription(
+      final Class<T> messageType, final String topic, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException {
+    T message = messageType.newInstance();
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    // Not added to the subscriptions of this node, so that executors never
+    // wait on it nor take its messages
+    PollingSubscription<T> subscription = new PollingSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, message, topic);
+
+    this.pollingSubscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> PollingSubscription<T> createPollingSubscription(
+      final Class<T> messageType, final String topic)
+      throws InstantiationException, IllegalAccessException {
+    return this.<T>createPollingSubscription(messageType, topic, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> FlowSubscription<T> createFlowSubscription(
+      final Class<T> messageType, final String topic, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    // Messages published in this process are received through the middleware too, so that
+    // the demand of the subscriber bounds every message taken
+    FlowSubscriptionImpl<T> subscription = new FlowSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic);
+
+    this.subscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> FlowSubscription<T> createFlowSubscription(
+      final Class<T> messageType, final String topic) {
+    return this.<T>createFlowSubscription(messageType, topic, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * Dispose a shared subscription if no callback is registered to it anymore.
+   *
+   * @param key The message type, topic and QoS profile of the subscription.
+   */
+  private void releaseSharedSubscription(final String key) {
+    synchronized (this.sharedSubscriptions) {
+      SharedSubscriptionImpl<?> subscription = this.sharedSubscriptions.get(key);
+      if (subscription == null || subscription.hasCallbacks()) {
+        return;
+      }
+      this.sharedSubscriptions.remove(key);
+      this.subscriptions.remove(subscription);
+      if (subscription.getIntraProcessSubscription() != null) {
+        this.intraProcessSubscriptions.remove(subscription.getIntraProcessSubscription());
+      }
+      subscription.dispose();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> Subscription<T> createProjectedSubscription(
+      final Class<T> messageType, final String topic, final List<String> fieldPaths,
+      final Consumer<T> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException {
+    return this.<T>createProjectedSubscription(messageType, topic,
+        new FieldProjection(messageType, fieldPaths), callback, qosProfile);
+  }
+
+  private <T extends MessageDefinition> Subscription<T> createProjectedSubscription(
+      final Class<T> messageType, final String topic, final FieldProjection fieldProjection,
+      final Consumer<T> callback, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    SubscriptionImpl<T> subscription = new SubscriptionImpl<T>(new WeakReference<Node>(this),
+        subscriptionHandle, messageType, topic, callback, this.intraProcessManager, qosProfile,
+        fieldProjection);
+
+    this.subscriptions.add(subscription);
+    if (subscription.getIntraProcessSubscription() != null) {
+      this.intraProcessSubscriptions.add(subscription.getIntraProcessSubscription());
+    }
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> Subscription<T> createProjectedSubscription(
+      final Class<T> messageType, final String topic, final List<String> fieldPaths,
+      final Consumer<T> callback) throws InstantiationException, IllegalAccessException {
+    return this.<T>createProjectedSubscription(
+        messageType, topic, fieldPaths, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> Subscription<T> createColumnarSubscription(
+      final Class<T> messageType, final String topic, final List<String> columnarFieldPaths,
+      final Consumer<T> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException {
+    FieldProjection fieldProjection = new FieldProjection(
+        messageType, Collections.<String>emptyList(), columnarFieldPaths);
+    return this.<T>createProjectedSubscription(
+        messageType, topic, fieldProjection, callback, qosProfile);
+  }
+
+  public final <T extends MessageDefinition> Subscription<T> createColumnarSubscription(
+      final Class<T> messageType, final String topic, final List<String> columnarFieldPaths,
+      final Consumer<T> callback) throws InstantiationException, IllegalAccessException {
+    return this.<T>createColumnarSubscription(
+        messageType, topic, columnarFieldPaths, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> KeepLatestSubscription<T>
+      createKeepLatestSubscription(final Class<T> messageType, final String topic,
+      final Consumer<T> callback, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    KeepLatestSubscriptionImpl<T> subscription = new KeepLatestSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, callback,
+        this.intraProcessManager, qosProfile);
+
+    this.subscriptions.add(subscription);
+    if (subscription.getIntraProcessSubscription() != null) {
+      this.intraProcessSubscriptions.add(subscription.getIntraProcessSubscription());
+    }
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> KeepLatestSubscription<T>
+      createKeepLatestSubscription(final Class<T> messageType, final String topic,
+      final Consumer<T> callback) {
+    return this.<T>createKeepLatestSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> FilteredSubscription<T> createFilteredSubscription(
+      final Class<T> messageType, final String topic, final MessageFilter messageFilter,
+      final Consumer<T> callback, final QoSProfile qosProfile) {
+    if (messageFilter.getMessageType() != messageType) {
+      throw new IllegalArgumentException("The filter applies to "
+          + messageFilter.getMessageType().getName() + ", not to " + messageType.getName());
+    }
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    FilteredSubscriptionImpl<T> subscription = new FilteredSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, messageFilter,
+        callback, qosProfile);
+
+    this.subscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> FilteredSubscription<T> createFilteredSubscription(
+      final Class<T> messageType, final String topic, final MessageFilter messageFilter,
+      final Consumer<T> callback) {
+    return this.<T>createFilteredSubscription(
+        messageType, topic, messageFilter, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> BatchSubscription<T> createBatchSubscription(
+      final Class<T> messageType, final String topic, final Consumer<List<T>> callback,
+      final int maxBatchSize, final long maxDelay, final TimeUnit unit,
+      final QoSProfile qosProfile) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("The size of a batch must be positive");
+    }
+    if (maxDelay < 0) {
+      throw new IllegalArgumentException("The maximum delay of a batch cannot be negative");
+    }
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    final BatchSubscriptionImpl<T> subscription = new BatchSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, callback,
+        maxBatchSize, unit.toNanos(maxDelay));
+
+    this.subscriptions.add(subscription);
+
+    if (maxDelay > 0) {
+      // Incomplete batches are delivered by a timer, in case no more messages arrive
+      subscription.setFlushTimer(this.createWallTimer(maxDelay, unit, new Callback() {
+        public void call() {
+          subscription.flushExpired();
+        }
+      }));
+    }
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> BatchSubscription<T> createBatchSubscription(
+      final Class<T> messageType, final String topic, final Consumer<List<T>> callback,
+      final int maxBatchSize, final long maxDelay, final TimeUnit unit) {
+    return this.<T>createBatchSubscription(
+        messageType, topic, callback, maxBatchSize, maxDelay, unit, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> LoanedSubscription<T> createLoanedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<ByteBuffer> callback,
+      final QoSProfile qosProfile) throws InstantiationException, IllegalAccessException {
+    T message = messageType.newInstance();
+    if (message.getLoanedSizeInstance() == 0) {
+      throw new UnsupportedOperationException(
+          "Messages of type " + messageType.getName() + " do not have a fixed size");
+    }
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    LoanedSubscriptionImpl<T> subscription = new LoanedSubscriptionImpl<T>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, message, topic, callback);
+
+    // Loaned subscriptions are waited on like any other subscription, the
+    // executor only takes messages from them differently
+    this.subscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> LoanedSubscription<T> createLoanedSubscription(
+      final Class<T> messageType, final String topic, final Consumer<ByteBuffer> callback)
+      throws InstantiationException, IllegalAccessException {
+    return this.<T>createLoanedSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition, V extends MessageView<T>> ViewSubscription<T>
+      createViewSubscription(final Class<T> messageType, final String topic,
+      final Consumer<V> callback, final QoSProfile qosProfile)
+      throws InstantiationException, IllegalAccessException {
+    T message = messageType.newInstance();
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    ViewSubscriptionImpl<T, V> subscription = new ViewSubscriptionImpl<T, V>(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, message, topic, callback);
+
+    this.subscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition, V extends MessageView<T>> ViewSubscription<T>
+      createViewSubscription(final Class<T> messageType, final String topic,
+      final Consumer<V> callback) throws InstantiationException, IllegalAccessException {
+    return this.<T, V>createViewSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
   /**
    * {@inheritDoc}
    */
   public final Collection<Subscription> getSubscriptions() {
+    return Collections.<Subscription>unmodifiableCollection(this.subscriptions);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Collection<ExecutableSubscription> getExecutableSubscriptions() {
     return this.subscriptions;
   }
 
+  /**
+   * Create a ROS2 publisher (rcl_publisher_t) from the name of a message type
+   *     and return a pointer to it as an integer.
+   *
+   * @param handle A pointer to the underlying ROS2 node structure.
+   * @param messageType The name of the type of the messages that will be
+   *     published by the created @{link Publisher}.
+   * @param topic The topic to which the created @{link Publisher} will
+   *     publish messages.
+   * @param qosProfileHandle A pointer to the underlying ROS2 QoS profile
+   *     structure.
+   * @return A pointer to the underlying ROS2 publisher structure.
+   */
+  private static native long nativeCreateSerializedPublisherHandle(
+      long handle, String messageType, String topic, long qosProfileHandle);
+
+  /**
+   * Create a ROS2 subscription (rcl_subscription_t) from the name of a
+   *     message type and return a pointer to it as an integer.
+   *
+   * @param handle A pointer to the underlying ROS2 node structure.
+   * @param messageType The name of the type of the messages that will be
+   *     received by the created @{link SerializedSubscription}.
+   * @param topic The topic from which the created @{link SerializedSubscription}
+   *     will receive messages.
+   * @param qosProfileHandle A pointer to the underlying ROS2 QoS profile
+   *     structure.
+   * @return A pointer to the underlying ROS2 subscription structure.
+   */
+  private static native long nativeCreateSerializedSubscriptionHandle(
+      long handle, String messageType, String topic, long qosProfileHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Publisher<MessageDefinition> createSerializedPublisher(
+      final String messageType, final String topic, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long publisherHandle =
+        nativeCreateSerializedPublisherHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    Publisher<MessageDefinition> publisher = new PublisherImpl<MessageDefinition>(
+        new WeakReference<Node>(this), publisherHandle, null, topic);
+    this.publishers.add(publisher);
+
+    return publisher;
+  }
+
+  public final Publisher<MessageDefinition> createSerializedPublisher(
+      final String messageType, final String topic) {
+    return this.createSerializedPublisher(messageType, topic, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final SerializedSubscription createSerializedSubscription(final String messageType,
+      final String topic, final Consumer<ByteBuffer> callback, final QoSProfile qosProfile) {
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle = nativeCreateSerializedSubscriptionHandle(
+        this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    SerializedSubscription subscription = new SerializedSubscriptionImpl(
+        new WeakReference<Node>(this), subscriptionHandle, messageType, topic, callback);
+
+    this.serializedSubscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final SerializedSubscription createSerializedSubscription(
+      final String messageType, final String topic, final Consumer<ByteBuffer> callback) {
+    return this.createSerializedSubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final <T extends MessageDefinition> SerializedSubscription createLazySubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final QoSProfile qosProfile) throws InstantiationException, IllegalAccessException {
+    // Fail early if messages cannot be instantiated by the callback below
+    messageType.newInstance();
+
+    long qosProfileHandle = RCLJava.convertQoSProfileToHandle(qosProfile);
+    long subscriptionHandle =
+        nativeCreateSubscriptionHandle(this.handle, messageType, topic, qosProfileHandle);
+    RCLJava.disposeQoSProfile(qosProfileHandle);
+
+    Consumer<ByteBuffer> lazyCallback = new Consumer<ByteBuffer>() {
+      public void accept(final ByteBuffer buffer) {
+        // The taken buffer is reused for the next message, keep a copy of it
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer.duplicate());
+        copy.flip();
+
+        T message = null;
+        try {
+          message = messageType.newInstance();
+        } catch (InstantiationException ie) {
+          throw new IllegalStateException(ie);
+        } catch (IllegalAccessException iae) {
+          throw new IllegalStateException(iae);
+        }
+        message.deserializeLazy(new CDRReader(copy));
+        callback.accept(message);
+      }
+    };
+
+    SerializedSubscription subscription = new SerializedSubscriptionImpl(
+        new WeakReference<Node>(this), subscriptionHandle, messageType.getName(), topic,
+        lazyCallback);
+
+    this.serializedSubscriptions.add(subscription);
+
+    return subscription;
+  }
+
+  public final <T extends MessageDefinition> SerializedSubscription createLazySubscription(
+      final Class<T> messageType, final String topic, final Consumer<T> callback)
+      throws InstantiationException, IllegalAccessException {
+    return this.<T>createLazySubscription(messageType, topic, callback, QoSProfile.DEFAULT);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Collection<SerializedSubscription> getSerializedSubscriptions() {
+    return this.serializedSubscriptions;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Collection<PollingSubscription> getPollingSubscriptions() {
+    return this.pollingSubscriptions;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Collection<IntraProcessSubscription> getIntraProcessSubscriptions() {
+    return this.intraProcessSubscriptions;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final boolean getUseIntraProcessComms() {
+    return this.intraProcessManager != null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -304,10 +989,96 @@ public class NodeImpl implements Node {
    * {@inheritDoc}
    */
   public final void dispose() {
+    stopGraphListener();
     nativeDispose(this.handle);
     this.handle = 0;
   }
 
+  /**
+   * Create the wait set used by the graph listener for its whole lifetime.
+   *
+   * @return A pointer to the underlying ROS2 wait set structure, as an
+   *     integer.
+   */
+  private static native long nativeCreateGraphWaitSet();
+
+  /**
+   * Wait for a change in the ROS graph, e.g. a subscription that is created
+   * or destroyed.
+   *
+   * @param handle A pointer to the underlying ROS2 node
+   *     structure, as an integer. Must not be zero.
+   * @param waitSetHandle A wait set created by
+   *     @{link #nativeCreateGraphWaitSet()}.
+   * @param timeout How long to wait, in nanoseconds.
+   * @return true if the graph changed, false if the timeout expired.
+   */
+  private static native boolean nativeWaitForGraphChange(
+      long handle, long waitSetHandle, long timeout);
+
+  private static native void nativeDisposeGraphWaitSet(long waitSetHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getGraphChangeCount() {
+    synchronized (this.graphChangeCount) {
+      if (this.graphListener == null && this.handle != 0) {
+        final long nodeHandle = this.handle;
+        this.graphListener = new Thread(new Runnable() {
+          public void run() {
+            listenForGraphChanges(nodeHandle);
+          }
+        }, "GraphListener-" + this.name);
+        this.graphListener.setDaemon(true);
+        this.graphListener.start();
+      }
+    }
+    if (this.graphListenerFailed) {
+      return this.graphChangeCount.incrementAndGet();
+    }
+    return this.graphChangeCount.get();
+  }
+
+  private void listenForGraphChanges(final long nodeHandle) {
+    long waitSetHandle = 0;
+    try {
+      waitSetHandle = nativeCreateGraphWaitSet();
+      while (!this.graphListenerStopped) {
+        if (nativeWaitForGraphChange(nodeHandle, waitSetHandle, GRAPH_LISTENER_TIMEOUT_NS)) {
+          this.graphChangeCount.incrementAndGet();
+        }
+      }
+    } catch (Exception e) {
+      this.graphListenerFailed = true;
+      logger.error("Stopped listening for graph changes of node " + this.name, e);
+    } finally {
+      if (waitSetHandle != 0) {
+        try {
+          nativeDisposeGraphWaitSet(waitSetHandle);
+        } catch (Exception e) {
+          logger.error("Failed to destroy the graph wait set of node " + this.name, e);
+        }
+      }
+    }
+  }
+
+  private void stopGraphListener() {
+    Thread listener = null;
+    synchronized (this.graphChangeCount) {
+      listener = this.graphListener;
+      this.graphListenerStopped = true;
+    }
+    if (listener == null) {
+      return;
+    }
+    try {
+      listener.join();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
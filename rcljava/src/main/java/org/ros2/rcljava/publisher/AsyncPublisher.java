@@ -0,0 +1,357 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.publisher;
+
+import java.lang.ref.WeakReference;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.ros2.rcljava.consumers.Supplier;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+
+/**
+ * A @{link Publisher} that queues messages and publishes them from a
+ * dedicated thread, so that the threads that publish messages, usually the
+ * ones that run the executor callbacks, do not wait for the messages to be
+ * converted and written to the middleware.
+ * The publishing thread takes every message queued since its last wake-up
+ * and publishes them with a single call into the native code.
+ * An AsyncPublisher must be created via
+ * @{link Node#createAsyncPublisher(Class&lt;T&gt;, String, int, OverflowPolicy)}
+ *
+ * @param <T> The type of the messages that this publisher will publish.
+ */
+public class AsyncPublisher<T extends MessageDefinition> implements Publisher<T> {
+  private static final Logger logger = LoggerFactory.getLogger(AsyncPublisher.class);
+
+  /**
+   * How often the publishing thread checks whether the publisher has been
+   * disposed while the queue is empty, in milliseconds.
+   */
+  private static final long DISPOSE_CHECK_INTERVAL_MS = 100;
+
+  /**
+   * The publisher that publishes the queued messages.
+   */
+  private final Publisher<T> publisher;
+
+  /**
+   * The maximum number of messages waiting to be published.
+   */
+  private final int capacity;
+
+  private final OverflowPolicy overflowPolicy;
+
+  /**
+   * The messages waiting to be published, backed by an array allocated when
+   * the publisher is created.
+   */
+  private final BlockingQueue<T> queue;
+
+  private final AtomicLong publishedCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /**
+   * Held while a message replaces the pending one with
+   * @{link OverflowPolicy#CONFLATE}, so that concurrent publishers cannot
+   * queue more than one message.
+   */
+  private final Object conflateLock = new Object();
+
+  private final Thread publishingThread;
+
+  /**
+   * Held for reading while a message is queued and for writing while the
+   * publisher is marked as disposed, so that every message queued before
+   * dispose is published by the final drain of the publishing thread, and
+   * no message can be queued after it.
+   */
+  private final ReadWriteLock disposeLock = new ReentrantReadWriteLock();
+
+  private volatile boolean disposed;
+
+  /**
+   * Constructor.
+   *
+   * @param publisher The publisher that will publish the queued messages,
+   *     which is disposed along with this publisher.
+   * @param capacity The maximum number of messages waiting to be published.
+   * @param overflowPolicy What to do with a message that is published while
+   *     the queue is full.
+   */
+  public AsyncPublisher(final Publisher<T> publisher, final int capacity,
+      final OverflowPolicy overflowPolicy) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be at least one message");
+    }
+
+    this.publisher = publisher;
+    this.capacity = capacity;
+    this.overflowPolicy = overflowPolicy;
+    this.queue = new ArrayBlockingQueue<T>(capacity);
+
+    this.publishingThread = new Thread(new Runnable() {
+      public void run() {
+        AsyncPublisher.this.run();
+      }
+    }, "AsyncPublisher");
+    this.publishingThread.setDaemon(true);
+    this.publishingThread.start();
+  }
+
+  private void run() {
+    List<T> messages = new ArrayList<T>(this.capacity);
+    while (!this.disposed) {
+      try {
+        T message = this.queue.poll(DISPOSE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (message == null) {
+          continue;
+        }
+        messages.add(message);
+      } catch (InterruptedException ie) {
+        break;
+      }
+      this.queue.drainTo(messages);
+      publishQueued(messages);
+    }
+
+    // The publisher has been disposed, publish the messages left in the queue
+    this.queue.drainTo(messages);
+    publishQueued(messages);
+  }
+
+  private void publishQueued(final List<T> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    try {
+      if (messages.size() == 1) {
+        this.publisher.publish(messages.get(0));
+      } else {
+        this.publisher.publish(messages);
+      }
+      this.publishedCount.addAndGet(messages.size());
+    } catch (RuntimeException re) {
+      this.droppedCount.addAndGet(messages.size());
+      logger.error("Failed to publish " + messages.size() + " queued messages", re);
+    } finally {
+      messages.clear();
+    }
+  }
+
+  /**
+   * Queue a message to be published by the publishing thread. If the queue
+   * is full, the message is handled according to the @{link OverflowPolicy}
+   * of this publisher, except that @{link OverflowPolicy#CONFLATE} always
+   * replaces the message waiting to be published.
+   *
+   * @param message An instance of the &lt;T&gt; parameter, which must not be
+   *     modified until it has been published.
+   */
+  public final void publish(final T message) {
+    this.disposeLock.readLock().lock();
+    try {
+      if (this.disposed) {
+        throw new IllegalStateException("Publisher has been disposed");
+      }
+      enqueue(message);
+    } finally {
+      this.disposeLock.readLock().unlock();
+    }
+  }
+
+  private void enqueue(final T message) {
+    switch (this.overflowPolicy) {
+      case BLOCK:
+        try {
+          this.queue.put(message);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          this.droppedCount.incrementAndGet();
+        }
+        break;
+      case DROP:
+        if (!this.queue.offer(message)) {
+          this.droppedCount.incrementAndGet();
+        }
+        break;
+      case DROP_OLDEST:
+        while (!this.queue.offer(message)) {
+          if (this.queue.poll() != null) {
+            this.droppedCount.incrementAndGet();
+          }
+        }
+        break;
+      case CONFLATE:
+        synchronized (this.conflateLock) {
+          // Only the publishing thread takes messages concurrently, so the queue is empty once
+          // the pending message is discarded
+          if (this.queue.poll() != null) {
+            this.droppedCount.incrementAndGet();
+          }
+          this.queue.offer(message);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unknown overflow policy " + this.overflowPolicy);
+    }
+  }
+
+  /**
+   * Queue a sequence of messages to be published by the publishing thread,
+   * as if each of them was published with @{link #publish(MessageDefinition)}.
+   *
+   * @param messages Instances of the &lt;T&gt; parameter.
+   */
+  public final void publish(final List<T> messages) {
+    for (T message : messages) {
+      publish(message);
+    }
+  }
+
+  /**
+   * Queue the message returned by a supplier, if there is any subscription to
+   * the topic.
+   *
+   * {@inheritDoc}
+   */
+  public final void publish(final Supplier<T> messageSupplier) {
+    if (getSubscriptionCount() == 0) {
+      return;
+    }
+    publish(messageSupplier.get());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final int getSubscriptionCount() {
+    return this.publisher.getSubscriptionCount();
+  }
+
+  /**
+   * Publish a serialized message synchronously, bypassing the queue.
+   *
+   * {@inheritDoc}
+   */
+  public final void publishSerialized(final ByteBuffer message) {
+    this.publisher.publishSerialized(message);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final ByteBuffer borrowLoanedMessage() {
+    return this.publisher.borrowLoanedMessage();
+  }
+
+  /**
+   * Publish a loaned message synchronously, bypassing the queue.
+   *
+   * {@inheritDoc}
+   */
+  public final void publishLoaned(final ByteBuffer message) {
+    this.publisher.publishLoaned(message);
+  }
+
+  /**
+   * @return The number of messages waiting to be published.
+   */
+  public final int getQueueDepth() {
+    return this.queue.size();
+  }
+
+  /**
+   * @return The maximum number of messages waiting to be published.
+   */
+  public final int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * @return What is done with a message that is published while the queue
+   *     is full.
+   */
+  public final OverflowPolicy getOverflowPolicy() {
+    return this.overflowPolicy;
+  }
+
+  /**
+   * @return The number of messages published by the publishing thread.
+   */
+  public final long getPublishedCount() {
+    return this.publishedCount.get();
+  }
+
+  /**
+   * @return The number of messages that were discarded, either because the
+   *     queue was full, because they were replaced by a newer message or
+   *     because they could not be published.
+   */
+  public final long getDroppedCount() {
+    return this.droppedCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getHandle() {
+    return this.publisher.getHandle();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final WeakReference<Node> getNodeReference() {
+    return this.publisher.getNodeReference();
+  }
+
+  /**
+   * Publish the messages left in the queue, stop the publishing thread and
+   * dispose the underlying publisher. Waits for the messages that are being
+   * queued concurrently, including those of producers blocked on a full
+   * queue, which are still published.
+   */
+  public final void dispose() {
+    this.disposeLock.writeLock().lock();
+    try {
+      this.disposed = true;
+    } finally {
+      this.disposeLock.writeLock().unlock();
+    }
+    try {
+      this.publishingThread.join();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+    this.publisher.dispose();
+  }
+}
@@ -0,0 +1,44 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.publisher;
+
+/**
+ * What an @{link AsyncPublisher} does with a message that is published while
+ * its queue is full.
+ */
+public enum OverflowPolicy {
+  /**
+   * Block the publishing thread until there is room in the queue.
+   */
+  BLOCK,
+
+  /**
+   * Discard the new message.
+   */
+  DROP,
+
+  /**
+   * Discard the oldest message in the queue to make room for the new one.
+   */
+  DROP_OLDEST,
+
+  /**
+   * Replace the message waiting to be published, if any, with the new one,
+   * so that at most the latest message of the topic is pending, whatever the
+   * capacity of the queue.
+   */
+  CONFLATE;
+}
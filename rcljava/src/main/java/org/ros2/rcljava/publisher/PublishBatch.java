@@ -0,0 +1,78 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.publisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A sequence of messages, each paired with the @{link Publisher} that will
+ * publish it, that is published by @{link Node#publish(PublishBatch)} with
+ * a single call into the native code. Messages are published in the order in
+ * which they were added.
+ */
+public final class PublishBatch {
+  private final List<Publisher<?>> publishers = new ArrayList<Publisher<?>>();
+
+  private final List<MessageDefinition> messages = new ArrayList<MessageDefinition>();
+
+  /**
+   * Add a message to the batch.
+   *
+   * @param <T> The type of the messages published by publisher.
+   * @param publisher The @{link Publisher} that will publish the message.
+   * @param message An instance of the &lt;T&gt; parameter.
+   * @return This batch.
+   */
+  public <T extends MessageDefinition> PublishBatch add(
+      final Publisher<T> publisher, final T message) {
+    this.publishers.add(publisher);
+    this.messages.add(message);
+    return this;
+  }
+
+  /**
+   * Remove every message from the batch, so that it can be reused.
+   */
+  public void clear() {
+    this.publishers.clear();
+    this.messages.clear();
+  }
+
+  /**
+   * @return The number of messages in the batch.
+   */
+  public int size() {
+    return this.messages.size();
+  }
+
+  /**
+   * @return The publisher of each message in the batch.
+   */
+  public List<Publisher<?>> getPublishers() {
+    return Collections.unmodifiableList(this.publishers);
+  }
+
+  /**
+   * @return The messages in the batch.
+   */
+  public List<MessageDefinition> getMessages() {
+    return Collections.unmodifiableList(this.messages);
+  }
+}
@@ -17,6 +17,11 @@ package org.ros2.rcljava.publisher;
 
 import java.lang.ref.WeakReference;
 
+import java.nio.ByteBuffer;
+
+import java.util.List;
+
+import org.ros2.rcljava.consumers.Supplier;
 import org.ros2.rcljava.interfaces.Disposable;
 import org.ros2.rcljava.interfaces.MessageDefinition;
 import org.ros2.rcljava.node.Node;
@@ -32,10 +37,81 @@ public interface Publisher<T extends MessageDefinition> extends Disposable {
   /**
    * Publish a message.
    *
-   * @param message An instance of the &lt;T&gt; parameter.
+   * @param message An instance of the &lt;T&gt; parameter. If the node uses
+   *     intra-process communication, it can be handed as is to a subscription
+   *     in this process, so it must not be modified once it has been
+   *     published.
    */
   void publish(final T message);
 
+  /**
+   * Publish a sequence of messages, in order, converting and publishing all
+   * of them with a single call into the native code.
+   *
+   * @param messages Instances of the &lt;T&gt; parameter.
+   */
+  void publish(final List<T> messages);
+
+  /**
+   * Publish the message returned by a supplier, if there is any subscription
+   * to the topic. Otherwise, the supplier is not called, so that the cost of
+   * building and converting the message is not paid when nobody is listening.
+   *
+   * @param messageSupplier A function that returns an instance of the
+   *     &lt;T&gt; parameter.
+   */
+  void publish(final Supplier<T> messageSupplier);
+
+  /**
+   * The number of subscriptions to the topic of this publisher known to the
+   * middleware, including the ones in this process. The value is cached, and
+   * only counted again after the ROS graph changes.
+   *
+   * @return The number of subscriptions.
+   */
+  int getSubscriptionCount();
+
+  /**
+   * Publish a message that has already been serialized, without converting
+   * it from Java. This is useful for relays and recorders that never inspect
+   * the contents of the messages they forward.
+   *
+   * @param message A buffer with the serialized (CDR) message between its
+   *     position and its limit. The position of the buffer is not modified.
+   *     Direct buffers are published without copying.
+   * @throws UnsupportedOperationException if the publisher uses
+   *     intra-process communication.
+   */
+  void publishSerialized(final ByteBuffer message);
+
+  /**
+   * Borrow a C message owned by this publisher, so that its fields can be
+   * written in place through the accessors generated for fixed size messages
+   * (e.g. <code>new UInt32.Loaned(buffer)</code>).
+   * The loan is exclusive and lasts until the message is published, it cannot
+   * be borrowed again before that. The same message is returned every time,
+   * and it keeps the values of the last message published with it.
+   *
+   * @return A direct buffer that holds the C message.
+   * @throws UnsupportedOperationException if &lt;T&gt; is not a fixed size
+   *     message type, or if the publisher uses intra-process communication.
+   * @throws IllegalStateException if the message is already borrowed, or if
+   *     the publisher has been disposed.
+   */
+  ByteBuffer borrowLoanedMessage();
+
+  /**
+   * Publish a message borrowed from this publisher, without converting it
+   * from Java, and end the loan.
+   *
+   * @param message The buffer returned by {@link #borrowLoanedMessage()}.
+   * @throws IllegalArgumentException if message is not currently borrowed
+   *     from this publisher.
+   * @throws IllegalStateException if the publisher has been disposed, which
+   *     ends any outstanding loan.
+   */
+  void publishLoaned(final ByteBuffer message);
+
   /**
    * A @{link java.lang.ref.WeakReference} to the @{link org.ros2.rcljava.Node}
    * that created this publisher.
@@ -17,12 +17,20 @@ package org.ros2.rcljava.publisher;
 
 import java.lang.ref.WeakReference;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import java.util.Collections;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.ros2.rcljava.RCLJava;
 import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.consumers.Supplier;
 import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
 import org.ros2.rcljava.node.Node;
 
 /**
@@ -53,6 +61,114 @@ public class PublisherImpl<T extends MessageDefinition> implements Publisher<T>
    */
   private final String topic;
 
+  /**
+   * The class of the messages that this publisher will publish, or null.
+   */
+  private final Class<T> messageType;
+
+  /**
+   * A pointer to the function that converts a Java message of type &lt;T&gt;
+   * into its C counterpart, cached when the publisher is created.
+   */
+  private final long fromJavaConverterHandle;
+
+  /**
+   * A pointer to the function that destroys a C message of type &lt;T&gt;,
+   * cached when the publisher is created.
+   */
+  private final long destructorHandle;
+
+  /**
+   * A pointer to the C message that is reused by every call to
+   * {@link #publish(MessageDefinition)}, zero until the first message is published.
+   */
+  private long messageHandle;
+
+  /**
+   * A direct buffer that serialized messages held in heap buffers are copied
+   * into before being published, grown on demand.
+   */
+  private ByteBuffer serializedBuffer;
+
+  /**
+   * The size of the C message of type &lt;T&gt;, or zero if it cannot be loaned.
+   */
+  private final int loanedMessageSize;
+
+  /**
+   * A direct buffer that holds the C message returned by
+   * {@link #borrowLoanedMessage()}, null until it is first borrowed.
+   */
+  private ByteBuffer loanedMessage;
+
+  /**
+   * true from the time {@link #loanedMessage} is borrowed until it is
+   * published, while no one else may borrow it.
+   */
+  private boolean loanedMessageBorrowed;
+
+  /**
+   * Guards {@link #messageHandle}, {@link #serializedBuffer},
+   * {@link #loanedMessage} and {@link #loanedMessageBorrowed}, which must not
+   * be written by more than one thread at a time.
+   */
+  private final Object messageLock = new Object();
+
+  /**
+   * The @{link IntraProcessManager} that delivers messages to subscriptions
+   * in this process, or null if intra-process communication is disabled.
+   */
+  private final IntraProcessManager intraProcessManager;
+
+  /**
+   * The fully qualified topic to which this publisher will publish messages,
+   * null if intra-process communication is disabled.
+   */
+  private final String intraProcessTopicName;
+
+  /**
+   * The last number of subscriptions counted by
+   * {@link #getSubscriptionCount()}.
+   */
+  private volatile int subscriptionCount;
+
+  /**
+   * The graph change count of the node when {@link #subscriptionCount} was
+   * counted, or -1 if the subscriptions have never been counted.
+   */
+  private volatile long subscriptionCountGraphChangeCount = -1;
+
+  /**
+   * The last number of subscriptions outside this process counted by
+   * {@link #publishIntraProcess(MessageDefinition)}.
+   */
+  private volatile int externalSubscriptionCount;
+
+  /**
+   * The graph change count of the node when
+   * {@link #externalSubscriptionCount} was counted, or -1 if the
+   * subscriptions have never been counted.
+   */
+  private volatile long externalSubscriptionCountGraphChangeCount = -1;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this publisher.
+   * @param handle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The class of the messages that this publisher
+   *     will publish, or null if the publisher was created from a type name,
+   *     in which case the converters of each published message are looked up
+   *     when it is published.
+   * @param topic The topic to which this publisher will publish messages.
+   */
+  public PublisherImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic) {
+    this(nodeReference, handle, messageType, topic, null);
+  }
+
   /**
    * Constructor.
    *
@@ -60,13 +176,48 @@ public class PublisherImpl<T extends MessageDefinition> implements Publisher<T>
    *     @{link org.ros2.rcljava.Node} that created this publisher.
    * @param handle A pointer to the underlying ROS2 publisher
    *     structure, as an integer. Must not be zero.
+   * @param messageType The class of the messages that this publisher
+   *     will publish, or null if the publisher was created from a type name.
    * @param topic The topic to which this publisher will publish messages.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver published messages to subscriptions in this process, or null
+   *     to publish every message through the middleware.
    */
-  public PublisherImpl(
-      final WeakReference<Node> nodeReference, final long handle, final String topic) {
+  public PublisherImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic,
+      final IntraProcessManager intraProcessManager) {
     this.nodeReference = nodeReference;
     this.handle = handle;
     this.topic = topic;
+    this.messageType = messageType;
+
+    T message = null;
+    if (messageType != null) {
+      try {
+        message = messageType.newInstance();
+      } catch (InstantiationException ie) {
+        ie.printStackTrace();
+      } catch (IllegalAccessException iae) {
+        iae.printStackTrace();
+      }
+    }
+
+    if (message != null) {
+      this.fromJavaConverterHandle = message.getFromJavaConverterInstance();
+      this.destructorHandle = message.getDestructorInstance();
+      this.loanedMessageSize = message.getLoanedSizeInstance();
+    } else {
+      this.fromJavaConverterHandle = 0;
+      this.destructorHandle = 0;
+      this.loanedMessageSize = 0;
+    }
+
+    this.intraProcessManager = intraProcessManager;
+    if (intraProcessManager != null) {
+      this.intraProcessTopicName = intraProcessManager.addPublisher(handle);
+    } else {
+      this.intraProcessTopicName = null;
+    }
   }
 
   /**
@@ -75,16 +226,320 @@ public class PublisherImpl<T extends MessageDefinition> implements Publisher<T>
    * @param <T> The type of the messages that this publisher will publish.
    * @param handle A pointer to the underlying ROS2 publisher
    *     structure, as an integer. Must not be zero.
+   * @param messageFromJavaConverter A pointer to the function that converts
+   *     the Java message into a C message.
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message if it was allocated by this call and publishing fails.
+   * @param messageHandle A pointer to a C message that will be overwritten
+   *     with the contents of the Java message, or zero to allocate a new one.
    * @param message An instance of the &lt;T&gt; parameter.
+   * @return A pointer to the C message that was published, which can be
+   *     passed again as messageHandle.
    */
-  private static native <T extends MessageDefinition> void nativePublish(
-      long handle, long messageDestructor, T message);
+  private static native <T extends MessageDefinition> long nativePublish(
+      long handle, long messageFromJavaConverter, long messageDestructor, long messageHandle,
+      T message);
+
+  /**
+   * Destroy a C message previously returned by nativePublish.
+   *
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message.
+   * @param messageHandle A pointer to the C message.
+   */
+  private static native void nativeDisposeMessage(long messageDestructor, long messageHandle);
 
   /**
    * {@inheritDoc}
    */
   public final void publish(final T message) {
-    nativePublish(this.handle, message.getDestructorInstance(), message);
+    if (!publishIntraProcess(message)) {
+      return;
+    }
+
+    if (this.fromJavaConverterHandle == 0) {
+      long messageDestructor = message.getDestructorInstance();
+      long messageHandle = nativePublish(this.handle, message.getFromJavaConverterInstance(),
+          messageDestructor, 0, message);
+      nativeDisposeMessage(messageDestructor, messageHandle);
+      return;
+    }
+
+    synchronized (this.messageLock) {
+      this.messageHandle = nativePublish(this.handle, this.fromJavaConverterHandle,
+          this.destructorHandle, this.messageHandle, message);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publish(final Supplier<T> messageSupplier) {
+    if (getSubscriptionCount() == 0) {
+      return;
+    }
+    publish(messageSupplier.get());
+  }
+
+  /**
+   * Count the subscriptions to the topic of a publisher.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure that
+   *     created the publisher, as an integer. Must not be zero.
+   * @param handle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   * @return The number of subscriptions known to the middleware.
+   */
+  private static native int nativeGetSubscriptionCount(long nodeHandle, long handle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final int getSubscriptionCount() {
+    Node node = this.nodeReference.get();
+    if (node == null || this.handle == 0) {
+      return 0;
+    }
+
+    // The graph change count is read first, so that a change that happens while the
+    // subscriptions are counted makes the next call count them again
+    long graphChangeCount = node.getGraphChangeCount();
+    if (graphChangeCount != this.subscriptionCountGraphChangeCount) {
+      this.subscriptionCount = nativeGetSubscriptionCount(node.getHandle(), this.handle);
+      this.subscriptionCountGraphChangeCount = graphChangeCount;
+    }
+    return this.subscriptionCount;
+  }
+
+  /**
+   * Deliver a message to the subscriptions in this process, if intra-process
+   * communication is enabled.
+   *
+   * @param message The message to deliver.
+   * @return true if the message must also be published via the underlying
+   *     ROS2 mechanisms.
+   */
+  private boolean publishIntraProcess(final MessageDefinition message) {
+    if (this.intraProcessManager == null) {
+      return true;
+    }
+
+    this.intraProcessManager.publish(this.intraProcessTopicName, message);
+
+    // Only convert the message if there are subscriptions outside this process, which are
+    // counted again only when the graph changes, as in getSubscriptionCount()
+    Node node = this.nodeReference.get();
+    if (node == null) {
+      return false;
+    }
+    long graphChangeCount = node.getGraphChangeCount();
+    if (graphChangeCount != this.externalSubscriptionCountGraphChangeCount) {
+      this.externalSubscriptionCount = this.intraProcessManager.countExternalSubscriptions(
+          node.getHandle(), this.intraProcessTopicName);
+      this.externalSubscriptionCountGraphChangeCount = graphChangeCount;
+    }
+    return this.externalSubscriptionCount > 0;
+  }
+
+  /**
+   * Publish a sequence of messages via the underlying ROS2 mechanisms, in a
+   * single call.
+   *
+   * @param handles Pointers to the underlying ROS2 publisher structures that
+   *     will publish each message, as integers.
+   * @param messageFromJavaConverters Pointers to the functions that convert
+   *     each Java message into a C message.
+   * @param messageDestructors Pointers to the functions that destroy each
+   *     C message.
+   * @param messages The messages to publish.
+   * @param count The number of messages to publish, from the start of the
+   *     arrays.
+   */
+  private static native void nativePublishBatch(long[] handles,
+      long[] messageFromJavaConverters, long[] messageDestructors,
+      MessageDefinition[] messages, int count);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publish(final List<T> messages) {
+    publishBatch(Collections.<Publisher<?>>nCopies(messages.size(), this), messages);
+  }
+
+  /**
+   * Publish a sequence of messages, each with its own publisher, converting
+   * and publishing all of them with a single call into the native code. The
+   * messages of publishers that use intra-process communication are delivered
+   * to the subscriptions in this process first.
+   *
+   * @param publishers The publisher of each message. Every publisher must
+   *     have been created by a @{link org.ros2.rcljava.node.Node}.
+   * @param messages The messages to publish.
+   */
+  public static void publishBatch(final List<? extends Publisher<?>> publishers,
+      final List<? extends MessageDefinition> messages) {
+    if (publishers.size() != messages.size()) {
+      throw new IllegalArgumentException("Every message must have exactly one publisher");
+    }
+
+    int size = messages.size();
+    long[] handles = new long[size];
+    long[] messageFromJavaConverters = new long[size];
+    long[] messageDestructors = new long[size];
+    MessageDefinition[] nativeMessages = new MessageDefinition[size];
+
+    int count = 0;
+    for (int i = 0; i < size; ++i) {
+      MessageDefinition message = messages.get(i);
+      if (!(publishers.get(i) instanceof PublisherImpl)) {
+        // e.g. an AsyncPublisher, which queues the message instead
+        publishUnchecked(publishers.get(i), message);
+        continue;
+      }
+
+      PublisherImpl<?> publisher = (PublisherImpl<?>) publishers.get(i);
+      if (!publisher.publishIntraProcess(message)) {
+        continue;
+      }
+
+      handles[count] = publisher.handle;
+      if (publisher.fromJavaConverterHandle != 0) {
+        messageFromJavaConverters[count] = publisher.fromJavaConverterHandle;
+        messageDestructors[count] = publisher.destructorHandle;
+      } else {
+        messageFromJavaConverters[count] = message.getFromJavaConverterInstance();
+        messageDestructors[count] = message.getDestructorInstance();
+      }
+      nativeMessages[count] = message;
+      ++count;
+    }
+
+    if (count > 0) {
+      nativePublishBatch(
+          handles, messageFromJavaConverters, messageDestructors, nativeMessages, count);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends MessageDefinition> void publishUnchecked(
+      final Publisher<T> publisher, final MessageDefinition message) {
+    publisher.publish((T) message);
+  }
+
+  /**
+   * Publish an already serialized message via the underlying ROS2 mechanisms.
+   *
+   * @param handle A pointer to the underlying ROS2 publisher
+   *     structure, as an integer. Must not be zero.
+   * @param buffer A direct buffer that holds the serialized message.
+   * @param offset The position in the buffer at which the message starts.
+   * @param length The length of the serialized message, in bytes.
+   */
+  private static native void nativePublishSerialized(
+      long handle, ByteBuffer buffer, int offset, int length);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publishSerialized(final ByteBuffer message) {
+    checkIntraProcessDisabled();
+
+    if (message.isDirect()) {
+      nativePublishSerialized(this.handle, message, message.position(), message.remaining());
+      return;
+    }
+
+    synchronized (this.messageLock) {
+      int length = message.remaining();
+      if (this.serializedBuffer == null || this.serializedBuffer.capacity() < length) {
+        this.serializedBuffer = ByteBuffer.allocateDirect(length);
+      }
+      this.serializedBuffer.clear();
+      this.serializedBuffer.put(message.duplicate());
+      nativePublishSerialized(this.handle, this.serializedBuffer, 0, length);
+    }
+  }
+
+  /**
+   * Write the initial values of a C message that will be loaned to Java.
+   * Only fixed size messages are loaned, whose C messages do not own any
+   * memory, so they can live in a buffer allocated by Java.
+   *
+   * @param messageFromJavaConverter A pointer to the function that converts
+   *     the Java message into a C message.
+   * @param message An instance of the &lt;T&gt; parameter with the initial
+   *     values of the C message.
+   * @param buffer A direct buffer of the size of the C message.
+   */
+  private static native <T extends MessageDefinition> void nativeInitLoanedMessage(
+      long messageFromJavaConverter, T message, ByteBuffer buffer);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final ByteBuffer borrowLoanedMessage() {
+    checkIntraProcessDisabled();
+
+    if (this.loanedMessageSize == 0) {
+      throw new UnsupportedOperationException(
+          "Messages published on " + this.topic + " do not have a fixed size");
+    }
+
+    synchronized (this.messageLock) {
+      if (this.handle == 0) {
+        throw new IllegalStateException("Publisher on " + this.topic + " has been disposed");
+      }
+      if (this.loanedMessageBorrowed) {
+        throw new IllegalStateException(
+            "The message of the publisher on " + this.topic + " is already borrowed");
+      }
+      if (this.loanedMessage == null) {
+        T message = null;
+        try {
+          message = this.messageType.newInstance();
+        } catch (InstantiationException ie) {
+          throw new IllegalStateException(ie);
+        } catch (IllegalAccessException iae) {
+          throw new IllegalStateException(iae);
+        }
+        // The buffer is owned by Java, so writing to it after the publisher is disposed
+        // cannot corrupt native memory
+        ByteBuffer buffer = ByteBuffer.allocateDirect(this.loanedMessageSize);
+        buffer.order(ByteOrder.nativeOrder());
+        nativeInitLoanedMessage(this.fromJavaConverterHandle, message, buffer);
+        this.loanedMessage = buffer;
+      }
+      this.loanedMessageBorrowed = true;
+      return this.loanedMessage;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publishLoaned(final ByteBuffer message) {
+    synchronized (this.messageLock) {
+      if (this.handle == 0) {
+        throw new IllegalStateException("Publisher on " + this.topic + " has been disposed");
+      }
+      if (message == null || message != this.loanedMessage || !this.loanedMessageBorrowed) {
+        throw new IllegalArgumentException("Message was not borrowed from this publisher");
+      }
+      this.loanedMessageBorrowed = false;
+      RCLJava.getNativeBackend().publish(this.handle, message);
+    }
+  }
+
+  /**
+   * Messages that are not published through @{link #publish(MessageDefinition)}
+   * bypass the @{link IntraProcessManager}, and would be ignored by the
+   * intra-process subscriptions.
+   */
+  private void checkIntraProcessDisabled() {
+    if (this.intraProcessManager != null) {
+      throw new UnsupportedOperationException(
+          "Publisher on " + this.topic + " uses intra-process communication");
+    }
   }
 
   /**
@@ -115,10 +570,20 @@ public class PublisherImpl<T extends MessageDefinition> implements Publisher<T>
    * {@inheritDoc}
    */
   public final void dispose() {
-    Node node = this.nodeReference.get();
-    if (node != null) {
-      nativeDispose(node.getHandle(), this.handle);
-      this.handle = 0;
+    if (this.intraProcessManager != null && this.handle != 0) {
+      this.intraProcessManager.removePublisher(this.handle);
+    }
+    synchronized (this.messageLock) {
+      Node node = this.nodeReference.get();
+      if (node != null) {
+        nativeDispose(node.getHandle(), this.handle);
+        this.handle = 0;
+      }
+      nativeDisposeMessage(this.destructorHandle, this.messageHandle);
+      this.messageHandle = 0;
+      // An outstanding loan can no longer be published
+      this.loanedMessage = null;
+      this.loanedMessageBorrowed = false;
     }
   }
 }
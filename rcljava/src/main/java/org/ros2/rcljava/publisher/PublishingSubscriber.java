@@ -0,0 +1,189 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.publisher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.ros2.rcljava.concurrent.Flow;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A @{link Flow.Subscriber} that publishes every message it receives with a
+ * @{link Publisher}, so that the output of a reactive pipeline can be
+ * published to a topic.
+ * It never requests more than prefetch messages ahead of the ones it has
+ * published, and requests more after publishing half of them, so a fast
+ * upstream is slowed down to the rate at which messages are published
+ * instead of being buffered.
+ * If publishing fails, the upstream subscription is cancelled.
+ *
+ * @param <T> The type of the messages that this subscriber will publish.
+ */
+public class PublishingSubscriber<T extends MessageDefinition> implements Flow.Subscriber<T> {
+  private static final Logger logger = LoggerFactory.getLogger(PublishingSubscriber.class);
+
+  private final Publisher<T> publisher;
+
+  /**
+   * The maximum number of messages requested and not published yet.
+   */
+  private final long prefetch;
+
+  /**
+   * The number of published messages after which more are requested.
+   */
+  private final long replenishThreshold;
+
+  private Flow.Subscription subscription;
+
+  /**
+   * The number of messages published since more were last requested.
+   */
+  private long publishedSinceRequest;
+
+  private volatile long publishedCount;
+
+  private volatile boolean done;
+
+  private volatile Throwable error;
+
+  /**
+   * Constructor.
+   *
+   * @param publisher The publisher that will publish the received messages.
+   *     It is not disposed along with this subscriber.
+   * @param prefetch The maximum number of messages requested and not
+   *     published yet.
+   */
+  public PublishingSubscriber(final Publisher<T> publisher, final long prefetch) {
+    if (prefetch < 1) {
+      throw new IllegalArgumentException("The prefetch must be at least one message");
+    }
+
+    this.publisher = publisher;
+    this.prefetch = prefetch;
+    this.replenishThreshold = Math.max(1, prefetch / 2);
+  }
+
+  /**
+   * Constructor that requests one message at a time.
+   *
+   * @param publisher The publisher that will publish the received messages.
+   */
+  public PublishingSubscriber(final Publisher<T> publisher) {
+    this(publisher, 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void onSubscribe(final Flow.Subscription subscription) {
+    if (subscription == null) {
+      throw new NullPointerException("subscription must not be null");
+    }
+    synchronized (this) {
+      if (this.subscription != null || this.done) {
+        // A subscriber must not be subscribed to more than one publisher
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+    }
+    subscription.request(this.prefetch);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void onNext(final T message) {
+    if (message == null) {
+      throw new NullPointerException("message must not be null");
+    }
+    if (this.done) {
+      return;
+    }
+
+    try {
+      this.publisher.publish(message);
+    } catch (RuntimeException re) {
+      logger.error("Failed to publish a message, cancelling the subscription", re);
+      this.error = re;
+      this.done = true;
+      this.subscription.cancel();
+      return;
+    }
+    this.publishedCount++;
+
+    if (++this.publishedSinceRequest == this.replenishThreshold) {
+      this.publishedSinceRequest = 0;
+      this.subscription.request(this.replenishThreshold);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void onError(final Throwable throwable) {
+    if (throwable == null) {
+      throw new NullPointerException("throwable must not be null");
+    }
+    this.error = throwable;
+    this.done = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void onComplete() {
+    this.done = true;
+  }
+
+  /**
+   * Stop receiving messages, the ones received meanwhile are not published.
+   */
+  public final void cancel() {
+    Flow.Subscription subscription = null;
+    synchronized (this) {
+      this.done = true;
+      subscription = this.subscription;
+    }
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  /**
+   * @return The number of messages published so far.
+   */
+  public final long getPublishedCount() {
+    return this.publishedCount;
+  }
+
+  /**
+   * @return true if the upstream has completed or failed, if publishing
+   *     has failed, or if this subscriber has been cancelled.
+   */
+  public final boolean isDone() {
+    return this.done;
+  }
+
+  /**
+   * @return The error that terminated this subscriber, or null if none.
+   */
+  public final Throwable getError() {
+    return this.error;
+  }
+}
@@ -0,0 +1,41 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that delivers the messages it receives in batches. Every
+ * time it is executed, it takes all the queued messages, up to the size of a
+ * batch, in a single native call, so that high rate topics do not pay for a
+ * take and a callback per message.
+ * A BatchSubscription must be created via
+ * @{link Node#createBatchSubscription(Class, String, Consumer, int, long, TimeUnit)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface BatchSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * @return The maximum number of messages delivered at once.
+   */
+  int getMaxBatchSize();
+
+  /**
+   * @return The maximum time, in nanoseconds, that a message waits for its
+   *     batch to be full before being delivered, or 0 if the messages taken
+   *     are delivered right away.
+   */
+  long getMaxDelayNS();
+}
@@ -0,0 +1,225 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.timer.WallTimer;
+
+/**
+ * {@inheritDoc}
+ */
+public class BatchSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T>
+    implements BatchSubscription<T> {
+  private final Consumer<List<T>> batchCallback;
+
+  private final int maxBatchSize;
+
+  private final long maxDelayNS;
+
+  private final MessageDefinition[] takenMessages;
+
+  private List<T> pendingMessages;
+
+  /**
+   * The timer that delivers the current batch once its maximum delay has
+   * expired. It only runs while a batch is pending.
+   */
+  private WallTimer flushTimer;
+
+  /**
+   * When the current batch must be delivered, as returned by
+   * @{link System#nanoTime()}, counted from its first message.
+   */
+  private long batchDeadlineNS;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param batchCallback The callback function that will be triggered when a
+   *     batch of messages is delivered. Messages published in this process
+   *     are received through the middleware too, so that they are batched
+   *     with the others.
+   * @param maxBatchSize The maximum number of messages delivered at once.
+   * @param maxDelayNS The maximum time, in nanoseconds, that a message waits
+   *     for its batch to be full, or 0 to deliver the messages taken right
+   *     away.
+   */
+  public BatchSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic, final Consumer<List<T>> batchCallback,
+      final int maxBatchSize, final long maxDelayNS) {
+    super(nodeReference, handle, messageType, topic, null);
+    this.batchCallback = batchCallback;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNS = maxDelayNS;
+    this.takenMessages = new MessageDefinition[maxBatchSize];
+    this.pendingMessages = new ArrayList<T>(maxBatchSize);
+  }
+
+  /**
+   * Set the timer that delivers the incomplete batches on time, which is
+   *     disposed along with this subscription.
+   *
+   * @param flushTimer A timer whose callback calls {@link #flushExpired()}.
+   *     Its period is changed to time each batch from its first message.
+   */
+  public final synchronized void setFlushTimer(final WallTimer flushTimer) {
+    this.flushTimer = flushTimer;
+    if (this.pendingMessages.isEmpty()) {
+      flushTimer.cancel();
+    } else {
+      this.startFlushTimer();
+    }
+  }
+
+  /**
+   * Start counting the maximum delay of the current batch, which has just
+   *     received its first message and is not complete yet.
+   */
+  private void startFlushTimer() {
+    this.batchDeadlineNS = System.nanoTime() + this.maxDelayNS;
+    if (this.flushTimer != null) {
+      this.flushTimer.setTimerPeriodNS(this.maxDelayNS);
+      this.flushTimer.reset();
+    }
+  }
+
+  /**
+   * Take as many messages as there is room left in the current batch, all
+   *     converted from the C message owned by this subscription, and deliver
+   *     the batch if it is full or if messages are not delayed.
+   */
+  public final synchronized void execute() {
+    if (this.getHandle() == 0) {
+      return;
+    }
+    int count = nativeTakeBatch(this.getHandle(), this.getMessageHandle(),
+        this.getToJavaConverterHandle(), this.takenMessages,
+        this.maxBatchSize - this.pendingMessages.size());
+    boolean started = this.pendingMessages.isEmpty();
+    for (int i = 0; i < count; ++i) {
+      this.pendingMessages.add(this.getMessageType().cast(this.takenMessages[i]));
+    }
+    Arrays.fill(this.takenMessages, 0, count, null);
+    this.flushIfComplete();
+    if (started && !this.pendingMessages.isEmpty()) {
+      this.startFlushTimer();
+    }
+  }
+
+  private void flushIfComplete() {
+    if (this.maxDelayNS == 0 || this.pendingMessages.size() >= this.maxBatchSize) {
+      this.flush();
+    }
+  }
+
+  /**
+   * Deliver the current batch if its maximum delay has expired. The timer
+   *     is canceled while no batch is pending, and only canceled from its own
+   *     callback, so that executors never call a timer canceled after it was
+   *     reported as ready.
+   */
+  public final synchronized void flushExpired() {
+    if (this.getHandle() == 0) {
+      return;
+    }
+    if (!this.pendingMessages.isEmpty()) {
+      long remainingNS = this.batchDeadlineNS - System.nanoTime();
+      if (remainingNS > 0) {
+        // The batch started after the timer was last reset, wait for the rest of its delay
+        this.flushTimer.setTimerPeriodNS(remainingNS);
+        return;
+      }
+      this.flush();
+    }
+    this.flushTimer.cancel();
+  }
+
+  /**
+   * Deliver the current batch, if it holds any message.
+   */
+  public final synchronized void flush() {
+    if (this.getHandle() == 0) {
+      return;
+    }
+    if (!this.pendingMessages.isEmpty()) {
+      List<T> batch = this.pendingMessages;
+      this.pendingMessages = new ArrayList<T>(this.maxBatchSize);
+      this.batchCallback.accept(batch);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final int getMaxBatchSize() {
+    return this.maxBatchSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getMaxDelayNS() {
+    return this.maxDelayNS;
+  }
+
+  /**
+   * Add a single message to the current batch.
+   *
+   * @param message The message to add.
+   */
+  public final synchronized void executeCallback(final T message) {
+    boolean started = this.pendingMessages.isEmpty();
+    this.pendingMessages.add(message);
+    this.flushIfComplete();
+    if (started && !this.pendingMessages.isEmpty()) {
+      this.startFlushTimer();
+    }
+  }
+
+  /**
+   * Dispose the subscription along with its flush timer, which is removed
+   *     from the timers of the node. The messages of an incomplete batch are
+   *     not delivered.
+   */
+  public final synchronized void dispose() {
+    super.dispose();
+    if (this.flushTimer != null) {
+      Node node = this.getNodeReference().get();
+      if (node != null) {
+        node.getTimers().remove(this.flushTimer);
+      }
+      if (this.flushTimer.getHandle() != 0) {
+        this.flushTimer.cancel();
+        this.flushTimer.dispose();
+      }
+      this.flushTimer = null;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that is waited on and executed by executors. Each kind of
+ * subscription takes and delivers its messages in its own way.
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface ExecutableSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * Take the messages that are ready and deliver them to the callback.
+   * Called by an executor once a wait reported the subscription as ready.
+   */
+  void execute();
+}
@@ -0,0 +1,101 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.util.Arrays;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * Resolves the dotted paths of scalar fields into their offsets in the C
+ * structure of a message, so that native code can read them without
+ * converting the message to Java.
+ */
+final class FieldOffsets {
+  /**
+   * The types of the fields that can be resolved, indexed by the codes known
+   * to BaseExecutor.cpp.
+   */
+  static final String[] FIELD_TYPES = new String[] {
+    null, "bool", "byte", "char", "int8", "uint8", "int16", "uint16", "int32", "uint32",
+    "int64", "uint64", "float32", "float64"
+  };
+
+  private FieldOffsets() {
+  }
+
+  /**
+   * Resolve a dotted path into [offset, type] of a numeric or boolean field of
+   * the C message, where type is an index in FIELD_TYPES.
+   *
+   * @param messageDefinition A message of the type that holds the field.
+   * @param fieldPath The dotted path of the field.
+   * @throws IllegalArgumentException if fieldPath does not name a numeric or
+   *     boolean field.
+   */
+  static long[] resolve(final MessageDefinition messageDefinition, final String fieldPath)
+      throws InstantiationException, IllegalAccessException {
+    String[] fieldNames = fieldPath.split("\\.", -1);
+    MessageDefinition fieldDefinition = messageDefinition;
+    long offset = 0;
+    for (int i = 0; i < fieldNames.length; ++i) {
+      int index = Arrays.asList(fieldDefinition.getFieldNamesInstance()).indexOf(fieldNames[i]);
+      if (index < 0) {
+        throw new IllegalArgumentException("Unknown field '" + fieldNames[i] + "' in '"
+            + fieldPath + "' for " + fieldDefinition.getClass().getName());
+      }
+      offset += fieldDefinition.getLayoutInstance()[index + 1];
+
+      String fieldType = fieldDefinition.getFieldTypesInstance()[index];
+      boolean last = i == fieldNames.length - 1;
+      if (last) {
+        int type = Arrays.asList(FIELD_TYPES).indexOf(fieldType);
+        if (type < 0) {
+          throw new IllegalArgumentException("Field '" + fieldPath + "' of type " + fieldType
+              + " cannot be read natively, only numeric and boolean fields can");
+        }
+        return new long[] {offset, type};
+      }
+
+      Class<? extends MessageDefinition> fieldMessageType =
+          fieldDefinition.getFieldMessageTypeInstance(index);
+      if (fieldMessageType == null || fieldType.endsWith("]")) {
+        throw new IllegalArgumentException("Field '" + fieldNames[i] + "' in '" + fieldPath
+            + "' is not a message");
+      }
+      fieldDefinition = fieldMessageType.newInstance();
+    }
+    throw new IllegalArgumentException("Empty field path");
+  }
+
+  /**
+   * Resolve the dotted path of a builtin_interfaces/Time field into the
+   * offsets of its seconds and nanoseconds.
+   *
+   * @param messageDefinition A message of the type that holds the field.
+   * @param stampPath The dotted path of the field.
+   * @throws IllegalArgumentException if stampPath does not name a time field.
+   */
+  static long[] resolveStamp(final MessageDefinition messageDefinition, final String stampPath)
+      throws InstantiationException, IllegalAccessException {
+    long[] seconds = resolve(messageDefinition, stampPath + ".sec");
+    long[] nanoseconds = resolve(messageDefinition, stampPath + ".nanosec");
+    if (!"int32".equals(FIELD_TYPES[(int) seconds[1]])
+        || !"uint32".equals(FIELD_TYPES[(int) nanoseconds[1]])) {
+      throw new IllegalArgumentException("Field '" + stampPath + "' is not a time stamp");
+    }
+    return new long[] {seconds[0], nanoseconds[0]};
+  }
+}
@@ -0,0 +1,295 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * The set of fields of a message type that a subscription converts into Java.
+ * Fields are selected by their path, e.g. "header.stamp" or "pose", and every
+ * field that is not selected keeps its default value in the received messages.
+ * Selecting a field of an array of messages selects it in every element.
+ *
+ * A projection can also convert sequences of messages that only have
+ * primitive fields into one array per field of those messages, instead of a
+ * message object per element, see the Columns accessors of the generated
+ * messages. Such a projection only applies to the subscription it is given
+ * to, other subscriptions of the same message type are not affected.
+ *
+ * The paths are resolved once, into the layout read by the generated
+ * converters, so that the cost of receiving a message only depends on the
+ * selected fields.
+ */
+public final class FieldProjection {
+  /**
+   * The number of fields of a message that can be selected individually. The
+   * remaining fields can only be converted as part of their whole message.
+   */
+  public static final int MAX_PROJECTED_FIELDS = 63;
+
+  /**
+   * A mask that selects every field of a message and of the messages nested
+   * in it.
+   */
+  private static final long ALL_FIELDS = -1L;
+
+  private static final class ProjectionNode {
+    private final MessageDefinition messageDefinition;
+
+    private boolean allFields;
+
+    private long mask;
+
+    private long columnarMask;
+
+    private final Map<Integer, ProjectionNode> children = new TreeMap<Integer, ProjectionNode>();
+
+    private ProjectionNode(final MessageDefinition messageDefinition) {
+      this.messageDefinition = messageDefinition;
+    }
+  }
+
+  private final Class<? extends MessageDefinition> messageType;
+
+  private final List<String> fieldPaths;
+
+  private final List<String> columnarFieldPaths;
+
+  private final long converterHandle;
+
+  private final long[] layout;
+
+  /**
+   * Constructor.
+   *
+   * @param messageType The class of the messages to project.
+   * @param fieldPaths The dotted paths of the fields to convert.
+   * @throws IllegalArgumentException if no paths are given or a path does not
+   *     name a field of messageType.
+   */
+  public FieldProjection(final Class<? extends MessageDefinition> messageType,
+      final List<String> fieldPaths) throws InstantiationException, IllegalAccessException {
+    this(messageType, fieldPaths, Collections.<String>emptyList());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param messageType The class of the messages to project.
+   * @param fieldPaths The dotted paths of the fields to convert, or an empty
+   *     list to convert every field.
+   * @param columnarFieldPaths The dotted paths of the sequence fields to
+   *     convert into one array per field of their messages. A sequence can be
+   *     a field of a message selected as a whole, but not be nested deeper in
+   *     it, e.g. only top-level sequences if fieldPaths is empty.
+   * @throws IllegalArgumentException if no paths are given, a path does not
+   *     name a field of messageType or a columnar path does not name a
+   *     sequence of messages with only primitive fields.
+   */
+  public FieldProjection(final Class<? extends MessageDefinition> messageType,
+      final List<String> fieldPaths, final List<String> columnarFieldPaths)
+      throws InstantiationException, IllegalAccessException {
+    if (fieldPaths.isEmpty() && columnarFieldPaths.isEmpty()) {
+      throw new IllegalArgumentException("A field projection needs at least one field path");
+    }
+
+    MessageDefinition messageDefinition = messageType.newInstance();
+    ProjectionNode root = new ProjectionNode(messageDefinition);
+    root.allFields = fieldPaths.isEmpty();
+    for (String fieldPath : fieldPaths) {
+      addFieldPath(root, fieldPath);
+    }
+    for (String columnarFieldPath : columnarFieldPaths) {
+      addColumnarFieldPath(root, columnarFieldPath);
+    }
+
+    List<Long> encoded = new ArrayList<Long>();
+    encode(root, encoded);
+    this.layout = new long[encoded.size()];
+    for (int i = 0; i < this.layout.length; ++i) {
+      this.layout[i] = encoded.get(i);
+    }
+
+    this.messageType = messageType;
+    this.fieldPaths = Collections.unmodifiableList(new ArrayList<String>(fieldPaths));
+    this.columnarFieldPaths =
+        Collections.unmodifiableList(new ArrayList<String>(columnarFieldPaths));
+    this.converterHandle = messageDefinition.getToJavaProjectedConverterInstance();
+  }
+
+  private static int getFieldIndex(final ProjectionNode node, final String fieldName,
+      final String fieldPath) {
+    MessageDefinition messageDefinition = node.messageDefinition;
+    int index = Arrays.asList(messageDefinition.getFieldNamesInstance()).indexOf(fieldName);
+    if (index < 0) {
+      throw new IllegalArgumentException("Unknown field '" + fieldName + "' in '"
+          + fieldPath + "' for " + messageDefinition.getClass().getName());
+    }
+    if (index >= MAX_PROJECTED_FIELDS) {
+      throw new IllegalArgumentException("Field '" + fieldName + "' in '" + fieldPath
+          + "' cannot be projected, only the first " + MAX_PROJECTED_FIELDS
+          + " fields of a message can be selected individually");
+    }
+    return index;
+  }
+
+  private static void addFieldPath(final ProjectionNode root, final String fieldPath)
+      throws InstantiationException, IllegalAccessException {
+    String[] fieldNames = fieldPath.split("\\.", -1);
+    ProjectionNode node = root;
+    for (int i = 0; i < fieldNames.length; ++i) {
+      if (node.allFields) {
+        // An enclosing message has already been selected as a whole
+        return;
+      }
+
+      MessageDefinition messageDefinition = node.messageDefinition;
+      int index = getFieldIndex(node, fieldNames[i], fieldPath);
+      node.mask |= 1L << index;
+
+      boolean last = i == fieldNames.length - 1;
+      Class<? extends MessageDefinition> fieldType =
+          messageDefinition.getFieldMessageTypeInstance(index);
+      if (fieldType == null) {
+        if (!last) {
+          throw new IllegalArgumentException("Field '" + fieldNames[i] + "' in '" + fieldPath
+              + "' is not a message");
+        }
+        return;
+      }
+
+      ProjectionNode child = node.children.get(index);
+      if (child == null) {
+        child = new ProjectionNode(fieldType.newInstance());
+        node.children.put(index, child);
+      }
+      if (last) {
+        child.allFields = true;
+      }
+      node = child;
+    }
+  }
+
+  private static void addColumnarFieldPath(final ProjectionNode root,
+      final String columnarFieldPath) throws InstantiationException, IllegalAccessException {
+    String[] fieldNames = columnarFieldPath.split("\\.", -1);
+    ProjectionNode node = root;
+    for (int i = 0; i < fieldNames.length; ++i) {
+      MessageDefinition messageDefinition = node.messageDefinition;
+      int index = getFieldIndex(node, fieldNames[i], columnarFieldPath);
+      Class<? extends MessageDefinition> fieldType =
+          messageDefinition.getFieldMessageTypeInstance(index);
+
+      if (i == fieldNames.length - 1) {
+        if (!messageDefinition.isColumnarFieldInstance(index)) {
+          throw new IllegalArgumentException("Field '" + fieldNames[i] + "' in '"
+              + columnarFieldPath + "' is not a sequence of messages with only primitive fields");
+        }
+        node.columnarMask |= 1L << index;
+        if (!node.allFields && node.children.get(index) == null) {
+          // The sequence is converted as a whole, its child node is only kept for the layout
+          ProjectionNode child = new ProjectionNode(fieldType.newInstance());
+          child.allFields = true;
+          node.mask |= 1L << index;
+          node.children.put(index, child);
+        }
+        return;
+      }
+
+      if (node.allFields) {
+        throw new IllegalArgumentException("Field '" + fieldNames[i] + "' in '"
+            + columnarFieldPath + "' is part of a message selected as a whole, whose nested "
+            + "sequences cannot be converted into columns");
+      }
+      if (fieldType == null) {
+        throw new IllegalArgumentException("Field '" + fieldNames[i] + "' in '"
+            + columnarFieldPath + "' is not a message");
+      }
+
+      node.mask |= 1L << index;
+      ProjectionNode child = node.children.get(index);
+      if (child == null) {
+        child = new ProjectionNode(fieldType.newInstance());
+        node.children.put(index, child);
+      }
+      node = child;
+    }
+  }
+
+  /**
+   * Append a node as [length, mask, columnar mask, children...], where length
+   * is the number of elements of the node, including its children, and
+   * children holds one node for each selected message field, in field order.
+   */
+  private static void encode(final ProjectionNode node, final List<Long> encoded) {
+    int start = encoded.size();
+    encoded.add(0L);
+    if (node.allFields) {
+      encoded.add(ALL_FIELDS);
+      encoded.add(node.columnarMask);
+    } else {
+      encoded.add(node.mask);
+      encoded.add(node.columnarMask);
+      for (ProjectionNode child : node.children.values()) {
+        encode(child, encoded);
+      }
+    }
+    encoded.set(start, (long) (encoded.size() - start));
+  }
+
+  /**
+   * @return The class of the messages that this projection applies to.
+   */
+  public Class<? extends MessageDefinition> getMessageType() {
+    return this.messageType;
+  }
+
+  /**
+   * @return The dotted paths of the selected fields.
+   */
+  public List<String> getFieldPaths() {
+    return this.fieldPaths;
+  }
+
+  /**
+   * @return The dotted paths of the sequence fields converted into columns.
+   */
+  public List<String> getColumnarFieldPaths() {
+    return this.columnarFieldPaths;
+  }
+
+  /**
+   * @return A pointer to the generated converter that only copies the selected
+   *     fields, as an integer.
+   */
+  public long getConverterHandle() {
+    return this.converterHandle;
+  }
+
+  /**
+   * @return The selected fields, as laid out for the generated converters.
+   */
+  public long[] getLayout() {
+    return this.layout;
+  }
+}
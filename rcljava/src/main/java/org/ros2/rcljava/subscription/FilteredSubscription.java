@@ -0,0 +1,45 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that only receives the messages accepted by a
+ * {@link MessageFilter}. The filter is evaluated in native code on every
+ * message taken from the middleware, so that rejected messages are never
+ * converted to Java.
+ * A FilteredSubscription must be created via
+ * @{link Node#createFilteredSubscription(Class&lt;T&gt;, String, MessageFilter, Consumer&lt;T&gt;)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface FilteredSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * @return The filter applied to the messages of this subscription, which
+   *     also holds its statistics.
+   */
+  MessageFilter getMessageFilter();
+
+  /**
+   * @return The number of messages delivered to the callback.
+   */
+  long getAcceptedMessageCount();
+
+  /**
+   * @return The number of messages discarded by the filter.
+   */
+  long getRejectedMessageCount();
+}
@@ -0,0 +1,97 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.qos.QoSProfile;
+
+/**
+ * {@inheritDoc}
+ */
+public class FilteredSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T>
+    implements FilteredSubscription<T> {
+  private final MessageFilter messageFilter;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param messageFilter The filter that decides which messages are delivered,
+   *     which must apply to messageType.
+   *     Messages published in this process are received through the
+   *     middleware too, so that every message goes through the filter.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   * @param qosProfile The QoS profile of the subscription.
+   * @throws IllegalStateException if the filter is used by another
+   *     subscription.
+   */
+  public FilteredSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic, final MessageFilter messageFilter,
+      final Consumer<T> callback, final QoSProfile qosProfile) {
+    super(nodeReference, handle, messageType, topic, callback, null, qosProfile);
+    messageFilter.attach();
+    this.messageFilter = messageFilter;
+  }
+
+  /**
+   * Take the next message and run the filter on the C message, so that the
+   * rejected messages are never converted to Java.
+   */
+  protected final synchronized T takeMessage() {
+    if (this.getHandle() == 0) {
+      return null;
+    }
+    if (!RCLJava.getNativeBackend().take(this.getHandle(), this.getMessageHandle(), null)) {
+      return null;
+    }
+    if (!nativeAccept(this.getMessageHandle(), this.messageFilter.getProgram())) {
+      return null;
+    }
+    return this.convert(this.getMessageHandle());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final MessageFilter getMessageFilter() {
+    return this.messageFilter;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getAcceptedMessageCount() {
+    return this.messageFilter.getAcceptedCount();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getRejectedMessageCount() {
+    return this.messageFilter.getRejectedCount();
+  }
+}
@@ -0,0 +1,38 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.concurrent.Flow;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that publishes its messages to a single
+ * @{link Flow.Subscriber} at a time. Executors only take as many messages
+ * from the middleware as the subscriber has requested, the rest stay in the
+ * middleware queue, bounded by the depth of the QoS profile.
+ * The subscriber completes when the subscription is disposed.
+ * A FlowSubscription must be created via
+ * @{link Node#createFlowSubscription(Class&lt;T&gt;, String)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface FlowSubscription<T extends MessageDefinition>
+    extends Subscription<T>, Flow.Publisher<T> {
+  /**
+   * @return The number of messages requested by the current subscriber and
+   *     not delivered yet, or zero if there is no subscriber.
+   */
+  long getDemand();
+}
@@ -0,0 +1,198 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import org.ros2.rcljava.concurrent.Flow;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.GuardCondition;
+import org.ros2.rcljava.node.Node;
+
+/**
+ * {@inheritDoc}
+ */
+public class FlowSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T>
+    implements FlowSubscription<T> {
+  private final class DemandSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super T> subscriber;
+
+    private DemandSubscription(final Flow.Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    public void request(final long n) {
+      if (n <= 0) {
+        this.cancel();
+        this.subscriber.onError(
+            new IllegalArgumentException("The number of requested messages must be positive"));
+        return;
+      }
+      FlowSubscriptionImpl.this.request(this, n);
+    }
+
+    public void cancel() {
+      FlowSubscriptionImpl.this.cancel(this);
+    }
+  }
+
+  private static final Flow.Subscription EMPTY_SUBSCRIPTION = new Flow.Subscription() {
+    public void request(final long n) {
+    }
+
+    public void cancel() {
+    }
+  };
+
+  /**
+   * Triggered when the demand stops being zero, to wake up the executors
+   * that are waiting without this subscription.
+   */
+  private final GuardCondition demandGuardCondition;
+
+  private DemandSubscription subscription;
+
+  private long demand;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   */
+  public FlowSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic) {
+    super(nodeReference, handle, messageType, topic, null);
+    this.demandGuardCondition = new GuardCondition();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void subscribe(final Flow.Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber must not be null");
+    }
+    String error = null;
+    DemandSubscription demandSubscription = null;
+    synchronized (this) {
+      if (this.getHandle() == 0) {
+        error = "The subscription has been disposed";
+      } else if (this.subscription != null) {
+        error = "The subscription already has a subscriber";
+      } else {
+        demandSubscription = new DemandSubscription(subscriber);
+        this.subscription = demandSubscription;
+        this.demand = 0;
+      }
+    }
+    if (demandSubscription == null) {
+      subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
+      subscriber.onError(new IllegalStateException(error));
+      return;
+    }
+    subscriber.onSubscribe(demandSubscription);
+  }
+
+  private void request(final DemandSubscription demandSubscription, final long n) {
+    boolean wasIdle = false;
+    synchronized (this) {
+      if (this.subscription != demandSubscription) {
+        return;
+      }
+      wasIdle = this.demand == 0;
+      // Saturates at Long.MAX_VALUE, which means an unbounded demand
+      this.demand = this.demand > Long.MAX_VALUE - n ? Long.MAX_VALUE : this.demand + n;
+    }
+    if (wasIdle) {
+      this.demandGuardCondition.trigger();
+    }
+  }
+
+  private synchronized void cancel(final DemandSubscription demandSubscription) {
+    if (this.subscription == demandSubscription) {
+      this.subscription = null;
+      this.demand = 0;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized long getDemand() {
+    return this.demand;
+  }
+
+  /**
+   * @return true if the executors should take a message for the current
+   *     subscriber.
+   */
+  public final synchronized boolean hasDemand() {
+    return this.subscription != null && this.demand > 0;
+  }
+
+  /**
+   * @return A pointer to the guard condition triggered when the demand
+   *     stops being zero, as an integer, or zero if the subscription has been
+   *     disposed.
+   */
+  public final long getDemandGuardConditionHandle() {
+    return this.demandGuardCondition.getHandle();
+  }
+
+  /**
+   * Deliver a message to the current subscriber, if it still has demand.
+   * Otherwise, e.g. because it has been cancelled meanwhile, the message is
+   * dropped.
+   */
+  public final void executeCallback(final T message) {
+    Flow.Subscriber<? super T> subscriber = null;
+    synchronized (this) {
+      if (this.subscription == null || this.demand == 0) {
+        return;
+      }
+      if (this.demand != Long.MAX_VALUE) {
+        this.demand--;
+      }
+      subscriber = this.subscription.subscriber;
+    }
+    subscriber.onNext(message);
+  }
+
+  /**
+   * Destroy the underlying ROS2 subscription and complete the current
+   * subscriber.
+   */
+  public final void dispose() {
+    Flow.Subscriber<? super T> subscriber = null;
+    synchronized (this) {
+      if (this.subscription != null) {
+        subscriber = this.subscription.subscriber;
+        this.subscription = null;
+        this.demand = 0;
+      }
+      super.dispose();
+    }
+    this.demandGuardCondition.dispose();
+    if (subscriber != null) {
+      subscriber.onComplete();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that only receives the newest of the messages queued since
+ * it was last executed. The older messages are taken and discarded in native
+ * code, without being converted to Java, so that a callback that is slower
+ * than the rate of the topic only pays for the messages it sees.
+ * A KeepLatestSubscription must be created via
+ * @{link Node#createKeepLatestSubscription(Class&lt;T&gt;, String, Consumer&lt;T&gt;)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface KeepLatestSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * @return The number of messages received through the middleware that were
+   *     discarded because a newer message was queued.
+   */
+  long getSkippedMessageCount();
+}
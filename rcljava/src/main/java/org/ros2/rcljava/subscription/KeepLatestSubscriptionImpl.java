@@ -0,0 +1,104 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.qos.QoSProfile;
+
+/**
+ * {@inheritDoc}
+ */
+public class KeepLatestSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T>
+    implements KeepLatestSubscription<T> {
+  private final AtomicLong skippedMessageCount = new AtomicLong();
+
+  /**
+   * A pointer to a second C message, into which newer messages are taken
+   * while draining the queue.
+   */
+  private long spareMessageHandle;
+
+  private final long[] skippedCount = new long[1];
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver messages published in this process, or null to receive every
+   *     message through the middleware. Only the newest message published in
+   *     this process is kept.
+   * @param qosProfile The QoS profile of the subscription.
+   */
+  public KeepLatestSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final IntraProcessManager intraProcessManager, final QoSProfile qosProfile) {
+    super(nodeReference, handle, messageType, topic, callback, intraProcessManager,
+        new QoSProfile(qosProfile.getHistory(), 1, qosProfile.getReliability(),
+            qosProfile.getDurability(), qosProfile.getAvoidROSNamespaceConventions()));
+    this.spareMessageHandle = this.createMessage();
+  }
+
+  /**
+   * Take the newest queued message and discard the older ones, which are
+   * never converted to Java.
+   */
+  protected final synchronized T takeMessage() {
+    if (this.getHandle() == 0) {
+      return null;
+    }
+    long newestMessageHandle = nativeTakeLatest(this.getHandle(), this.getMessageHandle(),
+        this.spareMessageHandle, this.getIntraProcessPublisherGids(), this.skippedCount);
+    this.skippedMessageCount.addAndGet(this.skippedCount[0]);
+    if (newestMessageHandle == 0) {
+      return null;
+    }
+    return this.convert(newestMessageHandle);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getSkippedMessageCount() {
+    return this.skippedMessageCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized void dispose() {
+    super.dispose();
+    if (this.spareMessageHandle != 0) {
+      this.destroyMessage(this.spareMessageHandle);
+      this.spareMessageHandle = 0;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.nio.ByteBuffer;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that takes messages of a fixed size type into a C message
+ * it owns and hands it to its callback without converting it to Java.
+ * A LoanedSubscription must be created via
+ * @{link Node#createLoanedSubscription(Class&lt;T&gt;, String, Consumer&lt;ByteBuffer&gt;)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface LoanedSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * Take the next message into the C message owned by this subscription.
+   *
+   * @return A direct buffer that wraps the C message, which can be read
+   *     through the accessors generated for &lt;T&gt; (e.g.
+   *     <code>new UInt32.Loaned(buffer)</code>), or null if no message was
+   *     available. The contents are only valid until the next take.
+   */
+  ByteBuffer takeLoaned();
+
+  void executeLoanedCallback(ByteBuffer message);
+}
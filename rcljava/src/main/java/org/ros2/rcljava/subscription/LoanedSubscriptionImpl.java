@@ -0,0 +1,213 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@inheritDoc}
+ */
+public class LoanedSubscriptionImpl<T extends MessageDefinition>
+    implements LoanedSubscription<T>, ExecutableSubscription<T> {
+  private static final Logger logger = LoggerFactory.getLogger(LoanedSubscriptionImpl.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(LoanedSubscriptionImpl.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  private final WeakReference<Node> nodeReference;
+
+  /**
+   * @{inheritDoc}
+   */
+  private long handle;
+
+  /**
+   * The class of the messages that this subscription may receive.
+   */
+  private final Class<T> messageType;
+
+  /**
+   * The topic to which this subscription is subscribed.
+   */
+  private final String topic;
+
+  /**
+   * The callback function that will be triggered when a new message is
+   * received.
+   */
+  private final Consumer<ByteBuffer> callback;
+
+  /**
+   * A pointer to the function that destroys a C message of type &lt;T&gt;.
+   */
+  private final long destructorHandle;
+
+  /**
+   * A direct buffer that wraps the C message every message is taken into.
+   */
+  private ByteBuffer loanedMessage;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive, which must have a fixed size.
+   * @param message An instance of messageType, used to create the C message
+   *     that messages are taken into.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   */
+  public LoanedSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final T message, final String topic,
+      final Consumer<ByteBuffer> callback) {
+    this.nodeReference = nodeReference;
+    this.handle = handle;
+    this.messageType = messageType;
+    this.topic = topic;
+    this.callback = callback;
+    this.destructorHandle = message.getDestructorInstance();
+    this.loanedMessage = nativeCreateLoanedMessage(message.getCreatorInstance(),
+        this.destructorHandle, message.getLoanedSizeInstance());
+    this.loanedMessage.order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Class<T> getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getHandle() {
+    return handle;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final WeakReference<Node> getNodeReference() {
+    return this.nodeReference;
+  }
+
+  /**
+   * Create the C message that messages will be taken into.
+   *
+   * @param messageCreator A pointer to the function that allocates and
+   *     initializes a C message of type &lt;T&gt;.
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message if it cannot be wrapped.
+   * @param size The size of the C message, in bytes.
+   * @return A direct buffer that wraps the C message.
+   */
+  private static native ByteBuffer nativeCreateLoanedMessage(
+      long messageCreator, long messageDestructor, int size);
+
+  /**
+   * Take a message from a ROS2 subscription into an existing C message.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param message A direct buffer that wraps the C message.
+   * @return true if a message was taken.
+   */
+  private static native boolean nativeTake(long handle, ByteBuffer message);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized ByteBuffer takeLoaned() {
+    if (nativeTake(this.handle, this.loanedMessage)) {
+      return this.loanedMessage;
+    }
+    return null;
+  }
+
+  /**
+   * Destroy a ROS2 subscription (rcl_subscription_t) and the C message it
+   * takes messages into.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure that
+   *     created this subscription, as an integer. Must not be zero.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message.
+   * @param message A direct buffer that wraps the C message, or null.
+   */
+  private static native void nativeDispose(
+      long nodeHandle, long handle, long messageDestructor, ByteBuffer message);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized void dispose() {
+    Node node = this.nodeReference.get();
+    if (node != null) {
+      nativeDispose(node.getHandle(), this.handle, this.destructorHandle, this.loanedMessage);
+      this.handle = 0;
+      this.loanedMessage = null;
+    }
+  }
+
+  /**
+   * Loaned subscriptions never convert messages to Java, they are delivered
+   * through {@link #executeLoanedCallback(ByteBuffer)} instead.
+   */
+  public void executeCallback(T message) {
+    throw new UnsupportedOperationException("Loaned subscriptions only deliver C messages");
+  }
+
+  public void executeLoanedCallback(ByteBuffer message) {
+    this.callback.accept(message);
+  }
+
+  /**
+   * Take the next message and hand it to the callback. The subscription
+   * stays locked until the callback returns, since the next take overwrites
+   * the C message.
+   */
+  public final synchronized void execute() {
+    ByteBuffer message = this.takeLoaned();
+    if (message != null) {
+      this.executeLoanedCallback(message);
+    }
+  }
+}
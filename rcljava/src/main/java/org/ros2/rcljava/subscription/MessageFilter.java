@@ -0,0 +1,249 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A set of rules that decide which of the messages taken by a subscription
+ * are delivered to its callback. The rules are evaluated in native code on
+ * the C message, in the order they were added, so that rejected messages are
+ * never converted to Java.
+ *
+ * A filter keeps the state of its rules (e.g. the number of messages seen by
+ * an everyNth rule) and its statistics, so it can only be used by a single
+ * subscription.
+ */
+public final class MessageFilter {
+  /**
+   * How the value of a field is compared to the value given to a
+   * {@link MessageFilter#where(String, Comparison, long)} rule.
+   */
+  public enum Comparison {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_OR_EQUAL,
+    GREATER,
+    GREATER_OR_EQUAL
+  }
+
+  // Rules are encoded as [length, operation, rejected count, arguments...],
+  // the operations must match the ones evaluated by BaseExecutor.cpp
+  private static final long EVERY_NTH = 1;
+
+  private static final long MAX_RATE = 2;
+
+  private static final long MAX_AGE = 3;
+
+  private static final long COMPARE = 4;
+
+  private static final int RULE_HEADER_LENGTH = 3;
+
+  private static final int ACCEPTED_INDEX = 0;
+
+  private static final int REJECTED_INDEX = 1;
+
+  private final Class<? extends MessageDefinition> messageType;
+
+  private final MessageDefinition messageDefinition;
+
+  private long[] program = new long[] {0, 0};
+
+  private boolean attached;
+
+  /**
+   * Constructor.
+   *
+   * @param messageType The class of the messages to filter.
+   */
+  public MessageFilter(final Class<? extends MessageDefinition> messageType)
+      throws InstantiationException, IllegalAccessException {
+    this.messageType = messageType;
+    this.messageDefinition = messageType.newInstance();
+  }
+
+  /**
+   * Only accept every nth message that reaches this rule, starting with the
+   * first one.
+   *
+   * @param n The number of messages received for each accepted one.
+   * @return This filter.
+   */
+  public MessageFilter everyNth(final long n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("everyNth needs a positive count, got " + n);
+    }
+    return this.addRule(EVERY_NTH, n, 0);
+  }
+
+  /**
+   * Only accept a message if the previous accepted one was taken long enough
+   * ago for the given rate not to be exceeded.
+   *
+   * @param hz The maximum number of accepted messages per second.
+   * @return This filter.
+   */
+  public MessageFilter maxRate(final double hz) {
+    if (!(hz > 0)) {
+      throw new IllegalArgumentException("maxRate needs a positive rate, got " + hz);
+    }
+    return this.addRule(MAX_RATE, (long) (TimeUnit.SECONDS.toNanos(1) / hz), -1);
+  }
+
+  /**
+   * Only accept messages whose "header.stamp" is not older than the given age,
+   * according to the system clock.
+   *
+   * @param maxAge The maximum age of an accepted message.
+   * @param unit The unit of maxAge.
+   * @return This filter.
+   * @throws IllegalArgumentException if the messages do not have a header.
+   */
+  public MessageFilter maxAge(final long maxAge, final TimeUnit unit)
+      throws InstantiationException, IllegalAccessException {
+    return this.maxAge("header.stamp", maxAge, unit);
+  }
+
+  /**
+   * Only accept messages whose stamp is not older than the given age,
+   * according to the system clock.
+   *
+   * @param stampPath The dotted path of a builtin_interfaces/Time field.
+   * @param maxAge The maximum age of an accepted message.
+   * @param unit The unit of maxAge.
+   * @return This filter.
+   * @throws IllegalArgumentException if stampPath does not name a time field.
+   */
+  public MessageFilter maxAge(final String stampPath, final long maxAge, final TimeUnit unit)
+      throws InstantiationException, IllegalAccessException {
+    long[] stamp = FieldOffsets.resolveStamp(this.messageDefinition, stampPath);
+    return this.addRule(MAX_AGE, stamp[0], stamp[1], unit.toNanos(maxAge));
+  }
+
+  /**
+   * Only accept messages whose field compares to the given value as
+   * requested.
+   *
+   * @param fieldPath The dotted path of a numeric or boolean field, where
+   *     booleans have the value 0 or 1.
+   * @param comparison How the field is compared to value.
+   * @param value The value to compare the field to.
+   * @return This filter.
+   * @throws IllegalArgumentException if fieldPath does not name a numeric or
+   *     boolean field.
+   */
+  public MessageFilter where(final String fieldPath, final Comparison comparison,
+      final long value) throws InstantiationException, IllegalAccessException {
+    long[] field = FieldOffsets.resolve(this.messageDefinition, fieldPath);
+    return this.addRule(COMPARE, field[0], field[1], comparison.ordinal(), 0, value);
+  }
+
+  /**
+   * Only accept messages whose field compares to the given value as
+   * requested.
+   *
+   * @param fieldPath The dotted path of a numeric or boolean field, where
+   *     booleans have the value 0 or 1.
+   * @param comparison How the field is compared to value.
+   * @param value The value to compare the field to.
+   * @return This filter.
+   * @throws IllegalArgumentException if fieldPath does not name a numeric or
+   *     boolean field.
+   */
+  public MessageFilter where(final String fieldPath, final Comparison comparison,
+      final double value) throws InstantiationException, IllegalAccessException {
+    long[] field = FieldOffsets.resolve(this.messageDefinition, fieldPath);
+    return this.addRule(
+        COMPARE, field[0], field[1], comparison.ordinal(), 1, Double.doubleToLongBits(value));
+  }
+
+  private synchronized MessageFilter addRule(final long operation, final long... arguments) {
+    if (this.attached) {
+      throw new IllegalStateException("Rules cannot be added to a filter in use");
+    }
+    int start = this.program.length;
+    long[] rule = new long[RULE_HEADER_LENGTH + arguments.length];
+    rule[0] = rule.length;
+    rule[1] = operation;
+    System.arraycopy(arguments, 0, rule, RULE_HEADER_LENGTH, arguments.length);
+    this.program = Arrays.copyOf(this.program, start + rule.length);
+    System.arraycopy(rule, 0, this.program, start, rule.length);
+    return this;
+  }
+
+  /**
+   * Reserve this filter for a subscription.
+   *
+   * @throws IllegalStateException if the filter is already used by a
+   *     subscription.
+   */
+  synchronized void attach() {
+    if (this.attached) {
+      throw new IllegalStateException("A message filter can only be used by one subscription");
+    }
+    this.attached = true;
+  }
+
+  /**
+   * @return The class of the messages that this filter applies to.
+   */
+  public Class<? extends MessageDefinition> getMessageType() {
+    return this.messageType;
+  }
+
+  /**
+   * @return The rules of this filter and their state, as evaluated and
+   *     updated by the native code.
+   */
+  public long[] getProgram() {
+    return this.program;
+  }
+
+  /**
+   * @return The number of messages that passed every rule.
+   */
+  public long getAcceptedCount() {
+    return this.program[ACCEPTED_INDEX];
+  }
+
+  /**
+   * @return The number of messages that were rejected by a rule.
+   */
+  public long getRejectedCount() {
+    return this.program[REJECTED_INDEX];
+  }
+
+  /**
+   * @return The number of messages rejected by each rule, in the order the
+   *     rules were added.
+   */
+  public long[] getRejectedCountByRule() {
+    long[] program = this.program;
+    int ruleCount = 0;
+    for (int i = REJECTED_INDEX + 1; i < program.length; i += (int) program[i]) {
+      ++ruleCount;
+    }
+    long[] rejectedCounts = new long[ruleCount];
+    int rule = 0;
+    for (int i = REJECTED_INDEX + 1; i < program.length; i += (int) program[i]) {
+      rejectedCounts[rule++] = program[i + 2];
+    }
+    return rejectedCounts;
+  }
+}
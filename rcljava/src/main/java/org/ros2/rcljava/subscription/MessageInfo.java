@@ -0,0 +1,98 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+/**
+ * What is known about how a message was received: the publisher that sent
+ * it, when it was sent and when it was taken by the subscription.
+ */
+public final class MessageInfo {
+  private final byte[] publisherGid;
+
+  private final boolean fromIntraProcess;
+
+  private final long sourceTimestamp;
+
+  private final long receivedTimestamp;
+
+  /**
+   * Constructor.
+   *
+   * @param publisherGid The global identifier of the publisher of the message.
+   * @param fromIntraProcess Whether the message was published in this process.
+   * @param sourceTimestamp When the message was sent, in nanoseconds since the
+   *     epoch, or 0 if unknown.
+   * @param receivedTimestamp When the message was taken, in nanoseconds since
+   *     the epoch.
+   */
+  public MessageInfo(final byte[] publisherGid, final boolean fromIntraProcess,
+      final long sourceTimestamp, final long receivedTimestamp) {
+    this.publisherGid = publisherGid.clone();
+    this.fromIntraProcess = fromIntraProcess;
+    this.sourceTimestamp = sourceTimestamp;
+    this.receivedTimestamp = receivedTimestamp;
+  }
+
+  /**
+   * @return The global identifier of the publisher of the message.
+   */
+  public byte[] getPublisherGid() {
+    return this.publisherGid.clone();
+  }
+
+  /**
+   * @return true if the message was published in this process.
+   */
+  public boolean isFromIntraProcess() {
+    return this.fromIntraProcess;
+  }
+
+  /**
+   * @return true if the time at which the message was sent is known, i.e. if
+   *     the message has a "header.stamp" that was set by its publisher.
+   */
+  public boolean hasSourceTimestamp() {
+    return this.sourceTimestamp != 0;
+  }
+
+  /**
+   * @return When the message was sent according to its "header.stamp", in
+   *     nanoseconds since the epoch, or 0 if unknown.
+   */
+  public long getSourceTimestamp() {
+    return this.sourceTimestamp;
+  }
+
+  /**
+   * @return When the message was taken by the subscription, in nanoseconds
+   *     since the epoch.
+   */
+  public long getReceivedTimestamp() {
+    return this.receivedTimestamp;
+  }
+
+  /**
+   * @return The time it took for the message to reach the subscription, in
+   *     nanoseconds, or -1 if the source timestamp is unknown. Only
+   *     meaningful if the clocks of the publisher and the subscription are
+   *     synchronized.
+   */
+  public long getLatency() {
+    if (!this.hasSourceTimestamp()) {
+      return -1;
+    }
+    return this.receivedTimestamp - this.sourceTimestamp;
+  }
+}
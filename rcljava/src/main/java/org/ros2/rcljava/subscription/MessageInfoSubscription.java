@@ -0,0 +1,41 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription whose callback receives, along with every message, the
+ * @{link MessageInfo} of the message: its publisher, and when it was sent
+ * and received. It can also keep @{link SubscriptionMetrics} of the
+ * messages, which are disabled by default.
+ * A MessageInfoSubscription must be created via
+ * @{link Node#createMessageInfoSubscription(Class, String, BiConsumer)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface MessageInfoSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * Start keeping metrics of the messages received from now on.
+   *
+   * @return The metrics of this subscription.
+   */
+  SubscriptionMetrics enableMetrics();
+
+  /**
+   * @return The metrics of this subscription, or null if they are disabled.
+   */
+  SubscriptionMetrics getMetrics();
+}
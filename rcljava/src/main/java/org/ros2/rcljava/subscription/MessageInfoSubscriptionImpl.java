@@ -0,0 +1,122 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import org.ros2.rcljava.consumers.BiConsumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.node.Node;
+
+/**
+ * {@inheritDoc}
+ */
+public class MessageInfoSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T>
+    implements MessageInfoSubscription<T> {
+  /**
+   * The size of the array filled by the native take, and the index of each
+   * of its elements.
+   */
+  public static final int MESSAGE_INFO_SIZE = 3;
+
+  private static final int RECEIVED_TIMESTAMP_INDEX = 0;
+
+  private static final int SOURCE_TIMESTAMP_INDEX = 1;
+
+  private static final int FROM_INTRA_PROCESS_INDEX = 2;
+
+  private final BiConsumer<T, MessageInfo> callback;
+
+  private final long[] stampOffsets;
+
+  private final byte[] publisherGid = new byte[IntraProcessManager.GID_SIZE];
+
+  private final long[] messageInfo = new long[MESSAGE_INFO_SIZE];
+
+  private volatile SubscriptionMetrics metrics;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received. Messages published in this process are received
+   *     through the middleware too, so that every message has its
+   *     information.
+   */
+  public MessageInfoSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic,
+      final BiConsumer<T, MessageInfo> callback)
+      throws InstantiationException, IllegalAccessException {
+    super(nodeReference, handle, messageType, topic, null);
+    this.callback = callback;
+
+    long[] stampOffsets = null;
+    try {
+      stampOffsets = FieldOffsets.resolveStamp(messageType.newInstance(), "header.stamp");
+    } catch (IllegalArgumentException e) {
+      // Messages without a header have no source timestamp
+    }
+    this.stampOffsets = stampOffsets;
+  }
+
+  /**
+   * Take the next message along with its information and deliver both.
+   */
+  public final void execute() {
+    T message = null;
+    MessageInfo info = null;
+    synchronized (this) {
+      if (this.getHandle() == 0 || !nativeTakeWithInfo(this.getHandle(),
+          this.getMessageHandle(), this.publisherGid, this.stampOffsets, this.messageInfo)) {
+        return;
+      }
+      message = this.convert(this.getMessageHandle());
+      // The publisher GID is copied, so the arrays can be reused by the next take
+      info = new MessageInfo(this.publisherGid,
+          this.messageInfo[FROM_INTRA_PROCESS_INDEX] != 0,
+          this.messageInfo[SOURCE_TIMESTAMP_INDEX], this.messageInfo[RECEIVED_TIMESTAMP_INDEX]);
+    }
+    SubscriptionMetrics metrics = this.metrics;
+    if (metrics != null) {
+      metrics.record(info);
+    }
+    this.callback.accept(message, info);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized SubscriptionMetrics enableMetrics() {
+    if (this.metrics == null) {
+      this.metrics = new SubscriptionMetrics();
+    }
+    return this.metrics;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final SubscriptionMetrics getMetrics() {
+    return this.metrics;
+  }
+}
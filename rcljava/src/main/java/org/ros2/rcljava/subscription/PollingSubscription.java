@@ -0,0 +1,67 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * A subscription that is not executed by executors, but read on demand by
+ * the thread that owns it, e.g. a control loop running at its own rate.
+ * Messages are taken into a C message owned by the subscription, so polling
+ * does not allocate native memory.
+ * A PollingSubscription must be created via
+ * @{link Node#createPollingSubscription(Class&lt;T&gt;, String)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface PollingSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * Take the oldest queued message, without blocking.
+   *
+   * @return The message, or null if none was queued.
+   */
+  T take();
+
+  /**
+   * Take the newest queued message and discard the older ones, without
+   * blocking. The discarded messages are not converted to Java.
+   *
+   * @return The message, or null if none was queued.
+   */
+  T takeLatest();
+
+  /**
+   * Take the oldest queued message into an existing message, without
+   * blocking, so that polling does not allocate a message every time.
+   *
+   * @param message The message to overwrite.
+   * @return true if a message was taken, false if none was queued, in which
+   *     case message is left untouched.
+   */
+  boolean takeInto(T message);
+
+  /**
+   * Wait for a message to be queued, then take it. Disposing the
+   * subscription from another thread interrupts the wait.
+   *
+   * @param timeout How long to wait at most.
+   * @param unit The unit of timeout.
+   * @return The message, or null if none was queued before the timeout or
+   *     the subscription was disposed.
+   */
+  T waitForMessage(long timeout, TimeUnit unit);
+}
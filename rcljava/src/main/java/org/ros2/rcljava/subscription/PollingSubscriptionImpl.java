@@ -0,0 +1,300 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.GuardCondition;
+import org.ros2.rcljava.node.Node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@inheritDoc}
+ */
+public class PollingSubscriptionImpl<T extends MessageDefinition>
+    implements PollingSubscription<T> {
+  private static final Logger logger = LoggerFactory.getLogger(PollingSubscriptionImpl.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(PollingSubscriptionImpl.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  private final WeakReference<Node> nodeReference;
+
+  /**
+   * @{inheritDoc}
+   */
+  private long handle;
+
+  /**
+   * The class of the messages that this subscription may receive.
+   */
+  private final Class<T> messageType;
+
+  /**
+   * The topic to which this subscription is subscribed.
+   */
+  private final String topic;
+
+  /**
+   * A pointer to the function that converts a C message of type &lt;T&gt;
+   * into Java.
+   */
+  private final long toJavaConverterHandle;
+
+  /**
+   * A pointer to the function that destroys a C message of type &lt;T&gt;.
+   */
+  private final long destructorHandle;
+
+  /**
+   * A pointer to the C message every message is taken into.
+   */
+  private long messageHandle;
+
+  /**
+   * A pointer to a second C message, into which newer messages are taken
+   * when only the newest one is kept.
+   */
+  private long spareMessageHandle;
+
+  /**
+   * Held for reading while waiting for a message, and for writing while
+   * disposing, so that the subscription is never destroyed under a waiting
+   * thread.
+   */
+  private final ReadWriteLock waitLock;
+
+  /**
+   * Triggered before disposing, to wake up the threads waiting for a
+   * message so that they release the wait lock.
+   */
+  private final GuardCondition disposeGuardCondition;
+
+  /**
+   * Whether this subscription is being disposed, waits that have not
+   * started yet return immediately.
+   */
+  private volatile boolean disposing;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param message An instance of messageType, used to create the C messages
+   *     that messages are taken into.
+   * @param topic The topic to which this subscription will be subscribed.
+   */
+  public PollingSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final T message, final String topic) {
+    this.nodeReference = nodeReference;
+    this.handle = handle;
+    this.messageType = messageType;
+    this.topic = topic;
+    this.toJavaConverterHandle = message.getToJavaConverterInstance();
+    this.destructorHandle = message.getDestructorInstance();
+    this.messageHandle = nativeCreateMessage(message.getCreatorInstance());
+    this.spareMessageHandle = nativeCreateMessage(message.getCreatorInstance());
+    this.waitLock = new ReentrantReadWriteLock();
+    this.disposeGuardCondition = new GuardCondition();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Class<T> getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getHandle() {
+    return handle;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final WeakReference<Node> getNodeReference() {
+    return this.nodeReference;
+  }
+
+  /**
+   * Create a C message that messages will be taken into.
+   *
+   * @param messageCreator A pointer to the function that allocates and
+   *     initializes a C message of type &lt;T&gt;.
+   * @return A pointer to the C message, as an integer.
+   */
+  private static native long nativeCreateMessage(long messageCreator);
+
+  /**
+   * Take a message from a ROS2 subscription into an existing C message and
+   * convert it to Java.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param spareMessageHandle A pointer to a second C message, as an integer,
+   *     to keep taking messages until the newest one, or zero to take a
+   *     single message.
+   * @param messageToJavaConverter A pointer to the function that converts
+   *     the C message into Java.
+   * @param message The message to convert into, or null to create one.
+   * @return The message taken, or null if none was queued.
+   */
+  private static native MessageDefinition nativeTake(long handle, long messageHandle,
+      long spareMessageHandle, long messageToJavaConverter, MessageDefinition message);
+
+  /**
+   * Wait for a message to be queued in a ROS2 subscription, using a wait set
+   * of its own.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param guardConditionHandle A pointer to a guard condition that
+   *     interrupts the wait when triggered, as an integer. Must not be zero.
+   * @param timeout How long to wait, in nanoseconds.
+   * @return true if a message is queued, false if the timeout expired or the
+   *     wait was interrupted.
+   */
+  private static native boolean nativeWaitForMessage(
+      long handle, long guardConditionHandle, long timeout);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized T take() {
+    // A wait that returned just before a concurrent dispose must not take
+    if (this.handle == 0) {
+      return null;
+    }
+    return this.messageType.cast(
+        nativeTake(this.handle, this.messageHandle, 0, this.toJavaConverterHandle, null));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized T takeLatest() {
+    if (this.handle == 0) {
+      return null;
+    }
+    return this.messageType.cast(nativeTake(this.handle, this.messageHandle,
+        this.spareMessageHandle, this.toJavaConverterHandle, null));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized boolean takeInto(final T message) {
+    if (this.handle == 0) {
+      return false;
+    }
+    return nativeTake(
+        this.handle, this.messageHandle, 0, this.toJavaConverterHandle, message) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final T waitForMessage(final long timeout, final TimeUnit unit) {
+    // The subscription is only locked to take the message, so that other
+    // threads can poll it while this one waits
+    boolean ready;
+    this.waitLock.readLock().lock();
+    try {
+      if (this.disposing || this.handle == 0) {
+        return null;
+      }
+      ready = nativeWaitForMessage(
+          this.handle, this.disposeGuardCondition.getHandle(), unit.toNanos(timeout));
+    } finally {
+      this.waitLock.readLock().unlock();
+    }
+    if (ready) {
+      return this.take();
+    }
+    return null;
+  }
+
+  /**
+   * Destroy a ROS2 subscription (rcl_subscription_t) and the C messages it
+   * takes messages into.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure that
+   *     created this subscription, as an integer. Must not be zero.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C messages.
+   * @param messageHandle A pointer to the C message, as an integer, or zero.
+   * @param spareMessageHandle A pointer to the second C message, as an
+   *     integer, or zero.
+   */
+  private static native void nativeDispose(long nodeHandle, long handle,
+      long messageDestructor, long messageHandle, long spareMessageHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void dispose() {
+    this.disposing = true;
+    this.disposeGuardCondition.trigger();
+    this.waitLock.writeLock().lock();
+    try {
+      synchronized (this) {
+        Node node = this.nodeReference.get();
+        if (node != null) {
+          nativeDispose(node.getHandle(), this.handle, this.destructorHandle,
+              this.messageHandle, this.spareMessageHandle);
+          this.handle = 0;
+          this.messageHandle = 0;
+          this.spareMessageHandle = 0;
+        }
+      }
+    } finally {
+      this.waitLock.writeLock().unlock();
+    }
+    this.disposeGuardCondition.dispose();
+  }
+
+  /**
+   * Polling subscriptions are never executed, their messages are taken by
+   * {@link #take()} and the like instead.
+   */
+  public void executeCallback(T message) {
+    throw new UnsupportedOperationException("Polling subscriptions are not executed");
+  }
+}
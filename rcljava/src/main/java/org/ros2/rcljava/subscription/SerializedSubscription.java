@@ -0,0 +1,55 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.nio.ByteBuffer;
+
+import org.ros2.rcljava.interfaces.Disposable;
+import org.ros2.rcljava.node.Node;
+
+/**
+ * This class serves as a bridge between ROS2's rcl_subscription_t and RCLJava
+ * for subscriptions that receive serialized (CDR) messages instead of
+ * converting them into Java objects.
+ * A SerializedSubscription must be created via
+ * @{link Node#createSerializedSubscription(String, String, Consumer&lt;ByteBuffer&gt;)}
+ */
+public interface SerializedSubscription extends Disposable {
+  /**
+   * @return The name of the type of the messages that this subscription may
+   *     receive, e.g. "std_msgs/String".
+   */
+  String getMessageType();
+
+  /**
+   * @return A @{link java.lang.ref.WeakReference} to the
+   * @{link org.ros2.rcljava.Node}that created this subscription.
+   */
+  WeakReference<Node> getNodeReference();
+
+  /**
+   * Take the next serialized message, if any.
+   *
+   * @return A direct buffer with the serialized message between its position
+   *     and its limit, or null if no message was available. The buffer is
+   *     owned by this subscription and is overwritten by the next call.
+   */
+  ByteBuffer take();
+
+  void executeCallback(ByteBuffer message);
+}
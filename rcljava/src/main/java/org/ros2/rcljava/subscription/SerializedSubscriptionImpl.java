@@ -0,0 +1,192 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.nio.ByteBuffer;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.node.Node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@inheritDoc}
+ */
+public class SerializedSubscriptionImpl implements SerializedSubscription {
+  private static final Logger logger = LoggerFactory.getLogger(SerializedSubscriptionImpl.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(SerializedSubscriptionImpl.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * The initial capacity of the native buffer that serialized messages are
+   * taken into. The buffer is grown by the middleware when needed.
+   */
+  private static final int INITIAL_BUFFER_CAPACITY = 1024;
+
+  private final WeakReference<Node> nodeReference;
+
+  /**
+   * @{inheritDoc}
+   */
+  private long handle;
+
+  /**
+   * A pointer to the underlying serialized message structure
+   * (rmw_serialized_message_t) that is reused for every message taken.
+   */
+  private long serializedMessageHandle;
+
+  /**
+   * A direct buffer that wraps the memory of the serialized message, only
+   * recreated when the middleware reallocates it.
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * The name of the type of the messages that this subscription may receive.
+   */
+  private final String messageType;
+
+  /**
+   * The topic to which this subscription is subscribed.
+   */
+  private final String topic;
+
+  /**
+   * The callback function that will be triggered when a new message is
+   * received.
+   */
+  private final Consumer<ByteBuffer> callback;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The name of the type of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   */
+  public SerializedSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final String messageType, final String topic, final Consumer<ByteBuffer> callback) {
+    this.nodeReference = nodeReference;
+    this.handle = handle;
+    this.messageType = messageType;
+    this.topic = topic;
+    this.callback = callback;
+    this.serializedMessageHandle = nativeCreateSerializedMessage(INITIAL_BUFFER_CAPACITY);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final String getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getHandle() {
+    return handle;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final WeakReference<Node> getNodeReference() {
+    return this.nodeReference;
+  }
+
+  /**
+   * Create a serialized message structure (rmw_serialized_message_t).
+   *
+   * @param capacity The initial capacity of the serialized message, in bytes.
+   * @return A pointer to the serialized message structure.
+   */
+  private static native long nativeCreateSerializedMessage(int capacity);
+
+  /**
+   * Take a serialized message from a ROS2 subscription.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param serializedMessageHandle A pointer to the serialized message
+   *     structure that the message will be taken into.
+   * @param buffer The buffer that was returned by the previous call, or null.
+   * @return A direct buffer that wraps the serialized message, with its limit
+   *     set to the length of the message, or null if no message was taken.
+   */
+  private static native ByteBuffer nativeTake(
+      long handle, long serializedMessageHandle, ByteBuffer buffer);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized ByteBuffer take() {
+    ByteBuffer message = nativeTake(this.handle, this.serializedMessageHandle, this.buffer);
+    if (message != null) {
+      this.buffer = message;
+    }
+    return message;
+  }
+
+  /**
+   * Destroy a ROS2 subscription (rcl_subscription_t) and the serialized
+   * message structure (rmw_serialized_message_t) it takes messages into.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure that
+   *     created this subscription, as an integer. Must not be zero.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param serializedMessageHandle A pointer to the serialized message
+   *     structure.
+   */
+  private static native void nativeDispose(
+      long nodeHandle, long handle, long serializedMessageHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized void dispose() {
+    Node node = this.nodeReference.get();
+    if (node != null) {
+      nativeDispose(node.getHandle(), this.handle, this.serializedMessageHandle);
+      this.handle = 0;
+      this.serializedMessageHandle = 0;
+      this.buffer = null;
+    }
+  }
+
+  public void executeCallback(ByteBuffer message) {
+    this.callback.accept(message);
+  }
+}
@@ -0,0 +1,143 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.ros2.rcljava.concurrent.Callback;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.qos.QoSProfile;
+
+/**
+ * A subscription shared by several callbacks of the same node. Every message
+ * is taken and converted once. Each callback receives a message of its own,
+ * a deep copy of the converted one except for the last callback, so that
+ * callbacks can modify or keep their messages without affecting each other.
+ *
+ * Each callback is registered through a @{link Subscription} of its own,
+ * whose disposal only unregisters the callback. The underlying ROS2
+ * subscription is released once every callback has been unregistered.
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public class SharedSubscriptionImpl<T extends MessageDefinition> extends SubscriptionImpl<T> {
+  private final class Registration implements Subscription<T> {
+    private final Consumer<T> callback;
+
+    private volatile boolean disposed;
+
+    private Registration(final Consumer<T> callback) {
+      this.callback = callback;
+    }
+
+    public Class<T> getMessageType() {
+      return SharedSubscriptionImpl.this.getMessageType();
+    }
+
+    public WeakReference<Node> getNodeReference() {
+      return SharedSubscriptionImpl.this.getNodeReference();
+    }
+
+    public void executeCallback(final T message) {
+      this.callback.accept(message);
+    }
+
+    public long getHandle() {
+      return this.disposed ? 0 : SharedSubscriptionImpl.this.getHandle();
+    }
+
+    public void dispose() {
+      if (SharedSubscriptionImpl.this.registrations.remove(this)) {
+        this.disposed = true;
+        SharedSubscriptionImpl.this.releaseCallback.call();
+      }
+    }
+  }
+
+  private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+
+  private final Callback releaseCallback;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver messages published in this process, or null to receive every
+   *     message through the middleware.
+   * @param qosProfile The QoS profile of the subscription.
+   * @param releaseCallback The callback function that will be triggered when
+   *     a callback is unregistered, so that the node can dispose this
+   *     subscription once it has none left.
+   */
+  public SharedSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic,
+      final IntraProcessManager intraProcessManager, final QoSProfile qosProfile,
+      final Callback releaseCallback) {
+    super(nodeReference, handle, messageType, topic, null, intraProcessManager, qosProfile);
+    this.releaseCallback = releaseCallback;
+  }
+
+  /**
+   * Register a callback.
+   *
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   * @return A @{link Subscription} whose disposal unregisters the callback.
+   */
+  public final Subscription<T> addCallback(final Consumer<T> callback) {
+    Registration registration = new Registration(callback);
+    this.registrations.add(registration);
+    return registration;
+  }
+
+  /**
+   * @return true if at least one callback is registered.
+   */
+  public final boolean hasCallbacks() {
+    return !this.registrations.isEmpty();
+  }
+
+  /**
+   * Deliver a message to every registered callback.
+   *
+   * @param message The message to deliver.
+   */
+  @SuppressWarnings("unchecked")
+  public final void executeCallback(final T message) {
+    Iterator<Registration> iterator = this.registrations.iterator();
+    while (iterator.hasNext()) {
+      Registration registration = iterator.next();
+      if (iterator.hasNext()) {
+        registration.executeCallback((T) message.deepCopy());
+      } else {
+        registration.executeCallback(message);
+      }
+    }
+  }
+}
@@ -41,5 +41,12 @@ public interface Subscription<T extends MessageDefinition> extends Disposable {
    */
   WeakReference<Node> getNodeReference();
 
+  /**
+   * Deliver a message to the callback of this subscription. Subscriptions
+   * that do not deliver Java messages, such as loaned, view and polling
+   * subscriptions, throw an UnsupportedOperationException.
+   *
+   * @param message The message to deliver.
+   */
   void executeCallback(T message);
 }
@@ -21,7 +21,10 @@ import org.ros2.rcljava.RCLJava;
 import org.ros2.rcljava.common.JNIUtils;
 import org.ros2.rcljava.consumers.Consumer;
 import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
 import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.qos.QoSProfile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +36,7 @@ import org.slf4j.LoggerFactory;
  *
  * @param <T> The type of the messages that this subscription will receive.
  */
-public class SubscriptionImpl<T extends MessageDefinition> implements Subscription<T> {
+public class SubscriptionImpl<T extends MessageDefinition> implements ExecutableSubscription<T> {
   private static final Logger logger = LoggerFactory.getLogger(SubscriptionImpl.class);
 
   static {
@@ -68,6 +71,46 @@ public class SubscriptionImpl<T extends MessageDefinition> implements Subscripti
    */
   private final Consumer<T> callback;
 
+  /**
+   * The @{link IntraProcessManager} that delivers the messages published in
+   * this process, or null if intra-process communication is disabled.
+   */
+  private final IntraProcessManager intraProcessManager;
+
+  /**
+   * The queue of messages published in this process, or null if
+   * intra-process communication is disabled.
+   */
+  private final IntraProcessSubscription<T> intraProcessSubscription;
+
+  /**
+   * The fields converted from the received messages, or null if every field
+   * is converted.
+   */
+  private final FieldProjection fieldProjection;
+
+  /**
+   * A pointer to the function that allocates and initializes a C message of
+   * type &lt;T&gt;.
+   */
+  private final long creatorHandle;
+
+  /**
+   * A pointer to the function that converts a C message of type &lt;T&gt;
+   * into Java.
+   */
+  private final long toJavaConverterHandle;
+
+  /**
+   * A pointer to the function that destroys a C message of type &lt;T&gt;.
+   */
+  private final long destructorHandle;
+
+  /**
+   * A pointer to the C message every message is taken into.
+   */
+  private long messageHandle;
+
   /**
    * Constructor.
    *
@@ -85,11 +128,101 @@ public class SubscriptionImpl<T extends MessageDefinition> implements Subscripti
    */
   public SubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
       final Class<T> messageType, final String topic, final Consumer<T> callback) {
+    this(nodeReference, handle, messageType, topic, callback, null, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver messages published in this process, or null to receive every
+   *     message through the middleware.
+   * @param qosProfile The QoS profile of the subscription, which bounds the
+   *     queue of messages published in this process. Ignored if
+   *     intraProcessManager is null.
+   */
+  public SubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final IntraProcessManager intraProcessManager, final QoSProfile qosProfile) {
+    this(nodeReference, handle, messageType, topic, callback, intraProcessManager, qosProfile,
+        null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   * @param intraProcessManager The @{link IntraProcessManager} that will
+   *     deliver messages published in this process, or null to receive every
+   *     message through the middleware.
+   * @param qosProfile The QoS profile of the subscription, which bounds the
+   *     queue of messages published in this process. Ignored if
+   *     intraProcessManager is null.
+   * @param fieldProjection The fields to convert from the messages received
+   *     through the middleware, or null to convert every field. Messages
+   *     published in this process are delivered whole.
+   */
+  public SubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final String topic, final Consumer<T> callback,
+      final IntraProcessManager intraProcessManager, final QoSProfile qosProfile,
+      final FieldProjection fieldProjection) {
     this.nodeReference = nodeReference;
     this.handle = handle;
     this.messageType = messageType;
     this.topic = topic;
     this.callback = callback;
+    MessageDefinition message = null;
+    try {
+      message = messageType.newInstance();
+    } catch (InstantiationException ie) {
+      throw new IllegalArgumentException("Failed to instantiate " + messageType.getName(), ie);
+    } catch (IllegalAccessException iae) {
+      throw new IllegalArgumentException("Failed to instantiate " + messageType.getName(), iae);
+    }
+    this.creatorHandle = message.getCreatorInstance();
+    this.toJavaConverterHandle = message.getToJavaConverterInstance();
+    this.destructorHandle = message.getDestructorInstance();
+    this.messageHandle = nativeCreateMessage(this.creatorHandle);
+    this.intraProcessManager = intraProcessManager;
+    if (intraProcessManager != null) {
+      this.intraProcessSubscription = intraProcessManager.addSubscription(this, qosProfile);
+    } else {
+      this.intraProcessSubscription = null;
+    }
+    this.fieldProjection = fieldProjection;
+  }
+
+  /**
+   * @return The queue of messages published in this process, or null if
+   *     intra-process communication is disabled.
+   */
+  public final IntraProcessSubscription<T> getIntraProcessSubscription() {
+    return this.intraProcessSubscription;
+  }
+
+  /**
+   * @return The fields converted from the received messages, or null if
+   *     every field is converted.
+   */
+  public final FieldProjection getFieldProjection() {
+    return this.fieldProjection;
   }
 
   /**
@@ -113,6 +246,204 @@ public class SubscriptionImpl<T extends MessageDefinition> implements Subscripti
     return this.nodeReference;
   }
 
+  /**
+   * @return A pointer to the C message every message is taken into, or zero
+   *     if the subscription has been disposed.
+   */
+  protected final long getMessageHandle() {
+    return this.messageHandle;
+  }
+
+  /**
+   * @return A pointer to the function that converts a C message of type
+   *     &lt;T&gt; into Java.
+   */
+  protected final long getToJavaConverterHandle() {
+    return this.toJavaConverterHandle;
+  }
+
+  /**
+   * @return The global identifiers of the publishers whose messages have
+   *     already been delivered by the @{link IntraProcessManager}, as
+   *     returned by @{link IntraProcessManager#getPublisherGids()}, or null
+   *     if intra-process communication is disabled.
+   */
+  protected final byte[] getIntraProcessPublisherGids() {
+    if (this.intraProcessSubscription == null) {
+      return null;
+    }
+    return this.intraProcessManager.getPublisherGids();
+  }
+
+  /**
+   * @return A pointer to a new C message of type &lt;T&gt;, as an integer,
+   *     which must be released with @{link #destroyMessage(long)}.
+   */
+  protected final long createMessage() {
+    return nativeCreateMessage(this.creatorHandle);
+  }
+
+  /**
+   * @param messageHandle A pointer to a C message created by
+   *     @{link #createMessage()}, as an integer.
+   */
+  protected final void destroyMessage(final long messageHandle) {
+    nativeDestroyMessage(this.destructorHandle, messageHandle);
+  }
+
+  /**
+   * Create a C message with the given creator.
+   *
+   * @param messageCreator A pointer to the function that allocates and
+   *     initializes a C message of type &lt;T&gt;.
+   * @return A pointer to the C message, as an integer.
+   */
+  private static native long nativeCreateMessage(long messageCreator);
+
+  /**
+   * Destroy a C message.
+   *
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message.
+   * @param messageHandle A pointer to the C message, as an integer.
+   */
+  private static native void nativeDestroyMessage(long messageDestructor, long messageHandle);
+
+  /**
+   * Take a message from a ROS2 subscription into an existing C message,
+   * along with its information.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param publisherGid The array that receives the global identifier of the
+   *     publisher of the message.
+   * @param stampOffsets The offsets of the seconds and nanoseconds of the
+   *     source timestamp in the C message, or null if it has none.
+   * @param messageInfo The array of
+   *     @{link MessageInfoSubscriptionImpl#MESSAGE_INFO_SIZE} elements that
+   *     receives the information of the message.
+   * @return true if a message was taken.
+   */
+  protected static native boolean nativeTakeWithInfo(long handle, long messageHandle,
+      byte[] publisherGid, long[] stampOffsets, long[] messageInfo);
+
+  /**
+   * Take every queued message from a ROS2 subscription, alternating between
+   * two existing C messages, until the newest one.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to a C message, as an integer.
+   * @param spareMessageHandle A pointer to a second C message, as an integer.
+   * @param ignoredPublisherGids The global identifiers of the publishers
+   *     whose messages are dropped, packed one after another, or null.
+   * @param skippedCount The array whose only element receives the number of
+   *     messages discarded, not counting the dropped ones.
+   * @return A pointer to whichever C message holds the newest message not
+   *     dropped, or zero if there is none.
+   */
+  protected static native long nativeTakeLatest(long handle, long messageHandle,
+      long spareMessageHandle, byte[] ignoredPublisherGids, long[] skippedCount);
+
+  /**
+   * Run a filter on a C message.
+   *
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param filterProgram The program of a @{link MessageFilter}, which is
+   *     updated with the statistics of the filter.
+   * @return true if the message is accepted.
+   */
+  protected static native boolean nativeAccept(long messageHandle, long[] filterProgram);
+
+  /**
+   * Convert a C message to Java.
+   *
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param messageToJavaConverter A pointer to the function that converts
+   *     the C message into Java.
+   * @return A new message.
+   */
+  protected static native MessageDefinition nativeConvert(
+      long messageHandle, long messageToJavaConverter);
+
+  /**
+   * Convert some of the fields of a C message to Java.
+   *
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param projectedConverter A pointer to the function that converts the
+   *     selected fields of the C message into Java.
+   * @param projectionLayout The fields to convert, as encoded by
+   *     @{link FieldProjection#getLayout()}.
+   * @return A new message.
+   */
+  protected static native MessageDefinition nativeConvertProjected(
+      long messageHandle, long projectedConverter, long[] projectionLayout);
+
+  /**
+   * Take several messages from a ROS2 subscription, each converted to Java
+   * from the same existing C message.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @param messageToJavaConverter A pointer to the function that converts
+   *     the C message into Java.
+   * @param messages The array that receives the messages taken.
+   * @param maxCount The maximum number of messages to take.
+   * @return The number of messages taken.
+   */
+  protected static native int nativeTakeBatch(long handle, long messageHandle,
+      long messageToJavaConverter, MessageDefinition[] messages, int maxCount);
+
+  /**
+   * Convert the message taken into a C message to Java, keeping only the
+   * fields of the projection of this subscription, if any.
+   *
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @return A new message.
+   */
+  protected final T convert(final long messageHandle) {
+    MessageDefinition message = null;
+    if (this.fieldProjection != null) {
+      message = nativeConvertProjected(messageHandle, this.fieldProjection.getConverterHandle(),
+          this.fieldProjection.getLayout());
+    } else {
+      message = nativeConvert(messageHandle, this.toJavaConverterHandle);
+    }
+    return this.messageType.cast(message);
+  }
+
+  /**
+   * Take the next message through the middleware, reusing the C message
+   * owned by this subscription.
+   *
+   * @return The message, or null if none was queued or it is not delivered
+   *     through the middleware.
+   */
+  protected synchronized T takeMessage() {
+    if (this.handle == 0) {
+      return null;
+    }
+    // Messages from intra-process publishers have already been delivered, they are dropped
+    // before being converted to Java
+    if (!RCLJava.getNativeBackend().take(
+        this.handle, this.messageHandle, this.getIntraProcessPublisherGids())) {
+      return null;
+    }
+    return this.convert(this.messageHandle);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void execute() {
+    T message = this.takeMessage();
+    if (message != null) {
+      this.executeCallback(message);
+    }
+  }
+
   /**
    * Destroy a ROS2 subscription (rcl_subscription_t).
    *
@@ -126,14 +457,27 @@ public class SubscriptionImpl<T extends MessageDefinition> implements Subscripti
   /**
    * {@inheritDoc}
    */
-  public final void dispose() {
+  public synchronized void dispose() {
+    if (this.intraProcessSubscription != null) {
+      this.intraProcessSubscription.dispose();
+    }
     Node node = this.nodeReference.get();
     if (node != null) {
       nativeDispose(node.getHandle(), this.handle);
       this.handle = 0;
     }
+    if (this.messageHandle != 0) {
+      this.destroyMessage(this.messageHandle);
+      this.messageHandle = 0;
+    }
   }
 
+  /**
+   * Deliver a message to the callback, either one taken by {@link #execute()}
+   * or one queued by a publisher in the same process.
+   *
+   * @param message The message to deliver.
+   */
   public void executeCallback(T message) {
     this.callback.accept(message);
   }
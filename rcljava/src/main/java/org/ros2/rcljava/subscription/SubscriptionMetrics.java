@@ -0,0 +1,191 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ros2.rcljava.subscription;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of the messages received by a subscription: their transport
+ * latency, for the messages that have a source timestamp, and the number and
+ * rate of messages from each publisher.
+ */
+public final class SubscriptionMetrics {
+  /**
+   * Statistics of the messages received from a single publisher.
+   */
+  public static final class PublisherStatistics {
+    private final byte[] publisherGid;
+
+    private final long messageCount;
+
+    private final long firstReceivedTimestamp;
+
+    private final long lastReceivedTimestamp;
+
+    private PublisherStatistics(final byte[] publisherGid, final long messageCount,
+        final long firstReceivedTimestamp, final long lastReceivedTimestamp) {
+      this.publisherGid = publisherGid;
+      this.messageCount = messageCount;
+      this.firstReceivedTimestamp = firstReceivedTimestamp;
+      this.lastReceivedTimestamp = lastReceivedTimestamp;
+    }
+
+    /**
+     * @return The global identifier of the publisher.
+     */
+    public byte[] getPublisherGid() {
+      return this.publisherGid.clone();
+    }
+
+    /**
+     * @return The number of messages received from the publisher.
+     */
+    public long getMessageCount() {
+      return this.messageCount;
+    }
+
+    /**
+     * @return The average number of messages received per second, between
+     *     the first and the last message of the publisher, or 0 if fewer than
+     *     two messages have been received.
+     */
+    public double getRate() {
+      long elapsed = this.lastReceivedTimestamp - this.firstReceivedTimestamp;
+      if (this.messageCount < 2 || elapsed <= 0) {
+        return 0;
+      }
+      return (this.messageCount - 1) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+  }
+
+  private static final class PublisherCounter {
+    private long messageCount;
+
+    private long firstReceivedTimestamp;
+
+    private long lastReceivedTimestamp;
+  }
+
+  private final Map<ByteBuffer, PublisherCounter> publishers =
+      new LinkedHashMap<ByteBuffer, PublisherCounter>();
+
+  private long messageCount;
+
+  private long latencyCount;
+
+  private long latencySum;
+
+  private long minLatency = Long.MAX_VALUE;
+
+  private long maxLatency = Long.MIN_VALUE;
+
+  /**
+   * Account for a received message.
+   *
+   * @param messageInfo The information about the message.
+   */
+  public synchronized void record(final MessageInfo messageInfo) {
+    ++this.messageCount;
+
+    if (messageInfo.hasSourceTimestamp()) {
+      long latency = messageInfo.getLatency();
+      ++this.latencyCount;
+      this.latencySum += latency;
+      this.minLatency = Math.min(this.minLatency, latency);
+      this.maxLatency = Math.max(this.maxLatency, latency);
+    }
+
+    ByteBuffer gid = ByteBuffer.wrap(messageInfo.getPublisherGid());
+    PublisherCounter counter = this.publishers.get(gid);
+    if (counter == null) {
+      counter = new PublisherCounter();
+      counter.firstReceivedTimestamp = messageInfo.getReceivedTimestamp();
+      this.publishers.put(gid, counter);
+    }
+    ++counter.messageCount;
+    counter.lastReceivedTimestamp = messageInfo.getReceivedTimestamp();
+  }
+
+  /**
+   * @return The number of messages received.
+   */
+  public synchronized long getMessageCount() {
+    return this.messageCount;
+  }
+
+  /**
+   * @return The number of messages whose latency is known.
+   */
+  public synchronized long getLatencyCount() {
+    return this.latencyCount;
+  }
+
+  /**
+   * @return The average latency of the messages, in nanoseconds, or 0 if no
+   *     latency is known.
+   */
+  public synchronized long getMeanLatency() {
+    return this.latencyCount == 0 ? 0 : this.latencySum / this.latencyCount;
+  }
+
+  /**
+   * @return The lowest latency of the messages, in nanoseconds, or 0 if no
+   *     latency is known.
+   */
+  public synchronized long getMinLatency() {
+    return this.latencyCount == 0 ? 0 : this.minLatency;
+  }
+
+  /**
+   * @return The highest latency of the messages, in nanoseconds, or 0 if no
+   *     latency is known.
+   */
+  public synchronized long getMaxLatency() {
+    return this.latencyCount == 0 ? 0 : this.maxLatency;
+  }
+
+  /**
+   * @return The statistics of each publisher, in the order in which their
+   *     first message was received.
+   */
+  public synchronized List<PublisherStatistics> getPublisherStatistics() {
+    List<PublisherStatistics> statistics =
+        new ArrayList<PublisherStatistics>(this.publishers.size());
+    for (Map.Entry<ByteBuffer, PublisherCounter> entry : this.publishers.entrySet()) {
+      PublisherCounter counter = entry.getValue();
+      statistics.add(new PublisherStatistics(entry.getKey().array().clone(),
+          counter.messageCount, counter.firstReceivedTimestamp, counter.lastReceivedTimestamp));
+    }
+    return statistics;
+  }
+
+  /**
+   * Forget every message received so far.
+   */
+  public synchronized void reset() {
+    this.publishers.clear();
+    this.messageCount = 0;
+    this.latencyCount = 0;
+    this.latencySum = 0;
+    this.minLatency = Long.MAX_VALUE;
+    this.maxLatency = Long.MIN_VALUE;
+  }
+}
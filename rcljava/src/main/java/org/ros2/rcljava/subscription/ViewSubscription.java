@@ -0,0 +1,40 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.interfaces.MessageView;
+
+/**
+ * A subscription that takes messages into a C message it owns and hands a
+ * view of it to its callback, without converting the message to Java.
+ * A ViewSubscription must be created via
+ * @{link Node#createViewSubscription(Class&lt;T&gt;, String, Consumer&lt;V&gt;)}
+ *
+ * @param <T> The type of the messages that this subscription will receive.
+ */
+public interface ViewSubscription<T extends MessageDefinition> extends Subscription<T> {
+  /**
+   * Take the next message into the C message owned by this subscription.
+   *
+   * @return A view of the C message, of the View class generated for
+   *     &lt;T&gt;, or null if no message was available. The view is only
+   *     valid until the next take.
+   */
+  MessageView<T> takeView();
+
+  void executeViewCallback(MessageView<T> message);
+}
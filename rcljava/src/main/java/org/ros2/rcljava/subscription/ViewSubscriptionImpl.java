@@ -0,0 +1,215 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.subscription;
+
+import java.lang.ref.WeakReference;
+
+import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.interfaces.MessageView;
+import org.ros2.rcljava.node.Node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@inheritDoc}
+ */
+public class ViewSubscriptionImpl<T extends MessageDefinition, V extends MessageView<T>>
+    implements ViewSubscription<T>, ExecutableSubscription<T> {
+  private static final Logger logger = LoggerFactory.getLogger(ViewSubscriptionImpl.class);
+
+  static {
+    try {
+      JNIUtils.loadImplementation(ViewSubscriptionImpl.class);
+    } catch (UnsatisfiedLinkError ule) {
+      logger.error("Native code library failed to load.\n" + ule);
+      System.exit(1);
+    }
+  }
+
+  private final WeakReference<Node> nodeReference;
+
+  /**
+   * @{inheritDoc}
+   */
+  private long handle;
+
+  /**
+   * The class of the messages that this subscription may receive.
+   */
+  private final Class<T> messageType;
+
+  /**
+   * The topic to which this subscription is subscribed.
+   */
+  private final String topic;
+
+  /**
+   * The callback function that will be triggered when a new message is
+   * received.
+   */
+  private final Consumer<V> callback;
+
+  /**
+   * An instance of &lt;T&gt;, used to create the views of the C message.
+   */
+  private final T message;
+
+  /**
+   * A pointer to the function that destroys a C message of type &lt;T&gt;.
+   */
+  private final long destructorHandle;
+
+  /**
+   * A pointer to the C message every message is taken into.
+   */
+  private long messageHandle;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeReference A {@link java.lang.ref.WeakReference} to the
+   *     @{link org.ros2.rcljava.Node} that created this subscription.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageType The <code>Class</code> of the messages that this
+   *     subscription will receive.
+   * @param message An instance of messageType, used to create the C message
+   *     that messages are taken into.
+   * @param topic The topic to which this subscription will be subscribed.
+   * @param callback The callback function that will be triggered when a new
+   *     message is received.
+   */
+  public ViewSubscriptionImpl(final WeakReference<Node> nodeReference, final long handle,
+      final Class<T> messageType, final T message, final String topic,
+      final Consumer<V> callback) {
+    this.nodeReference = nodeReference;
+    this.handle = handle;
+    this.messageType = messageType;
+    this.topic = topic;
+    this.callback = callback;
+    this.message = message;
+    this.destructorHandle = message.getDestructorInstance();
+    this.messageHandle = nativeCreateMessage(message.getCreatorInstance());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final Class<T> getMessageType() {
+    return messageType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final long getHandle() {
+    return handle;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final WeakReference<Node> getNodeReference() {
+    return this.nodeReference;
+  }
+
+  /**
+   * Create the C message that messages will be taken into.
+   *
+   * @param messageCreator A pointer to the function that allocates and
+   *     initializes a C message of type &lt;T&gt;.
+   * @return A pointer to the C message, as an integer.
+   */
+  private static native long nativeCreateMessage(long messageCreator);
+
+  /**
+   * Take a message from a ROS2 subscription into an existing C message.
+   *
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageHandle A pointer to the C message, as an integer.
+   * @return true if a message was taken.
+   */
+  private static native boolean nativeTake(long handle, long messageHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  @SuppressWarnings("unchecked")
+  public final synchronized MessageView<T> takeView() {
+    if (nativeTake(this.handle, this.messageHandle)) {
+      // Views cache the buffers of the sequences they read, so a new view is
+      // created for every message
+      return (MessageView<T>) this.message.createViewInstance(this.messageHandle);
+    }
+    return null;
+  }
+
+  /**
+   * Destroy a ROS2 subscription (rcl_subscription_t) and the C message it
+   * takes messages into.
+   *
+   * @param nodeHandle A pointer to the underlying ROS2 node structure that
+   *     created this subscription, as an integer. Must not be zero.
+   * @param handle A pointer to the underlying ROS2 subscription
+   *     structure, as an integer. Must not be zero.
+   * @param messageDestructor A pointer to the function that destroys the
+   *     C message.
+   * @param messageHandle A pointer to the C message, as an integer, or zero.
+   */
+  private static native void nativeDispose(
+      long nodeHandle, long handle, long messageDestructor, long messageHandle);
+
+  /**
+   * {@inheritDoc}
+   */
+  public final synchronized void dispose() {
+    Node node = this.nodeReference.get();
+    if (node != null) {
+      nativeDispose(node.getHandle(), this.handle, this.destructorHandle, this.messageHandle);
+      this.handle = 0;
+      this.messageHandle = 0;
+    }
+  }
+
+  /**
+   * View subscriptions never convert messages to Java, they are delivered
+   * through {@link #executeViewCallback(MessageView)} instead.
+   */
+  public void executeCallback(T message) {
+    throw new UnsupportedOperationException("View subscriptions only deliver message views");
+  }
+
+  @SuppressWarnings("unchecked")
+  public void executeViewCallback(MessageView<T> message) {
+    this.callback.accept((V) message);
+  }
+
+  /**
+   * Take the next message and hand a view of it to the callback. The
+   * subscription stays locked until the callback returns, since the next
+   * take overwrites the C message that the view reads.
+   */
+  public final synchronized void execute() {
+    MessageView<T> view = this.takeView();
+    if (view != null) {
+      this.executeViewCallback(view);
+    }
+  }
+}
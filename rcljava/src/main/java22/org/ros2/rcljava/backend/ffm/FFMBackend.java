@@ -0,0 +1,364 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.backend.ffm;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BOOLEAN;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.ros2.rcljava.backend.NativeBackend;
+import org.ros2.rcljava.exceptions.RCLException;
+
+/**
+ * A @{link NativeBackend} that calls rcl directly through the
+ * java.lang.foreign API, without going through JNI. It is built into its
+ * own jar for Java 22 or newer, and loaded by RCLJava when that jar is on
+ * the classpath. The JVM should be started with
+ * --enable-native-access=ALL-UNNAMED to allow the downcalls without a
+ * warning.
+ * Only the system allocator is supported, and the structures of rcl are
+ * laid out for 64-bit platforms.
+ */
+public class FFMBackend implements NativeBackend {
+  private static final int RCL_RET_OK = 0;
+
+  private static final int RCL_RET_TIMEOUT = 2;
+
+  private static final int RCL_RET_SUBSCRIPTION_TAKE_FAILED = 401;
+
+  /**
+   * See RMW_GID_STORAGE_SIZE in rmw/types.h.
+   */
+  private static final int GID_STORAGE_SIZE = 24;
+
+  /**
+   * rmw_message_info_t, which starts with the rmw_gid_t of the publisher.
+   */
+  private static final StructLayout MESSAGE_INFO_LAYOUT = MemoryLayout.structLayout(
+      ADDRESS.withName("implementation_identifier"),
+      MemoryLayout.sequenceLayout(GID_STORAGE_SIZE, JAVA_BYTE).withName("data"),
+      JAVA_BOOLEAN.withName("from_intra_process"),
+      MemoryLayout.paddingLayout(7));
+
+  private static final long GID_DATA_OFFSET = MESSAGE_INFO_LAYOUT.byteOffset(groupElement("data"));
+
+  /**
+   * rcl_allocator_t, which is passed by value.
+   */
+  private static final StructLayout ALLOCATOR_LAYOUT = MemoryLayout.structLayout(
+      ADDRESS.withName("allocate"),
+      ADDRESS.withName("deallocate"),
+      ADDRESS.withName("reallocate"),
+      ADDRESS.withName("zero_allocate"),
+      ADDRESS.withName("state"));
+
+  /**
+   * rcl_wait_set_t, where each array of entities is followed by its size.
+   */
+  private static final StructLayout WAIT_SET_LAYOUT = MemoryLayout.structLayout(
+      ADDRESS.withName("subscriptions"),
+      JAVA_LONG.withName("size_of_subscriptions"),
+      ADDRESS.withName("guard_conditions"),
+      JAVA_LONG.withName("size_of_guard_conditions"),
+      ADDRESS.withName("timers"),
+      JAVA_LONG.withName("size_of_timers"),
+      ADDRESS.withName("clients"),
+      JAVA_LONG.withName("size_of_clients"),
+      ADDRESS.withName("services"),
+      JAVA_LONG.withName("size_of_services"),
+      ADDRESS.withName("impl"));
+
+  private static final long SUBSCRIPTIONS_OFFSET =
+      WAIT_SET_LAYOUT.byteOffset(groupElement("subscriptions"));
+
+  private static final long GUARD_CONDITIONS_OFFSET =
+      WAIT_SET_LAYOUT.byteOffset(groupElement("guard_conditions"));
+
+  private static final long TIMERS_OFFSET = WAIT_SET_LAYOUT.byteOffset(groupElement("timers"));
+
+  private static final long CLIENTS_OFFSET = WAIT_SET_LAYOUT.byteOffset(groupElement("clients"));
+
+  private static final long SERVICES_OFFSET =
+      WAIT_SET_LAYOUT.byteOffset(groupElement("services"));
+
+  private static final Linker LINKER = Linker.nativeLinker();
+
+  /**
+   * rcl is already loaded by the JNI libraries of RCLJava, looking it up
+   * again only takes a reference to it. The error handling functions of rcl
+   * are macros for the ones of rcutils.
+   */
+  private static final SymbolLookup LOOKUP =
+      SymbolLookup.libraryLookup(System.mapLibraryName("rcl"), Arena.global())
+          .or(SymbolLookup.libraryLookup(System.mapLibraryName("rcutils"), Arena.global()));
+
+  private static final MethodHandle RCL_TAKE = downcall("rcl_take",
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_PUBLISH = downcall("rcl_publish",
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT_SET_INIT = downcall("rcl_wait_set_init",
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, JAVA_LONG, JAVA_LONG, JAVA_LONG,
+          JAVA_LONG, ALLOCATOR_LAYOUT));
+
+  private static final MethodHandle RCL_WAIT_SET_ADD_SUBSCRIPTION =
+      downcall("rcl_wait_set_add_subscription", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT_SET_ADD_GUARD_CONDITION =
+      downcall("rcl_wait_set_add_guard_condition",
+          FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT_SET_ADD_TIMER =
+      downcall("rcl_wait_set_add_timer", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT_SET_ADD_SERVICE =
+      downcall("rcl_wait_set_add_service", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT_SET_ADD_CLIENT =
+      downcall("rcl_wait_set_add_client", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+
+  private static final MethodHandle RCL_WAIT = downcall("rcl_wait",
+      FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG));
+
+  private static final MethodHandle RCL_WAIT_SET_FINI = downcall("rcl_wait_set_fini",
+      FunctionDescriptor.of(JAVA_INT, ADDRESS));
+
+  private static final MethodHandle RCUTILS_GET_DEFAULT_ALLOCATOR =
+      downcall("rcutils_get_default_allocator", FunctionDescriptor.of(ALLOCATOR_LAYOUT));
+
+  private static final MethodHandle RCUTILS_GET_ERROR_STRING_SAFE =
+      downcall("rcutils_get_error_string_safe", FunctionDescriptor.of(ADDRESS));
+
+  private static final MethodHandle RCUTILS_RESET_ERROR =
+      downcall("rcutils_reset_error", FunctionDescriptor.ofVoid());
+
+  private static final MemorySegment DEFAULT_ALLOCATOR = getDefaultAllocator();
+
+  /**
+   * The out parameters of rcl are allocated once per thread, so that the
+   * calls do not allocate native memory.
+   */
+  private static final ThreadLocal<MemorySegment> MESSAGE_INFO =
+      ThreadLocal.withInitial(() -> Arena.ofAuto().allocate(MESSAGE_INFO_LAYOUT));
+
+  private static final ThreadLocal<MemorySegment> WAIT_SET =
+      ThreadLocal.withInitial(() -> Arena.ofAuto().allocate(WAIT_SET_LAYOUT));
+
+  private static MethodHandle downcall(final String name, final FunctionDescriptor function) {
+    MemorySegment symbol = LOOKUP.find(name)
+        .orElseThrow(() -> new UnsatisfiedLinkError("Symbol not found: " + name));
+    return LINKER.downcallHandle(symbol, function);
+  }
+
+  private static MemorySegment getDefaultAllocator() {
+    try {
+      return (MemorySegment) RCUTILS_GET_DEFAULT_ALLOCATOR.invokeExact(
+          (SegmentAllocator) Arena.global());
+    } catch (Throwable throwable) {
+      throw new ExceptionInInitializerError(throwable);
+    }
+  }
+
+  /**
+   * Constructor, the backend is only usable on 64-bit platforms.
+   */
+  public FFMBackend() {
+    if (ADDRESS.byteSize() != JAVA_LONG.byteSize()) {
+      throw new UnsupportedOperationException("The FFM backend requires a 64-bit platform");
+    }
+  }
+
+  /**
+   * RCLException is checked, but the JNI code throws it without declaring
+   * it, and so does this backend.
+   */
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> E unchecked(final Throwable throwable) throws E {
+    throw (E) throwable;
+  }
+
+  private static RCLException rclException(final int ret, final String message)
+      throws Throwable {
+    MemorySegment error = (MemorySegment) RCUTILS_GET_ERROR_STRING_SAFE.invokeExact();
+    error = error.reinterpret(Integer.MAX_VALUE);
+    int length = 0;
+    while (error.get(JAVA_BYTE, length) != 0) {
+      length++;
+    }
+    String errorString =
+        new String(error.asSlice(0, length).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    RCUTILS_RESET_ERROR.invokeExact();
+    return new RCLException(ret, message + ": " + errorString);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final String getName() {
+    return "ffm";
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final boolean take(
+      final long subscriptionHandle, final long messageHandle,
+      final byte[] ignoredPublisherGids) {
+    try {
+      MemorySegment messageInfo =
+          ignoredPublisherGids != null ? MESSAGE_INFO.get() : MemorySegment.NULL;
+      int ret = (int) RCL_TAKE.invokeExact(MemorySegment.ofAddress(subscriptionHandle),
+          MemorySegment.ofAddress(messageHandle), messageInfo);
+      if (ret == RCL_RET_SUBSCRIPTION_TAKE_FAILED) {
+        return false;
+      }
+      if (ret != RCL_RET_OK) {
+        throw rclException(ret, "Failed to take from a subscription");
+      }
+      return ignoredPublisherGids == null
+          || !isIgnoredPublisher(messageInfo, ignoredPublisherGids);
+    } catch (Throwable throwable) {
+      throw unchecked(throwable);
+    }
+  }
+
+  private static boolean isIgnoredPublisher(
+      final MemorySegment messageInfo, final byte[] ignoredPublisherGids) {
+    MemorySegment gids = MemorySegment.ofArray(ignoredPublisherGids);
+    for (long offset = 0; offset + GID_STORAGE_SIZE <= ignoredPublisherGids.length;
+        offset += GID_STORAGE_SIZE) {
+      if (MemorySegment.mismatch(messageInfo, GID_DATA_OFFSET, GID_DATA_OFFSET + GID_STORAGE_SIZE,
+          gids, offset, offset + GID_STORAGE_SIZE) == -1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void publish(final long publisherHandle, final ByteBuffer message) {
+    try {
+      // The C message starts at the beginning of the buffer, whatever its position
+      MemorySegment rosMessage =
+          MemorySegment.ofAddress(MemorySegment.ofBuffer(message).address() - message.position());
+      int ret = (int) RCL_PUBLISH.invokeExact(
+          MemorySegment.ofAddress(publisherHandle), rosMessage);
+      if (ret != RCL_RET_OK) {
+        throw rclException(ret, "Failed to publish message");
+      }
+    } catch (Throwable throwable) {
+      throw unchecked(throwable);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public final void waitFor(final long[] subscriptionHandles,
+      final long[] guardConditionHandles, final long[] timerHandles,
+      final long[] serviceHandles, final long[] clientHandles, final long timeout) {
+    try {
+      // rcl_wait_set_init only accepts a zero initialized wait set
+      MemorySegment waitSet = WAIT_SET.get().fill((byte) 0);
+      int ret = (int) RCL_WAIT_SET_INIT.invokeExact(waitSet, (long) subscriptionHandles.length,
+          (long) guardConditionHandles.length, (long) timerHandles.length,
+          (long) clientHandles.length, (long) serviceHandles.length, DEFAULT_ALLOCATOR);
+      if (ret != RCL_RET_OK) {
+        throw rclException(ret, "Failed to initialize wait set");
+      }
+
+      Throwable error = null;
+      try {
+        addToWaitSet(waitSet, subscriptionHandles, RCL_WAIT_SET_ADD_SUBSCRIPTION,
+            "subscription");
+        addToWaitSet(waitSet, guardConditionHandles, RCL_WAIT_SET_ADD_GUARD_CONDITION,
+            "guard condition");
+        addToWaitSet(waitSet, timerHandles, RCL_WAIT_SET_ADD_TIMER, "timer");
+        addToWaitSet(waitSet, serviceHandles, RCL_WAIT_SET_ADD_SERVICE, "service");
+        addToWaitSet(waitSet, clientHandles, RCL_WAIT_SET_ADD_CLIENT, "client");
+
+        ret = (int) RCL_WAIT.invokeExact(waitSet, timeout);
+        if (ret != RCL_RET_OK && ret != RCL_RET_TIMEOUT) {
+          throw rclException(ret, "Failed to wait on wait set");
+        }
+
+        setReadyHandles(waitSet, SUBSCRIPTIONS_OFFSET, subscriptionHandles);
+        setReadyHandles(waitSet, GUARD_CONDITIONS_OFFSET, guardConditionHandles);
+        setReadyHandles(waitSet, TIMERS_OFFSET, timerHandles);
+        setReadyHandles(waitSet, SERVICES_OFFSET, serviceHandles);
+        setReadyHandles(waitSet, CLIENTS_OFFSET, clientHandles);
+      } catch (Throwable throwable) {
+        error = throwable;
+      }
+
+      ret = (int) RCL_WAIT_SET_FINI.invokeExact(waitSet);
+      if (error != null) {
+        throw error;
+      }
+      if (ret != RCL_RET_OK) {
+        throw rclException(ret, "Failed to destroy wait set");
+      }
+    } catch (Throwable throwable) {
+      throw unchecked(throwable);
+    }
+  }
+
+  private static void addToWaitSet(final MemorySegment waitSet, final long[] handles,
+      final MethodHandle add, final String entityName) throws Throwable {
+    for (long handle : handles) {
+      int ret = (int) add.invokeExact(waitSet, MemorySegment.ofAddress(handle));
+      if (ret != RCL_RET_OK) {
+        throw rclException(ret, "Failed to add " + entityName + " to wait set");
+      }
+    }
+  }
+
+  /**
+   * Entities that are not ready are nulled by rcl_wait, their handles are
+   * zeroed so that the caller can tell them apart.
+   */
+  private static void setReadyHandles(
+      final MemorySegment waitSet, final long offset, final long[] handles) {
+    if (handles.length == 0) {
+      return;
+    }
+    MemorySegment entities =
+        waitSet.get(ADDRESS, offset).reinterpret(handles.length * ADDRESS.byteSize());
+    for (int i = 0; i < handles.length; i++) {
+      if (entities.getAtIndex(ADDRESS, i).address() == 0) {
+        handles[i] = 0;
+      }
+    }
+  }
+}
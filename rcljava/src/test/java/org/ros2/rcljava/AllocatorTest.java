@@ -0,0 +1,113 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.SerializedSubscription;
+import org.ros2.rcljava.subscription.Subscription;
+
+/**
+ * The allocator strategy can only be chosen once per process, so the pool is tested in its own
+ * suite.
+ */
+public class AllocatorTest {
+  @BeforeClass
+  public static void setupOnce() throws Exception {
+    RCLJava.rclJavaInit(AllocatorStrategy.POOL);
+    org.apache.log4j.BasicConfigurator.configure();
+  }
+
+  @AfterClass
+  public static void tearDownOnce() {
+    RCLJava.shutdown();
+  }
+
+  @Test
+  public final void testPoolAllocatorCounters() throws Exception {
+    Node node = RCLJava.createNode("test_allocator_node");
+
+    long allocationsBefore = RCLJava.getAllocationCount();
+    long deallocationsBefore = RCLJava.getDeallocationCount();
+    long bytesBefore = RCLJava.getAllocatedBytes();
+
+    Publisher<std_msgs.msg.String> publisher = node.<std_msgs.msg.String>createPublisher(
+        std_msgs.msg.String.class, "test_topic_pool_allocator");
+
+    final int[] receivedLength = new int[1];
+    final int[] serializedLength = new int[1];
+
+    Subscription<std_msgs.msg.String> subscription =
+        node.<std_msgs.msg.String>createSubscription(std_msgs.msg.String.class,
+            "test_topic_pool_allocator", new Consumer<std_msgs.msg.String>() {
+              public void accept(final std_msgs.msg.String msg) {
+                receivedLength[0] = msg.getData().length();
+              }
+            });
+
+    // The serialized buffer starts with a capacity of 1024 bytes and is reallocated by the
+    // middleware as the messages grow, moving it to larger size classes and finally out of
+    // the pool
+    SerializedSubscription serializedSubscription = node.createSerializedSubscription(
+        "std_msgs/String", "test_topic_pool_allocator", new Consumer<ByteBuffer>() {
+          public void accept(final ByteBuffer msg) {
+            serializedLength[0] = msg.remaining();
+          }
+        });
+
+    assertTrue(RCLJava.getAllocatedBytes() > bytesBefore);
+
+    std_msgs.msg.String msg = new std_msgs.msg.String();
+    for (int length : new int[] {16, 200, 1500, 3000, 6000}) {
+      char[] data = new char[length];
+      Arrays.fill(data, 'x');
+      msg.setData(new String(data));
+
+      // Messages are taken into the C message owned by the subscription, whose string is
+      // reallocated from the pool as the messages grow and released when it is disposed
+      while (RCLJava.ok() && (receivedLength[0] != length || serializedLength[0] <= length)) {
+        publisher.publish(msg);
+        RCLJava.spinOnce(node);
+      }
+    }
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    serializedSubscription.dispose();
+    assertEquals(0, serializedSubscription.getHandle());
+
+    long allocations = RCLJava.getAllocationCount() - allocationsBefore;
+    long deallocations = RCLJava.getDeallocationCount() - deallocationsBefore;
+    assertTrue(allocations > 0);
+    assertEquals(allocations, deallocations);
+    assertEquals(bytesBefore, RCLJava.getAllocatedBytes());
+
+    node.dispose();
+  }
+}
@@ -0,0 +1,196 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.concurrent.Callback;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.node.ComposableNode;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.SerializedSubscription;
+import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.timer.WallTimer;
+
+/**
+ * Every entity of an executor is waited on in a single native call, which
+ * reports readiness by zeroing the handles of the entities that are not
+ * ready. These tests check that readiness is mapped back to the right
+ * entities.
+ */
+public class ExecutorTest {
+  private static final int MAX_SPINS = 500;
+
+  private static final long SPIN_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private Node node;
+
+  private Executor executor;
+
+  @BeforeClass
+  public static void setupOnce() throws Exception {
+    RCLJava.rclJavaInit();
+    org.apache.log4j.BasicConfigurator.configure();
+  }
+
+  @Before
+  public void setUp() {
+    this.node = RCLJava.createNode("test_executor_node");
+    final Node composedNode = this.node;
+    this.executor = new SingleThreadedExecutor();
+    this.executor.addNode(new ComposableNode() {
+      public Node getNode() {
+        return composedNode;
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    this.node.dispose();
+  }
+
+  private static Consumer<std_msgs.msg.String> countingConsumer(
+      final int[] counts, final int index) {
+    return new Consumer<std_msgs.msg.String>() {
+      public void accept(final std_msgs.msg.String msg) {
+        counts[index]++;
+      }
+    };
+  }
+
+  private static Callback countingCallback(final int[] counts, final int index) {
+    return new Callback() {
+      public void call() {
+        counts[index]++;
+      }
+    };
+  }
+
+  @Test
+  public final void testNativeBackend() throws Exception {
+    // The FFM backend is used whenever its jar is on the classpath and the JVM supports it
+    String javaVersion = System.getProperty("java.specification.version");
+    boolean ffmSupported = !javaVersion.startsWith("1.") && Integer.parseInt(javaVersion) >= 22;
+    boolean ffmOnClasspath = ExecutorTest.class.getClassLoader().getResource(
+        "org/ros2/rcljava/backend/ffm/FFMBackend.class") != null;
+    boolean ffmSelected =
+        "ffm".equals(System.getProperty(RCLJava.NATIVE_BACKEND_PROPERTY, "ffm"));
+    assertEquals(ffmSupported && ffmOnClasspath && ffmSelected ? "ffm" : "jni",
+        RCLJava.getNativeBackend().getName());
+  }
+
+  @Test
+  public final void testWaitExecutesOnlyReadySubscription() throws Exception {
+    int[] received = new int[8];
+    Subscription[] subscriptions = new Subscription[received.length];
+    for (int i = 0; i < received.length; i++) {
+      subscriptions[i] = this.node.<std_msgs.msg.String>createSubscription(
+          std_msgs.msg.String.class, "test_topic_executor_wait_" + i,
+          countingConsumer(received, i));
+    }
+
+    Publisher<std_msgs.msg.String> publisher = this.node.<std_msgs.msg.String>createPublisher(
+        std_msgs.msg.String.class, "test_topic_executor_wait_5");
+    std_msgs.msg.String msg = new std_msgs.msg.String();
+    msg.setData("wait");
+
+    for (int spins = 0; spins < MAX_SPINS && received[5] == 0; spins++) {
+      publisher.publish(msg);
+      this.executor.spinOnce(SPIN_TIMEOUT);
+    }
+    assertTrue(received[5] > 0);
+
+    publisher.dispose();
+    for (int spins = 0; spins < 10; spins++) {
+      this.executor.spinSome();
+    }
+
+    for (int i = 0; i < received.length; i++) {
+      if (i != 5) {
+        assertEquals(0, received[i]);
+      }
+      subscriptions[i].dispose();
+      assertEquals(0, subscriptions[i].getHandle());
+    }
+  }
+
+  @Test
+  public final void testWaitExecutesSerializedSubscription() throws Exception {
+    int[] received = new int[1];
+    final int[] serializedReceived = new int[1];
+
+    Subscription<std_msgs.msg.String> subscription =
+        this.node.<std_msgs.msg.String>createSubscription(std_msgs.msg.String.class,
+            "test_topic_executor_wait_regular", countingConsumer(received, 0));
+
+    // Serialized subscriptions are waited on after the regular ones, in the same array
+    SerializedSubscription serializedSubscription = this.node.createSerializedSubscription(
+        "std_msgs/String", "test_topic_executor_wait_serialized", new Consumer<ByteBuffer>() {
+          public void accept(final ByteBuffer msg) {
+            serializedReceived[0]++;
+          }
+        });
+
+    Publisher<std_msgs.msg.String> publisher = this.node.<std_msgs.msg.String>createPublisher(
+        std_msgs.msg.String.class, "test_topic_executor_wait_serialized");
+    std_msgs.msg.String msg = new std_msgs.msg.String();
+    msg.setData("wait");
+
+    for (int spins = 0; spins < MAX_SPINS && serializedReceived[0] == 0; spins++) {
+      publisher.publish(msg);
+      this.executor.spinOnce(SPIN_TIMEOUT);
+    }
+    assertTrue(serializedReceived[0] > 0);
+    assertEquals(0, received[0]);
+
+    publisher.dispose();
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    serializedSubscription.dispose();
+    assertEquals(0, serializedSubscription.getHandle());
+  }
+
+  @Test
+  public final void testWaitExecutesOnlyReadyTimer() throws Exception {
+    int[] calls = new int[2];
+    WallTimer slowTimer =
+        this.node.createWallTimer(1, TimeUnit.HOURS, countingCallback(calls, 0));
+    WallTimer fastTimer =
+        this.node.createWallTimer(10, TimeUnit.MILLISECONDS, countingCallback(calls, 1));
+
+    for (int spins = 0; spins < MAX_SPINS && calls[1] < 3; spins++) {
+      this.executor.spinOnce(SPIN_TIMEOUT);
+    }
+    assertTrue(calls[1] >= 3);
+    assertEquals(0, calls[0]);
+
+    slowTimer.cancel();
+    fastTimer.cancel();
+  }
+}
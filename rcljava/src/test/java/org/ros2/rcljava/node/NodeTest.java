@@ -15,9 +15,13 @@
 
 package org.ros2.rcljava.node;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -27,18 +31,53 @@ import org.junit.Test;
 
 import java.lang.ref.WeakReference;
 
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.concurrent.Flow;
 import org.ros2.rcljava.concurrent.RCLFuture;
+import org.ros2.rcljava.consumers.BiConsumer;
 import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.consumers.Supplier;
 import org.ros2.rcljava.executors.Executor;
 import org.ros2.rcljava.executors.MultiThreadedExecutor;
 import org.ros2.rcljava.executors.SingleThreadedExecutor;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.intraprocess.IntraProcessManager;
+import org.ros2.rcljava.intraprocess.IntraProcessSubscription;
 import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.AsyncPublisher;
+import org.ros2.rcljava.publisher.OverflowPolicy;
+import org.ros2.rcljava.publisher.PublishBatch;
 import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.publisher.PublishingSubscriber;
+import org.ros2.rcljava.qos.QoSProfile;
+import org.ros2.rcljava.qos.policies.Durability;
+import org.ros2.rcljava.qos.policies.History;
+import org.ros2.rcljava.qos.policies.Reliability;
+import org.ros2.rcljava.subscription.BatchSubscription;
+import org.ros2.rcljava.subscription.FieldProjection;
+import org.ros2.rcljava.subscription.FilteredSubscription;
+import org.ros2.rcljava.subscription.FlowSubscription;
+import org.ros2.rcljava.subscription.KeepLatestSubscription;
+import org.ros2.rcljava.subscription.LoanedSubscription;
+import org.ros2.rcljava.subscription.MessageFilter;
+import org.ros2.rcljava.subscription.MessageInfo;
+import org.ros2.rcljava.subscription.MessageInfoSubscription;
+import org.ros2.rcljava.subscription.PollingSubscription;
+import org.ros2.rcljava.subscription.SerializedSubscription;
 import org.ros2.rcljava.subscription.Subscription;
+import org.ros2.rcljava.subscription.SubscriptionMetrics;
+import org.ros2.rcljava.subscription.ViewSubscription;
 
 public class NodeTest {
   private Node node;
@@ -215,6 +254,69 @@ public class NodeTest {
     assertEquals(0, subscription.getHandle());
   }
 
+  @Test
+  public final void testPubSubSerialized() throws Exception {
+    Publisher<std_msgs.msg.String> publisher = node.<std_msgs.msg.String>createPublisher(
+        std_msgs.msg.String.class, "test_topic_serialized");
+
+    final RCLFuture<byte[]> serializedFuture = new RCLFuture<byte[]>(new WeakReference<Node>(node));
+
+    SerializedSubscription serializedSubscription = node.createSerializedSubscription(
+        "std_msgs/String", "test_topic_serialized", new Consumer<ByteBuffer>() {
+          public void accept(final ByteBuffer msg) {
+            if (!serializedFuture.isDone()) {
+              // The buffer is reused by the subscription, so its contents must be copied
+              byte[] bytes = new byte[msg.remaining()];
+              msg.get(bytes);
+              serializedFuture.set(bytes);
+            }
+          }
+        });
+
+    std_msgs.msg.String msg = new std_msgs.msg.String();
+    msg.setData("Hello");
+
+    while (RCLJava.ok() && !serializedFuture.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    byte[] serializedValue = serializedFuture.get();
+    assertTrue(serializedValue.length > 0);
+
+    // Relay the serialized message without the generated Java class and check that it
+    // can be deserialized again
+    Publisher<MessageDefinition> serializedPublisher =
+        node.createSerializedPublisher("std_msgs/msg/String", "test_topic_serialized_relay");
+
+    RCLFuture<std_msgs.msg.String> future =
+        new RCLFuture<std_msgs.msg.String>(new WeakReference<Node>(node));
+
+    Subscription<std_msgs.msg.String> subscription =
+        node.<std_msgs.msg.String>createSubscription(std_msgs.msg.String.class,
+            "test_topic_serialized_relay", new TestConsumer<std_msgs.msg.String>(future));
+
+    ByteBuffer serializedMsg = ByteBuffer.wrap(serializedValue);
+
+    while (RCLJava.ok() && !future.isDone()) {
+      serializedPublisher.publishSerialized(serializedMsg);
+      RCLJava.spinOnce(node);
+    }
+
+    std_msgs.msg.String value = future.get();
+    assertEquals("Hello", value.getData());
+    assertEquals(0, serializedMsg.position());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    serializedPublisher.dispose();
+    assertEquals(0, serializedPublisher.getHandle());
+    serializedSubscription.dispose();
+    assertEquals(0, serializedSubscription.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
   @Test
   public final void testPubSubBoundedArrayNested() throws Exception {
     Publisher<rcljava.msg.BoundedArrayNested> publisher =
@@ -419,6 +521,123 @@ public class NodeTest {
     assertEquals(0, subscription.getHandle());
   }
 
+  @Test
+  public final void testPubSubDynamicArrayNestedResized() throws Exception {
+    Publisher<rcljava.msg.DynamicArrayNested> publisher =
+        node.<rcljava.msg.DynamicArrayNested>createPublisher(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_dynamic_array_nested_resized");
+
+    RCLFuture<rcljava.msg.DynamicArrayNested> future1 =
+        new RCLFuture<rcljava.msg.DynamicArrayNested>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayNested> subscription1 =
+        node.<rcljava.msg.DynamicArrayNested>createSubscription(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_dynamic_array_nested_resized",
+            new TestConsumer<rcljava.msg.DynamicArrayNested>(future1));
+
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+
+    while (RCLJava.ok() && !future1.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    assertEquals(2, future1.get().getPrimitiveValues().size());
+    subscription1.dispose();
+
+    // The publisher reuses its native message, so a shorter sequence must not leave
+    // stale elements behind
+    RCLFuture<rcljava.msg.DynamicArrayNested> future2 =
+        new RCLFuture<rcljava.msg.DynamicArrayNested>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayNested> subscription2 =
+        node.<rcljava.msg.DynamicArrayNested>createSubscription(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_dynamic_array_nested_resized",
+            new TestConsumer<rcljava.msg.DynamicArrayNested>(future2));
+
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives2}));
+
+    while (RCLJava.ok() && !future2.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.DynamicArrayNested value = future2.get();
+    assertEquals(1, value.getPrimitiveValues().size());
+
+    assertTrue(checkPrimitives(value.getPrimitiveValues().get(0), boolValue2, byteValue2,
+        charValue2, float32Value2, float64Value2, int8Value2, uint8Value2, int16Value2,
+        uint16Value2, int32Value2, uint32Value2, int64Value2, uint64Value2, stringValue2));
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription2.dispose();
+    assertEquals(0, subscription2.getHandle());
+  }
+
+  @Test
+  public final void testPubSubProjected() throws Exception {
+    Publisher<rcljava.msg.DynamicArrayNested> publisher =
+        node.<rcljava.msg.DynamicArrayNested>createPublisher(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_projected");
+
+    RCLFuture<rcljava.msg.DynamicArrayNested> future =
+        new RCLFuture<rcljava.msg.DynamicArrayNested>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayNested> subscription =
+        node.<rcljava.msg.DynamicArrayNested>createProjectedSubscription(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_projected",
+            Arrays.asList(new String[] {"primitive_values.int32_value"}),
+            new TestConsumer<rcljava.msg.DynamicArrayNested>(future));
+
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.DynamicArrayNested value = future.get();
+    assertEquals(2, value.getPrimitiveValues().size());
+
+    // Only the projected field is converted, the rest keep their default values
+    rcljava.msg.Primitives primitivesValue1 = value.getPrimitiveValues().get(0);
+    assertEquals(int32Value1, primitivesValue1.getInt32Value());
+    assertEquals(0, primitivesValue1.getInt64Value());
+    assertEquals("", primitivesValue1.getStringValue());
+
+    rcljava.msg.Primitives primitivesValue2 = value.getPrimitiveValues().get(1);
+    assertEquals(int32Value2, primitivesValue2.getInt32Value());
+    assertEquals(0, primitivesValue2.getInt64Value());
+    assertEquals("", primitivesValue2.getStringValue());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testFieldProjectionLayout() throws Exception {
+    FieldProjection fieldProjection = new FieldProjection(
+        rcljava.msg.Builtins.class, Arrays.asList(new String[] {"time_value.sec"}));
+    assertArrayEquals(new long[] {6, 1 << 1, 0, 3, 1 << 0, 0}, fieldProjection.getLayout());
+
+    // Selecting a whole message takes precedence over its fields
+    fieldProjection = new FieldProjection(rcljava.msg.Builtins.class,
+        Arrays.asList(new String[] {"time_value.sec", "time_value", "duration_value.nanosec"}));
+    assertArrayEquals(new long[] {9, (1 << 0) | (1 << 1), 0, 3, 1 << 1, 0, 3, -1, 0},
+        fieldProjection.getLayout());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testFieldProjectionUnknownField() throws Exception {
+    new FieldProjection(
+        rcljava.msg.Builtins.class, Arrays.asList(new String[] {"time_value.seconds"}));
+  }
+
   @Test
   public final void testPubSubDynamicArrayPrimitives() throws Exception {
     Publisher<rcljava.msg.DynamicArrayPrimitives> publisher =
@@ -789,6 +1008,95 @@ public class NodeTest {
     assertEquals(0, subscription.getHandle());
   }
 
+  @Test
+  public final void testPubSubLoaned() throws Exception {
+    Publisher<rcljava.msg.UInt32> publisher =
+        node.<rcljava.msg.UInt32>createPublisher(rcljava.msg.UInt32.class, "test_topic_loaned");
+
+    final RCLFuture<Integer> loanedFuture =
+        new RCLFuture<Integer>(new WeakReference<Node>(node));
+
+    LoanedSubscription<rcljava.msg.UInt32> loanedSubscription =
+        node.<rcljava.msg.UInt32>createLoanedSubscription(rcljava.msg.UInt32.class,
+            "test_topic_loaned", new Consumer<ByteBuffer>() {
+              public void accept(final ByteBuffer msg) {
+                if (!loanedFuture.isDone()) {
+                  loanedFuture.set(new rcljava.msg.UInt32.Loaned(msg).getData());
+                }
+              }
+            });
+
+    RCLFuture<rcljava.msg.UInt32> future =
+        new RCLFuture<rcljava.msg.UInt32>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.UInt32> subscription =
+        node.<rcljava.msg.UInt32>createSubscription(rcljava.msg.UInt32.class, "test_topic_loaned",
+            new TestConsumer<rcljava.msg.UInt32>(future));
+
+    rcljava.msg.UInt32.Loaned msg = new rcljava.msg.UInt32.Loaned(publisher.borrowLoanedMessage());
+    msg.setData(0xdeadbeef);
+
+    while (RCLJava.ok() && !(future.isDone() && loanedFuture.isDone())) {
+      publisher.publishLoaned(msg.getBuffer());
+      RCLJava.spinOnce(node);
+      // The loan ends when the message is published, the message keeps its values
+      assertSame(msg.getBuffer(), publisher.borrowLoanedMessage());
+    }
+
+    assertEquals(0xdeadbeef, loanedFuture.get().intValue());
+    assertEquals(0xdeadbeef, future.get().getData());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    loanedSubscription.dispose();
+    assertEquals(0, loanedSubscription.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testBorrowLoanedExclusive() throws Exception {
+    Publisher<rcljava.msg.UInt32> publisher = node.<rcljava.msg.UInt32>createPublisher(
+        rcljava.msg.UInt32.class, "test_topic_loaned_exclusive");
+
+    ByteBuffer buffer = publisher.borrowLoanedMessage();
+    try {
+      publisher.borrowLoanedMessage();
+      fail("A borrowed message was borrowed again");
+    } catch (IllegalStateException ise) {
+      // Expected, the message has not been published yet
+    }
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+
+    // The loan outlives the publisher, but it can no longer be published or borrowed again
+    new rcljava.msg.UInt32.Loaned(buffer).setData(42);
+    try {
+      publisher.publishLoaned(buffer);
+      fail("A message was published after its publisher was disposed");
+    } catch (IllegalStateException ise) {
+      // Expected
+    }
+    try {
+      publisher.borrowLoanedMessage();
+      fail("A message was borrowed after its publisher was disposed");
+    } catch (IllegalStateException ise) {
+      // Expected
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public final void testBorrowLoanedVariableSize() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_loaned_variable_size");
+    try {
+      publisher.borrowLoanedMessage();
+    } finally {
+      publisher.dispose();
+    }
+  }
+
   @Test
   public final void testPubUInt32MultipleNodes() throws Exception {
     Executor executor = new MultiThreadedExecutor();
@@ -855,4 +1163,1005 @@ public class NodeTest {
     subscriptionTwo.dispose();
     assertEquals(0, subscriptionTwo.getHandle());
   }
+
+  @Test
+  public final void testPubSubIntraProcess() throws Exception {
+    final Node publisherNode = RCLJava.createNode("publisher_node_intra_process", "", true);
+    final Node subscriptionNode = RCLJava.createNode("subscription_node_intra_process", "", true);
+
+    assertTrue(publisherNode.getUseIntraProcessComms());
+    assertTrue(subscriptionNode.getUseIntraProcessComms());
+
+    IntraProcessManager intraProcessManager = RCLJava.getIntraProcessManager();
+    int publisherGidsLength = intraProcessManager.getPublisherGids().length;
+
+    Publisher<rcljava.msg.UInt32> publisher = publisherNode.<rcljava.msg.UInt32>createPublisher(
+        rcljava.msg.UInt32.class, "test_topic_intra_process");
+
+    // The copies delivered by the middleware are dropped natively by comparing their publisher
+    assertEquals(publisherGidsLength + IntraProcessManager.GID_SIZE,
+        intraProcessManager.getPublisherGids().length);
+
+    RCLFuture<rcljava.msg.UInt32> future =
+        new RCLFuture<rcljava.msg.UInt32>(new WeakReference<Node>(subscriptionNode));
+
+    Subscription<rcljava.msg.UInt32> subscription =
+        subscriptionNode.<rcljava.msg.UInt32>createSubscription(rcljava.msg.UInt32.class,
+            "test_topic_intra_process", new TestConsumer<rcljava.msg.UInt32>(future));
+
+    assertEquals(1, subscriptionNode.getIntraProcessSubscriptions().size());
+
+    rcljava.msg.UInt32 msg = new rcljava.msg.UInt32();
+    msg.setData(12345);
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(subscriptionNode);
+    }
+
+    // The published instance is handed over as is
+    assertSame(msg, future.get());
+
+    // Only the subscription of a node without intra-process communication is external, once
+    // the graph knows of both
+    Subscription<rcljava.msg.UInt32> externalSubscription =
+        node.<rcljava.msg.UInt32>createSubscription(rcljava.msg.UInt32.class,
+            "test_topic_intra_process", new Consumer<rcljava.msg.UInt32>() {
+              public void accept(final rcljava.msg.UInt32 msg) {}
+            });
+    int externalCount = 0;
+    for (int i = 0; i < 500 && externalCount != 1; i++) {
+      Thread.sleep(10);
+      externalCount = intraProcessManager.countExternalSubscriptions(
+          publisherNode.getHandle(), "/test_topic_intra_process");
+    }
+    assertEquals(1, externalCount);
+    externalSubscription.dispose();
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    assertEquals(publisherGidsLength, intraProcessManager.getPublisherGids().length);
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    publisherNode.dispose();
+    subscriptionNode.dispose();
+  }
+
+  @Test
+  public final void testIntraProcessDepth() throws Exception {
+    final Node intraProcessNode = RCLJava.createNode("node_intra_process_depth", "", true);
+
+    Publisher<rcljava.msg.UInt32> publisher = intraProcessNode.<rcljava.msg.UInt32>createPublisher(
+        rcljava.msg.UInt32.class, "test_topic_intra_process_depth");
+
+    QoSProfile qosProfile =
+        new QoSProfile(History.KEEP_LAST, 2, Reliability.RELIABLE, Durability.VOLATILE, false);
+
+    Subscription<rcljava.msg.UInt32> subscription =
+        intraProcessNode.<rcljava.msg.UInt32>createSubscription(rcljava.msg.UInt32.class,
+            "test_topic_intra_process_depth", new Consumer<rcljava.msg.UInt32>() {
+              public void accept(final rcljava.msg.UInt32 msg) {}
+            }, qosProfile);
+
+    IntraProcessSubscription intraProcessSubscription =
+        intraProcessNode.getIntraProcessSubscriptions().iterator().next();
+    assertEquals(2, intraProcessSubscription.getDepth());
+
+    for (int i = 0; i < 5; i++) {
+      rcljava.msg.UInt32 msg = new rcljava.msg.UInt32();
+      msg.setData(i);
+      publisher.publish(msg);
+    }
+
+    // Only the latest messages are kept
+    assertEquals(2, intraProcessSubscription.size());
+    assertEquals(3, ((rcljava.msg.UInt32) intraProcessSubscription.poll()).getData());
+    assertEquals(4, ((rcljava.msg.UInt32) intraProcessSubscription.poll()).getData());
+    assertEquals(null, intraProcessSubscription.poll());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    assertEquals(0, intraProcessSubscription.getHandle());
+    intraProcessNode.dispose();
+  }
+
+  @Test
+  public final void testIntraProcessCopies() throws Exception {
+    final Node intraProcessNode = RCLJava.createNode("node_intra_process_copies", "", true);
+
+    Publisher<rcljava.msg.UInt32> publisher = intraProcessNode.<rcljava.msg.UInt32>createPublisher(
+        rcljava.msg.UInt32.class, "test_topic_intra_process_copies");
+
+    Consumer<rcljava.msg.UInt32> callback = new Consumer<rcljava.msg.UInt32>() {
+      public void accept(final rcljava.msg.UInt32 msg) {}
+    };
+    Subscription<rcljava.msg.UInt32> subscriptionOne =
+        intraProcessNode.<rcljava.msg.UInt32>createSubscription(
+            rcljava.msg.UInt32.class, "test_topic_intra_process_copies", callback);
+    Subscription<rcljava.msg.UInt32> subscriptionTwo =
+        intraProcessNode.<rcljava.msg.UInt32>createSubscription(
+            rcljava.msg.UInt32.class, "test_topic_intra_process_copies", callback);
+
+    Iterator<IntraProcessSubscription> intraProcessSubscriptions =
+        intraProcessNode.getIntraProcessSubscriptions().iterator();
+    IntraProcessSubscription intraProcessSubscriptionOne = intraProcessSubscriptions.next();
+    IntraProcessSubscription intraProcessSubscriptionTwo = intraProcessSubscriptions.next();
+
+    rcljava.msg.UInt32 msg = new rcljava.msg.UInt32();
+    msg.setData(12345);
+    publisher.publish(msg);
+
+    // Only the last subscription receives the published instance, the other one gets a copy
+    rcljava.msg.UInt32 copy = (rcljava.msg.UInt32) intraProcessSubscriptionOne.poll();
+    assertNotSame(msg, copy);
+    assertEquals(msg, copy);
+    assertSame(msg, intraProcessSubscriptionTwo.poll());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscriptionOne.dispose();
+    assertEquals(0, subscriptionOne.getHandle());
+    subscriptionTwo.dispose();
+    assertEquals(0, subscriptionTwo.getHandle());
+    intraProcessNode.dispose();
+  }
+
+  @Test
+  public final void testPubSubStringCache() throws Exception {
+    rcljava.msg.DynamicArrayPrimitives.setStringCacheCapacity("string_values", 4);
+
+    Publisher<rcljava.msg.DynamicArrayPrimitives> publisher =
+        node.<rcljava.msg.DynamicArrayPrimitives>createPublisher(
+            rcljava.msg.DynamicArrayPrimitives.class, "test_topic_string_cache");
+
+    RCLFuture<rcljava.msg.DynamicArrayPrimitives> futureOne =
+        new RCLFuture<rcljava.msg.DynamicArrayPrimitives>(new WeakReference<Node>(node));
+    RCLFuture<rcljava.msg.DynamicArrayPrimitives> futureTwo =
+        new RCLFuture<rcljava.msg.DynamicArrayPrimitives>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayPrimitives> subscriptionOne =
+        node.<rcljava.msg.DynamicArrayPrimitives>createSubscription(
+            rcljava.msg.DynamicArrayPrimitives.class, "test_topic_string_cache",
+            new TestConsumer<rcljava.msg.DynamicArrayPrimitives>(futureOne));
+    Subscription<rcljava.msg.DynamicArrayPrimitives> subscriptionTwo =
+        node.<rcljava.msg.DynamicArrayPrimitives>createSubscription(
+            rcljava.msg.DynamicArrayPrimitives.class, "test_topic_string_cache",
+            new TestConsumer<rcljava.msg.DynamicArrayPrimitives>(futureTwo));
+
+    rcljava.msg.DynamicArrayPrimitives msg = new rcljava.msg.DynamicArrayPrimitives();
+    msg.setStringValues(new String[] {"cached", "other", "cached"});
+
+    while (RCLJava.ok() && !(futureOne.isDone() && futureTwo.isDone())) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    List<String> valuesOne = futureOne.get().getStringValues();
+    List<String> valuesTwo = futureTwo.get().getStringValues();
+    assertEquals(Arrays.asList("cached", "other", "cached"), valuesOne);
+    assertSame(valuesOne.get(0), valuesOne.get(2));
+    assertSame(valuesOne.get(0), valuesTwo.get(0));
+    assertSame(valuesOne.get(1), valuesTwo.get(1));
+
+    rcljava.msg.DynamicArrayPrimitives.setStringCacheCapacity("string_values", 0);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscriptionOne.dispose();
+    assertEquals(0, subscriptionOne.getHandle());
+    subscriptionTwo.dispose();
+    assertEquals(0, subscriptionTwo.getHandle());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testStringCacheNonStringField() {
+    rcljava.msg.DynamicArrayPrimitives.setStringCacheCapacity("int32_values", 4);
+  }
+
+  @Test
+  public final void testPubSubColumnar() throws Exception {
+    Publisher<rcljava.msg.DynamicArrayPoint> publisher =
+        node.<rcljava.msg.DynamicArrayPoint>createPublisher(
+            rcljava.msg.DynamicArrayPoint.class, "test_topic_columnar");
+
+    RCLFuture<rcljava.msg.DynamicArrayPoint> future =
+        new RCLFuture<rcljava.msg.DynamicArrayPoint>(new WeakReference<Node>(node));
+    RCLFuture<rcljava.msg.DynamicArrayPoint> rowFuture =
+        new RCLFuture<rcljava.msg.DynamicArrayPoint>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayPoint> subscription =
+        node.<rcljava.msg.DynamicArrayPoint>createColumnarSubscription(
+            rcljava.msg.DynamicArrayPoint.class, "test_topic_columnar",
+            Arrays.asList(new String[] {"point_values"}),
+            new TestConsumer<rcljava.msg.DynamicArrayPoint>(future));
+
+    // Columnar conversion is an option of the subscription, not of the message type
+    Subscription<rcljava.msg.DynamicArrayPoint> rowSubscription =
+        node.<rcljava.msg.DynamicArrayPoint>createSubscription(
+            rcljava.msg.DynamicArrayPoint.class, "test_topic_columnar",
+            new TestConsumer<rcljava.msg.DynamicArrayPoint>(rowFuture));
+
+    rcljava.msg.DynamicArrayPoint msg = new rcljava.msg.DynamicArrayPoint();
+    for (int i = 0; i < 3; i++) {
+      rcljava.msg.Point point = new rcljava.msg.Point();
+      point.setX(i);
+      point.setY(i * 2);
+      point.setZ(i * 3);
+      msg.getPointValues().add(point);
+    }
+
+    while (RCLJava.ok() && !(future.isDone() && rowFuture.isDone())) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.DynamicArrayPoint value = future.get();
+    rcljava.msg.Point.Columns columns = value.getPointValuesColumns();
+    assertEquals(3, columns.getSize());
+    assertArrayEquals(new double[] {0, 1, 2}, columns.x(), 0.0);
+    assertArrayEquals(new double[] {0, 2, 4}, columns.y(), 0.0);
+    assertArrayEquals(new double[] {0, 3, 6}, columns.z(), 0.0);
+    assertSame(columns, value.getPointValuesColumns());
+    assertEquals(msg, value);
+
+    rcljava.msg.DynamicArrayPoint rowValue = rowFuture.get();
+    assertTrue(rowValue.getPointValues() instanceof ArrayList);
+    assertEquals(msg, rowValue);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    rowSubscription.dispose();
+    assertEquals(0, rowSubscription.getHandle());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void testColumnarNonColumnarField() throws Exception {
+    new FieldProjection(rcljava.msg.DynamicArrayPrimitives.class,
+        Collections.<String>emptyList(), Arrays.asList(new String[] {"int32_values"}));
+  }
+
+  @Test
+  public final void testPubSubParallelConversion() throws Exception {
+    RCLJava.setParallelConversionThreshold(16);
+    assertEquals(16, RCLJava.getParallelConversionThreshold());
+
+    Publisher<rcljava.msg.DynamicArrayNested> publisher =
+        node.<rcljava.msg.DynamicArrayNested>createPublisher(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_parallel_conversion");
+
+    RCLFuture<rcljava.msg.DynamicArrayNested> future =
+        new RCLFuture<rcljava.msg.DynamicArrayNested>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.DynamicArrayNested> subscription =
+        node.<rcljava.msg.DynamicArrayNested>createSubscription(
+            rcljava.msg.DynamicArrayNested.class, "test_topic_parallel_conversion",
+            new TestConsumer<rcljava.msg.DynamicArrayNested>(future));
+
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    for (int i = 0; i < 1000; i++) {
+      rcljava.msg.Primitives primitives = new rcljava.msg.Primitives();
+      primitives.setInt32Value(i);
+      primitives.setStringValue("element " + i);
+      msg.getPrimitiveValues().add(primitives);
+    }
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.DynamicArrayNested value = future.get();
+    assertEquals(msg, value);
+
+    RCLJava.setParallelConversionThreshold(0);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPubSubAllocatorCounters() throws Exception {
+    long allocationsBefore = RCLJava.getAllocationCount();
+    long bytesBefore = RCLJava.getAllocatedBytes();
+
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_allocator_counters");
+
+    RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createSubscription(rcljava.msg.Primitives.class,
+            "test_topic_allocator_counters", new TestConsumer<rcljava.msg.Primitives>(future));
+
+    assertTrue(RCLJava.getAllocatedBytes() > bytesBefore);
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("allocator");
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = future.get();
+    assertEquals("allocator", value.getStringValue());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+
+    assertTrue(RCLJava.getAllocationCount() > allocationsBefore);
+    assertEquals(bytesBefore, RCLJava.getAllocatedBytes());
+  }
+
+  @Test
+  public final void testPubSubView() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_view");
+
+    final RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    final int[] int32Values = new int[1];
+
+    ViewSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives, rcljava.msg.Primitives.View>createViewSubscription(
+            rcljava.msg.Primitives.class, "test_topic_view",
+            new Consumer<rcljava.msg.Primitives.View>() {
+              public void accept(final rcljava.msg.Primitives.View view) {
+                if (!future.isDone()) {
+                  int32Values[0] = view.getInt32Value();
+                  future.set(view.toMessage());
+                }
+              }
+            });
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setInt32Value(-12345);
+    msg.setStringValue("view");
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = future.get();
+    assertEquals(-12345, int32Values[0]);
+    assertEquals(-12345, value.getInt32Value());
+    assertEquals("view", value.getStringValue());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPublishBatch() throws Exception {
+    Publisher<rcljava.msg.Primitives> primitivesPublisher =
+        node.<rcljava.msg.Primitives>createPublisher(
+            rcljava.msg.Primitives.class, "test_topic_batch_primitives");
+
+    Publisher<std_msgs.msg.String> stringPublisher =
+        node.<std_msgs.msg.String>createPublisher(
+            std_msgs.msg.String.class, "test_topic_batch_string");
+
+    RCLFuture<rcljava.msg.Primitives> primitivesFuture =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    RCLFuture<std_msgs.msg.String> stringFuture =
+        new RCLFuture<std_msgs.msg.String>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.Primitives> primitivesSubscription =
+        node.<rcljava.msg.Primitives>createSubscription(rcljava.msg.Primitives.class,
+            "test_topic_batch_primitives",
+            new TestConsumer<rcljava.msg.Primitives>(primitivesFuture));
+
+    Subscription<std_msgs.msg.String> stringSubscription =
+        node.<std_msgs.msg.String>createSubscription(std_msgs.msg.String.class,
+            "test_topic_batch_string", new TestConsumer<std_msgs.msg.String>(stringFuture));
+
+    rcljava.msg.Primitives primitivesMsg = new rcljava.msg.Primitives();
+    primitivesMsg.setStringValue("batch");
+    primitivesMsg.setInt32Value(42);
+
+    std_msgs.msg.String stringMsg = new std_msgs.msg.String();
+    stringMsg.setData("batch");
+
+    PublishBatch batch = new PublishBatch();
+    batch.add(primitivesPublisher, primitivesMsg).add(stringPublisher, stringMsg);
+    assertEquals(2, batch.size());
+
+    while (RCLJava.ok() && !primitivesFuture.isDone()) {
+      primitivesPublisher.publish(Arrays.asList(primitivesMsg, primitivesMsg, primitivesMsg));
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = primitivesFuture.get();
+    assertEquals("batch", value.getStringValue());
+    assertEquals(42, value.getInt32Value());
+
+    while (RCLJava.ok() && !stringFuture.isDone()) {
+      node.publish(batch);
+      RCLJava.spinOnce(node);
+    }
+
+    assertEquals("batch", stringFuture.get().getData());
+
+    primitivesPublisher.dispose();
+    assertEquals(0, primitivesPublisher.getHandle());
+    stringPublisher.dispose();
+    assertEquals(0, stringPublisher.getHandle());
+    primitivesSubscription.dispose();
+    assertEquals(0, primitivesSubscription.getHandle());
+    stringSubscription.dispose();
+    assertEquals(0, stringSubscription.getHandle());
+  }
+
+  @Test
+  public final void testAsyncPublisher() throws Exception {
+    AsyncPublisher<rcljava.msg.Primitives> publisher =
+        node.<rcljava.msg.Primitives>createAsyncPublisher(rcljava.msg.Primitives.class,
+            "test_topic_async", 16, OverflowPolicy.CONFLATE);
+    assertEquals(16, publisher.getCapacity());
+    assertEquals(OverflowPolicy.CONFLATE, publisher.getOverflowPolicy());
+
+    RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createSubscription(rcljava.msg.Primitives.class,
+            "test_topic_async", new TestConsumer<rcljava.msg.Primitives>(future));
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("async");
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = future.get();
+    assertEquals("async", value.getStringValue());
+    assertTrue(publisher.getPublishedCount() > 0);
+    assertTrue(publisher.getQueueDepth() <= publisher.getCapacity());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    assertEquals(0, publisher.getQueueDepth());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testAsyncPublisherConflate() throws Exception {
+    AsyncPublisher<rcljava.msg.Primitives> publisher =
+        node.<rcljava.msg.Primitives>createAsyncPublisher(rcljava.msg.Primitives.class,
+            "test_topic_async_conflate", 16, OverflowPolicy.CONFLATE);
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    for (int i = 0; i < 1000; i++) {
+      publisher.publish(msg);
+      // Newer messages replace the pending one instead of queuing behind it
+      assertTrue(publisher.getQueueDepth() <= 1);
+    }
+
+    publisher.dispose();
+    assertTrue(publisher.getPublishedCount() > 0);
+    assertEquals(1000, publisher.getPublishedCount() + publisher.getDroppedCount());
+    assertEquals(0, publisher.getQueueDepth());
+  }
+
+  @Test
+  public final void testAsyncPublisherDisposeWhilePublishing() throws Exception {
+    final AsyncPublisher<rcljava.msg.Primitives> publisher =
+        node.<rcljava.msg.Primitives>createAsyncPublisher(rcljava.msg.Primitives.class,
+            "test_topic_async_dispose", 4, OverflowPolicy.BLOCK);
+
+    final AtomicLong queuedCount = new AtomicLong();
+    Thread[] producers = new Thread[4];
+    for (int i = 0; i < producers.length; i++) {
+      producers[i] = new Thread(new Runnable() {
+        public void run() {
+          rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+          try {
+            while (true) {
+              publisher.publish(msg);
+              queuedCount.incrementAndGet();
+            }
+          } catch (IllegalStateException ise) {
+            // The publisher has been disposed
+          }
+        }
+      });
+      producers[i].start();
+    }
+
+    while (queuedCount.get() < 100) {
+      Thread.sleep(1);
+    }
+    publisher.dispose();
+    for (Thread producer : producers) {
+      producer.join();
+    }
+
+    // Every message accepted before dispose is accounted for, none is lost in the queue
+    assertEquals(queuedCount.get(), publisher.getPublishedCount() + publisher.getDroppedCount());
+    assertEquals(0, publisher.getQueueDepth());
+    assertEquals(0, publisher.getHandle());
+  }
+
+  @Test
+  public final void testPublishSupplier() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_supplier");
+
+    final int[] suppliedCount = new int[1];
+    Supplier<rcljava.msg.Primitives> supplier = new Supplier<rcljava.msg.Primitives>() {
+      public rcljava.msg.Primitives get() {
+        suppliedCount[0]++;
+        rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+        msg.setStringValue("supplier");
+        return msg;
+      }
+    };
+
+    assertEquals(0, publisher.getSubscriptionCount());
+    publisher.publish(supplier);
+    assertEquals(0, suppliedCount[0]);
+
+    RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createSubscription(rcljava.msg.Primitives.class,
+            "test_topic_supplier", new TestConsumer<rcljava.msg.Primitives>(future));
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(supplier);
+      RCLJava.spinOnce(node);
+    }
+
+    assertEquals("supplier", future.get().getStringValue());
+    assertEquals(1, publisher.getSubscriptionCount());
+    assertTrue(suppliedCount[0] > 0);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPubSubKeepLatest() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_keep_latest");
+
+    RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    KeepLatestSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createKeepLatestSubscription(rcljava.msg.Primitives.class,
+            "test_topic_keep_latest", new TestConsumer<rcljava.msg.Primitives>(future));
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("keep_latest");
+
+    // Publish bursts until a message has been received and older ones have been skipped
+    while (RCLJava.ok() && (!future.isDone() || subscription.getSkippedMessageCount() == 0)) {
+      for (int i = 0; i < 5; ++i) {
+        msg.setInt32Value(i);
+        publisher.publish(msg);
+      }
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = future.get();
+    assertEquals("keep_latest", value.getStringValue());
+    assertTrue(subscription.getSkippedMessageCount() > 0);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPubSubFiltered() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_filtered");
+
+    RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    MessageFilter messageFilter = new MessageFilter(rcljava.msg.Primitives.class)
+        .where("int32_value", MessageFilter.Comparison.GREATER_OR_EQUAL, 3)
+        .where("bool_value", MessageFilter.Comparison.EQUAL, 1);
+
+    FilteredSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createFilteredSubscription(rcljava.msg.Primitives.class,
+            "test_topic_filtered", messageFilter,
+            new TestConsumer<rcljava.msg.Primitives>(future));
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setBoolValue(true);
+    msg.setStringValue("filtered");
+
+    while (RCLJava.ok() && !future.isDone()) {
+      for (int i = 0; i < 5; ++i) {
+        msg.setInt32Value(i);
+        publisher.publish(msg);
+      }
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Primitives value = future.get();
+    assertEquals("filtered", value.getStringValue());
+    assertTrue(value.getInt32Value() >= 3);
+    assertTrue(value.getBoolValue());
+    assertEquals(1, subscription.getAcceptedMessageCount());
+    assertEquals(
+        subscription.getRejectedMessageCount(), messageFilter.getRejectedCountByRule()[0]);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPubSubBatch() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_batch");
+
+    RCLFuture<List<rcljava.msg.Primitives>> future =
+        new RCLFuture<List<rcljava.msg.Primitives>>(new WeakReference<Node>(node));
+
+    int timerCount = node.getTimers().size();
+
+    BatchSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createBatchSubscription(rcljava.msg.Primitives.class,
+            "test_topic_batch", new TestConsumer<List<rcljava.msg.Primitives>>(future), 3,
+            10, TimeUnit.SECONDS);
+
+    // Incomplete batches are delivered by a timer of the node
+    assertEquals(timerCount + 1, node.getTimers().size());
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("batch");
+
+    int published = 0;
+    while (RCLJava.ok() && !future.isDone()) {
+      msg.setInt32Value(published++);
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    // The batch is only delivered once full, well before its maximum delay
+    List<rcljava.msg.Primitives> values = future.get();
+    assertEquals(3, values.size());
+    int first = values.get(0).getInt32Value();
+    for (int i = 0; i < values.size(); ++i) {
+      assertEquals("batch", values.get(i).getStringValue());
+      assertEquals(first + i, values.get(i).getInt32Value());
+    }
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    assertEquals(timerCount, node.getTimers().size());
+  }
+
+  @Test
+  public final void testPubSubBatchMaxDelay() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_batch_delay");
+
+    RCLFuture<List<rcljava.msg.Primitives>> future =
+        new RCLFuture<List<rcljava.msg.Primitives>>(new WeakReference<Node>(node));
+
+    BatchSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createBatchSubscription(rcljava.msg.Primitives.class,
+            "test_topic_batch_delay", new TestConsumer<List<rcljava.msg.Primitives>>(future),
+            1000, 200, TimeUnit.MILLISECONDS);
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    long start = System.nanoTime();
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+      Thread.sleep(10);
+    }
+
+    // The incomplete batch is delivered once its first message has waited for the maximum delay
+    assertTrue(future.get().size() < 1000);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPubSubShared() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_shared");
+
+    RCLFuture<rcljava.msg.Primitives> firstFuture =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+    RCLFuture<rcljava.msg.Primitives> secondFuture =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    int subscriptionCount = node.getSubscriptions().size();
+
+    Subscription<rcljava.msg.Primitives> firstSubscription =
+        node.<rcljava.msg.Primitives>createSharedSubscription(rcljava.msg.Primitives.class,
+            "test_topic_shared", new TestConsumer<rcljava.msg.Primitives>(firstFuture));
+    Subscription<rcljava.msg.Primitives> secondSubscription =
+        node.<rcljava.msg.Primitives>createSharedSubscription(rcljava.msg.Primitives.class,
+            "test_topic_shared", new TestConsumer<rcljava.msg.Primitives>(secondFuture));
+
+    // Both callbacks are served by a single ROS2 subscription
+    assertEquals(subscriptionCount + 1, node.getSubscriptions().size());
+    assertEquals(firstSubscription.getHandle(), secondSubscription.getHandle());
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("shared");
+
+    while (RCLJava.ok() && !(firstFuture.isDone() && secondFuture.isDone())) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    // Each callback receives its own copy of the converted message
+    assertEquals("shared", firstFuture.get().getStringValue());
+    assertNotSame(firstFuture.get(), secondFuture.get());
+    assertEquals(firstFuture.get(), secondFuture.get());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+
+    firstSubscription.dispose();
+    assertEquals(0, firstSubscription.getHandle());
+    assertNotEquals(0, secondSubscription.getHandle());
+    assertEquals(subscriptionCount + 1, node.getSubscriptions().size());
+
+    secondSubscription.dispose();
+    assertEquals(0, secondSubscription.getHandle());
+    assertEquals(subscriptionCount, node.getSubscriptions().size());
+  }
+
+  @Test
+  public final void testPubSubMessageInfo() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_message_info");
+
+    final RCLFuture<MessageInfo> future =
+        new RCLFuture<MessageInfo>(new WeakReference<Node>(node));
+
+    MessageInfoSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createMessageInfoSubscription(rcljava.msg.Primitives.class,
+            "test_topic_message_info", new BiConsumer<rcljava.msg.Primitives, MessageInfo>() {
+              public void accept(final rcljava.msg.Primitives msg, final MessageInfo info) {
+                if ("message_info".equals(msg.getStringValue())) {
+                  future.set(info);
+                }
+              }
+            });
+    SubscriptionMetrics metrics = subscription.enableMetrics();
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("message_info");
+
+    long start = System.currentTimeMillis();
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    MessageInfo info = future.get();
+    assertTrue(info.getReceivedTimestamp() >= start * 1000000L);
+    // Primitives has no header, so the time at which it was sent is unknown
+    assertEquals(false, info.hasSourceTimestamp());
+    assertEquals(-1, info.getLatency());
+    assertEquals(IntraProcessManager.GID_SIZE, info.getPublisherGid().length);
+
+    assertTrue(metrics.getMessageCount() >= 1);
+    assertEquals(0, metrics.getLatencyCount());
+    assertEquals(1, metrics.getPublisherStatistics().size());
+    assertArrayEquals(info.getPublisherGid(),
+        metrics.getPublisherStatistics().get(0).getPublisherGid());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testPollingSubscription() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_polling");
+
+    final PollingSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createPollingSubscription(
+            rcljava.msg.Primitives.class, "test_topic_polling");
+
+    // Never executed, so spinning must not take its messages
+    assertEquals(0, node.getSubscriptions().size());
+    assertTrue(node.getPollingSubscriptions().contains(subscription));
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("polling");
+    msg.setInt32Value(1);
+
+    rcljava.msg.Primitives received = null;
+    while (RCLJava.ok() && received == null) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+      received = subscription.waitForMessage(100, TimeUnit.MILLISECONDS);
+    }
+    assertEquals("polling", received.getStringValue());
+    assertEquals(1, received.getInt32Value());
+
+    msg.setInt32Value(2);
+    rcljava.msg.Primitives reused = new rcljava.msg.Primitives();
+    boolean taken = false;
+    while (RCLJava.ok() && !(taken && reused.getInt32Value() == 2)) {
+      publisher.publish(msg);
+      taken = subscription.takeInto(reused);
+    }
+    assertEquals("polling", reused.getStringValue());
+
+    msg.setInt32Value(3);
+    received = null;
+    while (RCLJava.ok() && (received == null || received.getInt32Value() != 3)) {
+      publisher.publish(msg);
+      subscription.waitForMessage(100, TimeUnit.MILLISECONDS);
+      received = subscription.takeLatest();
+    }
+    assertEquals("polling", received.getStringValue());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+
+    // Disposing from another thread interrupts a wait instead of destroying the subscription
+    // under it
+    Thread waiter = new Thread(new Runnable() {
+      public void run() {
+        while (subscription.waitForMessage(60, TimeUnit.SECONDS) != null) {
+          // Drain the messages still in flight
+        }
+      }
+    });
+    waiter.start();
+    Thread.sleep(100);
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    waiter.join(10000);
+    assertTrue(!waiter.isAlive());
+  }
+
+  @Test
+  public final void testPubSubFlow() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_flow");
+
+    FlowSubscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createFlowSubscription(
+            rcljava.msg.Primitives.class, "test_topic_flow");
+
+    final List<rcljava.msg.Primitives> received = new ArrayList<rcljava.msg.Primitives>();
+    final Flow.Subscription[] flowSubscription = new Flow.Subscription[1];
+    final RCLFuture<Boolean> completed = new RCLFuture<Boolean>(new WeakReference<Node>(node));
+
+    subscription.subscribe(new Flow.Subscriber<rcljava.msg.Primitives>() {
+      public void onSubscribe(final Flow.Subscription s) {
+        flowSubscription[0] = s;
+        s.request(2);
+      }
+
+      public void onNext(final rcljava.msg.Primitives msg) {
+        received.add(msg);
+      }
+
+      public void onError(final Throwable throwable) {
+        completed.set(false);
+      }
+
+      public void onComplete() {
+        completed.set(true);
+      }
+    });
+    assertEquals(2, subscription.getDemand());
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("flow");
+
+    while (RCLJava.ok() && received.size() < 2) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    // Without demand, the executor leaves the messages in the middleware queue
+    assertEquals(0, subscription.getDemand());
+    for (int i = 0; i < 10; i++) {
+      publisher.publish(msg);
+      RCLJava.spinSome(node);
+    }
+    assertEquals(2, received.size());
+
+    flowSubscription[0].request(1);
+    while (RCLJava.ok() && received.size() < 3) {
+      RCLJava.spinOnce(node);
+    }
+    assertEquals(3, received.size());
+    assertEquals("flow", received.get(2).getStringValue());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+    assertEquals(true, completed.get());
+  }
+
+  @Test
+  public final void testPubSubFlowPublishingSubscriber() throws Exception {
+    Publisher<rcljava.msg.Primitives> publisher = node.<rcljava.msg.Primitives>createPublisher(
+        rcljava.msg.Primitives.class, "test_topic_flow_in");
+
+    FlowSubscription<rcljava.msg.Primitives> flowSubscription =
+        node.<rcljava.msg.Primitives>createFlowSubscription(
+            rcljava.msg.Primitives.class, "test_topic_flow_in");
+
+    Publisher<rcljava.msg.Primitives> relayPublisher =
+        node.<rcljava.msg.Primitives>createPublisher(
+            rcljava.msg.Primitives.class, "test_topic_flow_out");
+
+    PublishingSubscriber<rcljava.msg.Primitives> relay =
+        new PublishingSubscriber<rcljava.msg.Primitives>(relayPublisher, 4);
+    flowSubscription.subscribe(relay);
+    assertEquals(4, flowSubscription.getDemand());
+
+    final RCLFuture<rcljava.msg.Primitives> future =
+        new RCLFuture<rcljava.msg.Primitives>(new WeakReference<Node>(node));
+
+    Subscription<rcljava.msg.Primitives> subscription =
+        node.<rcljava.msg.Primitives>createSubscription(rcljava.msg.Primitives.class,
+            "test_topic_flow_out", new TestConsumer<rcljava.msg.Primitives>(future));
+
+    rcljava.msg.Primitives msg = new rcljava.msg.Primitives();
+    msg.setStringValue("relayed");
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+    assertEquals("relayed", future.get().getStringValue());
+    assertTrue(relay.getPublishedCount() >= 1);
+    // The relay requests more after publishing half of its prefetch
+    assertTrue(flowSubscription.getDemand() <= 4);
+
+    relay.cancel();
+    assertEquals(0, flowSubscription.getDemand());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    flowSubscription.dispose();
+    assertEquals(0, flowSubscription.getHandle());
+    relayPublisher.dispose();
+    assertEquals(0, relayPublisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
 }
@@ -0,0 +1,451 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import java.nio.ByteBuffer;
+
+import java.util.Arrays;
+
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.concurrent.RCLFuture;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.publisher.Publisher;
+import org.ros2.rcljava.subscription.SerializedSubscription;
+import org.ros2.rcljava.subscription.Subscription;
+
+public class CDRTest {
+  private Node node;
+  private rcljava.msg.Primitives primitives1;
+  private rcljava.msg.Primitives primitives2;
+
+  @BeforeClass
+  public static void setupOnce() throws Exception {
+    RCLJava.rclJavaInit();
+    org.apache.log4j.BasicConfigurator.configure();
+  }
+
+  public class TestConsumer<T> implements Consumer<T> {
+    private final RCLFuture<T> future;
+
+    TestConsumer(final RCLFuture<T> future) {
+      this.future = future;
+    }
+
+    public final void accept(final T msg) {
+      if (!this.future.isDone()) {
+        this.future.set(msg);
+      }
+    }
+  }
+
+  @Before
+  public void setUp() {
+    node = RCLJava.createNode("test_cdr_node");
+
+    primitives1 = new rcljava.msg.Primitives();
+    primitives1.setBoolValue(true);
+    primitives1.setByteValue((byte) 123);
+    primitives1.setCharValue('\u0012');
+    primitives1.setFloat32Value(12.34f);
+    primitives1.setFloat64Value(43.21);
+    primitives1.setInt8Value((byte) -12);
+    primitives1.setUint8Value((byte) 234);
+    primitives1.setInt16Value((short) -1234);
+    primitives1.setUint16Value((short) 54321);
+    primitives1.setInt32Value(-75536);
+    primitives1.setUint32Value(85536);
+    primitives1.setInt64Value(-5294967296l);
+    primitives1.setUint64Value(6294967296l);
+    primitives1.setStringValue("hello world");
+
+    primitives2 = new rcljava.msg.Primitives();
+    primitives2.setBoolValue(false);
+    primitives2.setByteValue((byte) 42);
+    primitives2.setCharValue('!');
+    primitives2.setFloat32Value(13.34f);
+    primitives2.setFloat64Value(44.21);
+    primitives2.setInt8Value((byte) -13);
+    primitives2.setUint8Value((byte) 35);
+    primitives2.setInt16Value((short) -1235);
+    primitives2.setUint16Value((short) 4322);
+    primitives2.setInt32Value(-75537);
+    primitives2.setUint32Value(85537);
+    primitives2.setInt64Value(-5294967297l);
+    primitives2.setUint64Value(6294967297l);
+    primitives2.setStringValue("");
+  }
+
+  @After
+  public void tearDown() {
+    node.dispose();
+  }
+
+  @AfterClass
+  public static void tearDownOnce() {
+    RCLJava.shutdown();
+  }
+
+  /**
+   * Check that the bytes produced by the C typesupport decode to the original message and
+   * that the bytes produced by {@link CDRWriter} decode to the original message in C.
+   */
+  private <T extends MessageDefinition> void assertCompatible(final T msg,
+      final Class<T> messageType, final String typeName, final String topic) throws Exception {
+    Publisher<T> publisher = node.<T>createPublisher(messageType, topic);
+
+    final RCLFuture<byte[]> serializedFuture = new RCLFuture<byte[]>(new WeakReference<Node>(node));
+
+    SerializedSubscription serializedSubscription = node.createSerializedSubscription(
+        typeName, topic, new Consumer<ByteBuffer>() {
+          public void accept(final ByteBuffer serializedMsg) {
+            if (!serializedFuture.isDone()) {
+              byte[] bytes = new byte[serializedMsg.remaining()];
+              serializedMsg.get(bytes);
+              serializedFuture.set(bytes);
+            }
+          }
+        });
+
+    while (RCLJava.ok() && !serializedFuture.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    T decoded = messageType.newInstance();
+    decoded.deserialize(new CDRReader(ByteBuffer.wrap(serializedFuture.get())));
+    assertEquals(msg, decoded);
+
+    CDRWriter writer = new CDRWriter();
+    msg.serialize(writer);
+
+    Publisher<MessageDefinition> serializedPublisher =
+        node.createSerializedPublisher(typeName, topic + "_relay");
+
+    RCLFuture<T> future = new RCLFuture<T>(new WeakReference<Node>(node));
+
+    Subscription<T> subscription = node.<T>createSubscription(
+        messageType, topic + "_relay", new TestConsumer<T>(future));
+
+    while (RCLJava.ok() && !future.isDone()) {
+      serializedPublisher.publishSerialized(writer.getBuffer());
+      RCLJava.spinOnce(node);
+    }
+
+    assertEquals(msg, future.get());
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    serializedSubscription.dispose();
+    assertEquals(0, serializedSubscription.getHandle());
+    serializedPublisher.dispose();
+    assertEquals(0, serializedPublisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testAlignment() {
+    CDRWriter writer = new CDRWriter(4);
+    writer.writeByte((byte) 1);
+    writer.writeInt(2);
+    writer.writeShort((short) 3);
+    writer.writeLong(4);
+    writer.writeString("abc");
+    // header + byte + 3 padding + int + short + 6 padding + long + length + "abc\0"
+    assertEquals(4 + 1 + 3 + 4 + 2 + 6 + 8 + 4 + 4, writer.size());
+
+    ByteBuffer buffer = writer.getBuffer();
+    assertEquals(0, buffer.get(0));
+    assertEquals(1, buffer.get(1));
+
+    CDRReader reader = new CDRReader(buffer);
+    assertEquals(1, reader.readByte());
+    assertEquals(2, reader.readInt());
+    assertEquals(3, reader.readShort());
+    assertEquals(4, reader.readLong());
+    assertEquals("abc", reader.readString());
+    assertEquals(0, reader.remaining());
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public final void testRoundTripWithoutNativeConversion() {
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+
+    CDRWriter writer = new CDRWriter();
+    msg.serialize(writer);
+
+    rcljava.msg.DynamicArrayNested decoded = new rcljava.msg.DynamicArrayNested();
+    decoded.deserialize(new CDRReader(writer.getBuffer()));
+    assertEquals(msg, decoded);
+
+    writer.reset();
+    primitives2.serialize(writer);
+    rcljava.msg.Primitives decodedPrimitives = new rcljava.msg.Primitives();
+    decodedPrimitives.deserialize(new CDRReader(writer.getBuffer()));
+    assertEquals(primitives2, decodedPrimitives);
+  }
+
+  @Test
+  public final void testLazyRoundTrip() {
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+
+    CDRWriter writer = new CDRWriter();
+    msg.serialize(writer);
+
+    CDRReader reader = new CDRReader(writer.getBuffer());
+    rcljava.msg.DynamicArrayNested decoded = new rcljava.msg.DynamicArrayNested();
+    decoded.deserializeLazy(reader);
+    // The whole message is skipped when it is received
+    assertEquals(0, reader.remaining());
+
+    assertEquals("", decoded.getPrimitiveValues().get(1).getStringValue());
+    assertEquals(-75536, decoded.getPrimitiveValues().get(0).getInt32Value());
+    assertEquals(msg, decoded);
+
+    writer.reset();
+    primitives1.serialize(writer);
+    rcljava.msg.Primitives decodedPrimitives = new rcljava.msg.Primitives();
+    decodedPrimitives.deserializeLazy(new CDRReader(writer.getBuffer()));
+    // Fields that are set are not overwritten when the rest are decoded
+    decodedPrimitives.setStringValue("overwritten");
+    assertEquals(6294967296l, decodedPrimitives.getUint64Value());
+    assertEquals("overwritten", decodedPrimitives.getStringValue());
+    decodedPrimitives.setStringValue(primitives1.getStringValue());
+    assertEquals(primitives1, decodedPrimitives);
+  }
+
+  @Test
+  public final void testLazyConcurrentRead() throws Exception {
+    final rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+
+    CDRWriter writer = new CDRWriter();
+    msg.serialize(writer);
+    ByteBuffer buffer = writer.getBuffer();
+
+    for (int i = 0; i < 100; i++) {
+      final rcljava.msg.DynamicArrayNested decoded = new rcljava.msg.DynamicArrayNested();
+      decoded.deserializeLazy(new CDRReader(buffer));
+
+      // Every thread decodes the same fields of the same received message
+      final boolean[] equal = new boolean[4];
+      Thread[] threads = new Thread[equal.length];
+      for (int j = 0; j < threads.length; j++) {
+        final int index = j;
+        threads[j] = new Thread() {
+          public void run() {
+            equal[index] = msg.equals(decoded)
+                && decoded.getPrimitiveValues().get(0).equals(primitives1);
+          }
+        };
+        threads[j].start();
+      }
+      for (int j = 0; j < threads.length; j++) {
+        threads[j].join();
+        assertTrue(equal[j]);
+      }
+    }
+  }
+
+  @Test
+  public final void testPubSubLazy() throws Exception {
+    Publisher<rcljava.msg.Nested> publisher =
+        node.<rcljava.msg.Nested>createPublisher(rcljava.msg.Nested.class, "test_topic_lazy");
+
+    RCLFuture<rcljava.msg.Nested> future =
+        new RCLFuture<rcljava.msg.Nested>(new WeakReference<Node>(node));
+
+    SerializedSubscription subscription = node.<rcljava.msg.Nested>createLazySubscription(
+        rcljava.msg.Nested.class, "test_topic_lazy",
+        new TestConsumer<rcljava.msg.Nested>(future));
+
+    rcljava.msg.Nested msg = new rcljava.msg.Nested();
+    msg.setPrimitiveValues(primitives1);
+
+    while (RCLJava.ok() && !future.isDone()) {
+      publisher.publish(msg);
+      RCLJava.spinOnce(node);
+    }
+
+    rcljava.msg.Nested value = future.get();
+    assertEquals("hello world", value.getPrimitiveValues().getStringValue());
+    assertEquals(msg, value);
+
+    publisher.dispose();
+    assertEquals(0, publisher.getHandle());
+    subscription.dispose();
+    assertEquals(0, subscription.getHandle());
+  }
+
+  @Test
+  public final void testCompatibleBoundedArrayNested() throws Exception {
+    rcljava.msg.BoundedArrayNested msg = new rcljava.msg.BoundedArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2}));
+    assertCompatible(msg, rcljava.msg.BoundedArrayNested.class, "rcljava/BoundedArrayNested",
+        "test_topic_cdr_bounded_array_nested");
+  }
+
+  @Test
+  public final void testCompatibleBoundedArrayPrimitives() throws Exception {
+    rcljava.msg.BoundedArrayPrimitives msg = new rcljava.msg.BoundedArrayPrimitives();
+    msg.setBoolValues(new boolean[] {true, false, true});
+    msg.setByteValues(new byte[] {123, 42});
+    msg.setCharValues(new char[] {'\u0012', '!'});
+    msg.setFloat32Values(new float[] {12.34f, 13.34f});
+    msg.setFloat64Values(new double[] {43.21, 44.21});
+    msg.setInt8Values(new byte[] {-12, -13});
+    msg.setUint8Values(new byte[] {34});
+    msg.setInt16Values(new short[] {-1234, -1235});
+    msg.setUint16Values(new short[] {4321, 4322, 4323});
+    msg.setInt32Values(new int[] {-75536, -75537});
+    msg.setUint32Values(new int[] {});
+    msg.setInt64Values(new long[] {-5294967296l, -5294967297l});
+    msg.setUint64Values(new long[] {6294967296l});
+    msg.setStringValues(Arrays.asList(new String[] {"hello world", "", "bye world"}));
+    msg.setCheck(42);
+    assertCompatible(msg, rcljava.msg.BoundedArrayPrimitives.class,
+        "rcljava/BoundedArrayPrimitives", "test_topic_cdr_bounded_array_primitives");
+  }
+
+  @Test
+  public final void testCompatibleBuiltins() throws Exception {
+    builtin_interfaces.msg.Duration duration = new builtin_interfaces.msg.Duration();
+    duration.setSec(1234);
+    duration.setNanosec(4567);
+
+    builtin_interfaces.msg.Time time = new builtin_interfaces.msg.Time();
+    time.setSec(4321);
+    time.setNanosec(7654);
+
+    rcljava.msg.Builtins msg = new rcljava.msg.Builtins();
+    msg.setDurationValue(duration);
+    msg.setTimeValue(time);
+    assertCompatible(
+        msg, rcljava.msg.Builtins.class, "rcljava/Builtins", "test_topic_cdr_builtins");
+  }
+
+  @Test
+  public final void testCompatibleDynamicArrayNested() throws Exception {
+    rcljava.msg.DynamicArrayNested msg = new rcljava.msg.DynamicArrayNested();
+    msg.setPrimitiveValues(
+        Arrays.asList(new rcljava.msg.Primitives[] {primitives1, primitives2, primitives1}));
+    assertCompatible(msg, rcljava.msg.DynamicArrayNested.class, "rcljava/DynamicArrayNested",
+        "test_topic_cdr_dynamic_array_nested");
+  }
+
+  @Test
+  public final void testCompatibleDynamicArrayPrimitives() throws Exception {
+    rcljava.msg.DynamicArrayPrimitives msg = new rcljava.msg.DynamicArrayPrimitives();
+    msg.setBoolValues(new boolean[] {true, false, true, true});
+    msg.setByteValues(new byte[] {123, 42});
+    msg.setCharValues(new char[] {'\u0012'});
+    msg.setFloat32Values(new float[] {12.34f, 13.34f});
+    msg.setFloat64Values(new double[] {43.21, 44.21, 45.21});
+    msg.setInt8Values(new byte[] {-12, -13});
+    msg.setUint8Values(new byte[] {34, 35, 36, 37, 38});
+    msg.setInt16Values(new short[] {-1234});
+    msg.setUint16Values(new short[] {4321, 4322});
+    msg.setInt32Values(new int[] {-75536, -75537, -75538});
+    msg.setUint32Values(new int[] {85536, 85537});
+    msg.setInt64Values(new long[] {-5294967296l});
+    msg.setUint64Values(new long[] {6294967296l, 6294967297l});
+    msg.setStringValues(Arrays.asList(new String[] {"hello world", "bye world"}));
+    msg.setCheck(42);
+    assertCompatible(msg, rcljava.msg.DynamicArrayPrimitives.class,
+        "rcljava/DynamicArrayPrimitives", "test_topic_cdr_dynamic_array_primitives");
+  }
+
+  @Test
+  public final void testCompatibleEmpty() throws Exception {
+    assertCompatible(new rcljava.msg.Empty(), rcljava.msg.Empty.class, "rcljava/Empty",
+        "test_topic_cdr_empty");
+  }
+
+  @Test
+  public final void testCompatibleFieldsWithSameType() throws Exception {
+    rcljava.msg.FieldsWithSameType msg = new rcljava.msg.FieldsWithSameType();
+    msg.setPrimitiveValues1(primitives1);
+    msg.setPrimitiveValues2(primitives2);
+    assertCompatible(msg, rcljava.msg.FieldsWithSameType.class, "rcljava/FieldsWithSameType",
+        "test_topic_cdr_fields_with_same_type");
+  }
+
+  @Test
+  public final void testCompatibleNested() throws Exception {
+    rcljava.msg.Nested msg = new rcljava.msg.Nested();
+    msg.setPrimitiveValues(primitives1);
+    assertCompatible(msg, rcljava.msg.Nested.class, "rcljava/Nested", "test_topic_cdr_nested");
+  }
+
+  @Test
+  public final void testCompatiblePrimitives() throws Exception {
+    assertCompatible(primitives1, rcljava.msg.Primitives.class, "rcljava/Primitives",
+        "test_topic_cdr_primitives");
+  }
+
+  @Test
+  public final void testCompatibleStaticArrayNested() throws Exception {
+    rcljava.msg.StaticArrayNested msg = new rcljava.msg.StaticArrayNested();
+    msg.setPrimitiveValues(Arrays.asList(
+        new rcljava.msg.Primitives[] {primitives1, primitives2, primitives2, primitives1}));
+    assertCompatible(msg, rcljava.msg.StaticArrayNested.class, "rcljava/StaticArrayNested",
+        "test_topic_cdr_static_array_nested");
+  }
+
+  @Test
+  public final void testCompatibleStaticArrayPrimitives() throws Exception {
+    rcljava.msg.StaticArrayPrimitives msg = new rcljava.msg.StaticArrayPrimitives();
+    msg.setBoolValues(new boolean[] {true, false, true});
+    msg.setByteValues(new byte[] {123, 42, 24});
+    msg.setCharValues(new char[] {'\u0012', '!', '\u0008'});
+    msg.setFloat32Values(new float[] {12.34f, 13.34f, 14.34f});
+    msg.setFloat64Values(new double[] {43.21, 44.21, 45.21});
+    msg.setInt8Values(new byte[] {-12, -13, -14});
+    msg.setUint8Values(new byte[] {34, 35, 36});
+    msg.setInt16Values(new short[] {-1234, -1235, -1236});
+    msg.setUint16Values(new short[] {4321, 4322, 4323});
+    msg.setInt32Values(new int[] {-75536, -75537, -75538});
+    msg.setUint32Values(new int[] {85536, 85537, 85538});
+    msg.setInt64Values(new long[] {-5294967296l, -5294967297l, -5294967298l});
+    msg.setUint64Values(new long[] {6294967296l, 6294967297l, 6294967298l});
+    msg.setStringValues(Arrays.asList(new String[] {"hello world", "", "bye world"}));
+    assertCompatible(msg, rcljava.msg.StaticArrayPrimitives.class,
+        "rcljava/StaticArrayPrimitives", "test_topic_cdr_static_array_primitives");
+  }
+
+  @Test
+  public final void testCompatibleUInt32() throws Exception {
+    rcljava.msg.UInt32 msg = new rcljava.msg.UInt32();
+    msg.setData(0xdeadbeef);
+    assertCompatible(msg, rcljava.msg.UInt32.class, "rcljava/UInt32", "test_topic_cdr_uint32");
+  }
+}
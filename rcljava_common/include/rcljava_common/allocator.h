@@ -0,0 +1,79 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#ifndef RCLJAVA_COMMON__ALLOCATOR_H_
+#define RCLJAVA_COMMON__ALLOCATOR_H_
+
+#include <cstddef>
+#include <cstdint>
+
+#include "rcljava_common/visibility_control.h"
+
+namespace rcljava_common
+{
+namespace allocator
+{
+// Must match the values of org.ros2.rcljava.AllocatorStrategy
+enum class Strategy : int
+{
+  SYSTEM = 0,
+  POOL = 1
+};
+
+// Selects how new blocks are allocated. Blocks carry the strategy they were allocated with,
+// so blocks allocated before a change are still released correctly.
+RCLJAVA_COMMON_PUBLIC
+void set_strategy(Strategy strategy);
+
+RCLJAVA_COMMON_PUBLIC
+Strategy get_strategy();
+
+// Same signatures as the functions of rcutils_allocator_t, the state argument is unused.
+RCLJAVA_COMMON_PUBLIC
+void * allocate(size_t size, void * state);
+
+RCLJAVA_COMMON_PUBLIC
+void deallocate(void * pointer, void * state);
+
+RCLJAVA_COMMON_PUBLIC
+void * reallocate(void * pointer, size_t size, void * state);
+
+RCLJAVA_COMMON_PUBLIC
+void * zero_allocate(size_t number_of_elements, size_t size_of_element, void * state);
+
+RCLJAVA_COMMON_PUBLIC
+uint64_t get_allocation_count();
+
+RCLJAVA_COMMON_PUBLIC
+uint64_t get_deallocation_count();
+
+RCLJAVA_COMMON_PUBLIC
+uint64_t get_bytes_in_use();
+
+// Build an rcl_allocator_t or rcutils_allocator_t that uses the functions above, without
+// making rcljava_common depend on rcutils.
+template<typename AllocatorT>
+AllocatorT get_allocator()
+{
+  AllocatorT allocator;
+  allocator.allocate = &allocate;
+  allocator.deallocate = &deallocate;
+  allocator.reallocate = &reallocate;
+  allocator.zero_allocate = &zero_allocate;
+  allocator.state = nullptr;
+  return allocator;
+}
+}  // namespace allocator
+}  // namespace rcljava_common
+
+#endif  // RCLJAVA_COMMON__ALLOCATOR_H_
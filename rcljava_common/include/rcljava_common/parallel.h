@@ -0,0 +1,49 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#ifndef RCLJAVA_COMMON__PARALLEL_H_
+#define RCLJAVA_COMMON__PARALLEL_H_
+#include <jni.h>
+
+#include <cstddef>
+#include <functional>
+
+#include "rcljava_common/visibility_control.h"
+
+namespace rcljava_common
+{
+namespace parallel
+{
+// Converts the elements [begin, end) of a sequence, using the JNIEnv of the current thread.
+using ChunkFunction = std::function<void (JNIEnv *, size_t, size_t)>;
+
+// Sequences with at least this many elements are converted in parallel, 0 disables it.
+RCLJAVA_COMMON_PUBLIC
+void set_conversion_threshold(size_t threshold);
+
+RCLJAVA_COMMON_PUBLIC
+size_t get_conversion_threshold();
+
+RCLJAVA_COMMON_PUBLIC
+bool use_parallel_conversion(size_t size);
+
+// Split [0, size) in chunks that are run by the calling thread and a pool of worker threads,
+// which are attached to the JVM once when the pool is first used. Object references shared
+// with the chunks must be global references, and the chunks must not keep local references.
+// Returns false if a chunk raised a Java exception, which is then pending in env.
+RCLJAVA_COMMON_PUBLIC
+bool parallel_for(JNIEnv * env, size_t size, const ChunkFunction & function);
+}  // namespace parallel
+}  // namespace rcljava_common
+
+#endif  // RCLJAVA_COMMON__PARALLEL_H_
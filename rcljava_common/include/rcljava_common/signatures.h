@@ -25,6 +25,10 @@ using convert_from_java_signature = void * (*)(jobject, void *);
 
 using convert_to_java_signature = jobject (*)(void *, jobject);
 
+using convert_to_java_projected_signature = jobject (*)(void *, jobject, const jlong *);
+
+using create_ros_message_signature = void * (*)();
+
 using destroy_ros_message_signature = void (*)(void *);
 }  // namespace signatures
 }  // namespace rcljava_common
@@ -0,0 +1,77 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#ifndef RCLJAVA_COMMON__STRING_CACHE_H_
+#define RCLJAVA_COMMON__STRING_CACHE_H_
+#include <jni.h>
+
+#include <atomic>
+#include <cstddef>
+#include <list>
+#include <mutex>
+#include <string>
+#include <unordered_map>
+#include <utility>
+
+#include "rcljava_common/visibility_control.h"
+
+namespace rcljava_common
+{
+namespace strings
+{
+// Bounded cache of Java strings keyed by their UTF-8 bytes, so that repeated values of a field
+// converted from native messages share a single java.lang.String instance. Once the capacity is
+// reached, the least recently used value is evicted. A capacity of zero disables the cache.
+class StringCache
+{
+public:
+  RCLJAVA_COMMON_PUBLIC
+  StringCache();
+
+  RCLJAVA_COMMON_PUBLIC
+  bool enabled() const;
+
+  // Evicts the least recently used values that no longer fit in the new capacity. The cached
+  // values are global references, so the capacity must be reset to zero before the cache is
+  // destroyed, e.g. from JNI_OnUnload.
+  RCLJAVA_COMMON_PUBLIC
+  void set_capacity(JNIEnv * env, size_t capacity);
+
+  // Returns a local reference to the cached string for the given null-terminated UTF-8 value,
+  // creating and caching it if it is not present.
+  RCLJAVA_COMMON_PUBLIC
+  jstring get(JNIEnv * env, const char * data, size_t size);
+
+  RCLJAVA_COMMON_PUBLIC
+  size_t size();
+
+private:
+  StringCache(const StringCache &) = delete;
+  StringCache & operator=(const StringCache &) = delete;
+
+  void evict(JNIEnv * env, size_t capacity);
+
+  using Entry = std::pair<std::string, jstring>;
+
+  std::mutex mutex_;
+  std::atomic<size_t> capacity_;
+  // Most recently used values first
+  std::list<Entry> entries_;
+  std::unordered_map<std::string, std::list<Entry>::iterator> index_;
+  // Reused for lookups to avoid allocating a key for every converted string
+  std::string key_;
+};
+}  // namespace strings
+}  // namespace rcljava_common
+
+#endif  // RCLJAVA_COMMON__STRING_CACHE_H_
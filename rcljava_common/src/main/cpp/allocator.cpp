@@ -0,0 +1,240 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#include <atomic>
+#include <cstddef>
+#include <cstdint>
+#include <cstdlib>
+#include <cstring>
+#include <limits>
+#include <mutex>
+
+#include "rcljava_common/allocator.h"
+
+namespace rcljava_common
+{
+namespace allocator
+{
+namespace
+{
+// Stored in front of every block, keeps the returned memory suitably aligned for any type
+struct alignas(std::max_align_t) BlockHeader
+{
+  size_t size;
+  size_t size_class;
+};
+
+// Blocks allocated with malloc, either with the system strategy or because they are too large
+// for the pool
+const size_t kNoSizeClass = std::numeric_limits<size_t>::max();
+
+// Size classes hold blocks of 32, 64, ... 4096 bytes
+const size_t kMinBlockSize = 32;
+const size_t kSizeClassCount = 8;
+
+// Released blocks above this count are returned to the system
+const size_t kMaxFreeBlocksPerClass = 1024;
+
+struct FreeBlock
+{
+  FreeBlock * next;
+};
+
+struct FreeList
+{
+  std::mutex mutex;
+  FreeBlock * head = nullptr;
+  size_t length = 0;
+};
+
+std::atomic<int> g_strategy(static_cast<int>(Strategy::SYSTEM));
+
+std::atomic<uint64_t> g_allocation_count(0);
+std::atomic<uint64_t> g_deallocation_count(0);
+std::atomic<uint64_t> g_bytes_in_use(0);
+
+FreeList g_free_lists[kSizeClassCount];
+
+size_t get_block_size(size_t size_class)
+{
+  return kMinBlockSize << size_class;
+}
+
+size_t get_size_class(size_t size)
+{
+  for (size_t size_class = 0; size_class < kSizeClassCount; ++size_class) {
+    if (size <= get_block_size(size_class)) {
+      return size_class;
+    }
+  }
+  return kNoSizeClass;
+}
+
+void * take_pooled_block(size_t size_class)
+{
+  FreeList & free_list = g_free_lists[size_class];
+  {
+    std::lock_guard<std::mutex> lock(free_list.mutex);
+    FreeBlock * block = free_list.head;
+    if (block != nullptr) {
+      free_list.head = block->next;
+      --free_list.length;
+      return block;
+    }
+  }
+  return std::malloc(sizeof(BlockHeader) + get_block_size(size_class));
+}
+
+void return_pooled_block(void * pointer, size_t size_class)
+{
+  FreeList & free_list = g_free_lists[size_class];
+  {
+    std::lock_guard<std::mutex> lock(free_list.mutex);
+    if (free_list.length < kMaxFreeBlocksPerClass) {
+      FreeBlock * block = static_cast<FreeBlock *>(pointer);
+      block->next = free_list.head;
+      free_list.head = block;
+      ++free_list.length;
+      return;
+    }
+  }
+  std::free(pointer);
+}
+
+BlockHeader * get_header(void * pointer)
+{
+  return reinterpret_cast<BlockHeader *>(static_cast<char *>(pointer) - sizeof(BlockHeader));
+}
+
+void * get_user_pointer(BlockHeader * header)
+{
+  return reinterpret_cast<char *>(header) + sizeof(BlockHeader);
+}
+}  // namespace
+
+void set_strategy(Strategy strategy)
+{
+  g_strategy.store(static_cast<int>(strategy));
+}
+
+Strategy get_strategy()
+{
+  return static_cast<Strategy>(g_strategy.load());
+}
+
+void * allocate(size_t size, void *)
+{
+  size_t size_class = kNoSizeClass;
+  if (get_strategy() == Strategy::POOL) {
+    size_class = get_size_class(size);
+  }
+
+  void * block = nullptr;
+  if (size_class != kNoSizeClass) {
+    block = take_pooled_block(size_class);
+  } else if (size <= std::numeric_limits<size_t>::max() - sizeof(BlockHeader)) {
+    block = std::malloc(sizeof(BlockHeader) + size);
+  }
+  if (block == nullptr) {
+    return nullptr;
+  }
+
+  BlockHeader * header = static_cast<BlockHeader *>(block);
+  header->size = size;
+  header->size_class = size_class;
+  g_allocation_count.fetch_add(1, std::memory_order_relaxed);
+  g_bytes_in_use.fetch_add(size, std::memory_order_relaxed);
+  return get_user_pointer(header);
+}
+
+void deallocate(void * pointer, void *)
+{
+  if (pointer == nullptr) {
+    return;
+  }
+
+  BlockHeader * header = get_header(pointer);
+  g_deallocation_count.fetch_add(1, std::memory_order_relaxed);
+  g_bytes_in_use.fetch_sub(header->size, std::memory_order_relaxed);
+  if (header->size_class != kNoSizeClass) {
+    return_pooled_block(header, header->size_class);
+  } else {
+    std::free(header);
+  }
+}
+
+void * reallocate(void * pointer, size_t size, void * state)
+{
+  if (pointer == nullptr) {
+    return allocate(size, state);
+  }
+
+  BlockHeader * header = get_header(pointer);
+  size_t old_size = header->size;
+
+  if (header->size_class == kNoSizeClass) {
+    if (size > std::numeric_limits<size_t>::max() - sizeof(BlockHeader)) {
+      return nullptr;
+    }
+    header = static_cast<BlockHeader *>(std::realloc(header, sizeof(BlockHeader) + size));
+    if (header == nullptr) {
+      return nullptr;
+    }
+  } else if (size > get_block_size(header->size_class)) {
+    // The block is moved to a larger size class, which counts as a new allocation
+    void * new_pointer = allocate(size, state);
+    if (new_pointer == nullptr) {
+      return nullptr;
+    }
+    std::memcpy(new_pointer, pointer, old_size);
+    deallocate(pointer, state);
+    return new_pointer;
+  }
+
+  header->size = size;
+  g_bytes_in_use.fetch_add(size, std::memory_order_relaxed);
+  g_bytes_in_use.fetch_sub(old_size, std::memory_order_relaxed);
+  return get_user_pointer(header);
+}
+
+void * zero_allocate(size_t number_of_elements, size_t size_of_element, void * state)
+{
+  if (size_of_element != 0 &&
+    number_of_elements > std::numeric_limits<size_t>::max() / size_of_element)
+  {
+    return nullptr;
+  }
+  size_t size = number_of_elements * size_of_element;
+  void * pointer = allocate(size, state);
+  if (pointer != nullptr) {
+    std::memset(pointer, 0, size);
+  }
+  return pointer;
+}
+
+uint64_t get_allocation_count()
+{
+  return g_allocation_count.load(std::memory_order_relaxed);
+}
+
+uint64_t get_deallocation_count()
+{
+  return g_deallocation_count.load(std::memory_order_relaxed);
+}
+
+uint64_t get_bytes_in_use()
+{
+  return g_bytes_in_use.load(std::memory_order_relaxed);
+}
+}  // namespace allocator
+}  // namespace rcljava_common
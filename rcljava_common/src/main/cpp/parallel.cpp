@@ -0,0 +1,217 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#include <jni.h>
+
+#include <algorithm>
+#include <atomic>
+#include <condition_variable>
+#include <cstddef>
+#include <deque>
+#include <memory>
+#include <mutex>
+#include <thread>
+
+#include "rcljava_common/parallel.h"
+
+namespace rcljava_common
+{
+namespace parallel
+{
+namespace
+{
+std::atomic<size_t> g_conversion_threshold(0);
+
+// Chunks per thread, so that threads finishing early can pick up the remaining work
+const size_t kChunksPerThread = 4;
+
+struct Job
+{
+  const ChunkFunction * function;
+  size_t size;
+  size_t chunk_size;
+  size_t chunk_count;
+  std::atomic<size_t> next_chunk;
+  // Guarded by the mutex of the pool
+  size_t finished_chunks;
+  jthrowable error;
+};
+
+class ConversionPool
+{
+public:
+  explicit ConversionPool(JavaVM * vm)
+  : vm_(vm)
+  {
+    size_t concurrency = std::thread::hardware_concurrency();
+    worker_count_ = concurrency > 1 ? concurrency - 1 : 1;
+    for (size_t i = 0; i < worker_count_; ++i) {
+      std::thread(&ConversionPool::work, this).detach();
+    }
+  }
+
+  size_t worker_count() const
+  {
+    return worker_count_;
+  }
+
+  void run(JNIEnv * env, const std::shared_ptr<Job> & job)
+  {
+    {
+      std::lock_guard<std::mutex> lock(mutex_);
+      jobs_.push_back(job);
+    }
+    jobs_available_.notify_all();
+
+    run_chunks(env, *job);
+
+    std::unique_lock<std::mutex> lock(mutex_);
+    job_finished_.wait(lock, [&job] {return job->finished_chunks == job->chunk_count;});
+  }
+
+private:
+  void work()
+  {
+    JNIEnv * env = nullptr;
+    JavaVMAttachArgs args;
+    args.version = JNI_VERSION_1_6;
+    args.name = const_cast<char *>("rcljava_conversion");
+    args.group = nullptr;
+#ifdef __ANDROID__
+    jint result = vm_->AttachCurrentThreadAsDaemon(&env, &args);
+#else
+    jint result = vm_->AttachCurrentThreadAsDaemon(reinterpret_cast<void **>(&env), &args);
+#endif
+    if (result != JNI_OK) {
+      return;
+    }
+
+    while (true) {
+      std::shared_ptr<Job> job;
+      {
+        std::unique_lock<std::mutex> lock(mutex_);
+        jobs_available_.wait(lock, [this] {return !jobs_.empty();});
+        job = jobs_.front();
+        if (job->next_chunk.load() >= job->chunk_count) {
+          // Every chunk has been picked up, the threads running them will finish the job
+          jobs_.pop_front();
+          continue;
+        }
+      }
+      run_chunks(env, *job);
+    }
+  }
+
+  void run_chunks(JNIEnv * env, Job & job)
+  {
+    while (true) {
+      size_t chunk = job.next_chunk.fetch_add(1);
+      if (chunk >= job.chunk_count) {
+        return;
+      }
+      size_t begin = chunk * job.chunk_size;
+      size_t end = std::min(begin + job.chunk_size, job.size);
+
+      // Local references of worker threads are only released with their frame
+      env->PushLocalFrame(16);
+      (*job.function)(env, begin, end);
+      jthrowable error = nullptr;
+      if (env->ExceptionCheck()) {
+        jthrowable local_error = env->ExceptionOccurred();
+        env->ExceptionClear();
+        error = static_cast<jthrowable>(env->NewGlobalRef(local_error));
+      }
+      env->PopLocalFrame(nullptr);
+
+      std::lock_guard<std::mutex> lock(mutex_);
+      if (error != nullptr) {
+        if (job.error == nullptr) {
+          job.error = error;
+        } else {
+          env->DeleteGlobalRef(error);
+        }
+      }
+      if (++job.finished_chunks == job.chunk_count) {
+        job_finished_.notify_all();
+      }
+    }
+  }
+
+  JavaVM * vm_;
+  size_t worker_count_;
+  std::mutex mutex_;
+  std::condition_variable jobs_available_;
+  std::condition_variable job_finished_;
+  std::deque<std::shared_ptr<Job>> jobs_;
+};
+
+ConversionPool * get_pool(JNIEnv * env)
+{
+  static std::once_flag pool_flag;
+  // The workers are daemon threads attached to the JVM, so the pool is never destroyed
+  static ConversionPool * pool = nullptr;
+  std::call_once(pool_flag, [env] {
+      JavaVM * vm = nullptr;
+      if (env->GetJavaVM(&vm) == JNI_OK) {
+        pool = new ConversionPool(vm);
+      }
+    });
+  return pool;
+}
+}  // namespace
+
+void set_conversion_threshold(size_t threshold)
+{
+  g_conversion_threshold.store(threshold);
+}
+
+size_t get_conversion_threshold()
+{
+  return g_conversion_threshold.load();
+}
+
+bool use_parallel_conversion(size_t size)
+{
+  size_t threshold = g_conversion_threshold.load();
+  return threshold != 0 && size >= threshold;
+}
+
+bool parallel_for(JNIEnv * env, size_t size, const ChunkFunction & function)
+{
+  ConversionPool * pool = get_pool(env);
+  if (pool == nullptr || size == 0) {
+    function(env, 0, size);
+    return !env->ExceptionCheck();
+  }
+
+  auto job = std::make_shared<Job>();
+  job->function = &function;
+  job->size = size;
+  job->chunk_count = std::min(size, (pool->worker_count() + 1) * kChunksPerThread);
+  job->chunk_size = (size + job->chunk_count - 1) / job->chunk_count;
+  job->chunk_count = (size + job->chunk_size - 1) / job->chunk_size;
+  job->next_chunk.store(0);
+  job->finished_chunks = 0;
+  job->error = nullptr;
+
+  pool->run(env, job);
+
+  if (job->error != nullptr) {
+    env->Throw(job->error);
+    env->DeleteGlobalRef(job->error);
+    return false;
+  }
+  return true;
+}
+}  // namespace parallel
+}  // namespace rcljava_common
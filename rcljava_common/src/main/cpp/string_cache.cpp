@@ -0,0 +1,92 @@
+// Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+#include <jni.h>
+
+#include <cstddef>
+#include <mutex>
+#include <string>
+
+#include "rcljava_common/string_cache.h"
+
+namespace rcljava_common
+{
+namespace strings
+{
+StringCache::StringCache()
+: capacity_(0)
+{
+}
+
+bool StringCache::enabled() const
+{
+  return capacity_.load() != 0;
+}
+
+void StringCache::set_capacity(JNIEnv * env, size_t capacity)
+{
+  std::lock_guard<std::mutex> lock(mutex_);
+  capacity_.store(capacity);
+  evict(env, capacity);
+}
+
+jstring StringCache::get(JNIEnv * env, const char * data, size_t size)
+{
+  if (!enabled()) {
+    return env->NewStringUTF(data);
+  }
+
+  std::lock_guard<std::mutex> lock(mutex_);
+  size_t capacity = capacity_.load();
+  if (capacity == 0) {
+    return env->NewStringUTF(data);
+  }
+
+  key_.assign(data, size);
+  auto it = index_.find(key_);
+  if (it != index_.end()) {
+    entries_.splice(entries_.begin(), entries_, it->second);
+    return static_cast<jstring>(env->NewLocalRef(it->second->second));
+  }
+
+  jstring jvalue = env->NewStringUTF(data);
+  if (jvalue == nullptr) {
+    return nullptr;
+  }
+  jstring jvalue_global = static_cast<jstring>(env->NewGlobalRef(jvalue));
+  if (jvalue_global == nullptr) {
+    return jvalue;
+  }
+  entries_.emplace_front(key_, jvalue_global);
+  index_.emplace(key_, entries_.begin());
+  evict(env, capacity);
+  return jvalue;
+}
+
+size_t StringCache::size()
+{
+  std::lock_guard<std::mutex> lock(mutex_);
+  return entries_.size();
+}
+
+void StringCache::evict(JNIEnv * env, size_t capacity)
+{
+  while (entries_.size() > capacity) {
+    Entry & entry = entries_.back();
+    env->DeleteGlobalRef(entry.second);
+    index_.erase(entry.first);
+    entries_.pop_back();
+  }
+}
+}  // namespace strings
+}  // namespace rcljava_common
@@ -0,0 +1,174 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Helpers for the equals, hashCode and copyFrom methods of the generated
+ * messages, which neither allocate nor box their fields.
+ */
+public final class MessageUtils {
+  /**
+   * Private constructor so this cannot be instantiated.
+   */
+  private MessageUtils() {}
+
+  public static boolean equal(final boolean lhs, final boolean rhs) {
+    return lhs == rhs;
+  }
+
+  public static boolean equal(final int lhs, final int rhs) {
+    return lhs == rhs;
+  }
+
+  public static boolean equal(final long lhs, final long rhs) {
+    return lhs == rhs;
+  }
+
+  /**
+   * Compare two floats the same way as @{link Float#equals(Object)}.
+   */
+  public static boolean equal(final float lhs, final float rhs) {
+    return Float.floatToIntBits(lhs) == Float.floatToIntBits(rhs);
+  }
+
+  /**
+   * Compare two doubles the same way as @{link Double#equals(Object)}.
+   */
+  public static boolean equal(final double lhs, final double rhs) {
+    return Double.doubleToLongBits(lhs) == Double.doubleToLongBits(rhs);
+  }
+
+  public static boolean equal(final Object lhs, final Object rhs) {
+    return lhs == rhs || (lhs != null && lhs.equals(rhs));
+  }
+
+  public static boolean equal(final byte[] lhs, final byte[] rhs) {
+    return Arrays.equals(lhs, rhs);
+  }
+
+  /**
+   * Compare two lists element by element, without an iterator if both
+   * support random access.
+   */
+  public static boolean equal(final List<?> lhs, final List<?> rhs) {
+    if (lhs == rhs) {
+      return true;
+    }
+    if (lhs == null || rhs == null) {
+      return false;
+    }
+    if (!(lhs instanceof RandomAccess) || !(rhs instanceof RandomAccess)) {
+      return lhs.equals(rhs);
+    }
+    int size = lhs.size();
+    if (size != rhs.size()) {
+      return false;
+    }
+    for (int i = 0; i < size; ++i) {
+      if (!equal(lhs.get(i), rhs.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static int hash(final boolean value) {
+    return value ? 1231 : 1237;
+  }
+
+  public static int hash(final int value) {
+    return value;
+  }
+
+  public static int hash(final long value) {
+    return (int) (value ^ (value >>> 32));
+  }
+
+  public static int hash(final float value) {
+    return Float.floatToIntBits(value);
+  }
+
+  public static int hash(final double value) {
+    return hash(Double.doubleToLongBits(value));
+  }
+
+  public static int hash(final Object value) {
+    return value == null ? 0 : value.hashCode();
+  }
+
+  public static int hash(final byte[] value) {
+    return Arrays.hashCode(value);
+  }
+
+  /**
+   * Hash a list as specified by @{link List#hashCode()}, without an iterator
+   * if it supports random access.
+   */
+  public static int hash(final List<?> list) {
+    if (list == null) {
+      return 0;
+    }
+    if (!(list instanceof RandomAccess)) {
+      return list.hashCode();
+    }
+    int result = 1;
+    int size = list.size();
+    for (int i = 0; i < size; ++i) {
+      result = 31 * result + hash(list.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Copy a list of immutable elements, such as boxed primitives or strings.
+   *
+   * @param destination The list to copy into. It is reused if it is an
+   *     @{link ArrayList}, so it must not be shared with other messages.
+   * @param source The list to copy from.
+   * @return The list that holds the copy, which is either destination or
+   *     a new list, or null if source is null.
+   */
+  public static <E> List<E> copy(final List<E> destination, final List<E> source) {
+    if (source == null) {
+      return null;
+    }
+    if (destination == source) {
+      return destination;
+    }
+    int size = source.size();
+    List<E> result = null;
+    if (destination instanceof ArrayList) {
+      destination.clear();
+      ((ArrayList<E>) destination).ensureCapacity(size);
+      result = destination;
+    } else {
+      result = new ArrayList<E>(size);
+    }
+    if (source instanceof RandomAccess) {
+      for (int i = 0; i < size; ++i) {
+        result.add(source.get(i));
+      }
+    } else {
+      result.addAll(source);
+    }
+    return result;
+  }
+}
@@ -17,5 +17,7 @@
  * Contains a utility class for retrieving information about the RMW and
  * typesupport implemnetations via reflection, to avoid a circular
  * dependency between rcljava and generated messages.
+ * Also contains the helpers used by the equals, hashCode and copyFrom
+ * methods of the generated messages.
  */
 package org.ros2.rcljava.common;
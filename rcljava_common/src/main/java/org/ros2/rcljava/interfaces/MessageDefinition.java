@@ -15,12 +15,91 @@
 
 package org.ros2.rcljava.interfaces;
 
+import org.ros2.rcljava.serialization.CDRReader;
+import org.ros2.rcljava.serialization.CDRWriter;
+
 public interface MessageDefinition {
   public long getFromJavaConverterInstance();
 
   public long getToJavaConverterInstance();
 
+  /**
+   * @return A pointer to the native converter that only copies the fields selected by a
+   *     subscription field projection.
+   */
+  public long getToJavaProjectedConverterInstance();
+
+  /**
+   * @return The names of the fields of this message, in declaration order.
+   */
+  public String[] getFieldNamesInstance();
+
+  /**
+   * @return The message type of the field at the given index, or null if that field is of a
+   *     primitive or string type. Arrays of messages return the type of their elements.
+   */
+  public Class<? extends MessageDefinition> getFieldMessageTypeInstance(int index);
+
+  /**
+   * @return true if the field at the given index is a sequence of messages with only primitive
+   *     fields, which a subscription can convert into one array per field of those messages.
+   */
+  public boolean isColumnarFieldInstance(int index);
+
+  /**
+   * @return The ROS type of each field of this message, in declaration order, e.g. "float64",
+   *     "string", "int32[]" or "std_msgs/Header".
+   */
+  public String[] getFieldTypesInstance();
+
+  /**
+   * @return The size of the C structure of this message, followed by the offset of each of its
+   *     fields in declaration order.
+   */
+  public long[] getLayoutInstance();
+
   public long getTypeSupportInstance();
 
+  /**
+   * @return A pointer to the function that allocates and initializes a C message of this type.
+   */
+  public long getCreatorInstance();
+
   public long getDestructorInstance();
+
+  /**
+   * @return The size of the C structure of this message if it only contains fixed size
+   *     fields and can be accessed in native memory, zero otherwise.
+   */
+  public int getLoanedSizeInstance();
+
+  /**
+   * @return A view that reads the fields of the C message of this type at the given address,
+   *     without converting it into a Java object.
+   */
+  public MessageView<? extends MessageDefinition> createViewInstance(long address);
+
+  /**
+   * @return A new message with a deep copy of the contents of this one.
+   */
+  public MessageDefinition deepCopy();
+
+  /**
+   * Append the CDR encoding of this message to a writer, without going through JNI.
+   */
+  public void serialize(CDRWriter writer);
+
+  /**
+   * Replace the contents of this message with the next CDR encoded message of the same type
+   * from a reader, without going through JNI.
+   */
+  public void deserialize(CDRReader reader);
+
+  /**
+   * Replace the contents of this message with the next CDR encoded message of the same type
+   * from a reader, decoding each field only when it is first read. The reader is kept by the
+   * message until all its fields have been decoded or set, so it must not be reused, and the
+   * message must not be accessed concurrently from several threads.
+   */
+  public void deserializeLazy(CDRReader reader);
 }
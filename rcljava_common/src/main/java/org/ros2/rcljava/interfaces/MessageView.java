@@ -0,0 +1,34 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.interfaces;
+
+/**
+ * Read-only access to a message stored in native memory, without converting it into a Java
+ * object. Views are only valid as long as the C message they point to.
+ *
+ * @param <T> The type of the message.
+ */
+public interface MessageView<T extends MessageDefinition> {
+  /**
+   * @return A pointer to the C message, as an integer.
+   */
+  long getAddress();
+
+  /**
+   * @return A copy of the message as a Java object, which remains valid after the view.
+   */
+  T toMessage();
+}
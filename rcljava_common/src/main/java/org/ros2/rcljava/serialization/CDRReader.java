@@ -0,0 +1,214 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.serialization;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Reads primitive values from a CDR encoded buffer, as produced by the C typesupport or by
+ * {@link CDRWriter}.
+ */
+public final class CDRReader {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final ByteBuffer buffer;
+
+  /**
+   * Create a reader over the remaining bytes of a buffer, which must start with the
+   * encapsulation header. The position of the given buffer is not modified.
+   *
+   * @param buffer Serialized message, as passed to serialized subscription callbacks.
+   * @throws IllegalArgumentException if the encapsulation kind is not plain CDR.
+   */
+  public CDRReader(final ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+    if (this.buffer.remaining() < CDRWriter.HEADER_SIZE) {
+      throw new IllegalArgumentException("Buffer too small for a CDR encapsulation header");
+    }
+    byte kind = this.buffer.get(1);
+    if (this.buffer.get(0) != 0 || (kind != 0 && kind != 1)) {
+      throw new IllegalArgumentException("Unsupported CDR encapsulation kind: " + kind);
+    }
+    this.buffer.order(kind == 1 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    this.buffer.position(CDRWriter.HEADER_SIZE);
+  }
+
+  private CDRReader(final CDRReader other) {
+    this.buffer = other.buffer.duplicate().order(other.buffer.order());
+  }
+
+  /**
+   * @return A reader over the same bytes with its own position, which starts at the current
+   *     position of this reader.
+   */
+  public final CDRReader duplicate() {
+    return new CDRReader(this);
+  }
+
+  /**
+   * @return The number of bytes that have not been read yet.
+   */
+  public final int remaining() {
+    return this.buffer.remaining();
+  }
+
+  /**
+   * @return The offset of the next value to be read, which can be passed to
+   *     {@link #seek(int)} to read it again later.
+   */
+  public final int position() {
+    return this.buffer.position();
+  }
+
+  /**
+   * Move to an offset previously returned by {@link #position()}.
+   */
+  public final void seek(final int position) {
+    if (position < CDRWriter.HEADER_SIZE || position > this.buffer.limit()) {
+      throw new IllegalArgumentException("Invalid position: " + position);
+    }
+    this.buffer.position(position);
+  }
+
+  private void align(final int alignment) {
+    int padding = (alignment - ((this.buffer.position() - CDRWriter.HEADER_SIZE) % alignment))
+        % alignment;
+    if (padding > this.buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    this.buffer.position(this.buffer.position() + padding);
+  }
+
+  public final boolean readBoolean() {
+    return this.buffer.get() != 0;
+  }
+
+  public final byte readByte() {
+    return this.buffer.get();
+  }
+
+  /**
+   * Read a ROS char, which is a single byte on the wire.
+   */
+  public final char readChar() {
+    return (char) (this.buffer.get() & 0xff);
+  }
+
+  public final short readShort() {
+    align(2);
+    return this.buffer.getShort();
+  }
+
+  public final int readInt() {
+    align(4);
+    return this.buffer.getInt();
+  }
+
+  public final long readLong() {
+    align(8);
+    return this.buffer.getLong();
+  }
+
+  public final float readFloat() {
+    align(4);
+    return this.buffer.getFloat();
+  }
+
+  public final double readDouble() {
+    align(8);
+    return this.buffer.getDouble();
+  }
+
+  public final String readString() {
+    int length = readInt();
+    if (length < 0 || length > this.buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length: " + length);
+    }
+    if (length == 0) {
+      return "";
+    }
+    byte[] bytes = new byte[length];
+    this.buffer.get(bytes);
+    // Drop the terminating null character
+    return new String(bytes, 0, length - 1, UTF8);
+  }
+
+  /**
+   * Read a string without decoding it.
+   *
+   * @return The UTF-8 encoded bytes of the string, without the terminating null character.
+   */
+  public final byte[] readStringUtf8() {
+    int length = readInt();
+    if (length < 0 || length > this.buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length: " + length);
+    }
+    if (length == 0) {
+      return new byte[0];
+    }
+    byte[] bytes = new byte[length - 1];
+    this.buffer.get(bytes);
+    // Drop the terminating null character
+    this.buffer.get();
+    return bytes;
+  }
+
+  /**
+   * Skip a string without decoding it.
+   */
+  public final void skipString() {
+    int length = readInt();
+    if (length < 0 || length > this.buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length: " + length);
+    }
+    this.buffer.position(this.buffer.position() + length);
+  }
+
+  /**
+   * Skip consecutive primitive values without decoding them.
+   *
+   * @param size The size of each value, in bytes, which is also its alignment.
+   * @param count The number of values to skip.
+   */
+  public final void skip(final int size, final int count) {
+    if (count == 0) {
+      return;
+    }
+    align(size);
+    long length = (long) size * count;
+    if (count < 0 || length > this.buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    this.buffer.position(this.buffer.position() + (int) length);
+  }
+
+  /**
+   * Read the number of elements of a bounded or unbounded sequence.
+   *
+   * @throws IllegalArgumentException if the size cannot possibly fit in the remaining bytes,
+   *     which guards against allocating huge lists for corrupted data.
+   */
+  public final int readSequenceSize() {
+    int size = readInt();
+    if (size < 0 || size > this.buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid sequence size: " + size);
+    }
+    return size;
+  }
+}
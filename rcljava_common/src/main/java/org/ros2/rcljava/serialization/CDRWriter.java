@@ -0,0 +1,179 @@
+/* Copyright 2016-2018 Esteve Fernandez <esteve@apache.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ros2.rcljava.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Writes primitive values using the little endian CDR encoding, the same layout the C
+ * typesupport produces for serialized messages.
+ *
+ * A writer is meant to be reused: call {@link #reset()} before serializing each message
+ * and {@link #getBuffer()} afterwards to obtain the encoded bytes.
+ */
+public final class CDRWriter {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * Size of the encapsulation header, values are aligned relative to its end.
+   */
+  static final int HEADER_SIZE = 4;
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+  private ByteBuffer buffer;
+
+  public CDRWriter() {
+    this(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param initialCapacity Initial size in bytes of the buffer, it will grow as needed.
+   */
+  public CDRWriter(final int initialCapacity) {
+    this.buffer = ByteBuffer.allocateDirect(Math.max(initialCapacity, HEADER_SIZE));
+    this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    this.reset();
+  }
+
+  /**
+   * Discard any previously written data and write the encapsulation header.
+   */
+  public final void reset() {
+    this.buffer.clear();
+    // CDR_LE encapsulation kind followed by two bytes of options
+    this.buffer.put((byte) 0x00);
+    this.buffer.put((byte) 0x01);
+    this.buffer.put((byte) 0x00);
+    this.buffer.put((byte) 0x00);
+  }
+
+  /**
+   * @return A read-only view of the bytes written since the last call to {@link #reset()},
+   *     including the encapsulation header. The view is invalidated by further writes.
+   */
+  public final ByteBuffer getBuffer() {
+    ByteBuffer view = this.buffer.duplicate();
+    view.flip();
+    return view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return The number of bytes written since the last call to {@link #reset()},
+   *     including the encapsulation header.
+   */
+  public final int size() {
+    return this.buffer.position();
+  }
+
+  private void ensureCapacity(final int length) {
+    if (this.buffer.remaining() >= length) {
+      return;
+    }
+    int capacity = Math.max(this.buffer.capacity() * 2, this.buffer.position() + length);
+    ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+    grown.order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.flip();
+    grown.put(this.buffer);
+    this.buffer = grown;
+  }
+
+  private void align(final int alignment) {
+    int padding = (alignment - ((this.buffer.position() - HEADER_SIZE) % alignment)) % alignment;
+    ensureCapacity(padding + alignment);
+    for (int i = 0; i < padding; i++) {
+      this.buffer.put((byte) 0);
+    }
+  }
+
+  public final void writeBoolean(final boolean value) {
+    ensureCapacity(1);
+    this.buffer.put(value ? (byte) 1 : (byte) 0);
+  }
+
+  public final void writeByte(final byte value) {
+    ensureCapacity(1);
+    this.buffer.put(value);
+  }
+
+  /**
+   * Write a ROS char, which is a single byte on the wire.
+   */
+  public final void writeChar(final char value) {
+    ensureCapacity(1);
+    this.buffer.put((byte) value);
+  }
+
+  public final void writeShort(final short value) {
+    align(2);
+    this.buffer.putShort(value);
+  }
+
+  public final void writeInt(final int value) {
+    align(4);
+    this.buffer.putInt(value);
+  }
+
+  public final void writeLong(final long value) {
+    align(8);
+    this.buffer.putLong(value);
+  }
+
+  public final void writeFloat(final float value) {
+    align(4);
+    this.buffer.putFloat(value);
+  }
+
+  public final void writeDouble(final double value) {
+    align(8);
+    this.buffer.putDouble(value);
+  }
+
+  /**
+   * Write a string as its UTF-8 encoded length, including the terminating null character,
+   * followed by its bytes. A null value is written as an empty string.
+   */
+  public final void writeString(final String value) {
+    byte[] bytes = value == null ? new byte[0] : value.getBytes(UTF8);
+    writeInt(bytes.length + 1);
+    ensureCapacity(bytes.length + 1);
+    this.buffer.put(bytes);
+    this.buffer.put((byte) 0);
+  }
+
+  /**
+   * Write a string that is already UTF-8 encoded, without the terminating null character.
+   * A null value is written as an empty string.
+   */
+  public final void writeStringUtf8(final byte[] value) {
+    int length = value == null ? 0 : value.length;
+    writeInt(length + 1);
+    ensureCapacity(length + 1);
+    if (value != null) {
+      this.buffer.put(value);
+    }
+    this.buffer.put((byte) 0);
+  }
+
+  /**
+   * Write the number of elements of a bounded or unbounded sequence.
+   */
+  public final void writeSequenceSize(final int size) {
+    writeInt(size);
+  }
+}
@@ -23,6 +23,7 @@ add_custom_command(
   --generator-arguments-file "${generator_arguments_file}"
   --typesupport-impl "${_typesupport_impl}"
   --typesupport-impls "${_typesupport_impls}"
+  ${_utf8_strings_arg}
   DEPENDS ${target_dependencies}
   COMMENT "Generating Java code for ROS interfaces"
   VERBATIM
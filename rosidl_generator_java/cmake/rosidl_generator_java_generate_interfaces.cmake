@@ -115,6 +115,12 @@ foreach(dep ${target_dependencies})
   endif()
 endforeach()
 
+# Keep string fields as UTF-8 bytes in the generated messages, only decoding them on demand
+set(_utf8_strings_arg "")
+if(ROSIDL_GENERATOR_JAVA_UTF8_STRINGS)
+  set(_utf8_strings_arg "--utf8-strings")
+endif()
+
 set(generator_arguments_file "${CMAKE_BINARY_DIR}/rosidl_generator_java__arguments.json")
 rosidl_write_generator_arguments(
   "${generator_arguments_file}"
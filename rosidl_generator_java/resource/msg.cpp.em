@@ -4,7 +4,9 @@
 #include <jni.h>
 
 #include <cassert>
+#include <cstddef>
 #include <cstdint>
+#include <cstdlib>
 #include <string>
 
 // Ensure that a jlong is big enough to store raw pointers
@@ -19,6 +21,7 @@ static_assert(sizeof(jlong) >= sizeof(std::intptr_t), "jlong must be able to sto
 #include "rosidl_generator_c/primitives_array.h"
 #include "rosidl_generator_c/primitives_array_functions.h"
 
+#include "rcljava_common/allocator.h"
 #include "rcljava_common/exceptions.h"
 #include "rcljava_common/signatures.h"
 
@@ -98,7 +101,52 @@ cache[msg_normalized_type] = msg_jni_type
 
 unique_fields = set()
 
+has_string_fields = False
+has_message_fields = False
+
+def is_utf8_field(field):
+    return utf8_strings and field.type.type == 'string' and not field.type.is_array
+
+has_utf8_fields = any(is_utf8_field(field) for field in spec.fields)
+
+# Sequences of nested messages are converted by a helper per type, in parallel when large
+sequence_types = set(
+    get_normalized_type(field.type) for field in spec.fields
+    if field.type.is_array and not field.type.is_primitive_type())
+
+# Sequences of messages with only primitive fields can be converted into one array per field
+columnar_fields = [
+    (index, field) for index, field in enumerate(spec.fields)
+    if index < 63 and get_columnar_spec(message_specs, field.type) is not None]
+
+columnar_types = {}
+for index, field in columnar_fields:
+    columnar_types[get_normalized_type(field.type)] = (
+        get_jni_type(field.type), get_columnar_spec(message_specs, field.type))
+
+def get_jni_primitive_type(type_):
+    return 'j' + get_java_type(type_, use_primitives=True)
+
+# String fields decoded during conversion can share their values through a per-field cache
+cached_string_fields = [
+    (index, field) for index, field in enumerate(spec.fields)
+    if field.type.type == 'string' and not is_utf8_field(field)]
+
+# Views read fields of primitive types through a direct buffer over the C message, and the
+# remaining fields through natives that take the address of the C message
+def is_sequence_field(field):
+    return field.type.is_array and (field.type.array_size is None or field.type.is_upper_bound)
+
+def is_view_buffer_field(field):
+    return field.type.is_primitive_type() and field.type.type != 'string'
+
+has_view_buffer = any(
+    is_view_buffer_field(field) and not is_sequence_field(field) for field in spec.fields)
+
 for field in spec.fields:
+    if field.type.type == 'string':
+        has_string_fields = True
+
     if field.type.is_array:
         cache[list_normalized_type] = list_jni_type
         cache[array_list_normalized_type] = array_list_jni_type
@@ -107,10 +155,23 @@ for field in spec.fields:
         cache[get_normalized_type(field.type)] = get_jni_type(field.type)
 
     if not field.type.is_primitive_type():
+        has_message_fields = True
         non_primitive_types.add(get_jni_type(field.type))
         unique_fields.add((field.type.pkg_name, field.type.type))
 }@
 
+@[if columnar_fields]@
+#include <vector>
+
+@[end if]@
+@[if sequence_types]@
+#include "rcljava_common/parallel.h"
+
+@[end if]@
+@[if cached_string_fields]@
+#include "rcljava_common/string_cache.h"
+
+@[end if]@
 @[for field_pkg_name, field_type in unique_fields]@
 #include "@(field_pkg_name)/msg/@(convert_camel_case_to_lower_case_underscore(field_type)).h"
 #include "@(field_pkg_name)/msg/@(convert_camel_case_to_lower_case_underscore(field_type))__functions.h"
@@ -144,8 +205,214 @@ jmethodID _j@(normalized_type)_to_java_converter_global = nullptr;
 using _j@(normalized_type)_to_java_signature = jobject (*)(@(normalized_type) *, jobject);
 jlong _j@(normalized_type)_to_java_converter_ptr_global = 0;
 _j@(normalized_type)_to_java_signature _j@(normalized_type)_to_java_function = nullptr;
+
+jmethodID _j@(normalized_type)_to_java_projected_converter_global = nullptr;
+using _j@(normalized_type)_to_java_projected_signature = jobject (*)(@(normalized_type) *, jobject, const jlong *);
+jlong _j@(normalized_type)_to_java_projected_converter_ptr_global = 0;
+_j@(normalized_type)_to_java_projected_signature _j@(normalized_type)_to_java_projected_function = nullptr;
 @[    end if]@
 @[end for]@
+@[if spec.fields]@
+
+// Looked up once, since every conversion from Java checks for fields still to be decoded
+jfieldID _jlazy_offsets_fid_global = nullptr;
+jmethodID _jdecode_lazy_fields_mid_global = nullptr;
+@[end if]@
+@[if sequence_types]@
+
+jclass _jjava__util__Arrays_class_global = nullptr;
+jmethodID _jjava__util__Arrays_as_list_global = nullptr;
+jmethodID _j@(array_list_normalized_type)_copy_constructor_global = nullptr;
+@[end if]@
+@[for normalized_type in sorted(sequence_types)]@
+
+// Convert a sequence of nested messages into a new ArrayList. Sequences above the threshold set
+// with RCLJava.setParallelConversionThreshold are split across the conversion threads, each
+// chunk filling its own range of a preallocated Java array.
+jobject @(normalized_type)__convert_sequence_to_java(
+  JNIEnv * env, @(normalized_type) * data, size_t size, const jlong * projection)
+{
+  if (rcljava_common::parallel::use_parallel_conversion(size)) {
+    jobjectArray _jelements_local = env->NewObjectArray(
+      static_cast<jsize>(size), _j@(normalized_type)_class_global, nullptr);
+    if (_jelements_local == nullptr) {
+      return nullptr;
+    }
+    auto _jelements = static_cast<jobjectArray>(env->NewGlobalRef(_jelements_local));
+    env->DeleteLocalRef(_jelements_local);
+
+    bool converted = rcljava_common::parallel::parallel_for(
+      env, size, [data, projection, _jelements](JNIEnv * chunk_env, size_t begin, size_t end) {
+        for (size_t i = begin; i < end; ++i) {
+          jobject _jelement = _j@(normalized_type)_to_java_projected_function(
+            &data[i], nullptr, projection);
+          chunk_env->SetObjectArrayElement(_jelements, static_cast<jsize>(i), _jelement);
+          chunk_env->DeleteLocalRef(_jelement);
+        }
+      });
+
+    jobject _jlist_obj = nullptr;
+    if (converted) {
+      jobject _jelements_list = env->CallStaticObjectMethod(
+        _jjava__util__Arrays_class_global, _jjava__util__Arrays_as_list_global, _jelements);
+      _jlist_obj = env->NewObject(
+        _j@(array_list_normalized_type)_class_global, _j@(array_list_normalized_type)_copy_constructor_global,
+        _jelements_list);
+      env->DeleteLocalRef(_jelements_list);
+    }
+    env->DeleteGlobalRef(_jelements);
+    return _jlist_obj;
+  }
+
+  jobject _jlist_obj = env->NewObject(
+    _j@(array_list_normalized_type)_class_global, _j@(array_list_normalized_type)_constructor_global);
+  jmethodID _jlist_add_mid = env->GetMethodID(
+    _j@(array_list_normalized_type)_class_global, "add", "(Ljava/lang/Object;)Z");
+  for (size_t i = 0; i < size; ++i) {
+    jobject _jlist_element = _j@(normalized_type)_to_java_projected_function(
+      &data[i], nullptr, projection);
+    if (_jlist_element != nullptr) {
+      jboolean _jlist_add_result = env->CallBooleanMethod(_jlist_obj, _jlist_add_mid, _jlist_element);
+      assert(_jlist_add_result);
+      env->DeleteLocalRef(_jlist_element);
+    }
+  }
+  return _jlist_obj;
+}
+
+// Convert the elements of a Java list into an allocated sequence of nested messages, in
+// parallel for sequences above the conversion threshold.
+bool @(normalized_type)__convert_sequence_from_java(
+  JNIEnv * env, jobject jlist, jmethodID jlist_get_mid, @(normalized_type) * dest, size_t size)
+{
+  if (rcljava_common::parallel::use_parallel_conversion(size)) {
+    jobject _jlist_global = env->NewGlobalRef(jlist);
+    bool converted = rcljava_common::parallel::parallel_for(
+      env, size, [_jlist_global, jlist_get_mid, dest](JNIEnv * chunk_env, size_t begin, size_t end) {
+        for (size_t i = begin; i < end; ++i) {
+          jobject element = chunk_env->CallObjectMethod(
+            _jlist_global, jlist_get_mid, static_cast<jint>(i));
+          _j@(normalized_type)_from_java_function(element, &dest[i]);
+          chunk_env->DeleteLocalRef(element);
+        }
+      });
+    env->DeleteGlobalRef(_jlist_global);
+    return converted;
+  }
+
+  for (size_t i = 0; i < size; ++i) {
+    jobject element = env->CallObjectMethod(jlist, jlist_get_mid, static_cast<jint>(i));
+    _j@(normalized_type)_from_java_function(element, &dest[i]);
+    env->DeleteLocalRef(element);
+  }
+  return true;
+}
+@[end for]@
+@[for normalized_type, (jni_type, columnar_spec) in columnar_types.items()]@
+
+jclass _j@(normalized_type)_columns_class_global = nullptr;
+jmethodID _j@(normalized_type)_columns_constructor_global = nullptr;
+jmethodID _j@(normalized_type)_columns_as_list_global = nullptr;
+@[    for columnar_field in columnar_spec.fields]@
+jfieldID _j@(normalized_type)_columns_@(columnar_field.name)_fid_global = nullptr;
+@[    end for]@
+
+// Copy a sequence of nested messages into one Java array per field in a single pass, returning
+// a list view of the columns.
+jobject @(normalized_type)__convert_to_java_columns(
+  JNIEnv * env, const @(normalized_type) * data, size_t size)
+{
+  const jsize _jcolumn_size = static_cast<jsize>(size);
+@[    for columnar_field in columnar_spec.fields]@
+  std::vector<@(get_jni_primitive_type(columnar_field.type))> _@(columnar_field.name)_values(size);
+@[    end for]@
+  for (size_t i = 0; i < size; ++i) {
+@[    for columnar_field in columnar_spec.fields]@
+    _@(columnar_field.name)_values[i] = static_cast<@(get_jni_primitive_type(columnar_field.type))>(data[i].@(columnar_field.name));
+@[    end for]@
+  }
+
+  jobject _jcolumns_obj = env->NewObject(
+    _j@(normalized_type)_columns_class_global, _j@(normalized_type)_columns_constructor_global,
+    static_cast<jint>(size));
+  if (_jcolumns_obj == nullptr) {
+    return nullptr;
+  }
+@[    for columnar_field in columnar_spec.fields]@
+@{
+array_type = get_jni_primitive_type(columnar_field.type) + 'Array'
+region_method = 'Set%sArrayRegion' % get_java_type(columnar_field.type, use_primitives=True).capitalize()
+}@
+  auto _j@(columnar_field.name)_column = static_cast<@(array_type)>(
+    env->GetObjectField(_jcolumns_obj, _j@(normalized_type)_columns_@(columnar_field.name)_fid_global));
+  env->@(region_method)(_j@(columnar_field.name)_column, 0, _jcolumn_size, _@(columnar_field.name)_values.data());
+  env->DeleteLocalRef(_j@(columnar_field.name)_column);
+@[    end for]@
+
+  jobject _jlist_obj = env->CallObjectMethod(
+    _jcolumns_obj, _j@(normalized_type)_columns_as_list_global);
+  env->DeleteLocalRef(_jcolumns_obj);
+  return _jlist_obj;
+}
+@[end for]@
+@[if cached_string_fields]@
+
+@[    for index, field in cached_string_fields]@
+rcljava_common::strings::StringCache _@(field.name)_string_cache;
+@[    end for]@
+@[end if]@
+@[if has_string_fields]@
+
+// Copy a Java string into an existing rosidl string, only reallocating its buffer when the
+// current capacity is too small.
+bool assign_string_from_java(JNIEnv * env, jstring jvalue, rosidl_generator_c__String * dest)
+{
+  jsize utf_length = env->GetStringUTFLength(jvalue);
+  size_t required_capacity = static_cast<size_t>(utf_length) + 1;
+  if (dest->data == nullptr || dest->capacity < required_capacity) {
+    char * data = static_cast<char *>(realloc(dest->data, required_capacity));
+    if (data == nullptr) {
+      return false;
+    }
+    dest->data = data;
+    dest->capacity = required_capacity;
+  }
+  env->GetStringUTFRegion(jvalue, 0, env->GetStringLength(jvalue), dest->data);
+  dest->data[utf_length] = '\0';
+  dest->size = static_cast<size_t>(utf_length);
+  return true;
+}
+
+void reset_string(rosidl_generator_c__String * dest)
+{
+  if (dest->data != nullptr) {
+    dest->data[0] = '\0';
+  }
+  dest->size = 0;
+}
+@[    if has_utf8_fields]@
+
+// Copy the UTF-8 bytes of a string field into an existing rosidl string, only reallocating its
+// buffer when the current capacity is too small.
+bool assign_string_from_utf8(JNIEnv * env, jbyteArray jvalue, rosidl_generator_c__String * dest)
+{
+  jsize length = env->GetArrayLength(jvalue);
+  size_t required_capacity = static_cast<size_t>(length) + 1;
+  if (dest->data == nullptr || dest->capacity < required_capacity) {
+    char * data = static_cast<char *>(realloc(dest->data, required_capacity));
+    if (data == nullptr) {
+      return false;
+    }
+    dest->data = data;
+    dest->capacity = required_capacity;
+  }
+  env->GetByteArrayRegion(jvalue, 0, length, reinterpret_cast<jbyte *>(dest->data));
+  dest->data[length] = '\0';
+  dest->size = static_cast<size_t>(length);
+  return true;
+}
+@[    end if]@
+@[end if]@
 }  // namespace
 
 /*
@@ -164,6 +431,14 @@ JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_g
 JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getToJavaConverter
   (JNIEnv *, jclass);
 
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    getToJavaProjectedConverter
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getToJavaProjectedConverter
+  (JNIEnv *, jclass);
+
 /*
  * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
  * Method:    getTypeSupport
@@ -172,6 +447,14 @@ JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_g
 JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getTypeSupport
   (JNIEnv *, jclass);
 
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    getCreator
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getCreator
+  (JNIEnv *, jclass);
+
 /*
  * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
  * Method:    getDestructor
@@ -180,10 +463,124 @@ JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_g
 JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getDestructor
   (JNIEnv *, jclass);
 
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    getLoanedLayout
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getLoanedLayout
+  (JNIEnv *, jclass);
+@[if has_view_buffer]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeCreateViewBuffer
+ * Signature: (J)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeCreateViewBuffer
+  (JNIEnv *, jclass, jlong);
+@[end if]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeViewToMessage
+ * Signature: (J)L@(spec.base_type.pkg_name)/@(subfolder)/@(type_name);
+ */
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeViewToMessage
+  (JNIEnv *, jclass, jlong);
+@[for field in spec.fields]@
+@{
+camel_name = convert_lower_case_underscore_to_camel_case(field.name)
+}@
+@[    if field.type.is_array and is_view_buffer_field(field)]@
+@[        if is_sequence_field(field)]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeGetView@(camel_name)Buffer
+ * Signature: (J)Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Buffer
+  (JNIEnv *, jclass, jlong);
+@[        end if]@
+@[    elif field.type.is_array]@
+@[        if is_sequence_field(field)]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeGetView@(camel_name)Size
+ * Signature: (J)I
+ */
+JNIEXPORT jint JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Size
+  (JNIEnv *, jclass, jlong);
+@[        end if]@
+@[        if field.type.type == 'string']@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeGetView@(camel_name)
+ * Signature: (JI)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)
+  (JNIEnv *, jclass, jlong, jint);
+@[        else]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeGetView@(camel_name)Address
+ * Signature: (JI)J
+ */
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Address
+  (JNIEnv *, jclass, jlong, jint);
+@[        end if]@
+@[    elif field.type.type == 'string']@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeGetView@(camel_name)
+ * Signature: (J)Ljava/lang/String;
+ */
+JNIEXPORT jstring JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)
+  (JNIEnv *, jclass, jlong);
+@[    end if]@
+@[end for]@
+@[if cached_string_fields]@
+
+/*
+ * Class:     @(jni_package_name)_@(subfolder)_@(type_name)
+ * Method:    nativeSetStringCacheCapacity
+ * Signature: (II)V
+ */
+JNIEXPORT void JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeSetStringCacheCapacity
+  (JNIEnv *, jclass, jint, jint);
+@[end if]@
+
 #ifdef __cplusplus
 }
 #endif
 
+// Messages created by the converters use the allocator configured in RCLJava, the memory
+// owned by their fields is still managed by rosidl_generator_c.
+@(msg_normalized_type) * @(msg_normalized_type)__create_message()
+{
+  auto ros_message = static_cast<@(msg_normalized_type) *>(
+    rcljava_common::allocator::allocate(sizeof(@(msg_normalized_type)), nullptr));
+  if (ros_message != nullptr && !@(msg_normalized_type)__init(ros_message)) {
+    rcljava_common::allocator::deallocate(ros_message, nullptr);
+    return nullptr;
+  }
+  return ros_message;
+}
+
+void @(msg_normalized_type)__destroy_message(@(msg_normalized_type) * ros_message)
+{
+  if (ros_message == nullptr) {
+    return;
+  }
+  @(msg_normalized_type)__fini(ros_message);
+  rcljava_common::allocator::deallocate(ros_message, nullptr);
+}
+
 @# Avoid warnings about unused arguments if the message definition does not contain any fields
 @[if spec.fields]@
 @(msg_normalized_type) * @(spec.base_type.pkg_name)_@(type_name)__convert_from_java(jobject _jmessage_obj, @(msg_normalized_type) * ros_message)
@@ -198,54 +595,76 @@ JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_g
   assert(env != nullptr);
 
   if (ros_message == nullptr) {
-    ros_message = @(msg_normalized_type)__create();
+    ros_message = @(msg_normalized_type)__create_message();
+    if (ros_message == nullptr) {
+      rcljava_throw_exception(env, "java/lang/OutOfMemoryError", "Failed to allocate @(spec.base_type.pkg_name)/@(type_name)");
+      return nullptr;
+    }
+  }
+@[if spec.fields]@
+
+  // The fields of lazily deserialized messages are only written when they are first read
+  jobject _jlazy_offsets_object = env->GetObjectField(_jmessage_obj, _jlazy_offsets_fid_global);
+  if (_jlazy_offsets_object != nullptr) {
+    env->DeleteLocalRef(_jlazy_offsets_object);
+    env->CallVoidMethod(_jmessage_obj, _jdecode_lazy_fields_mid_global);
   }
+@[end if]@
 @[for field in spec.fields]@
 @{
 normalized_type = get_normalized_type(field.type)
 }@
-@[    if field.type.is_array]
+@[    if field.type.is_array]@
   auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "L@(list_jni_type);");
   jobject _jlist_@(field.name)_object = env->GetObjectField(_jmessage_obj, _jfield_@(field.name)_fid);
 
-  if (_jlist_@(field.name)_object != nullptr) {
-    jmethodID _jlist_@(field.name)_get_mid = env->GetMethodID(_j@(list_normalized_type)_class_global, "get", "(I)Ljava/lang/Object;");
 @[        if field.type.array_size is None or field.type.is_upper_bound]@
+@{
+if field.type.type == 'string':
+    array_type_prefix = 'rosidl_generator_c__String'
+elif field.type.is_primitive_type():
+    array_type_prefix = 'rosidl_generator_c__%s' % field.type.type
+else:
+    array_type_prefix = '%s__msg__%s' % (field.type.pkg_name, field.type.type)
+}@
+  jint _jlist_@(field.name)_size = 0;
+  if (_jlist_@(field.name)_object != nullptr) {
     jmethodID _jlist_@(field.name)_size_mid = env->GetMethodID(_j@(list_normalized_type)_class_global, "size", "()I");
-    jint _jlist_@(field.name)_size = env->CallIntMethod(_jlist_@(field.name)_object, _jlist_@(field.name)_size_mid);
-@[            if field.type.type == 'string']@
-    if (!rosidl_generator_c__String__Array__init(&(ros_message->@(field.name)), _jlist_@(field.name)_size)) {
-      rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to create String__Array ros_message");
-    }
-@[            else]@
-@[                if field.type.is_primitive_type()]@
-    if (!rosidl_generator_c__@(field.type.type)__Array__init(&(ros_message->@(field.name)), _jlist_@(field.name)_size)) {
-      rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to create @(field.type.type)__Array ros_message");
-    }
-@[                else]@
-    if (!@(field.type.pkg_name)__msg__@(field.type.type)__Array__init(&(ros_message->@(field.name)), _jlist_@(field.name)_size)) {
+    _jlist_@(field.name)_size = env->CallIntMethod(_jlist_@(field.name)_object, _jlist_@(field.name)_size_mid);
+  }
+
+  // Only reallocate the sequence if its size changed, the existing elements are overwritten
+  if (ros_message->@(field.name).size != static_cast<size_t>(_jlist_@(field.name)_size)) {
+    @(array_type_prefix)__Array__fini(&(ros_message->@(field.name)));
+    if (!@(array_type_prefix)__Array__init(&(ros_message->@(field.name)), _jlist_@(field.name)_size)) {
       rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to create @(field.type.type)__Array ros_message");
+      return ros_message;
     }
+  }
 
-@[                end if]@
-@[            end if]@
+  if (_jlist_@(field.name)_object != nullptr) {
+    jmethodID _jlist_@(field.name)_get_mid = env->GetMethodID(_j@(list_normalized_type)_class_global, "get", "(I)Ljava/lang/Object;");
     auto _dest_@(field.name) = ros_message->@(field.name).data;
 @[        else]@
+  if (_jlist_@(field.name)_object != nullptr) {
+    jmethodID _jlist_@(field.name)_get_mid = env->GetMethodID(_j@(list_normalized_type)_class_global, "get", "(I)Ljava/lang/Object;");
     jint _jlist_@(field.name)_size = @(field.type.array_size);
 
     auto _dest_@(field.name) = ros_message->@(field.name);
 @[        end if]@
 
+@[        if field.type.is_primitive_type()]@
     for (jint i = 0; i < _jlist_@(field.name)_size; ++i) {
       auto element = env->CallObjectMethod(_jlist_@(field.name)_object, _jlist_@(field.name)_get_mid, i);
-@[        if field.type.is_primitive_type()]@
 @[            if field.type.type == 'string']@
       jstring _jfield_@(field.name)_value = static_cast<jstring>(element);
       if (_jfield_@(field.name)_value != nullptr) {
-        const char * _str@(field.name) = env->GetStringUTFChars(_jfield_@(field.name)_value, 0);
-        rosidl_generator_c__String__assign(
-          &_dest_@(field.name)[i], _str@(field.name));
-        env->ReleaseStringUTFChars(_jfield_@(field.name)_value, _str@(field.name));
+        if (!assign_string_from_java(env, _jfield_@(field.name)_value, &_dest_@(field.name)[i])) {
+          rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to assign string ros_message");
+          return ros_message;
+        }
+      } else {
+        reset_string(&_dest_@(field.name)[i]);
       }
 @[            else]@
 @{
@@ -253,24 +672,53 @@ call_method_name = 'Call%sMethod' % get_java_type(field.type, use_primitives=Tru
 }@
       _dest_@(field.name)[i] = env->@(call_method_name)(element, _j@(normalized_type)_value_global);
 @[            end if]@
-@[        else]@
-      _dest_@(field.name)[i] = *_j@(normalized_type)_from_java_function(element, nullptr);
-@[        end if]@
       env->DeleteLocalRef(element);
     }
+@[        else]@
+    if (!@(normalized_type)__convert_sequence_from_java(
+        env, _jlist_@(field.name)_object, _jlist_@(field.name)_get_mid, _dest_@(field.name),
+        static_cast<size_t>(_jlist_@(field.name)_size)))
+    {
+      env->DeleteLocalRef(_jlist_@(field.name)_object);
+      return ros_message;
+    }
+@[        end if]@
   }
+  env->DeleteLocalRef(_jlist_@(field.name)_object);
 @[    else]@
 @[        if field.type.is_primitive_type()]@
-@[            if field.type.type == 'string']@
+@[            if is_utf8_field(field)]@
+  auto _jfield_@(field.name)_utf8_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)_utf8", "[B");
+  jbyteArray _jvalue@(field.name) = static_cast<jbyteArray>(env->GetObjectField(_jmessage_obj, _jfield_@(field.name)_utf8_fid));
+  if (_jvalue@(field.name) == nullptr) {
+    // Only the string has been set, encode it once through its accessor, which keeps the bytes
+    jmethodID _jget_@(field.name)_utf8_mid = env->GetMethodID(
+      _j@(msg_normalized_type)_class_global, "get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8", "()[B");
+    _jvalue@(field.name) = static_cast<jbyteArray>(env->CallObjectMethod(_jmessage_obj, _jget_@(field.name)_utf8_mid));
+  }
+
+  if (_jvalue@(field.name) != nullptr) {
+    if (!assign_string_from_utf8(env, _jvalue@(field.name), &ros_message->@(field.name))) {
+      rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to assign string ros_message");
+      return ros_message;
+    }
+  } else {
+    reset_string(&ros_message->@(field.name));
+  }
+  env->DeleteLocalRef(_jvalue@(field.name));
+@[            elif field.type.type == 'string']@
   auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "Ljava/lang/String;");
   jstring _jvalue@(field.name) = static_cast<jstring>(env->GetObjectField(_jmessage_obj, _jfield_@(field.name)_fid));
 
   if (_jvalue@(field.name) != nullptr) {
-    const char * _str@(field.name) = env->GetStringUTFChars(_jvalue@(field.name), 0);
-    rosidl_generator_c__String__assign(
-      &ros_message->@(field.name), _str@(field.name));
-    env->ReleaseStringUTFChars(_jvalue@(field.name), _str@(field.name));
+    if (!assign_string_from_java(env, _jvalue@(field.name), &ros_message->@(field.name))) {
+      rcljava_throw_exception(env, "java/lang/IllegalStateException", "unable to assign string ros_message");
+      return ros_message;
+    }
+  } else {
+    reset_string(&ros_message->@(field.name));
   }
+  env->DeleteLocalRef(_jvalue@(field.name));
 @[            else]@
 @{
 jni_signature = get_jni_signature(field.type)
@@ -288,7 +736,10 @@ get_method_name = 'Get%sField' % get_java_type(field.type, use_primitives=True).
   jobject _jfield_@(field.name)_obj = env->GetObjectField(_jmessage_obj, _jfield_@(field.name)_fid);
 
   if (_jfield_@(field.name)_obj != nullptr) {
-    ros_message->@(field.name) = *_j@(normalized_type)_from_java_function(_jfield_@(field.name)_obj, nullptr);
+    _j@(normalized_type)_from_java_function(_jfield_@(field.name)_obj, &(ros_message->@(field.name)));
+  } else {
+    @(normalized_type)__fini(&(ros_message->@(field.name)));
+    @(normalized_type)__init(&(ros_message->@(field.name)));
   }
   env->DeleteLocalRef(_jfield_@(field.name)_obj);
 @[        end if]@
@@ -300,9 +751,11 @@ get_method_name = 'Get%sField' % get_java_type(field.type, use_primitives=True).
 
 @# Avoid warnings about unused arguments if the message definition does not contain any fields
 @[if spec.fields]@
-jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java(@(msg_normalized_type) * _ros_message, jobject _jmessage_obj)
+jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java_projected(
+  @(msg_normalized_type) * _ros_message, jobject _jmessage_obj, const jlong * _projection)
 @[else]@
-jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java(@(msg_normalized_type) *, jobject _jmessage_obj)
+jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java_projected(
+  @(msg_normalized_type) *, jobject _jmessage_obj, const jlong *)
 @[end if]@
 {
   JNIEnv * env = nullptr;
@@ -314,90 +767,145 @@ jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java(@(msg_normalize
   if (_jmessage_obj == nullptr) {
     _jmessage_obj = env->NewObject(_j@(msg_normalized_type)_class_global, _j@(msg_normalized_type)_constructor_global);
   }
-@[for field in spec.fields]@
+@[if spec.fields]@
+
+  // A projection node is laid out as [length, mask, columnar mask, children...]. The mask
+  // selects the fields to convert and the children hold one node for each selected message
+  // field, in field order. A mask of -1 converts every field of the message and of the messages
+  // nested in it. The columnar mask selects the sequences converted into one array per field.
+  const jlong _mask = _projection != nullptr ? _projection[1] : -1;
+@[    if columnar_fields]@
+  const jlong _columnar_mask = _projection != nullptr ? _projection[2] : 0;
+@[    end if]@
+@[    if has_message_fields]@
+  const jlong * _child_projection = _projection != nullptr ? _projection + 3 : nullptr;
+@[    end if]@
+@[end if]@
+@[for index, field in enumerate(spec.fields)]@
 @{
 normalized_type = get_normalized_type(field.type)
 }@
+@[    if index < 63]@
+  if ((_mask & (static_cast<jlong>(1) << @(index))) != 0) {
+@[    else]@
+  if (_mask == -1) {
+@[    end if]@
+@[    if not field.type.is_primitive_type()]@
+    const jlong * _@(field.name)_projection = nullptr;
+    if (_mask != -1) {
+      _@(field.name)_projection = _child_projection;
+      _child_projection += _child_projection[0];
+    }
+@[    end if]@
 @[    if field.type.is_array]@
 @[        if field.type.is_primitive_type()]@
-  auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "L@(list_jni_type);");
-  jobject _jarray_list_@(field.name)_obj = env->NewObject(_j@(array_list_normalized_type)_class_global, _j@(array_list_normalized_type)_constructor_global);
+    auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "L@(list_jni_type);");
+    jobject _jarray_list_@(field.name)_obj = env->NewObject(_j@(array_list_normalized_type)_class_global, _j@(array_list_normalized_type)_constructor_global);
 @[            if field.type.array_size and not field.type.is_upper_bound]@
-  for (size_t i = 0; i < @(field.type.array_size); ++i) {
-    auto _ros_@(field.name)_element = _ros_message->@(field.name)[i];
+    for (size_t i = 0; i < @(field.type.array_size); ++i) {
+      auto _ros_@(field.name)_element = _ros_message->@(field.name)[i];
 @[            else]@
-  for (size_t i = 0; i < _ros_message->@(field.name).size; ++i) {
-    auto _ros_@(field.name)_element = _ros_message->@(field.name).data[i];
+    for (size_t i = 0; i < _ros_message->@(field.name).size; ++i) {
+      auto _ros_@(field.name)_element = _ros_message->@(field.name).data[i];
 @[            end if]@
 @[                if field.type.type == 'string']@
-    jobject _jlist_@(field.name)_element = nullptr;
-    if (_ros_@(field.name)_element.data != nullptr) {
-      _jlist_@(field.name)_element = env->NewStringUTF(_ros_@(field.name)_element.data);
-    }
+      jobject _jlist_@(field.name)_element = nullptr;
+      if (_ros_@(field.name)_element.data != nullptr) {
+        _jlist_@(field.name)_element = _@(field.name)_string_cache.get(
+          env, _ros_@(field.name)_element.data, _ros_@(field.name)_element.size);
+      }
 @[                else]@
-    jobject _jlist_@(field.name)_element = env->NewObject(
-      _j@(normalized_type)_class_global, _j@(normalized_type)_constructor_global, _ros_@(field.name)_element);
+      jobject _jlist_@(field.name)_element = env->NewObject(
+        _j@(normalized_type)_class_global, _j@(normalized_type)_constructor_global, _ros_@(field.name)_element);
 @[                end if]@
-    // TODO(esteve): replace ArrayList with a jobjectArray to initialize the array beforehand
-    jmethodID _jlist_@(field.name)_add_mid = env->GetMethodID(
-      _j@(array_list_normalized_type)_class_global, "add", "(Ljava/lang/Object;)Z");
-    if (_jlist_@(field.name)_element != nullptr) {
-      jboolean _jlist_@(field.name)_add_result = env->CallBooleanMethod(_jarray_list_@(field.name)_obj, _jlist_@(field.name)_add_mid, _jlist_@(field.name)_element);
-      assert(_jlist_@(field.name)_add_result);
+      // TODO(esteve): replace ArrayList with a jobjectArray to initialize the array beforehand
+      jmethodID _jlist_@(field.name)_add_mid = env->GetMethodID(
+        _j@(array_list_normalized_type)_class_global, "add", "(Ljava/lang/Object;)Z");
+      if (_jlist_@(field.name)_element != nullptr) {
+        jboolean _jlist_@(field.name)_add_result = env->CallBooleanMethod(_jarray_list_@(field.name)_obj, _jlist_@(field.name)_add_mid, _jlist_@(field.name)_element);
+        assert(_jlist_@(field.name)_add_result);
+      }
     }
-  }
 @[        else]@
+@{
+if field.type.array_size and not field.type.is_upper_bound:
+    ros_sequence_data = '_ros_message->%s' % field.name
+    ros_sequence_size = str(field.type.array_size)
+else:
+    ros_sequence_data = '_ros_message->%s.data' % field.name
+    ros_sequence_size = '_ros_message->%s.size' % field.name
+}@
 
-  auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "L@(list_jni_type);");
-  jobject _jarray_list_@(field.name)_obj = env->NewObject(_j@(array_list_normalized_type)_class_global, _j@(array_list_normalized_type)_constructor_global);
-
-@[          if field.type.array_size and not field.type.is_upper_bound]@
-  for (size_t i = 0; i < @(field.type.array_size); ++i) {
-    jobject _jlist_@(field.name)_element = _j@(normalized_type)_to_java_function(&(_ros_message->@(field.name)[i]), nullptr);
+    auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "L@(list_jni_type);");
+@[          if get_columnar_spec(message_specs, field.type) is not None and index < 63]@
+    jobject _jarray_list_@(field.name)_obj = nullptr;
+    if ((_columnar_mask & (static_cast<jlong>(1) << @(index))) != 0) {
+      _jarray_list_@(field.name)_obj = @(normalized_type)__convert_to_java_columns(
+        env, @(ros_sequence_data), @(ros_sequence_size));
+    } else {
+      _jarray_list_@(field.name)_obj = @(normalized_type)__convert_sequence_to_java(
+        env, @(ros_sequence_data), @(ros_sequence_size), _@(field.name)_projection);
+    }
 @[          else]@
-  for (size_t i = 0; i < _ros_message->@(field.name).size; ++i) {
-    jobject _jlist_@(field.name)_element = _j@(normalized_type)_to_java_function(&(_ros_message->@(field.name).data[i]), nullptr);
+    jobject _jarray_list_@(field.name)_obj = @(normalized_type)__convert_sequence_to_java(
+      env, @(ros_sequence_data), @(ros_sequence_size), _@(field.name)_projection);
 @[          end if]@
-    // TODO(esteve): replace ArrayList with a jobjectArray to initialize the array beforehand
-    jmethodID _jlist_@(field.name)_add_mid = env->GetMethodID(_j@(array_list_normalized_type)_class_global, "add", "(Ljava/lang/Object;)Z");
-    if (_jlist_@(field.name)_element != nullptr) {
-      jboolean _jlist_@(field.name)_add_result = env->CallBooleanMethod(_jarray_list_@(field.name)_obj, _jlist_@(field.name)_add_mid, _jlist_@(field.name)_element);
-      assert(_jlist_@(field.name)_add_result);
-    }
-  }
 @[        end if]@
-  env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, _jarray_list_@(field.name)_obj);
-  env->DeleteLocalRef(_jarray_list_@(field.name)_obj);
+    env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, _jarray_list_@(field.name)_obj);
+    env->DeleteLocalRef(_jarray_list_@(field.name)_obj);
 @[    else]@
 @[        if field.type.is_primitive_type()]@
-@[            if field.type.type == 'string']@
-  auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "Ljava/lang/String;");
-  if (_ros_message->@(field.name).data != nullptr) {
-    env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, env->NewStringUTF(_ros_message->@(field.name).data));
-  }
+@[            if is_utf8_field(field)]@
+    if (_ros_message->@(field.name).data != nullptr) {
+      // The string is only decoded if it is read through its Java accessor
+      auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "Ljava/lang/String;");
+      auto _jfield_@(field.name)_utf8_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)_utf8", "[B");
+      jsize _j@(field.name)_length = static_cast<jsize>(_ros_message->@(field.name).size);
+      jbyteArray _j@(field.name)_utf8 = env->NewByteArray(_j@(field.name)_length);
+      env->SetByteArrayRegion(
+        _j@(field.name)_utf8, 0, _j@(field.name)_length, reinterpret_cast<const jbyte *>(_ros_message->@(field.name).data));
+      env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_utf8_fid, _j@(field.name)_utf8);
+      env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, nullptr);
+      env->DeleteLocalRef(_j@(field.name)_utf8);
+    }
+@[            elif field.type.type == 'string']@
+    auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "Ljava/lang/String;");
+    if (_ros_message->@(field.name).data != nullptr) {
+      jstring _j@(field.name)_value = _@(field.name)_string_cache.get(
+        env, _ros_message->@(field.name).data, _ros_message->@(field.name).size);
+      env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, _j@(field.name)_value);
+      env->DeleteLocalRef(_j@(field.name)_value);
+    }
 @[            else]@
 @{
 jni_signature = get_jni_signature(field.type)
 set_method_name = 'Set%sField' % get_java_type(field.type, use_primitives=True).capitalize()
 }@
-  auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "@(jni_signature)");
-  env->@(set_method_name)(_jmessage_obj, _jfield_@(field.name)_fid, _ros_message->@(field.name));
+    auto _jfield_@(field.name)_fid = env->GetFieldID(_j@(msg_normalized_type)_class_global, "@(field.name)", "@(jni_signature)");
+    env->@(set_method_name)(_jmessage_obj, _jfield_@(field.name)_fid, _ros_message->@(field.name));
 @[            end if]@
 @[        else]@
-  auto _jfield_@(field.name)_fid = env->GetFieldID(
-    _j@(msg_normalized_type)_class_global, "@(field.name)", "L@(field.type.pkg_name)/msg/@(field.type.type);");
-  assert(_jfield_@(field.name)_fid != nullptr);
+    auto _jfield_@(field.name)_fid = env->GetFieldID(
+      _j@(msg_normalized_type)_class_global, "@(field.name)", "L@(field.type.pkg_name)/msg/@(field.type.type);");
+    assert(_jfield_@(field.name)_fid != nullptr);
 
-  jobject _jfield_@(field.name)_obj = _j@(normalized_type)_to_java_function(&(_ros_message->@(field.name)), nullptr);
+    jobject _jfield_@(field.name)_obj = _j@(normalized_type)_to_java_projected_function(
+      &(_ros_message->@(field.name)), nullptr, _@(field.name)_projection);
 
-  env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, _jfield_@(field.name)_obj);
+    env->SetObjectField(_jmessage_obj, _jfield_@(field.name)_fid, _jfield_@(field.name)_obj);
 @[        end if]@
 @[    end if]@
+  }
 @[end for]@
   assert(_jmessage_obj != nullptr);
   return _jmessage_obj;
 }
 
+jobject @(spec.base_type.pkg_name)_@(type_name)__convert_to_java(@(msg_normalized_type) * _ros_message, jobject _jmessage_obj)
+{
+  return @(spec.base_type.pkg_name)_@(type_name)__convert_to_java_projected(_ros_message, _jmessage_obj, nullptr);
+}
+
 JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM * vm, void *)
 {
   // Can only call this once
@@ -452,7 +960,64 @@ if value_method:
     _j@(normalized_type)_to_java_function =
       reinterpret_cast<_j@(normalized_type)_to_java_signature>(_j@(normalized_type)_to_java_converter_ptr_global);
     assert(_j@(normalized_type)_to_java_function != nullptr);
+
+    _j@(normalized_type)_to_java_projected_converter_global = env->GetStaticMethodID(
+      _j@(normalized_type)_class_global, "getToJavaProjectedConverter", "()J");
+    assert(_j@(normalized_type)_to_java_projected_converter_global != nullptr);
+
+    _j@(normalized_type)_to_java_projected_converter_ptr_global = env->CallStaticLongMethod(
+      _j@(normalized_type)_class_global, _j@(normalized_type)_to_java_projected_converter_global);
+    assert(_j@(normalized_type)_to_java_projected_converter_ptr_global != 0);
+
+    _j@(normalized_type)_to_java_projected_function =
+      reinterpret_cast<_j@(normalized_type)_to_java_projected_signature>(
+      _j@(normalized_type)_to_java_projected_converter_ptr_global);
+    assert(_j@(normalized_type)_to_java_projected_function != nullptr);
 @[    end if]@
+@[end for]@
+@[if spec.fields]@
+
+    _jlazy_offsets_fid_global = env->GetFieldID(
+      _j@(msg_normalized_type)_class_global, "lazyOffsets", "[I");
+    assert(_jlazy_offsets_fid_global != nullptr);
+    _jdecode_lazy_fields_mid_global = env->GetMethodID(
+      _j@(msg_normalized_type)_class_global, "decodeLazyFields", "()V");
+    assert(_jdecode_lazy_fields_mid_global != nullptr);
+@[end if]@
+@[if sequence_types]@
+
+    auto _jjava__util__Arrays_class_local = env->FindClass("java/util/Arrays");
+    assert(_jjava__util__Arrays_class_local != nullptr);
+    _jjava__util__Arrays_class_global = static_cast<jclass>(
+      env->NewGlobalRef(_jjava__util__Arrays_class_local));
+    env->DeleteLocalRef(_jjava__util__Arrays_class_local);
+    assert(_jjava__util__Arrays_class_global != nullptr);
+    _jjava__util__Arrays_as_list_global = env->GetStaticMethodID(
+      _jjava__util__Arrays_class_global, "asList", "([Ljava/lang/Object;)Ljava/util/List;");
+    assert(_jjava__util__Arrays_as_list_global != nullptr);
+    _j@(array_list_normalized_type)_copy_constructor_global = env->GetMethodID(
+      _j@(array_list_normalized_type)_class_global, "<init>", "(Ljava/util/Collection;)V");
+    assert(_j@(array_list_normalized_type)_copy_constructor_global != nullptr);
+@[end if]@
+@[for normalized_type, (jni_type, columnar_spec) in columnar_types.items()]@
+
+    auto _j@(normalized_type)_columns_class_local = env->FindClass("@(jni_type)$Columns");
+    assert(_j@(normalized_type)_columns_class_local != nullptr);
+    _j@(normalized_type)_columns_class_global = static_cast<jclass>(
+      env->NewGlobalRef(_j@(normalized_type)_columns_class_local));
+    env->DeleteLocalRef(_j@(normalized_type)_columns_class_local);
+    assert(_j@(normalized_type)_columns_class_global != nullptr);
+    _j@(normalized_type)_columns_constructor_global = env->GetMethodID(
+      _j@(normalized_type)_columns_class_global, "<init>", "(I)V");
+    assert(_j@(normalized_type)_columns_constructor_global != nullptr);
+    _j@(normalized_type)_columns_as_list_global = env->GetMethodID(
+      _j@(normalized_type)_columns_class_global, "asList", "()Ljava/util/List;");
+    assert(_j@(normalized_type)_columns_as_list_global != nullptr);
+@[    for columnar_field in columnar_spec.fields]@
+    _j@(normalized_type)_columns_@(columnar_field.name)_fid_global = env->GetFieldID(
+      _j@(normalized_type)_columns_class_global, "@(columnar_field.name)", "[@(get_jni_signature(columnar_field.type))");
+    assert(_j@(normalized_type)_columns_@(columnar_field.name)_fid_global != nullptr);
+@[    end for]@
 @[end for]@
   }
   return JNI_VERSION_1_6;
@@ -483,8 +1048,38 @@ JNIEXPORT void JNICALL JNI_OnUnload(JavaVM * vm, void *)
       _j@(normalized_type)_to_java_converter_global = nullptr;
       _j@(normalized_type)_to_java_converter_ptr_global = 0;
       _j@(normalized_type)_to_java_function = nullptr;
+
+      _j@(normalized_type)_to_java_projected_converter_global = nullptr;
+      _j@(normalized_type)_to_java_projected_converter_ptr_global = 0;
+      _j@(normalized_type)_to_java_projected_function = nullptr;
 @[    end if]@
     }
+@[end for]@
+@[if spec.fields]@
+    _jlazy_offsets_fid_global = nullptr;
+    _jdecode_lazy_fields_mid_global = nullptr;
+@[end if]@
+@[if sequence_types]@
+    if (_jjava__util__Arrays_class_global != nullptr) {
+      env->DeleteGlobalRef(_jjava__util__Arrays_class_global);
+      _jjava__util__Arrays_class_global = nullptr;
+      _jjava__util__Arrays_as_list_global = nullptr;
+      _j@(array_list_normalized_type)_copy_constructor_global = nullptr;
+    }
+@[end if]@
+@[for normalized_type, (jni_type, columnar_spec) in columnar_types.items()]@
+    if (_j@(normalized_type)_columns_class_global != nullptr) {
+      env->DeleteGlobalRef(_j@(normalized_type)_columns_class_global);
+      _j@(normalized_type)_columns_class_global = nullptr;
+      _j@(normalized_type)_columns_constructor_global = nullptr;
+      _j@(normalized_type)_columns_as_list_global = nullptr;
+@[    for columnar_field in columnar_spec.fields]@
+      _j@(normalized_type)_columns_@(columnar_field.name)_fid_global = nullptr;
+@[    end for]@
+    }
+@[end for]@
+@[for index, field in cached_string_fields]@
+    _@(field.name)_string_cache.set_capacity(env, 0);
 @[end for]@
   }
 }
@@ -501,14 +1096,141 @@ JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_g
   return ptr;
 }
 
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getToJavaProjectedConverter(JNIEnv *, jclass)
+{
+  jlong ptr = reinterpret_cast<jlong>(@(spec.base_type.pkg_name)_@(type_name)__convert_to_java_projected);
+  return ptr;
+}
+
 JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getTypeSupport(JNIEnv *, jclass)
 {
   jlong ptr = reinterpret_cast<jlong>(ROSIDL_GET_MSG_TYPE_SUPPORT(@(spec.base_type.pkg_name), @(subfolder), @(spec.msg_name)));
   return ptr;
 }
 
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getCreator(JNIEnv *, jclass)
+{
+  jlong ptr = reinterpret_cast<jlong>(@(msg_normalized_type)__create_message);
+  return ptr;
+}
+
 JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getDestructor(JNIEnv *, jclass)
 {
-  jlong ptr = reinterpret_cast<jlong>(@(msg_normalized_type)__destroy);
+  jlong ptr = reinterpret_cast<jlong>(@(msg_normalized_type)__destroy_message);
   return ptr;
 }
+
+JNIEXPORT jlongArray JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_getLoanedLayout(JNIEnv * env, jclass)
+{
+  // The size of the C structure followed by the offset of each of its fields
+  const jlong layout[] = {
+    static_cast<jlong>(sizeof(@(msg_normalized_type))),
+@[    for field in spec.fields]@
+    static_cast<jlong>(offsetof(@(msg_normalized_type), @(field.name))),
+@[    end for]@
+  };
+  const jsize layout_size = static_cast<jsize>(sizeof(layout) / sizeof(layout[0]));
+
+  jlongArray jlayout = env->NewLongArray(layout_size);
+  if (jlayout == nullptr) {
+    return nullptr;
+  }
+  env->SetLongArrayRegion(jlayout, 0, layout_size, layout);
+  return jlayout;
+}
+@[if has_view_buffer]@
+
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeCreateViewBuffer(JNIEnv * env, jclass, jlong address)
+{
+  return env->NewDirectByteBuffer(reinterpret_cast<void *>(address), static_cast<jlong>(sizeof(@(msg_normalized_type))));
+}
+@[end if]@
+
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeViewToMessage(JNIEnv *, jclass, jlong address)
+{
+  return @(spec.base_type.pkg_name)_@(type_name)__convert_to_java(reinterpret_cast<@(msg_normalized_type) *>(address), nullptr);
+}
+@[for field in spec.fields]@
+@{
+camel_name = convert_lower_case_underscore_to_camel_case(field.name)
+if is_sequence_field(field):
+    view_data = 'ros_message->%s.data' % field.name
+    view_size = 'ros_message->%s.size' % field.name
+elif field.type.is_array:
+    view_data = 'ros_message->%s' % field.name
+    view_size = '%d' % field.type.array_size
+}@
+@[    if field.type.is_array and is_view_buffer_field(field)]@
+@[        if is_sequence_field(field)]@
+
+JNIEXPORT jobject JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Buffer(JNIEnv * env, jclass, jlong address)
+{
+  auto ros_message = reinterpret_cast<@(msg_normalized_type) *>(address);
+  if (@(view_size) == 0) {
+    // Direct buffers cannot wrap a null pointer, even when empty
+    return env->NewDirectByteBuffer(ros_message, 0);
+  }
+  return env->NewDirectByteBuffer(@(view_data), static_cast<jlong>(@(view_size) * sizeof(@(view_data)[0])));
+}
+@[        end if]@
+@[    elif field.type.is_array]@
+@[        if is_sequence_field(field)]@
+
+JNIEXPORT jint JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Size(JNIEnv *, jclass, jlong address)
+{
+  auto ros_message = reinterpret_cast<@(msg_normalized_type) *>(address);
+  return static_cast<jint>(@(view_size));
+}
+@[        end if]@
+@[        if field.type.type == 'string']@
+
+JNIEXPORT jstring JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)(JNIEnv * env, jclass, jlong address, jint index)
+{
+  auto ros_message = reinterpret_cast<@(msg_normalized_type) *>(address);
+  if (index < 0 || static_cast<size_t>(index) >= @(view_size)) {
+    rcljava_throw_exception(env, "java/lang/IndexOutOfBoundsException", "Index: " + std::to_string(index) + ", size: " + std::to_string(@(view_size)));
+    return nullptr;
+  }
+  const char * data = @(view_data)[index].data;
+  return env->NewStringUTF(data != nullptr ? data : "");
+}
+@[        else]@
+
+JNIEXPORT jlong JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)Address(JNIEnv * env, jclass, jlong address, jint index)
+{
+  auto ros_message = reinterpret_cast<@(msg_normalized_type) *>(address);
+  if (index < 0 || static_cast<size_t>(index) >= @(view_size)) {
+    rcljava_throw_exception(env, "java/lang/IndexOutOfBoundsException", "Index: " + std::to_string(index) + ", size: " + std::to_string(@(view_size)));
+    return 0;
+  }
+  return reinterpret_cast<jlong>(&@(view_data)[index]);
+}
+@[        end if]@
+@[    elif field.type.type == 'string']@
+
+JNIEXPORT jstring JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeGetView@(camel_name)(JNIEnv * env, jclass, jlong address)
+{
+  auto ros_message = reinterpret_cast<@(msg_normalized_type) *>(address);
+  const char * data = ros_message->@(field.name).data;
+  return env->NewStringUTF(data != nullptr ? data : "");
+}
+@[    end if]@
+@[end for]@
+@[if cached_string_fields]@
+
+JNIEXPORT void JNICALL Java_@(jni_package_name)_@(subfolder)_@(jni_type_name)_nativeSetStringCacheCapacity(
+  JNIEnv * env, jclass, jint jfield_index, jint jcapacity)
+{
+  size_t capacity = static_cast<size_t>(jcapacity);
+  switch (jfield_index) {
+@[    for index, field in cached_string_fields]@
+    case @(index):
+      _@(field.name)_string_cache.set_capacity(env, capacity);
+      break;
+@[    end for]@
+    default:
+      rcljava_throw_exception(env, "java/lang/IllegalArgumentException", "Not a cached string field");
+      break;
+  }
+}
+@[end if]@
@@ -1,23 +1,54 @@
 package @(package_name).@(subfolder);
 
 import org.ros2.rcljava.common.JNIUtils;
+import org.ros2.rcljava.common.MessageUtils;
 import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.interfaces.MessageView;
+import org.ros2.rcljava.serialization.CDRReader;
+import org.ros2.rcljava.serialization.CDRWriter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 @[for field in spec.fields]@
 @[    if not field.type.is_primitive_type()]@
 import @(field.type.pkg_name).msg.@(field.type.type);
 @[    end if]@
 @[end for]@
 
+@{
+def is_utf8_field(field):
+    return utf8_strings and field.type.type == 'string' and not field.type.is_array
+
+cached_string_fields = [
+    (index, field) for index, field in enumerate(spec.fields)
+    if field.type.type == 'string' and not is_utf8_field(field)]
+
+# Sequences selected by the columnar mask of a field projection, which has one bit per field
+columnar_fields = [
+    (index, field) for index, field in enumerate(spec.fields)
+    if index < 63 and get_columnar_spec(message_specs, field.type) is not None]
+
+def field_type_name(type_):
+    if type_.is_primitive_type():
+        name = type_.type
+    else:
+        name = '%s/%s' % (type_.pkg_name, type_.type)
+    if not type_.is_array:
+        return name
+    if type_.array_size is None:
+        return name + '[]'
+    if type_.is_upper_bound:
+        return '%s[<=%d]' % (name, type_.array_size)
+    return '%s[%d]' % (name, type_.array_size)
+}@
 public final class @(type_name) implements MessageDefinition {
 
   private static final Logger logger = LoggerFactory.getLogger(@(type_name).class);
+@[if any(is_utf8_field(field) for field in spec.fields)]@
+
+  private static final java.nio.charset.Charset UTF8 = java.nio.charset.Charset.forName("UTF-8");
+@[end if]@
 
   static {
     try {
@@ -28,11 +59,27 @@ public final class @(type_name) implements MessageDefinition {
     }
   }
 
+  public static native long getCreator();
   public static native long getDestructor();
   public static native long getFromJavaConverter();
   public static native long getToJavaConverter();
+  public static native long getToJavaProjectedConverter();
   public static native long getTypeSupport();
 
+  /**
+   * @@return The size of the C structure of this message, followed by the offset of each field.
+   */
+  private static native long[] getLoanedLayout();
+
+  private static final long[] LOANED_LAYOUT = getLoanedLayout();
+@[for index, field in enumerate(spec.fields)]@
+  private static final int LOANED_@(field.name.upper())_OFFSET = (int) LOANED_LAYOUT[@(index + 1)];
+@[end for]@
+
+  public long getCreatorInstance() {
+    return @(type_name).getCreator();
+  }
+
   public long getDestructorInstance() {
     return @(type_name).getDestructor();
   }
@@ -45,15 +92,112 @@ public final class @(type_name) implements MessageDefinition {
     return @(type_name).getToJavaConverter();
   }
 
+  public long getToJavaProjectedConverterInstance() {
+    return @(type_name).getToJavaProjectedConverter();
+  }
+
+  private static final java.lang.String[] FIELD_NAMES = new java.lang.String[] {
+@[for field in spec.fields]@
+    "@(field.name)",
+@[end for]@
+  };
+
+  public java.lang.String[] getFieldNamesInstance() {
+    return FIELD_NAMES.clone();
+  }
+
+  private static final java.lang.String[] FIELD_TYPES = new java.lang.String[] {
+@[for field in spec.fields]@
+    "@(field_type_name(field.type))",
+@[end for]@
+  };
+
+  public java.lang.String[] getFieldTypesInstance() {
+    return FIELD_TYPES.clone();
+  }
+
+  public long[] getLayoutInstance() {
+    return LOANED_LAYOUT.clone();
+  }
+
+  public Class<? extends MessageDefinition> getFieldMessageTypeInstance(final int index) {
+    switch (index) {
+@[for index, field in enumerate(spec.fields)]@
+@[    if not field.type.is_primitive_type()]@
+      case @(index):
+        return @(field.type.type).class;
+@[    end if]@
+@[end for]@
+      default:
+        if (index < 0 || index >= FIELD_NAMES.length) {
+          throw new IndexOutOfBoundsException("Invalid field index: " + index);
+        }
+        return null;
+    }
+  }
+
+  public boolean isColumnarFieldInstance(final int index) {
+@[if columnar_fields]@
+    switch (index) {
+@[    for index, field in columnar_fields]@
+      case @(index):
+@[    end for]@
+        return true;
+      default:
+        return false;
+    }
+@[else]@
+    return false;
+@[end if]@
+  }
+@[if cached_string_fields]@
+
+  private static native void nativeSetStringCacheCapacity(int fieldIndex, int capacity);
+
+  /**
+   * Share the values of a string field between received messages, so that repeated values
+   * are decoded once and return the same String instance.
+   * Up to capacity distinct values are kept, evicting the least recently used ones first.
+   *
+   * @@param fieldName The name of a string or string array field of this message.
+   * @@param capacity The maximum number of values to keep, or zero to disable the cache, which
+   *   is the default.
+   */
+  public static void setStringCacheCapacity(final java.lang.String fieldName, final int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Invalid string cache capacity: " + capacity);
+    }
+    int index = java.util.Arrays.asList(FIELD_NAMES).indexOf(fieldName);
+    switch (index) {
+@[    for index, field in cached_string_fields]@
+      case @(index):
+@[    end for]@
+        nativeSetStringCacheCapacity(index, capacity);
+        break;
+      default:
+        throw new IllegalArgumentException(
+          "Not a cached string field of @(type_name): " + fieldName);
+    }
+  }
+@[end if]@
+
   public long getTypeSupportInstance() {
     return @(type_name).getTypeSupport();
   }
 
+  public int getLoanedSizeInstance() {
+@[if is_fixed_size_message(spec)]@
+    return (int) LOANED_LAYOUT[0];
+@[else]@
+    return 0;
+@[end if]@
+  }
+
 @[for constant in spec.constants]@
     public static final @(get_builtin_java_type(constant.type)) @(constant.name) = @(constant_value_to_java(constant.type, constant.value));
 @[end for]@
 
-@[for field in spec.fields]@
+@[for index, field in enumerate(spec.fields)]@
 
 @[    if field.type.is_array]@
 @[        if field.default_value is not None]@
@@ -77,6 +221,9 @@ public final class @(type_name) implements MessageDefinition {
 @[            end if]@
     }
 @[        end if]@
+    if (this.lazyOffsets != null) {
+      clearLazyField(@(index));
+    }
     this.@(field.name) = @(field.name);
     return this;
   }
@@ -92,8 +239,21 @@ public final class @(type_name) implements MessageDefinition {
 @[        end if]@
 
   public final java.util.List<@(get_java_type(field.type, use_primitives=False))> get@(convert_lower_case_underscore_to_camel_case(field.name))() {
+    if (this.lazyOffsets != null) {
+      decodeLazyField(@(index));
+    }
     return this.@(field.name);
   }
+@[        if get_columnar_spec(message_specs, field.type) is not None]@
+
+  /**
+   * @@return The values of @(field.name) as one array per field. No copy is made if this message
+   *     was received by a subscription that converts @(field.name) into columns.
+   */
+  public final @(field.type.type).Columns get@(convert_lower_case_underscore_to_camel_case(field.name))Columns() {
+    return @(field.type.type).Columns.fromList(get@(convert_lower_case_underscore_to_camel_case(field.name))());
+  }
+@[        end if]@
 @[    else]@
 @[        if field.default_value is not None]@
   private @(get_java_type(field.type)) @(field.name) = @(value_to_java(field.type, field.default_value));
@@ -114,35 +274,752 @@ public final class @(type_name) implements MessageDefinition {
     }
 @[        end if]@
 
+    if (this.lazyOffsets != null) {
+      clearLazyField(@(index));
+    }
     this.@(field.name) = @(field.name);
+@[        if is_utf8_field(field)]@
+    this.@(field.name)_utf8 = null;
+@[        end if]@
     return this;
   }
 
   public @(get_java_type(field.type)) get@(convert_lower_case_underscore_to_camel_case(field.name))() {
+    if (this.lazyOffsets != null) {
+      decodeLazyField(@(index));
+    }
+@[        if is_utf8_field(field)]@
+    if (this.@(field.name) == null && this.@(field.name)_utf8 != null) {
+      this.@(field.name) = new java.lang.String(this.@(field.name)_utf8, UTF8);
+    }
+@[        end if]@
     return this.@(field.name);
   }
+@[        if is_utf8_field(field)]@
+
+  /**
+   * The UTF-8 encoding of @(field.name), null until it is first needed. Unless the field was
+   * set to null, either this or @(field.name) is set, and the other one is only computed on
+   * demand.
+   */
+  private byte[] @(field.name)_utf8;
+
+  /**
+   * Set @(field.name) from its UTF-8 encoding, which is only decoded if it is read as a string.
+   * The array is kept by the message and must not be modified afterwards.
+   */
+  public @(type_name) set@(convert_lower_case_underscore_to_camel_case(field.name))Utf8(final byte[] @(field.name)) {
+@[            if field.type.string_upper_bound]@
+    if (@(field.name) != null && @(field.name).length > @(field.type.string_upper_bound)) {
+        throw new IllegalArgumentException("String too long, maximum size allowed: @(field.type.string_upper_bound)");
+    }
+@[            end if]@
+    if (this.lazyOffsets != null) {
+      clearLazyField(@(index));
+    }
+    this.@(field.name)_utf8 = @(field.name);
+    this.@(field.name) = null;
+    return this;
+  }
+
+  /**
+   * @@return The UTF-8 encoding of @(field.name), without a terminating null character. The
+   *     array is shared with the message and must not be modified.
+   */
+  public byte[] get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8() {
+    if (this.lazyOffsets != null) {
+      decodeLazyField(@(index));
+    }
+    if (this.@(field.name)_utf8 == null && this.@(field.name) != null) {
+      this.@(field.name)_utf8 = this.@(field.name).getBytes(UTF8);
+    }
+    return this.@(field.name)_utf8;
+  }
+@[        end if]@
 @[    end if]@
 @[end for]@
 
+  public void serialize(final CDRWriter writer) {
+@[if not spec.fields]@
+    // Empty messages are serialized as a single placeholder byte
+    writer.writeByte((byte) 0);
+@[else]@
+    decodeLazyFields();
+@[end if]@
+@[for field in spec.fields]@
+@[    if field.type.is_array]@
+@[        if field.type.is_primitive_type()]@
+@[            if field.type.type == 'bool']@
+@{default_value = 'false'}@
+@[            elif field.type.type == 'string']@
+@{default_value = '""'}@
+@[            else]@
+@{default_value = '(%s) 0' % get_java_type(field.type)}@
+@[            end if]@
+@[        end if]@
+    if (this.@(field.name) == null) {
+@[        if field.type.array_size and not field.type.is_upper_bound]@
+      for (int i = 0; i < @(field.type.array_size); i++) {
+@[            if field.type.is_primitive_type()]@
+        writer.write@(get_cdr_type(field.type))(@(default_value));
+@[            else]@
+        new @(get_java_type(field.type))().serialize(writer);
+@[            end if]@
+      }
+@[        else]@
+      writer.writeSequenceSize(0);
+@[        end if]@
+    } else {
+@[        if not field.type.array_size or field.type.is_upper_bound]@
+      writer.writeSequenceSize(this.@(field.name).size());
+@[        end if]@
+      for (@(get_java_type(field.type, use_primitives=False)) value : this.@(field.name)) {
+@[        if field.type.is_primitive_type()]@
+        writer.write@(get_cdr_type(field.type))(value);
+@[        else]@
+        value.serialize(writer);
+@[        end if]@
+      }
+    }
+@[    elif is_utf8_field(field)]@
+    writer.writeStringUtf8(get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8());
+@[    elif field.type.is_primitive_type()]@
+    writer.write@(get_cdr_type(field.type))(this.@(field.name));
+@[    else]@
+    this.@(field.name).serialize(writer);
+@[    end if]@
+@[end for]@
+  }
+
+  public void deserialize(final CDRReader reader) {
+@[if not spec.fields]@
+    reader.readByte();
+@[else]@
+    this.lazyReader = null;
+    this.lazyOffsets = null;
+    for (int i = 0; i < @(len(spec.fields)); i++) {
+      deserializeField(i, reader, false);
+    }
+@[end if]@
+  }
+
+  public void deserializeLazy(final CDRReader reader) {
+@[if not spec.fields]@
+    deserialize(reader);
+@[else]@
+    // Only record where each field starts, fields are decoded by their getters
+    int[] offsets = new int[@(len(spec.fields))];
+    for (int i = 0; i < @(len(spec.fields)); i++) {
+      offsets[i] = reader.position();
+      skipField(i, reader);
+    }
+    this.lazyReader = reader;
+    this.lazyPending = @(len(spec.fields));
+    this.lazyOffsets = offsets;
+@[end if]@
+  }
+
+  /**
+   * Skip the next CDR encoded @(type_name) in a reader without decoding it.
+   */
+  public static void skip(final CDRReader reader) {
+@[if not spec.fields]@
+    reader.skip(1, 1);
+@[else]@
+    for (int i = 0; i < @(len(spec.fields)); i++) {
+      skipField(i, reader);
+    }
+@[end if]@
+  }
+@[if spec.fields]@
+
+  /**
+   * The reader that the fields of a message received with deserializeLazy are decoded from
+   * on first access, null once every field has been decoded or set.
+   */
+  private CDRReader lazyReader;
+
+  /**
+   * The offset of each field in lazyReader, -1 once the field has been decoded or set. Lazy
+   * fields are decoded while holding the lock of the message, so that a received message can
+   * be read from several threads, and this is only cleared after every field is decoded.
+   */
+  private volatile int[] lazyOffsets;
+
+  /**
+   * The number of fields that have not been decoded or set yet.
+   */
+  private int lazyPending;
+
+  private void deserializeField(final int index, final CDRReader reader, final boolean lazy) {
+    switch (index) {
+@[    for index, field in enumerate(spec.fields)]@
+      case @(index): {
+@[        if field.type.is_array]@
+@[            if field.type.array_size and not field.type.is_upper_bound]@
+        int size = @(field.type.array_size);
+@[            else]@
+        int size = reader.readSequenceSize();
+@[            end if]@
+        java.util.List<@(get_java_type(field.type, use_primitives=False))> values =
+            new java.util.ArrayList<@(get_java_type(field.type, use_primitives=False))>(size);
+        for (int i = 0; i < size; i++) {
+@[            if field.type.is_primitive_type()]@
+          values.add(reader.read@(get_cdr_type(field.type))());
+@[            else]@
+          @(get_java_type(field.type)) value = new @(get_java_type(field.type))();
+          if (lazy) {
+            value.deserializeLazy(reader);
+          } else {
+            value.deserialize(reader);
+          }
+          values.add(value);
+@[            end if]@
+        }
+        set@(convert_lower_case_underscore_to_camel_case(field.name))(values);
+@[        elif is_utf8_field(field)]@
+        set@(convert_lower_case_underscore_to_camel_case(field.name))Utf8(reader.readStringUtf8());
+@[        elif field.type.is_primitive_type()]@
+        set@(convert_lower_case_underscore_to_camel_case(field.name))(reader.read@(get_cdr_type(field.type))());
+@[        else]@
+        @(get_java_type(field.type)) value = new @(get_java_type(field.type))();
+        if (lazy) {
+          value.deserializeLazy(reader);
+        } else {
+          value.deserialize(reader);
+        }
+        set@(convert_lower_case_underscore_to_camel_case(field.name))(value);
+@[        end if]@
+        break;
+      }
+@[    end for]@
+      default:
+        throw new IndexOutOfBoundsException("Invalid field index: " + index);
+    }
+  }
+
+  private static void skipField(final int index, final CDRReader reader) {
+    switch (index) {
+@[    for index, field in enumerate(spec.fields)]@
+      case @(index): {
+@[        if field.type.is_array]@
+@[            if field.type.array_size and not field.type.is_upper_bound]@
+        int size = @(field.type.array_size);
+@[            else]@
+        int size = reader.readSequenceSize();
+@[            end if]@
+@[            if not field.type.is_primitive_type()]@
+        for (int i = 0; i < size; i++) {
+          @(get_java_type(field.type)).skip(reader);
+        }
+@[            elif field.type.type == 'string']@
+        for (int i = 0; i < size; i++) {
+          reader.skipString();
+        }
+@[            else]@
+        reader.skip(@(get_cdr_size(field.type)), size);
+@[            end if]@
+@[        elif not field.type.is_primitive_type()]@
+        @(get_java_type(field.type)).skip(reader);
+@[        elif field.type.type == 'string']@
+        reader.skipString();
+@[        else]@
+        reader.skip(@(get_cdr_size(field.type)), 1);
+@[        end if]@
+        break;
+      }
+@[    end for]@
+      default:
+        throw new IndexOutOfBoundsException("Invalid field index: " + index);
+    }
+  }
+
+  private synchronized void decodeLazyField(final int index) {
+    if (this.lazyOffsets == null) {
+      return;
+    }
+    int offset = this.lazyOffsets[index];
+    if (offset >= 0) {
+      // Nested lazy messages keep the reader they are decoded from, so each one gets its own
+      CDRReader reader = this.lazyReader.duplicate();
+      reader.seek(offset);
+      // The setter called by deserializeField marks the field as decoded
+      deserializeField(index, reader, true);
+    }
+  }
+
+  private synchronized void clearLazyField(final int index) {
+    if (this.lazyOffsets != null && this.lazyOffsets[index] >= 0) {
+      this.lazyOffsets[index] = -1;
+      if (--this.lazyPending == 0) {
+        // Every field has been decoded, release the serialized message
+        this.lazyReader = null;
+        this.lazyOffsets = null;
+      }
+    }
+  }
+
+  private synchronized void decodeLazyFields() {
+    for (int i = 0; this.lazyOffsets != null && i < @(len(spec.fields)); i++) {
+      decodeLazyField(i);
+    }
+  }
+@[end if]@
+
+@{
+def loaned_element_size(type_):
+    return {'bool': 1, 'byte': 1, 'char': 1, 'int8': 1, 'uint8': 1, 'int16': 2, 'uint16': 2,
+            'int32': 4, 'uint32': 4, 'float32': 4, 'int64': 8, 'uint64': 8,
+            'float64': 8}[type_.type]
+
+def loaned_get(type_, offset, buffer='this.buffer'):
+    if type_.type == 'bool':
+        return '%s.get(%s) != 0' % (buffer, offset)
+    if type_.type == 'char':
+        return '(char) (%s.get(%s) & 0xff)' % (buffer, offset)
+    if loaned_element_size(type_) == 1:
+        return '%s.get(%s)' % (buffer, offset)
+    return '%s.get%s(%s)' % (buffer, get_cdr_type(type_), offset)
+
+def loaned_put(type_, offset):
+    if type_.type == 'bool':
+        return 'this.buffer.put(%s, value ? (byte) 1 : (byte) 0)' % offset
+    if type_.type == 'char':
+        return 'this.buffer.put(%s, (byte) value)' % offset
+    if loaned_element_size(type_) == 1:
+        return 'this.buffer.put(%s, value)' % offset
+    return 'this.buffer.put%s(%s, value)' % (get_cdr_type(type_), offset)
+}@
+@[if is_fixed_size_message(spec)]@
+  /**
+   * Accessors for a @(type_name) stored in native memory, such as the buffers returned by
+   * Publisher.borrowLoanedMessage() or passed to loaned subscription callbacks.
+   * Fields are read and written in place, without converting the whole message.
+   */
+  public static final class Loaned {
+    private final java.nio.ByteBuffer buffer;
+
+    public Loaned(final java.nio.ByteBuffer buffer) {
+      if (buffer.capacity() < LOANED_LAYOUT[0]) {
+        throw new IllegalArgumentException("Buffer too small for @(type_name): " + buffer.capacity());
+      }
+      buffer.order(java.nio.ByteOrder.nativeOrder());
+      this.buffer = buffer;
+    }
+
+    public java.nio.ByteBuffer getBuffer() {
+      return this.buffer;
+    }
+@[    for field in spec.fields]@
+@{
+offset = 'LOANED_%s_OFFSET' % field.name.upper()
+java_type = get_java_type(field.type)
+camel_name = convert_lower_case_underscore_to_camel_case(field.name)
+}@
+@[        if field.type.is_array]@
+@{
+element_offset = '%s + index * %d' % (offset, loaned_element_size(field.type))
+}@
+
+    public @(java_type) get@(camel_name)(final int index) {
+      if (index < 0 || index >= @(field.type.array_size)) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: @(field.type.array_size)");
+      }
+      return @(loaned_get(field.type, element_offset));
+    }
+
+    public Loaned set@(camel_name)(final int index, final @(java_type) value) {
+      if (index < 0 || index >= @(field.type.array_size)) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: @(field.type.array_size)");
+      }
+      @(loaned_put(field.type, element_offset));
+      return this;
+    }
+@[        else]@
+
+    public @(java_type) get@(camel_name)() {
+      return @(loaned_get(field.type, offset));
+    }
+
+    public Loaned set@(camel_name)(final @(java_type) value) {
+      @(loaned_put(field.type, offset));
+      return this;
+    }
+@[        end if]@
+@[    end for]@
+  }
+
+@[end if]@
+@{
+def is_sequence_field(field):
+    return field.type.is_array and (field.type.array_size is None or field.type.is_upper_bound)
+
+def is_view_buffer_field(field):
+    return field.type.is_primitive_type() and field.type.type != 'string'
+
+has_view_buffer = any(
+    is_view_buffer_field(field) and not is_sequence_field(field) for field in spec.fields)
+}@
+  /**
+   * Read-only accessors for a @(type_name) stored in native memory, such as the C messages
+   * passed to view subscription callbacks. Each getter reads its field from the C message when
+   * it is called, so a view must not be used once that message is released or reused, which
+   * for view subscriptions is when the callback returns. Use toMessage() to keep a copy.
+   */
+  public static final class View implements MessageView<@(type_name)> {
+    private final long address;
+@[if has_view_buffer]@
+    private final java.nio.ByteBuffer buffer;
+@[end if]@
+@[for field in spec.fields]@
+@[    if is_view_buffer_field(field) and is_sequence_field(field)]@
+    private java.nio.ByteBuffer @(field.name)_buffer;
+@[    end if]@
+@[end for]@
+
+    public View(final long address) {
+      if (address == 0) {
+        throw new IllegalArgumentException("Invalid address for a @(type_name) view");
+      }
+      this.address = address;
+@[if has_view_buffer]@
+      this.buffer = nativeCreateViewBuffer(address).order(java.nio.ByteOrder.nativeOrder());
+@[end if]@
+    }
+
+    public long getAddress() {
+      return this.address;
+    }
+
+    public @(type_name) toMessage() {
+      return nativeViewToMessage(this.address);
+    }
+@[for field in spec.fields]@
+@{
+offset = 'LOANED_%s_OFFSET' % field.name.upper()
+java_type = get_java_type(field.type)
+camel_name = convert_lower_case_underscore_to_camel_case(field.name)
+}@
+@[    if not field.type.is_array]@
+
+@[        if field.type.type == 'string']@
+    public java.lang.String get@(camel_name)() {
+      return nativeGetView@(camel_name)(this.address);
+    }
+@[        elif field.type.is_primitive_type()]@
+    public @(java_type) get@(camel_name)() {
+      return @(loaned_get(field.type, offset));
+    }
+@[        else]@
+    public @(field.type.type).View get@(camel_name)() {
+      return new @(field.type.type).View(this.address + @(offset));
+    }
+@[        end if]@
+@[    elif is_view_buffer_field(field) and is_sequence_field(field)]@
+
+    private java.nio.ByteBuffer get@(camel_name)Buffer() {
+      if (this.@(field.name)_buffer == null) {
+        java.nio.ByteBuffer buffer = nativeGetView@(camel_name)Buffer(this.address);
+        this.@(field.name)_buffer = buffer.order(java.nio.ByteOrder.nativeOrder());
+      }
+      return this.@(field.name)_buffer;
+    }
+
+    public int get@(camel_name)Size() {
+      return get@(camel_name)Buffer().capacity() / @(loaned_element_size(field.type));
+    }
+
+    public @(java_type) get@(camel_name)(final int index) {
+      return @(loaned_get(field.type, 'index * %d' % loaned_element_size(field.type), 'get%sBuffer()' % camel_name));
+    }
+@[    elif is_view_buffer_field(field)]@
+@{
+element_offset = '%s + index * %d' % (offset, loaned_element_size(field.type))
+}@
+
+    public int get@(camel_name)Size() {
+      return @(field.type.array_size);
+    }
+
+    public @(java_type) get@(camel_name)(final int index) {
+      if (index < 0 || index >= @(field.type.array_size)) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: @(field.type.array_size)");
+      }
+      return @(loaned_get(field.type, element_offset));
+    }
+@[    else]@
+
+    public int get@(camel_name)Size() {
+@[        if is_sequence_field(field)]@
+      return nativeGetView@(camel_name)Size(this.address);
+@[        else]@
+      return @(field.type.array_size);
+@[        end if]@
+    }
+
+@[        if field.type.type == 'string']@
+    public java.lang.String get@(camel_name)(final int index) {
+      return nativeGetView@(camel_name)(this.address, index);
+    }
+@[        else]@
+    public @(field.type.type).View get@(camel_name)(final int index) {
+      return new @(field.type.type).View(nativeGetView@(camel_name)Address(this.address, index));
+    }
+@[        end if]@
+@[    end if]@
+@[end for]@
+  }
+
+  public View createViewInstance(final long address) {
+    return new View(address);
+  }
+@[if has_view_buffer]@
+
+  private static native java.nio.ByteBuffer nativeCreateViewBuffer(long address);
+@[end if]@
+
+  private static native @(type_name) nativeViewToMessage(long address);
+@[for field in spec.fields]@
+@{
+camel_name = convert_lower_case_underscore_to_camel_case(field.name)
+}@
+@[    if field.type.is_array and is_view_buffer_field(field)]@
+@[        if is_sequence_field(field)]@
+
+  private static native java.nio.ByteBuffer nativeGetView@(camel_name)Buffer(long address);
+@[        end if]@
+@[    elif field.type.is_array]@
+@[        if is_sequence_field(field)]@
+
+  private static native int nativeGetView@(camel_name)Size(long address);
+@[        end if]@
+@[        if field.type.type == 'string']@
+
+  private static native java.lang.String nativeGetView@(camel_name)(long address, int index);
+@[        else]@
+
+  private static native long nativeGetView@(camel_name)Address(long address, int index);
+@[        end if]@
+@[    elif field.type.type == 'string']@
+
+  private static native java.lang.String nativeGetView@(camel_name)(long address);
+@[    end if]@
+@[end for]@
+
+@[if is_columnar_message(spec)]@
+  /**
+   * A sequence of @(type_name) stored as one array per field, such as the ones filled by the
+   * native converters for subscriptions that convert a sequence field into columns.
+   */
+  public static final class Columns {
+    private final int elementCount;
+@[    for field in spec.fields]@
+    private final @(get_java_type(field.type))[] @(field.name);
+@[    end for]@
+
+    public Columns(final int size) {
+      this.elementCount = size;
+@[    for field in spec.fields]@
+      this.@(field.name) = new @(get_java_type(field.type))[size];
+@[    end for]@
+    }
+
+    /**
+     * @@return The columns of a list of @(type_name), without copying them if the list is a view
+     *     returned by asList().
+     */
+    public static Columns fromList(final java.util.List<@(type_name)> list) {
+      if (list instanceof ElementList) {
+        return ((ElementList) list).columns;
+      }
+      Columns columns = new Columns(list.size());
+      for (int i = 0; i < columns.elementCount; i++) {
+        @(type_name) element = list.get(i);
+@[    for field in spec.fields]@
+        columns.@(field.name)[i] = element.get@(convert_lower_case_underscore_to_camel_case(field.name))();
+@[    end for]@
+      }
+      return columns;
+    }
+
+    public int getSize() {
+      return this.elementCount;
+    }
+@[    for field in spec.fields]@
+
+    public @(get_java_type(field.type))[] @(field.name)() {
+      return this.@(field.name);
+    }
+@[    end for]@
+
+    /**
+     * @@return A new @(type_name) with the values at the given index.
+     */
+    public @(type_name) getElement(final int index) {
+      if (index < 0 || index >= this.elementCount) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + this.elementCount);
+      }
+      @(type_name) element = new @(type_name)();
+@[    for field in spec.fields]@
+      element.@(field.name) = this.@(field.name)[index];
+@[    end for]@
+      return element;
+    }
+
+    /**
+     * @@return A read-only list of the elements, each of them created when it is first read.
+     *     Changes to the elements are not reflected in the columns.
+     */
+    public java.util.List<@(type_name)> asList() {
+      return new ElementList(this);
+    }
+  }
+
+  private static final class ElementList extends java.util.AbstractList<@(type_name)>
+      implements java.util.RandomAccess {
+    private final Columns columns;
+    private final @(type_name)[] elements;
+
+    ElementList(final Columns columns) {
+      this.columns = columns;
+      this.elements = new @(type_name)[columns.getSize()];
+    }
+
+    public @(type_name) get(final int index) {
+      @(type_name) element = this.elements[index];
+      if (element == null) {
+        element = this.columns.getElement(index);
+        this.elements[index] = element;
+      }
+      return element;
+    }
+
+    public int size() {
+      return this.elements.length;
+    }
+  }
+
+@[end if]@
+  /**
+   * Replace the contents of this message with a deep copy of another one. The lists and
+   * nested messages of this message are reused when possible, so they must not be shared
+   * with other messages.
+   */
+  public @(type_name) copyFrom(final @(type_name) other) {
+@[if spec.fields]@
+    if (other == this) {
+      return this;
+    }
+    other.decodeLazyFields();
+    // Every field is overwritten, so none of them is left to decode
+    this.lazyReader = null;
+    this.lazyOffsets = null;
+@[end if]@
+@[for field in spec.fields]@
+@{
+java_type = get_java_type(field.type, use_primitives=False)
+}@
+@[    if field.type.is_array and field.type.is_primitive_type()]@
+    this.@(field.name) = MessageUtils.copy(this.@(field.name), other.@(field.name));
+@[    elif field.type.is_array]@
+    if (other.@(field.name) == null) {
+      this.@(field.name) = null;
+    } else if (other.@(field.name) != this.@(field.name)) {
+      java.util.List<@(java_type)> @(field.name)Previous = this.@(field.name);
+      java.util.List<@(java_type)> @(field.name)Copy = @(field.name)Previous;
+      int @(field.name)Size = other.@(field.name).size();
+      if (!(@(field.name)Copy instanceof java.util.ArrayList)) {
+        @(field.name)Copy = new java.util.ArrayList<@(java_type)>(@(field.name)Size);
+      }
+      for (int i = 0; i < @(field.name)Size; i++) {
+        @(java_type) element = other.@(field.name).get(i);
+        @(java_type) elementCopy = null;
+        if (element != null) {
+          if (@(field.name)Previous != null && i < @(field.name)Previous.size()) {
+            elementCopy = @(field.name)Previous.get(i);
+          }
+          if (elementCopy == null) {
+            elementCopy = new @(java_type)();
+          }
+          elementCopy.copyFrom(element);
+        }
+        if (i < @(field.name)Copy.size()) {
+          @(field.name)Copy.set(i, elementCopy);
+        } else {
+          @(field.name)Copy.add(elementCopy);
+        }
+      }
+      while (@(field.name)Copy.size() > @(field.name)Size) {
+        @(field.name)Copy.remove(@(field.name)Copy.size() - 1);
+      }
+      this.@(field.name) = @(field.name)Copy;
+    }
+@[    elif field.type.is_primitive_type()]@
+    this.@(field.name) = other.@(field.name);
+@[        if is_utf8_field(field)]@
+    this.@(field.name)_utf8 = other.@(field.name)_utf8;
+@[        end if]@
+@[    else]@
+    if (other.@(field.name) == null) {
+      this.@(field.name) = null;
+    } else {
+      if (this.@(field.name) == null) {
+        this.@(field.name) = new @(java_type)();
+      }
+      this.@(field.name).copyFrom(other.@(field.name));
+    }
+@[    end if]@
+@[end for]@
+    return this;
+  }
+
+  /**
+   * @@return A new message with a deep copy of the contents of this one.
+   */
+  public @(type_name) deepCopy() {
+    return new @(type_name)().copyFrom(this);
+  }
+
   public int hashCode() {
-    return new HashCodeBuilder(17, 37)
+@[if spec.fields]@
+    decodeLazyFields();
+@[end if]@
+    int result = 17;
 @[for field in spec.fields]@
-      .append(this.@(field.name))
+@[    if is_utf8_field(field)]@
+    result = 37 * result + MessageUtils.hash(get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8());
+@[    else]@
+    result = 37 * result + MessageUtils.hash(this.@(field.name));
+@[    end if]@
 @[end for]@
-      .toHashCode();
+    return result;
   }
 
- public boolean equals(Object obj) {
-   if (obj == null) { return false; }
-   if (obj == this) { return true; }
-   if (obj.getClass() != getClass()) {
-     return false;
-   }
-   @(type_name) rhs = (@(type_name)) obj;
-   return new EqualsBuilder()
+  public boolean equals(final Object obj) {
+    if (obj == null) {
+      return false;
+    }
+    if (obj == this) {
+      return true;
+    }
+    if (obj.getClass() != getClass()) {
+      return false;
+    }
+@[if spec.fields]@
+    @(type_name) rhs = (@(type_name)) obj;
+    decodeLazyFields();
+    rhs.decodeLazyFields();
+@[end if]@
 @[for field in spec.fields]@
-                .append(this.@(field.name), rhs.@(field.name))
+@[    if is_utf8_field(field)]@
+    if (!MessageUtils.equal(get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8(),
+        rhs.get@(convert_lower_case_underscore_to_camel_case(field.name))Utf8())) {
+@[    else]@
+    if (!MessageUtils.equal(this.@(field.name), rhs.@(field.name))) {
+@[    end if]@
+      return false;
+    }
 @[end for]@
-                .isEquals();
+    return true;
   }
 }
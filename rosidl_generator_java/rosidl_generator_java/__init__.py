@@ -28,7 +28,8 @@ def convert_lower_case_underscore_to_camel_case(word):
     return ''.join(x.capitalize() or '_' for x in word.split('_'))
 
 
-def generate_java(generator_arguments_file, typesupport_impl, typesupport_impls):
+def generate_java(generator_arguments_file, typesupport_impl, typesupport_impls,
+                  utf8_strings=False):
     args = read_generator_arguments(generator_arguments_file)
     typesupport_impls = typesupport_impls.split(';')
 
@@ -54,9 +55,27 @@ def generate_java(generator_arguments_file, typesupport_impl, typesupport_impls)
         assert os.path.exists(template_file), \
             'Services template file %s not found' % template_file
 
-    functions = {'get_java_type': get_java_type, }
+    functions = {
+        'get_java_type': get_java_type,
+        'get_cdr_type': get_cdr_type,
+        'get_cdr_size': get_cdr_size,
+        'is_fixed_size_message': is_fixed_size_message,
+        'is_columnar_message': is_columnar_message,
+        'get_columnar_spec': get_columnar_spec,
+    }
     latest_target_timestamp = get_newest_modification_time(args['target_dependencies'])
 
+    # The definitions of the nested messages are needed to generate their columnar accessors
+    message_specs = {}
+    interface_files = [(args['package_name'], f) for f in args['ros_interface_files']]
+    for dependency in args.get('ros_interface_dependencies', []):
+        dependency_package_name, dependency_file = dependency.split(':', 1)
+        interface_files.append((dependency_package_name, dependency_file))
+    for interface_package_name, interface_file in interface_files:
+        if os.path.splitext(interface_file)[1] == '.msg':
+            spec = parse_message_file(interface_package_name, interface_file)
+            message_specs[(interface_package_name, spec.base_type.type)] = spec
+
     modules = defaultdict(list)
     for ros_interface_file in args['ros_interface_files']:
         extension = os.path.splitext(ros_interface_file)[1]
@@ -96,6 +115,8 @@ def generate_java(generator_arguments_file, typesupport_impl, typesupport_impls)
                     'typesupport_impl': type_support_impl_by_filename.get(generated_filename, ''),
                     'typesupport_impls': typesupport_impls,
                     'type_name': type_name,
+                    'utf8_strings': utf8_strings,
+                    'message_specs': message_specs,
                 }
                 data.update(functions)
                 generated_file = os.path.join(args['output_dir'], subfolder,
@@ -226,3 +247,94 @@ def get_java_type(type_, use_primitives=True, subfolder='msg'):
         return '%s.%s.%s' % (type_.pkg_name, subfolder, type_.type)
 
     return get_builtin_java_type(type_.type, use_primitives=use_primitives)
+
+
+def get_cdr_type(type_):
+    assert type_.is_primitive_type()
+
+    if type_.type == 'bool':
+        return 'Boolean'
+
+    if type_.type in ['byte', 'int8', 'uint8']:
+        return 'Byte'
+
+    if type_.type == 'char':
+        return 'Char'
+
+    if type_.type in ['int16', 'uint16']:
+        return 'Short'
+
+    if type_.type in ['int32', 'uint32']:
+        return 'Int'
+
+    if type_.type in ['int64', 'uint64']:
+        return 'Long'
+
+    if type_.type == 'float32':
+        return 'Float'
+
+    if type_.type == 'float64':
+        return 'Double'
+
+    if type_.type == 'string':
+        return 'String'
+
+    assert False, "unknown type '%s'" % type_
+
+
+def get_cdr_size(type_):
+    assert type_.is_primitive_type() and type_.type != 'string'
+
+    if type_.type in ['bool', 'byte', 'char', 'int8', 'uint8']:
+        return 1
+
+    if type_.type in ['int16', 'uint16']:
+        return 2
+
+    if type_.type in ['int32', 'uint32', 'float32']:
+        return 4
+
+    if type_.type in ['int64', 'uint64', 'float64']:
+        return 8
+
+    assert False, "unknown type '%s'" % type_
+
+
+def is_fixed_size_message(spec):
+    # Messages made only of primitive values and fixed size arrays of them can be accessed
+    # directly in native memory, nested messages are not supported yet
+    if not spec.fields:
+        return False
+
+    for field in spec.fields:
+        if not field.type.is_primitive_type() or field.type.type == 'string':
+            return False
+        if field.type.is_array and (not field.type.array_size or field.type.is_upper_bound):
+            return False
+
+    return True
+
+
+def is_columnar_message(spec):
+    # Sequences of messages made only of primitive values can be stored as one array per field
+    if not spec.fields:
+        return False
+
+    for field in spec.fields:
+        if not field.type.is_primitive_type() or field.type.type == 'string':
+            return False
+        if field.type.is_array:
+            return False
+
+    return True
+
+
+def get_columnar_spec(message_specs, type_):
+    if not type_.is_array or type_.is_primitive_type():
+        return None
+
+    spec = message_specs.get((type_.pkg_name, type_.type))
+    if spec is None or not is_columnar_message(spec):
+        return None
+
+    return spec
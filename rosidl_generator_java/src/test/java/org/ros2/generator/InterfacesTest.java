@@ -15,16 +15,23 @@
 
 package org.ros2.generator;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.ros2.rcljava.serialization.CDRReader;
+import org.ros2.rcljava.serialization.CDRWriter;
 
 public class InterfacesTest {
   @BeforeClass
@@ -326,4 +333,95 @@ public class InterfacesTest {
     thrown.expect(IllegalArgumentException.class);
     c.setUpToThreeStringValues(Arrays.asList(new String[] {"foo", "bar", "baz", "hello"}));
   }
+
+  @Test
+  public final void testEqualsAndHashCode() {
+    rosidl_generator_java.msg.Various one = new rosidl_generator_java.msg.Various();
+    rosidl_generator_java.msg.Various two = new rosidl_generator_java.msg.Various();
+    assertEquals(one, two);
+    assertEquals(one.hashCode(), two.hashCode());
+
+    one.setUnboundedStringValues(Arrays.asList(new String[] {"foo", "bar"}));
+    assertNotEquals(one, two);
+    two.setUnboundedStringValues(Arrays.asList(new String[] {"foo", "bar"}));
+    assertEquals(one, two);
+    assertEquals(one.hashCode(), two.hashCode());
+
+    one.setFloat64Value(Double.NaN);
+    two.setFloat64Value(Double.NaN);
+    assertEquals(one, two);
+    assertEquals(one.hashCode(), two.hashCode());
+
+    two.getNested().getPrimitives().setInt32Value(42);
+    assertNotEquals(one, two);
+  }
+
+  @Test
+  public final void testCopyFrom() {
+    rosidl_generator_java.msg.Primitives primitives = new rosidl_generator_java.msg.Primitives();
+    primitives.setInt32Value(12345);
+    rosidl_generator_java.msg.Nested source = new rosidl_generator_java.msg.Nested();
+    source.getPrimitives().setStringValue("foo");
+    source.setUnboundedPrimitives(
+        Arrays.asList(new rosidl_generator_java.msg.Primitives[] {primitives, primitives}));
+
+    rosidl_generator_java.msg.Nested copy = source.deepCopy();
+    assertEquals(source, copy);
+    assertNotSame(source.getPrimitives(), copy.getPrimitives());
+    assertNotSame(primitives, copy.getUnboundedPrimitives().get(0));
+
+    // The storage of the destination is reused
+    rosidl_generator_java.msg.Primitives nestedCopy = copy.getPrimitives();
+    List<rosidl_generator_java.msg.Primitives> unboundedCopy = copy.getUnboundedPrimitives();
+    rosidl_generator_java.msg.Primitives elementCopy = unboundedCopy.get(0);
+    primitives.setInt32Value(-12345);
+    source.setUnboundedPrimitives(
+        Arrays.asList(new rosidl_generator_java.msg.Primitives[] {primitives}));
+    copy.copyFrom(source);
+    assertEquals(source, copy);
+    assertSame(nestedCopy, copy.getPrimitives());
+    assertSame(unboundedCopy, copy.getUnboundedPrimitives());
+    assertSame(elementCopy, copy.getUnboundedPrimitives().get(0));
+    assertEquals(1, copy.getUnboundedPrimitives().size());
+    assertEquals(-12345, copy.getUnboundedPrimitives().get(0).getInt32Value());
+  }
+
+  @Test
+  public final void testUtf8Strings() {
+    // A non-BMP character is encoded as four bytes in UTF-8
+    String value = "caf\u00e9 \ud83d\ude00";
+    byte[] expected = value.getBytes(Charset.forName("UTF-8"));
+    assertEquals(10, expected.length);
+
+    rosidl_generator_java.msg.Strings strings = new rosidl_generator_java.msg.Strings();
+    strings.setEmptyString(value);
+    assertArrayEquals(expected, strings.getEmptyStringUtf8());
+
+    rosidl_generator_java.msg.Strings other = new rosidl_generator_java.msg.Strings();
+    other.setEmptyStringUtf8(expected);
+    assertEquals(value, other.getEmptyString());
+    assertEquals(strings, other);
+    assertEquals(strings.hashCode(), other.hashCode());
+
+    CDRWriter writer = new CDRWriter();
+    other.serialize(writer);
+    rosidl_generator_java.msg.Strings decoded = new rosidl_generator_java.msg.Strings();
+    decoded.deserialize(new CDRReader(writer.getBuffer()));
+    assertArrayEquals(expected, decoded.getEmptyStringUtf8());
+    assertEquals(value, decoded.getEmptyString());
+
+    // Clearing a field through either setter reads back as null in both encodings
+    strings.setEmptyString(null);
+    assertNull(strings.getEmptyString());
+    assertNull(strings.getEmptyStringUtf8());
+    other.setEmptyStringUtf8(null);
+    assertNull(other.getEmptyStringUtf8());
+    assertNull(other.getEmptyString());
+    // Bounded fields are only checked against their bound when they are set
+    strings.setUbStringUtf8(null);
+    assertNull(strings.getUbString());
+
+    thrown.expect(IllegalArgumentException.class);
+    strings.setUbStringUtf8(new byte[23]);
+  }
 }